@@ -1,5 +1,6 @@
 module uk.ac.soton.comp1206 {
     requires java.scripting;
+    requires static jdk.incubator.vector;
     requires javafx.controls;
     requires javafx.fxml;
     requires javafx.media;
@@ -13,4 +14,9 @@ module uk.ac.soton.comp1206 {
     exports uk.ac.soton.comp1206.event;
     exports uk.ac.soton.comp1206.component;
     exports uk.ac.soton.comp1206.game;
+    exports uk.ac.soton.comp1206.engine;
+    exports uk.ac.soton.comp1206.bot;
+    exports uk.ac.soton.comp1206.puzzle;
+    exports uk.ac.soton.comp1206.tools;
+    uses uk.ac.soton.comp1206.engine.RuleSet;
 }
\ No newline at end of file
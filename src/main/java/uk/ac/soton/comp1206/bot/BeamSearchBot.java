@@ -0,0 +1,463 @@
+package uk.ac.soton.comp1206.bot;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+import uk.ac.soton.comp1206.engine.GameEngine;
+import uk.ac.soton.comp1206.engine.GameState;
+import uk.ac.soton.comp1206.engine.MoveGenerator;
+import uk.ac.soton.comp1206.engine.RuleTable;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.PlacementTable;
+import uk.ac.soton.comp1206.game.Zobrist;
+
+/**
+ * The BeamSearchBot chooses moves by beam search over the pieces it can see: the current, next and following pieces.
+ *
+ * Each ply plays every legal move of every board in the beam, on occupancy words, and keeps only the best boards
+ * (by points scored plus the BoardEvaluator's judgement) for the next ply. The first move on the path to the best board
+ * found is the one chosen. The moves of the boards in a beam are tried in parallel on a ForkJoinPool.
+ *
+ * The search stops early when its time budget runs out, using the deepest ply it finished. The first ply is always
+ * finished so there is always a move when one exists, so the budget can be overrun by the time it takes: playing every
+ * move of a single board, at most a few hundred placements on a board of up to 64 blocks, which is microseconds.
+ * Later plies check the deadline before every board they expand.
+ *
+ * Many orders of moves lead to the same position, so every position reached is recorded in a TranspositionTable shared
+ * by the search threads, and a position already reached at the same ply with at least as good a value is dropped
+ * rather than taking up another place in the beam. On square boards, rotations and reflections of a position count
+ * as the same position.
+ *
+ * Searches work on GameState snapshots, so they can run on any thread while the game carries on.
+ */
+public class BeamSearchBot implements Bot {
+
+    /**
+     * The beam width used when none is given
+     */
+    public static final int DEFAULT_BEAM_WIDTH = 32;
+
+    /**
+     * The time budget per move used when none is given, in milliseconds
+     */
+    public static final long DEFAULT_TIME_BUDGET = 50;
+
+    /**
+     * The most plies searched: one for each piece the player can see
+     */
+    private static final int MAX_PLIES = 3;
+
+    /**
+     * The fewest boards one task expands before the rest are split off to other tasks
+     */
+    private static final int SPLIT_THRESHOLD = 4;
+
+    /**
+     * The number of entries in the transposition table
+     */
+    private static final int TABLE_ENTRIES = 1 << 16;
+
+    /**
+     * The weights used to judge boards
+     */
+    private final Heuristic heuristic;
+
+    /**
+     * The number of boards kept after each ply
+     */
+    private final int beamWidth;
+
+    /**
+     * The time budget per move, in nanoseconds
+     */
+    private final long timeBudget;
+
+    /**
+     * The pool the moves of each ply are tried on
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The positions reached by searches, shared by every search thread
+     */
+    private final TranspositionTable seen = new TranspositionTable(TABLE_ENTRIES);
+
+    /**
+     * The number of searches started, which salts the keys of each search and ply so that entries left by earlier
+     * ones never match
+     */
+    private final AtomicLong searches = new AtomicLong();
+
+    /**
+     * Whether the first move may swap in the following piece
+     */
+    private final boolean swaps;
+
+    /**
+     * The evaluator for the size of board last searched
+     */
+    private volatile BoardEvaluator evaluator;
+
+    /**
+     * Create a new bot with the tuned heuristic (see Heuristic.load), default beam width and time budget, using the
+     * common pool
+     */
+    public BeamSearchBot() {
+        this(Heuristic.load(), DEFAULT_BEAM_WIDTH, DEFAULT_TIME_BUDGET, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Create a new bot
+     * @param heuristic the weights used to judge boards
+     * @param beamWidth the number of boards kept after each ply
+     * @param timeBudget the time budget per move, in milliseconds
+     * @param pool the pool the search runs on
+     */
+    public BeamSearchBot(Heuristic heuristic, int beamWidth, long timeBudget, ForkJoinPool pool) {
+        this(heuristic, beamWidth, timeBudget, pool, true);
+    }
+
+    /**
+     * Create a new bot
+     * @param heuristic the weights used to judge boards
+     * @param beamWidth the number of boards kept after each ply
+     * @param timeBudget the time budget per move, in milliseconds
+     * @param pool the pool the search runs on
+     * @param swaps whether the move chosen may swap in the following piece, or must play the current piece
+     */
+    public BeamSearchBot(Heuristic heuristic, int beamWidth, long timeBudget, ForkJoinPool pool, boolean swaps) {
+        if (beamWidth <= 0) {
+            throw new IllegalArgumentException("Beam width must be positive: " + beamWidth);
+        }
+        this.heuristic = heuristic;
+        this.beamWidth = beamWidth;
+        this.timeBudget = TimeUnit.MILLISECONDS.toNanos(timeBudget);
+        this.pool = pool;
+        this.swaps = swaps;
+    }
+
+    @Override
+    public int chooseMove(GameState state) {
+        return chooseMove(state, null);
+    }
+
+    /**
+     * Choose the best move for a game, reporting the best move so far after every ply, so a caller always has an
+     * answer if it cannot wait for the whole search. Interrupting the searching thread stops the search after the
+     * ply in progress, like running out of time.
+     * @param state a snapshot of the game
+     * @param progress called with the best move so far after each ply, or null
+     * @return the move packed by MoveGenerator.pack, with SLOT_CURRENT, or SLOT_FOLLOWING if the bot swaps, or NO_MOVE
+     */
+    public int chooseMove(GameState state, IntConsumer progress) {
+        long deadline = System.nanoTime() + timeBudget;
+        BoardEvaluator evaluator = evaluatorFor(state.getRules());
+        int perBoard = 2 * GamePiece.ROTATIONS * state.getCols() * state.getRows();
+
+        Beam beam = new Beam(1, 1);
+        beam.occupied[0] = state.getOccupied();
+        beam.hash[0] = Zobrist.hash(state.getOccupied());
+        beam.multiplier[0] = state.getMultiplier();
+        beam.current[0] = state.getCurrentShape();
+        beam.next[0] = state.getNextShape();
+        beam.following[0] = state.getFollowingShape();
+        beam.first[0] = NO_MOVE;
+        beam.size = 1;
+
+        long search = searches.incrementAndGet();
+        int best = NO_MOVE;
+        for (int ply = 0; ply < MAX_PLIES; ply++) {
+            long plyDeadline = ply == 0 ? Long.MAX_VALUE : deadline;
+            if (System.nanoTime() > plyDeadline || (ply > 0 && Thread.currentThread().isInterrupted())) {
+                break;
+            }
+
+            Beam candidates = new Beam(beam.size * perBoard, beam.size);
+            long salt = Zobrist.salt(search * MAX_PLIES + ply);
+            Expand expand = new Expand(evaluator, seen, salt, beam, candidates, perBoard, ply, 0, beam.size,
+                plyDeadline, swaps);
+            pool.invoke(expand);
+            if (candidates.aborted) {
+                break;
+            }
+
+            Beam kept = select(candidates, perBoard, beam.size);
+            if (kept.size == 0) {
+                break;
+            }
+            best = kept.first[0];
+            beam = kept;
+            if (progress != null) {
+                progress.accept(best);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Keep the best candidates, best first, breaking ties by the order they were generated in so searches are
+     * repeatable
+     * @param candidates every candidate, board b's written from b * perBoard
+     * @param perBoard the space given to each board's candidates
+     * @param boards the number of boards expanded
+     * @return the new beam
+     */
+    private Beam select(Beam candidates, int perBoard, int boards) {
+        int[] best = new int[beamWidth];
+        int size = 0;
+        double[] value = candidates.value;
+
+        for (int board = 0; board < boards; board++) {
+            int end = board * perBoard + candidates.counts[board];
+            for (int candidate = board * perBoard; candidate < end; candidate++) {
+                if (size == beamWidth && value[candidate] <= value[best[size - 1]]) {
+                    continue;
+                }
+                int position = size < beamWidth ? size++ : beamWidth - 1;
+                while (position > 0 && value[candidate] > value[best[position - 1]]) {
+                    best[position] = best[position - 1];
+                    position--;
+                }
+                best[position] = candidate;
+            }
+        }
+
+        Beam kept = new Beam(size, 0);
+        for (int i = 0; i < size; i++) {
+            kept.copy(i, candidates, best[i]);
+        }
+        kept.size = size;
+        return kept;
+    }
+
+    /**
+     * Get the evaluator for a game's rules, building a new one if the rules have changed
+     */
+    private BoardEvaluator evaluatorFor(RuleTable rules) {
+        BoardEvaluator current = evaluator;
+        if (current == null || current.getRules() != rules) {
+            current = new BoardEvaluator(rules, heuristic);
+            evaluator = current;
+        }
+        return current;
+    }
+
+    public Heuristic getHeuristic() {
+        return heuristic;
+    }
+
+    public int getBeamWidth() {
+        return beamWidth;
+    }
+
+    /**
+     * Check whether the move chosen may swap in the following piece
+     * @return true if it may, false if the current piece is always played
+     */
+    public boolean isSwapping() {
+        return swaps;
+    }
+
+    /**
+     * Get the time budget per move
+     * @return the time budget, in milliseconds
+     */
+    public long getTimeBudget() {
+        return TimeUnit.NANOSECONDS.toMillis(timeBudget);
+    }
+
+    /**
+     * A beam of boards, held as parallel arrays. Pieces in the queue are shape numbers, or GameEngine.EMPTY when they
+     * are not known yet.
+     */
+    private static class Beam {
+        final long[] occupied;
+
+        /**
+         * The Zobrist hash of each board
+         */
+        final long[] hash;
+
+        final int[] points;
+        final int[] multiplier;
+        final int[] current;
+        final int[] next;
+        final int[] following;
+
+        /**
+         * The first move on the path to each board
+         */
+        final int[] first;
+
+        /**
+         * The points scored on the path to each board plus the judgement of the board itself
+         */
+        final double[] value;
+
+        /**
+         * The number of candidates written for each board of the previous beam
+         */
+        final int[] counts;
+
+        int size;
+
+        /**
+         * Whether an expansion ran out of time, leaving this beam incomplete
+         */
+        volatile boolean aborted;
+
+        Beam(int capacity, int boards) {
+            occupied = new long[capacity];
+            hash = new long[capacity];
+            points = new int[capacity];
+            multiplier = new int[capacity];
+            current = new int[capacity];
+            next = new int[capacity];
+            following = new int[capacity];
+            first = new int[capacity];
+            value = new double[capacity];
+            counts = new int[boards];
+        }
+
+        void copy(int to, Beam from, int index) {
+            occupied[to] = from.occupied[index];
+            hash[to] = from.hash[index];
+            points[to] = from.points[index];
+            multiplier[to] = from.multiplier[index];
+            current[to] = from.current[index];
+            next[to] = from.next[index];
+            following[to] = from.following[index];
+            first[to] = from.first[index];
+            value[to] = from.value[index];
+        }
+    }
+
+    /**
+     * Plays every legal move of a range of boards in a beam, splitting the range across the pool
+     */
+    private static class Expand extends RecursiveAction {
+        private final BoardEvaluator evaluator;
+        private final TranspositionTable seen;
+        private final long salt;
+        private final Beam beam;
+        private final Beam candidates;
+        private final int perBoard;
+        private final int ply;
+        private final int from;
+        private final int to;
+        private final long deadline;
+        private final boolean swaps;
+
+        Expand(BoardEvaluator evaluator, TranspositionTable seen, long salt, Beam beam, Beam candidates, int perBoard,
+               int ply, int from, int to, long deadline, boolean swaps) {
+            this.evaluator = evaluator;
+            this.seen = seen;
+            this.salt = salt;
+            this.beam = beam;
+            this.candidates = candidates;
+            this.perBoard = perBoard;
+            this.ply = ply;
+            this.from = from;
+            this.to = to;
+            this.deadline = deadline;
+            this.swaps = swaps;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SPLIT_THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                invokeAll(
+                    new Expand(evaluator, seen, salt, beam, candidates, perBoard, ply, from, middle, deadline, swaps),
+                    new Expand(evaluator, seen, salt, beam, candidates, perBoard, ply, middle, to, deadline, swaps));
+                return;
+            }
+
+            int[] moves = new int[perBoard];
+            for (int board = from; board < to; board++) {
+                if (candidates.aborted) {
+                    return;
+                }
+                if (System.nanoTime() > deadline) {
+                    candidates.aborted = true;
+                    return;
+                }
+                expand(board, moves);
+            }
+        }
+
+        /**
+         * Play every legal move of one board, writing the results from board * perBoard
+         */
+        private void expand(int board, int[] moves) {
+            PlacementTable table = evaluator.getTable();
+            long occupied = beam.occupied[board];
+            int current = beam.current[board];
+            int following = beam.following[board];
+            if (current == GameEngine.EMPTY) {
+                return;
+            }
+
+            int count = MoveGenerator.generate(table, occupied, current / GamePiece.ROTATIONS,
+                MoveGenerator.SLOT_CURRENT, moves, 0);
+            // Only the first ply knows the following piece, so only the first move can swap
+            if (swaps && following != GameEngine.EMPTY
+                && following / GamePiece.ROTATIONS != current / GamePiece.ROTATIONS) {
+                count = MoveGenerator.generate(table, occupied, following / GamePiece.ROTATIONS,
+                    MoveGenerator.SLOT_FOLLOWING, moves, count);
+            }
+
+            int cols = table.getCols();
+            double scoreWeight = evaluator.getHeuristic().getScore();
+            int base = board * perBoard;
+            int written = 0;
+            for (int i = 0; i < count; i++) {
+                int move = moves[i];
+                int anchor = MoveGenerator.y(move) * cols + MoveGenerator.x(move);
+                long placed = occupied | table.mask(MoveGenerator.shape(move), anchor);
+                long hash = beam.hash[board] ^ table.hash(MoveGenerator.shape(move), anchor);
+
+                // Clear and score any full lines, by the same rules as the engine
+                int multiplier = beam.multiplier[board];
+                int points = beam.points[board];
+                int lines = 0;
+                long cleared = evaluator.fullLineBlocks(placed);
+                if (cleared != 0) {
+                    lines = evaluator.countFullLines(placed);
+                    points += evaluator.points(lines, Long.bitCount(cleared), multiplier);
+                    placed &= ~cleared;
+                    hash ^= Zobrist.hash(cleared);
+                }
+                multiplier = evaluator.nextMultiplier(multiplier, lines);
+
+                // Move the queue along: a swapped move leaves the current piece in the following slot
+                int nextCurrent = beam.next[board];
+                int nextNext = MoveGenerator.slot(move) == MoveGenerator.SLOT_FOLLOWING ? current : following;
+                double value = scoreWeight * points + evaluator.evaluate(placed, multiplier);
+
+                // Drop positions already reached at this ply at least as well, in any rotation or reflection
+                long key = salt
+                    ^ evaluator.positionKey(placed, hash, nextCurrent, nextNext, GameEngine.EMPTY, multiplier);
+                long entry = seen.probe(key);
+                if (entry != TranspositionTable.MISS && TranspositionTable.value(entry) >= (float) value) {
+                    continue;
+                }
+                seen.store(key, TranspositionTable.pack((float) value, ply, move));
+
+                int index = base + written++;
+                candidates.occupied[index] = placed;
+                candidates.hash[index] = hash;
+                candidates.points[index] = points;
+                candidates.multiplier[index] = multiplier;
+                candidates.current[index] = nextCurrent;
+                candidates.next[index] = nextNext;
+                candidates.following[index] = GameEngine.EMPTY;
+                candidates.first[index] = ply == 0 ? move : beam.first[board];
+                candidates.value[index] = value;
+            }
+            candidates.counts[board] = written;
+        }
+    }
+}
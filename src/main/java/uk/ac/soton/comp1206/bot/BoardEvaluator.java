@@ -0,0 +1,300 @@
+package uk.ac.soton.comp1206.bot;
+
+import uk.ac.soton.comp1206.engine.RuleTable;
+import uk.ac.soton.comp1206.engine.Symmetry;
+import uk.ac.soton.comp1206.engine.Tablebase;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.PlacementTable;
+import uk.ac.soton.comp1206.game.Zobrist;
+
+/**
+ * The BoardEvaluator plays moves and judges boards held as BitGrid occupancy words, so that searches can try
+ * thousands of moves without touching a real grid. Moves are scored, and the multiplier carried forward, by the
+ * RuleTable of the game being searched, so bots play variants by their own rules.
+ *
+ * Boards are judged by a Heuristic from a few features: open lines, holes, near-complete lines, occupied blocks and
+ * the multiplier being carried forward. An evaluator holds no state of its own once built, so one can be shared by
+ * every search thread.
+ *
+ * Every feature looks the same from any rotation or reflection of a board, so on square boards positions are keyed by
+ * their canonical Symmetry hash: caches then hold a single entry for all 8 versions of a position.
+ *
+ * Whether a piece can still be played on a board is looked up in the Tablebase for the board size when there is one,
+ * and worked out from the placement table when there is not.
+ */
+public class BoardEvaluator {
+
+    /**
+     * The placement table for the size of board being evaluated
+     */
+    private final PlacementTable table;
+
+    /**
+     * The weights applied to each feature
+     */
+    private final Heuristic heuristic;
+
+    /**
+     * The rules moves are scored by
+     */
+    private final RuleTable rules;
+
+    private final int cols;
+    private final int rows;
+
+    /**
+     * The mask of every row, then every column
+     */
+    private final long[] lines;
+
+    /**
+     * The mask of every block on the board
+     */
+    private final long boardMask;
+
+    /**
+     * The mask of the blocks next to every block, inside the board
+     */
+    private final long[] neighbours;
+
+    /**
+     * The symmetries of the board, or null if it is not square
+     */
+    private final Symmetry symmetry;
+
+    /**
+     * The tablebase for the size of board, or null if there is none
+     */
+    private final Tablebase tablebase;
+
+    /**
+     * Create a new evaluator for boards of the given size under the standard rules, using the tablebase in the
+     * working directory if there is one for that size
+     * @param cols number of columns
+     * @param rows number of rows
+     * @param heuristic the weights applied to each feature
+     */
+    public BoardEvaluator(int cols, int rows, Heuristic heuristic) {
+        this(RuleTable.standard(cols, rows), heuristic);
+    }
+
+    /**
+     * Create a new evaluator for boards of the given size under the standard rules
+     * @param cols number of columns
+     * @param rows number of rows
+     * @param heuristic the weights applied to each feature
+     * @param tablebase the tablebase for the size of board, or null to work out which pieces fit without one
+     */
+    public BoardEvaluator(int cols, int rows, Heuristic heuristic, Tablebase tablebase) {
+        this(RuleTable.standard(cols, rows), heuristic, tablebase);
+    }
+
+    /**
+     * Create a new evaluator for a game's rules, on the board size of the rules, using the tablebase in the working
+     * directory if there is one for that size
+     * @param rules the compiled rules
+     * @param heuristic the weights applied to each feature
+     */
+    public BoardEvaluator(RuleTable rules, Heuristic heuristic) {
+        this(rules, heuristic, Tablebase.find(rules.getCols(), rules.getRows()));
+    }
+
+    /**
+     * Create a new evaluator for a game's rules, on the board size of the rules
+     * @param rules the compiled rules
+     * @param heuristic the weights applied to each feature
+     * @param tablebase the tablebase for the size of board, or null to work out which pieces fit without one
+     */
+    public BoardEvaluator(RuleTable rules, Heuristic heuristic, Tablebase tablebase) {
+        int cols = rules.getCols();
+        int rows = rules.getRows();
+        if (tablebase != null && (tablebase.getCols() != cols || tablebase.getRows() != rows)) {
+            throw new IllegalArgumentException("A " + tablebase.getCols() + "x" + tablebase.getRows()
+                + " tablebase does not fit a " + cols + "x" + rows + " board");
+        }
+        this.table = PlacementTable.forSize(cols, rows);
+        this.heuristic = heuristic;
+        this.rules = rules;
+        this.tablebase = tablebase;
+        this.cols = cols;
+        this.rows = rows;
+
+        lines = new long[rows + cols];
+        long all = 0;
+        for (int y = 0; y < rows; y++) {
+            lines[y] = table.rowMask(y);
+            all |= lines[y];
+        }
+        boardMask = all;
+        for (int x = 0; x < cols; x++) {
+            lines[rows + x] = table.colMask(x);
+        }
+
+        symmetry = cols == rows ? Symmetry.forSize(cols) : null;
+
+        neighbours = new long[cols * rows];
+        for (int y = 0; y < rows; y++) {
+            for (int x = 0; x < cols; x++) {
+                long mask = 0;
+                if (x > 0) mask |= 1L << (y * cols + x - 1);
+                if (x < cols - 1) mask |= 1L << (y * cols + x + 1);
+                if (y > 0) mask |= 1L << ((y - 1) * cols + x);
+                if (y < rows - 1) mask |= 1L << ((y + 1) * cols + x);
+                neighbours[y * cols + x] = mask;
+            }
+        }
+    }
+
+    /**
+     * Get the blocks of every full row and column of a board
+     * @param occupied the occupancy word
+     * @return the mask of blocks that would be cleared, 0 if there are no full lines
+     */
+    public long fullLineBlocks(long occupied) {
+        long cleared = 0;
+        for (long line : lines) {
+            if ((occupied & line) == line) {
+                cleared |= line;
+            }
+        }
+        return cleared;
+    }
+
+    /**
+     * Count the full rows and columns of a board
+     * @param occupied the occupancy word
+     * @return the number of full lines
+     */
+    public int countFullLines(long occupied) {
+        int count = 0;
+        for (long line : lines) {
+            if ((occupied & line) == line) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Check whether a piece can be played anywhere on a board, in any rotation
+     * @param occupied the occupancy word
+     * @param piece piece number
+     * @return true if the piece fits somewhere
+     */
+    public boolean canPlay(long occupied, int piece) {
+        if (tablebase != null) {
+            return tablebase.canPlay(occupied, piece);
+        }
+        for (int shape = piece * GamePiece.ROTATIONS; shape < (piece + 1) * GamePiece.ROTATIONS; shape++) {
+            if (table.legalAnchors(occupied, shape, table.onBoard(shape)) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Work out the points scored for a move, by the rules of the game
+     * @param lineCount number of lines cleared
+     * @param blockCount number of blocks cleared
+     * @param multiplier the multiplier before the move
+     * @return the points scored
+     */
+    public int points(int lineCount, int blockCount, int multiplier) {
+        return rules.points(lineCount, blockCount) * multiplier;
+    }
+
+    /**
+     * Work out the multiplier after a move, by the rules of the game
+     * @param multiplier the multiplier before the move
+     * @param lineCount number of lines cleared, 0 for a miss
+     * @return the multiplier carried into the next move
+     */
+    public int nextMultiplier(int multiplier, int lineCount) {
+        return rules.nextMultiplier(multiplier, lineCount);
+    }
+
+    /**
+     * Judge a board by the heuristic, not counting any points already scored
+     * @param occupied the occupancy word, with full lines already cleared
+     * @param multiplier the multiplier carried into the next move
+     * @return the value of the board, higher is better
+     */
+    public double evaluate(long occupied, int multiplier) {
+        int open = 0;
+        int near = 0;
+        for (long line : lines) {
+            int count = Long.bitCount(occupied & line);
+            int length = Long.bitCount(line);
+            if (count == 0) {
+                open++;
+            } else if (count >= length - 2 && count < length) {
+                near++;
+            }
+        }
+
+        int holes = 0;
+        for (long empty = ~occupied & boardMask; empty != 0; empty &= empty - 1) {
+            int block = Long.numberOfTrailingZeros(empty);
+            if ((occupied & neighbours[block]) == neighbours[block]) {
+                holes++;
+            }
+        }
+
+        return heuristic.getOpenLines() * open
+            + heuristic.getNearComplete() * near
+            + heuristic.getHoles() * holes
+            + heuristic.getFilled() * Long.bitCount(occupied)
+            + heuristic.getMultiplier() * (multiplier - 1);
+    }
+
+    /**
+     * Get the key of a position for caches and transposition tables. On square boards every rotation and reflection
+     * of a position has the same key.
+     * @param occupied the occupancy word
+     * @param hash the Zobrist hash of the occupancy
+     * @param current shape number of the current piece, or GameEngine.EMPTY
+     * @param next shape number of the next piece, or GameEngine.EMPTY
+     * @param following shape number of the following piece, or GameEngine.EMPTY
+     * @param multiplier the multiplier
+     * @return the key
+     */
+    public long positionKey(long occupied, long hash, int current, int next, int following, int multiplier) {
+        if (symmetry == null) {
+            return Zobrist.state(hash, current, next, following, multiplier);
+        }
+        return symmetry.canonicalHash(occupied, current, next, following, multiplier);
+    }
+
+    /**
+     * Get the placement table for the size of board being evaluated
+     * @return the placement table
+     */
+    public PlacementTable getTable() {
+        return table;
+    }
+
+    /**
+     * Get the weights applied to each feature
+     * @return the heuristic
+     */
+    public Heuristic getHeuristic() {
+        return heuristic;
+    }
+
+    /**
+     * Get the rules moves are scored by
+     * @return the compiled rules
+     */
+    public RuleTable getRules() {
+        return rules;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+}
@@ -0,0 +1,38 @@
+package uk.ac.soton.comp1206.bot;
+
+import uk.ac.soton.comp1206.engine.GameEngine;
+import uk.ac.soton.comp1206.engine.GameState;
+
+/**
+ * A Bot is a computer player: given a snapshot of a game it chooses a move, packed by the MoveGenerator.
+ *
+ * Bots search snapshots rather than the game itself, so they can think on any thread while the game carries on.
+ */
+public interface Bot {
+
+    /**
+     * The value chooseMove returns when there is no legal move
+     */
+    int NO_MOVE = -1;
+
+    /**
+     * Choose the best move for a game
+     * @param state a snapshot of the game
+     * @return the move packed by MoveGenerator.pack, with SLOT_CURRENT or SLOT_FOLLOWING, or NO_MOVE
+     */
+    int chooseMove(GameState state);
+
+    /**
+     * Play one turn of an engine headlessly: play the chosen move or, if there is no legal move, let the piece
+     * time out
+     * @param engine the engine
+     * @return true if the game carries on
+     */
+    default boolean playTurn(GameEngine engine) {
+        int move = chooseMove(engine.snapshot());
+        if (move == NO_MOVE) {
+            return engine.tick();
+        }
+        return engine.playMove(move);
+    }
+}
@@ -0,0 +1,65 @@
+package uk.ac.soton.comp1206.bot;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * The BotRegistry names every bot strategy that can play the standard 5x5 game headlessly, so that tools such as the
+ * BotTournament can find them by name. Each entry makes a new bot, so every thread can have its own.
+ *
+ * The searching bots are registered with small budgets, so that whole games take seconds rather than minutes.
+ */
+public class BotRegistry {
+
+    /**
+     * The time budget per move of the registered searching bots, in milliseconds
+     */
+    public static final long SEARCH_BUDGET = 2;
+
+    private static final Map<String, Supplier<Bot>> bots = new LinkedHashMap<>();
+
+    static {
+        register("greedy-default", () -> new GreedyBot(5, 5, Heuristic.DEFAULT));
+        register("greedy", () -> new GreedyBot(5, 5, Heuristic.load()));
+        register("beam", () -> new BeamSearchBot(Heuristic.load(), 8, SEARCH_BUDGET, ForkJoinPool.commonPool()));
+        register("mcts", () -> new MctsBot(Heuristic.load(), 1 << 12, SEARCH_BUDGET, 1, true,
+            ForkJoinPool.commonPool()));
+    }
+
+    private BotRegistry() {
+    }
+
+    /**
+     * Register a bot strategy, replacing any registered under the same name
+     * @param name the name
+     * @param factory makes a new bot
+     */
+    public static synchronized void register(String name, Supplier<Bot> factory) {
+        bots.put(name, factory);
+    }
+
+    /**
+     * Make a new bot of a registered strategy
+     * @param name the name
+     * @return the bot
+     */
+    public static synchronized Bot create(String name) {
+        Supplier<Bot> factory = bots.get(name);
+        if (factory == null) {
+            throw new IllegalArgumentException("Unknown bot: " + name + ", expected one of " + bots.keySet());
+        }
+        return factory.get();
+    }
+
+    /**
+     * Get the names of every registered strategy, in the order they were registered
+     * @return the names
+     */
+    public static synchronized List<String> getNames() {
+        return new ArrayList<>(bots.keySet());
+    }
+}
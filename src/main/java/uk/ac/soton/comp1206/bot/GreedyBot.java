@@ -0,0 +1,139 @@
+package uk.ac.soton.comp1206.bot;
+
+import uk.ac.soton.comp1206.engine.GameEngine;
+import uk.ac.soton.comp1206.engine.GameState;
+import uk.ac.soton.comp1206.engine.MoveGenerator;
+import uk.ac.soton.comp1206.engine.RuleTable;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.PlacementTable;
+
+/**
+ * The GreedyBot looks one move ahead: it plays whichever move of the current or following piece leaves the board the
+ * Heuristic likes best, counting the points scored on the way.
+ *
+ * It is far weaker than the searching bots, but a move takes microseconds and playing a turn of an engine allocates
+ * nothing, so it suits playing millions of headless games, such as when tuning weights. A GreedyBot reuses one array
+ * of moves, so each thread needs its own.
+ *
+ * Moves are scored by the rules of the game being played, taken from the snapshot or engine; the bot sets itself up
+ * again whenever they differ from the last game's.
+ */
+public class GreedyBot implements Bot {
+
+    private BoardEvaluator evaluator;
+
+    /**
+     * The moves of the position being judged
+     */
+    private int[] moves;
+
+    /**
+     * Create a new bot for boards of the given size, set up for the standard rules
+     * @param cols number of columns
+     * @param rows number of rows
+     * @param heuristic the weights used to judge boards
+     */
+    public GreedyBot(int cols, int rows, Heuristic heuristic) {
+        this(RuleTable.standard(cols, rows), heuristic);
+    }
+
+    /**
+     * Create a new bot set up for a game's rules
+     * @param rules the compiled rules
+     * @param heuristic the weights used to judge boards
+     */
+    public GreedyBot(RuleTable rules, Heuristic heuristic) {
+        this.evaluator = new BoardEvaluator(rules, heuristic);
+        this.moves = new int[MoveGenerator.maxMoves(rules.getCols(), rules.getRows())];
+    }
+
+    @Override
+    public int chooseMove(GameState state) {
+        useRules(state.getRules());
+        return chooseMove(state.getOccupied(), state.getCurrentShape(), state.getFollowingShape(),
+            state.getMultiplier());
+    }
+
+    /**
+     * Play one turn of an engine without taking a snapshot of it
+     * @param engine the engine
+     * @return true if the game carries on
+     */
+    @Override
+    public boolean playTurn(GameEngine engine) {
+        useRules(engine.getRules());
+        int move = chooseMove(engine.getGrid().getOccupied(), engine.getCurrentShape(), engine.getFollowingShape(),
+            engine.getMultiplier());
+        if (move == NO_MOVE) {
+            return engine.tick();
+        }
+        return engine.playMove(move);
+    }
+
+    /**
+     * Set the bot up for a game's rules, if it is not already
+     */
+    private void useRules(RuleTable rules) {
+        if (evaluator.getRules() != rules) {
+            evaluator = new BoardEvaluator(rules, evaluator.getHeuristic());
+            moves = new int[MoveGenerator.maxMoves(rules.getCols(), rules.getRows())];
+        }
+    }
+
+    /**
+     * Choose the move leaving the best board
+     * @param occupied the occupancy word
+     * @param current shape number of the current piece, or GameEngine.EMPTY
+     * @param following shape number of the following piece, or GameEngine.EMPTY
+     * @param multiplier the multiplier
+     * @return the move, or NO_MOVE
+     */
+    private int chooseMove(long occupied, int current, int following, int multiplier) {
+        if (current == GameEngine.EMPTY) {
+            return NO_MOVE;
+        }
+        PlacementTable table = evaluator.getTable();
+        int count = MoveGenerator.generate(table, occupied, current / GamePiece.ROTATIONS,
+            MoveGenerator.SLOT_CURRENT, moves, 0);
+        if (following != GameEngine.EMPTY && following / GamePiece.ROTATIONS != current / GamePiece.ROTATIONS) {
+            count = MoveGenerator.generate(table, occupied, following / GamePiece.ROTATIONS,
+                MoveGenerator.SLOT_FOLLOWING, moves, count);
+        }
+
+        int cols = table.getCols();
+        double scoreWeight = evaluator.getHeuristic().getScore();
+        int best = NO_MOVE;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            long placed = occupied | table.mask(MoveGenerator.shape(move),
+                MoveGenerator.y(move) * cols + MoveGenerator.x(move));
+
+            // Clear and score any full lines, by the same rules as the engine
+            int points = 0;
+            int lines = 0;
+            long cleared = evaluator.fullLineBlocks(placed);
+            if (cleared != 0) {
+                lines = evaluator.countFullLines(placed);
+                points = evaluator.points(lines, Long.bitCount(cleared), multiplier);
+                placed &= ~cleared;
+            }
+            int next = evaluator.nextMultiplier(multiplier, lines);
+
+            double value = scoreWeight * points + evaluator.evaluate(placed, next);
+            if (value > bestValue) {
+                bestValue = value;
+                best = move;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Get the weights used to judge boards
+     * @return the heuristic
+     */
+    public Heuristic getHeuristic() {
+        return evaluator.getHeuristic();
+    }
+}
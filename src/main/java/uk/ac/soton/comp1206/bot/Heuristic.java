@@ -0,0 +1,190 @@
+package uk.ac.soton.comp1206.bot;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+/**
+ * The Heuristic holds the weights a bot uses to judge a board. Each feature of a board (see BoardEvaluator) is
+ * multiplied by its weight and the results added up, along with the points scored on the way there.
+ *
+ * Positive weights reward a feature and negative weights penalise it.
+ *
+ * Weights can be saved to and loaded from a properties file, one property per weight. The bots load tuned weights
+ * from FILE, in the working directory, when it exists (see HeuristicTuner).
+ */
+public class Heuristic {
+
+    /**
+     * The weights used when no others are given
+     */
+    public static final Heuristic DEFAULT = new Heuristic(1.0, 12.0, -40.0, 6.0, 25.0, -2.0);
+
+    /**
+     * The file the bots load tuned weights from
+     */
+    public static final String FILE = "heuristic.properties";
+
+    /**
+     * The names of the weights, in the order of toArray
+     */
+    public static final String[] NAMES = {"score", "openLines", "holes", "nearComplete", "multiplier", "filled"};
+
+    /**
+     * The weight of every point scored
+     */
+    private final double score;
+
+    /**
+     * The weight of every row or column with no blocks in it
+     */
+    private final double openLines;
+
+    /**
+     * The weight of every hole: an empty block boxed in on all sides by blocks or the edge of the board
+     */
+    private final double holes;
+
+    /**
+     * The weight of every row or column one or two blocks short of being full
+     */
+    private final double nearComplete;
+
+    /**
+     * The weight of the multiplier carried into the next move, above 1
+     */
+    private final double multiplier;
+
+    /**
+     * The weight of every occupied block
+     */
+    private final double filled;
+
+    /**
+     * Create a new heuristic with the given weights
+     * @param score weight of every point scored
+     * @param openLines weight of every empty row or column
+     * @param holes weight of every boxed in empty block
+     * @param nearComplete weight of every row or column one or two blocks short of full
+     * @param multiplier weight of the multiplier above 1
+     * @param filled weight of every occupied block
+     */
+    public Heuristic(double score, double openLines, double holes, double nearComplete, double multiplier,
+                     double filled) {
+        this.score = score;
+        this.openLines = openLines;
+        this.holes = holes;
+        this.nearComplete = nearComplete;
+        this.multiplier = multiplier;
+        this.filled = filled;
+    }
+
+    /**
+     * Create a new heuristic from an array of weights
+     * @param weights the weights, in the order of NAMES
+     * @return the heuristic
+     */
+    public static Heuristic fromArray(double[] weights) {
+        if (weights.length != NAMES.length) {
+            throw new IllegalArgumentException("Expected " + NAMES.length + " weights, got " + weights.length);
+        }
+        return new Heuristic(weights[0], weights[1], weights[2], weights[3], weights[4], weights[5]);
+    }
+
+    /**
+     * Get the weights as an array
+     * @return the weights, in the order of NAMES
+     */
+    public double[] toArray() {
+        return new double[] {score, openLines, holes, nearComplete, multiplier, filled};
+    }
+
+    /**
+     * Load the tuned weights from FILE, or the default weights if there is no such file or it cannot be read
+     * @return the heuristic
+     */
+    public static Heuristic load() {
+        Path path = Paths.get(FILE);
+        if (!Files.exists(path)) {
+            return DEFAULT;
+        }
+        try {
+            return load(path);
+        } catch (IOException | IllegalArgumentException e) {
+            // Headless tools load weights too, without logging on the class path, so fall back quietly
+            return DEFAULT;
+        }
+    }
+
+    /**
+     * Load weights from a properties file. Any weight missing from the file keeps its default value.
+     * @param path the file
+     * @return the heuristic
+     * @throws IOException if the file cannot be read
+     */
+    public static Heuristic load(Path path) throws IOException {
+        Properties props = new Properties();
+        try (InputStream in = Files.newInputStream(path)) {
+            props.load(in);
+        }
+        double[] weights = DEFAULT.toArray();
+        for (int i = 0; i < NAMES.length; i++) {
+            String value = props.getProperty(NAMES[i]);
+            if (value != null) {
+                weights[i] = Double.parseDouble(value);
+            }
+        }
+        return fromArray(weights);
+    }
+
+    /**
+     * Save the weights to a properties file
+     * @param path the file
+     * @param comment a comment written at the top of the file
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path path, String comment) throws IOException {
+        Properties props = new Properties();
+        double[] weights = toArray();
+        for (int i = 0; i < NAMES.length; i++) {
+            props.setProperty(NAMES[i], String.valueOf(weights[i]));
+        }
+        try (OutputStream out = Files.newOutputStream(path)) {
+            props.store(out, comment);
+        }
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public double getOpenLines() {
+        return openLines;
+    }
+
+    public double getHoles() {
+        return holes;
+    }
+
+    public double getNearComplete() {
+        return nearComplete;
+    }
+
+    public double getMultiplier() {
+        return multiplier;
+    }
+
+    public double getFilled() {
+        return filled;
+    }
+
+    @Override
+    public String toString() {
+        return "Heuristic[score=" + score + ", openLines=" + openLines + ", holes=" + holes
+            + ", nearComplete=" + nearComplete + ", multiplier=" + multiplier + ", filled=" + filled + "]";
+    }
+}
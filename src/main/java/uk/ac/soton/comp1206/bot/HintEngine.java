@@ -0,0 +1,145 @@
+package uk.ac.soton.comp1206.bot;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import uk.ac.soton.comp1206.engine.GameState;
+import uk.ac.soton.comp1206.event.HintListener;
+
+/**
+ * The HintEngine finds the best move for the player to make, in the background, within a time budget.
+ *
+ * The search is anytime: the best move so far is available from getBestSoFar as soon as the first ply is done, and is
+ * improved with each ply until the budget runs out. The first ply is always finished, which can overrun the budget by
+ * a few microseconds (see BeamSearchBot). A new request, or cancel, abandons the search in progress. An abandoned
+ * search can still be finishing its ply on the pool, so every request is numbered, and progress and results from
+ * any but the latest request are dropped.
+ *
+ * Hints only ever play the current piece. The player cannot see the following piece, so a hint which swapped it in
+ * would highlight a shape they are not holding.
+ *
+ * Searches run on a single background thread and deliver their result to a HintListener on that thread, so callers
+ * on the JavaFX thread should hand the result back with Platform.runLater.
+ */
+public class HintEngine {
+
+    /**
+     * The time budget used when none is given, in milliseconds: one frame at 60fps
+     */
+    public static final long DEFAULT_BUDGET = 16;
+
+    /**
+     * The search used to find hints
+     */
+    private final BeamSearchBot bot;
+
+    /**
+     * The background thread searches run on
+     */
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "HintEngine");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The search in progress, if any
+     */
+    private Future<?> running;
+
+    /**
+     * The best move found so far by the latest search
+     */
+    private volatile int bestSoFar = Bot.NO_MOVE;
+
+    /**
+     * The number of the latest request, moved on by every request and cancel
+     */
+    private long generation;
+
+    /**
+     * Create a new hint engine with the tuned heuristic (see Heuristic.load), default beam width and time budget
+     */
+    public HintEngine() {
+        this(new BeamSearchBot(Heuristic.load(), BeamSearchBot.DEFAULT_BEAM_WIDTH, DEFAULT_BUDGET,
+            ForkJoinPool.commonPool(), false));
+    }
+
+    /**
+     * Create a new hint engine using the given search, whose time budget is the hint budget
+     * @param bot the search, which must not swap
+     * @throws IllegalArgumentException if the search may choose a move which swaps in the following piece
+     */
+    public HintEngine(BeamSearchBot bot) {
+        if (bot.isSwapping()) {
+            throw new IllegalArgumentException("Hints must play the current piece, but the search may swap");
+        }
+        this.bot = bot;
+    }
+
+    /**
+     * Start looking for the best move in a position, abandoning any search in progress
+     * @param state a snapshot of the game
+     * @param listener called on the background thread with the best move found, unless the search is cancelled
+     */
+    public synchronized void requestHint(GameState state, HintListener listener) {
+        cancel();
+        bestSoFar = Bot.NO_MOVE;
+        long request = generation;
+        running = executor.submit(() -> {
+            int move = bot.chooseMove(state, best -> offer(request, best));
+            if (!Thread.currentThread().isInterrupted() && isLatest(request)) {
+                listener.onHint(move);
+            }
+        });
+    }
+
+    /**
+     * Record the best move so far of a search, unless a later request has replaced it
+     */
+    private synchronized void offer(long request, int best) {
+        if (request == generation) {
+            bestSoFar = best;
+        }
+    }
+
+    private synchronized boolean isLatest(long request) {
+        return request == generation;
+    }
+
+    /**
+     * Abandon the search in progress, if any. Its listener will not be called.
+     */
+    public synchronized void cancel() {
+        generation++;
+        if (running != null) {
+            running.cancel(true);
+            running = null;
+        }
+    }
+
+    /**
+     * Get the best move found so far by the latest search, which may still be running
+     * @return the move packed by MoveGenerator, or Bot.NO_MOVE if none has been found yet
+     */
+    public int getBestSoFar() {
+        return bestSoFar;
+    }
+
+    /**
+     * Get the time budget of each search
+     * @return the budget, in milliseconds
+     */
+    public long getBudget() {
+        return bot.getTimeBudget();
+    }
+
+    /**
+     * Cancel any search and stop the background thread
+     */
+    public synchronized void shutdown() {
+        cancel();
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,509 @@
+package uk.ac.soton.comp1206.bot;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import uk.ac.soton.comp1206.engine.GameEngine;
+import uk.ac.soton.comp1206.engine.GameState;
+import uk.ac.soton.comp1206.engine.MoveGenerator;
+import uk.ac.soton.comp1206.game.Game;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.PlacementTable;
+
+/**
+ * The MctsBot chooses moves by Monte Carlo tree search, run by several workers at once on a ForkJoinPool.
+ *
+ * The tree only grows through the pieces the player can see (the current, next and following pieces), so it never
+ * relies on knowing a piece which has not been dealt yet. Below that, rollouts play on with random pieces, choosing
+ * moves either at random or greedily by the BoardEvaluator, and score the board they end on.
+ *
+ * Nodes live in an arena of primitive arrays, allocated once when the bot is created and reused by every search, so
+ * the memory a search can use is fixed. Workers share the tree without locks: visit counts and rewards are atomic,
+ * and a virtual loss (counting a visit before its reward is known) steers workers apart.
+ *
+ * A search stops when its deadline passes or the arena is full. The natural limit on thinking time is the time the
+ * player has for the piece, Game.getTimerDelay.
+ */
+public class MctsBot implements Bot {
+
+    /**
+     * The node budget used when none is given
+     */
+    public static final int DEFAULT_NODE_BUDGET = 1 << 18;
+
+    /**
+     * The time budget per move used when none is given, in milliseconds
+     */
+    public static final long DEFAULT_TIME_BUDGET = 200;
+
+    /**
+     * The number of moves each rollout plays
+     */
+    private static final int ROLLOUT_DEPTH = 8;
+
+    /**
+     * The points deducted when a rollout reaches a piece with no legal move, costing a life
+     */
+    private static final double LIFE_PENALTY = 500;
+
+    /**
+     * The spread of rollout totals squashed into rewards between 0 and 1
+     */
+    private static final double REWARD_SCALE = 300;
+
+    /**
+     * The UCT exploration constant
+     */
+    private static final double EXPLORATION = 0.7;
+
+    /**
+     * Rewards are summed as fixed point numbers with this many fractional bits
+     */
+    private static final int REWARD_BITS = 20;
+
+    /**
+     * The longest path from the root: the root, a node for each visible piece played, and nothing deeper as the
+     * piece after that is not known
+     */
+    private static final int MAX_PATH = 4;
+
+    private static final int LEAF = 0;
+    private static final int EXPANDING = 1;
+    private static final int EXPANDED = 2;
+
+    /**
+     * The weights used to judge boards
+     */
+    private final Heuristic heuristic;
+
+    /**
+     * The largest number of nodes a search can create
+     */
+    private final int nodeBudget;
+
+    /**
+     * The time budget per move, in nanoseconds
+     */
+    private final long timeBudget;
+
+    /**
+     * The number of workers searching at once
+     */
+    private final int workers;
+
+    /**
+     * Whether rollouts choose moves greedily by the evaluator rather than at random
+     */
+    private final boolean heuristicRollouts;
+
+    /**
+     * The pool the workers run on
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The board each node stands for, with full lines cleared
+     */
+    private final long[] occupied;
+
+    /**
+     * The points scored between the root and each node
+     */
+    private final int[] points;
+
+    /**
+     * The multiplier carried into each node
+     */
+    private final int[] multiplier;
+
+    /**
+     * The shape numbers of the piece queue at each node, GameEngine.EMPTY where the piece is not known
+     */
+    private final int[] current;
+    private final int[] next;
+    private final int[] following;
+
+    /**
+     * The move which led to each node
+     */
+    private final int[] move;
+
+    /**
+     * The children of each node, which are always stored next to each other
+     */
+    private final int[] firstChild;
+    private final int[] childCount;
+
+    /**
+     * LEAF, EXPANDING or EXPANDED, for every node
+     */
+    private final AtomicIntegerArray state;
+
+    /**
+     * The number of visits to each node, including virtual losses in progress
+     */
+    private final AtomicIntegerArray visits;
+
+    /**
+     * The fixed point sum of the rewards of every visit to each node
+     */
+    private final AtomicLongArray rewards;
+
+    /**
+     * The number of nodes in use
+     */
+    private final AtomicInteger nodeCount = new AtomicInteger();
+
+    /**
+     * The number of rollouts played by the last search
+     */
+    private volatile long lastIterations;
+
+    /**
+     * Create a new bot with the tuned heuristic (see Heuristic.load), default budgets and rollouts, using a worker for
+     * every core on the common pool
+     */
+    public MctsBot() {
+        this(Heuristic.load(), DEFAULT_NODE_BUDGET, DEFAULT_TIME_BUDGET, ForkJoinPool.getCommonPoolParallelism(),
+            true, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Create a new bot
+     * @param heuristic the weights used to judge boards
+     * @param nodeBudget the largest number of nodes a search can create
+     * @param timeBudget the time budget per move, in milliseconds
+     * @param workers the number of workers searching at once
+     * @param heuristicRollouts whether rollouts play greedily by the heuristic rather than at random
+     * @param pool the pool the workers run on
+     */
+    public MctsBot(Heuristic heuristic, int nodeBudget, long timeBudget, int workers, boolean heuristicRollouts,
+                   ForkJoinPool pool) {
+        // The root and its children must always fit, whatever the size of the board
+        int minimum = 1 + 2 * GamePiece.ROTATIONS * Long.SIZE;
+        if (nodeBudget < minimum) {
+            throw new IllegalArgumentException("Node budget must be at least " + minimum + ": " + nodeBudget);
+        }
+        this.heuristic = heuristic;
+        this.nodeBudget = nodeBudget;
+        this.timeBudget = TimeUnit.MILLISECONDS.toNanos(timeBudget);
+        this.workers = Math.max(1, workers);
+        this.heuristicRollouts = heuristicRollouts;
+        this.pool = pool;
+
+        occupied = new long[nodeBudget];
+        points = new int[nodeBudget];
+        multiplier = new int[nodeBudget];
+        current = new int[nodeBudget];
+        next = new int[nodeBudget];
+        following = new int[nodeBudget];
+        move = new int[nodeBudget];
+        firstChild = new int[nodeBudget];
+        childCount = new int[nodeBudget];
+        state = new AtomicIntegerArray(nodeBudget);
+        visits = new AtomicIntegerArray(nodeBudget);
+        rewards = new AtomicLongArray(nodeBudget);
+    }
+
+    @Override
+    public int chooseMove(GameState state) {
+        return chooseMove(state, TimeUnit.NANOSECONDS.toMillis(timeBudget));
+    }
+
+    /**
+     * Choose the best move for a game, thinking for no longer than the player has to play the piece
+     * @param game the game
+     * @return the move packed by MoveGenerator.pack, or NO_MOVE
+     */
+    public int chooseMove(Game game) {
+        return chooseMove(game.getEngine().snapshot(),
+            Math.min(TimeUnit.NANOSECONDS.toMillis(timeBudget), game.getTimerDelay()));
+    }
+
+    /**
+     * Play one turn of an engine headlessly, thinking for no longer than the player would have to play the piece
+     * @param engine the engine
+     * @return true if the game carries on
+     */
+    @Override
+    public boolean playTurn(GameEngine engine) {
+        int move = chooseMove(engine.snapshot(),
+            Math.min(TimeUnit.NANOSECONDS.toMillis(timeBudget), engine.getTimerDelay()));
+        if (move == NO_MOVE) {
+            return engine.tick();
+        }
+        return engine.playMove(move);
+    }
+
+    /**
+     * Choose the best move for a game, searching until the given time is up or the arena is full
+     * @param snapshot a snapshot of the game
+     * @param thinkTime the time to search for, in milliseconds
+     * @return the move packed by MoveGenerator.pack, with SLOT_CURRENT or SLOT_FOLLOWING, or NO_MOVE
+     */
+    public synchronized int chooseMove(GameState snapshot, long thinkTime) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(thinkTime);
+        BoardEvaluator evaluator = new BoardEvaluator(snapshot.getRules(), heuristic);
+
+        nodeCount.set(1);
+        occupied[0] = snapshot.getOccupied();
+        points[0] = 0;
+        multiplier[0] = snapshot.getMultiplier();
+        current[0] = snapshot.getCurrentShape();
+        next[0] = snapshot.getNextShape();
+        following[0] = snapshot.getFollowingShape();
+        move[0] = NO_MOVE;
+        resetNode(0);
+
+        // Expand the root before the workers start, so there is always a move to choose when one exists
+        int[] moves = new int[2 * GamePiece.ROTATIONS * snapshot.getCols() * snapshot.getRows()];
+        expand(0, evaluator, moves);
+        if (childCount[0] == 0) {
+            lastIterations = 0;
+            return NO_MOVE;
+        }
+
+        ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[workers];
+        long[] iterations = new long[workers];
+        for (int w = 0; w < workers; w++) {
+            int worker = w;
+            long seed = snapshot.getOccupied() * 31 + worker;
+            tasks[w] = pool.submit(() -> {
+                iterations[worker] = search(evaluator, deadline, new SplittableRandom(seed));
+            });
+        }
+        long total = 0;
+        for (int w = 0; w < workers; w++) {
+            tasks[w].join();
+            total += iterations[w];
+        }
+        lastIterations = total;
+
+        // Choose the most visited move, the most robust choice
+        int best = firstChild[0];
+        for (int child = firstChild[0]; child < firstChild[0] + childCount[0]; child++) {
+            if (visits.get(child) > visits.get(best)) {
+                best = child;
+            }
+        }
+        return move[best];
+    }
+
+    /**
+     * Run rollouts until the deadline passes or the arena is full
+     * @return the number of rollouts played
+     */
+    private long search(BoardEvaluator evaluator, long deadline, SplittableRandom random) {
+        int[] moves = new int[2 * GamePiece.ROTATIONS * evaluator.getCols() * evaluator.getRows()];
+        int[] path = new int[MAX_PATH];
+        long iterations = 0;
+
+        while (System.nanoTime() < deadline && nodeCount.get() < nodeBudget) {
+            // Select: walk down by UCT, counting a visit (a virtual loss) at every node on the way
+            int node = 0;
+            int depth = 0;
+            path[depth++] = node;
+            visits.incrementAndGet(node);
+            while (state.get(node) == EXPANDED && childCount[node] > 0) {
+                node = selectChild(node);
+                path[depth++] = node;
+                visits.incrementAndGet(node);
+            }
+
+            // Expand: grow the tree by one node's children, if the node's piece is known and there is room
+            if (current[node] != GameEngine.EMPTY && state.compareAndSet(node, LEAF, EXPANDING)) {
+                expand(node, evaluator, moves);
+                if (childCount[node] > 0) {
+                    node = firstChild[node] + random.nextInt(childCount[node]);
+                    path[depth++] = node;
+                    visits.incrementAndGet(node);
+                }
+            }
+
+            // Simulate, then back the reward up the path, which already holds the visits
+            long reward = (long) (rollout(node, evaluator, moves, random) * (1 << REWARD_BITS));
+            for (int i = 0; i < depth; i++) {
+                rewards.addAndGet(path[i], reward);
+            }
+            iterations++;
+        }
+        return iterations;
+    }
+
+    /**
+     * Pick the child of a node with the best UCT value. Unvisited children are tried first.
+     */
+    private int selectChild(int node) {
+        double logVisits = Math.log(Math.max(1, visits.get(node)));
+        int best = firstChild[node];
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (int child = firstChild[node]; child < firstChild[node] + childCount[node]; child++) {
+            int n = visits.get(child);
+            if (n == 0) {
+                return child;
+            }
+            double value = (double) rewards.get(child) / ((long) n << REWARD_BITS)
+                + EXPLORATION * Math.sqrt(logVisits / n);
+            if (value > bestValue) {
+                bestValue = value;
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Add a child for every legal move of a node, if they fit in the arena.
+     * If they do not, the node stays a leaf for good.
+     */
+    private void expand(int node, BoardEvaluator evaluator, int[] moves) {
+        PlacementTable table = evaluator.getTable();
+        int piece = current[node] / GamePiece.ROTATIONS;
+        int count = MoveGenerator.generate(table, occupied[node], piece, MoveGenerator.SLOT_CURRENT, moves, 0);
+        if (following[node] != GameEngine.EMPTY && following[node] / GamePiece.ROTATIONS != piece) {
+            count = MoveGenerator.generate(table, occupied[node], following[node] / GamePiece.ROTATIONS,
+                MoveGenerator.SLOT_FOLLOWING, moves, count);
+        }
+
+        int first = nodeCount.getAndAdd(count);
+        if (first + count > nodeBudget) {
+            childCount[node] = 0;
+            return;
+        }
+
+        int cols = table.getCols();
+        for (int i = 0; i < count; i++) {
+            int child = first + i;
+            int m = moves[i];
+            long placed = occupied[node] | table.mask(MoveGenerator.shape(m), MoveGenerator.y(m) * cols + MoveGenerator.x(m));
+
+            int gained = 0;
+            int lines = 0;
+            long cleared = evaluator.fullLineBlocks(placed);
+            if (cleared != 0) {
+                lines = evaluator.countFullLines(placed);
+                gained = evaluator.points(lines, Long.bitCount(cleared), multiplier[node]);
+                placed &= ~cleared;
+            }
+            int carried = evaluator.nextMultiplier(multiplier[node], lines);
+
+            occupied[child] = placed;
+            points[child] = points[node] + gained;
+            multiplier[child] = carried;
+            current[child] = next[node];
+            next[child] = MoveGenerator.slot(m) == MoveGenerator.SLOT_FOLLOWING ? current[node] : following[node];
+            following[child] = GameEngine.EMPTY;
+            move[child] = m;
+            resetNode(child);
+        }
+        firstChild[node] = first;
+        childCount[node] = count;
+
+        // Publish the children: workers only read them once they see EXPANDED
+        state.set(node, EXPANDED);
+    }
+
+    /**
+     * Play on from a node with random pieces where they are not known, and judge where it ends up
+     * @return the reward, from 0 to 1
+     */
+    private double rollout(int node, BoardEvaluator evaluator, int[] moves, SplittableRandom random) {
+        PlacementTable table = evaluator.getTable();
+        int cols = table.getCols();
+        long board = occupied[node];
+        int carried = multiplier[node];
+        double total = heuristic.getScore() * points[node];
+        int piece = current[node];
+        int queued = next[node];
+
+        for (int step = 0; step < ROLLOUT_DEPTH; step++) {
+            int shape = piece != GameEngine.EMPTY ? piece : random.nextInt(GamePiece.PIECES) * GamePiece.ROTATIONS;
+            if (!evaluator.canPlay(board, shape / GamePiece.ROTATIONS)) {
+                total -= LIFE_PENALTY;
+                carried = evaluator.nextMultiplier(carried, 0);
+                break;
+            }
+            int count = MoveGenerator.generate(table, board, shape / GamePiece.ROTATIONS,
+                MoveGenerator.SLOT_CURRENT, moves, 0);
+
+            // Pick a move, at random or the one leaving the best board
+            long bestBoard = 0;
+            int bestGained = 0;
+            int bestLines = 0;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            int choices = heuristicRollouts ? count : 1;
+            int offset = random.nextInt(count);
+            for (int i = 0; i < choices; i++) {
+                int m = moves[(offset + i) % count];
+                long placed = board | table.mask(MoveGenerator.shape(m), MoveGenerator.y(m) * cols + MoveGenerator.x(m));
+                int gained = 0;
+                int lines = 0;
+                long cleared = evaluator.fullLineBlocks(placed);
+                if (cleared != 0) {
+                    lines = evaluator.countFullLines(placed);
+                    gained = evaluator.points(lines, Long.bitCount(cleared), carried);
+                    placed &= ~cleared;
+                }
+                double value = heuristicRollouts ? heuristic.getScore() * gained
+                    + evaluator.evaluate(placed, evaluator.nextMultiplier(carried, lines)) : 0;
+                if (value > bestValue) {
+                    bestValue = value;
+                    bestBoard = placed;
+                    bestGained = gained;
+                    bestLines = lines;
+                }
+            }
+
+            board = bestBoard;
+            total += heuristic.getScore() * bestGained;
+            carried = evaluator.nextMultiplier(carried, bestLines);
+            piece = queued;
+            queued = GameEngine.EMPTY;
+        }
+
+        total += evaluator.evaluate(board, carried);
+        return 1 / (1 + Math.exp(-total / REWARD_SCALE));
+    }
+
+    /**
+     * Clear the search statistics of a new node
+     */
+    private void resetNode(int node) {
+        childCount[node] = 0;
+        state.set(node, LEAF);
+        visits.set(node, 0);
+        rewards.set(node, 0);
+    }
+
+    /**
+     * Get the number of rollouts played by the last search, for measuring throughput
+     * @return number of rollouts
+     */
+    public long getLastIterations() {
+        return lastIterations;
+    }
+
+    /**
+     * Get the number of nodes created by the last search
+     * @return number of nodes, at most the node budget
+     */
+    public int getLastNodes() {
+        return Math.min(nodeCount.get(), nodeBudget);
+    }
+
+    public int getNodeBudget() {
+        return nodeBudget;
+    }
+
+    /**
+     * Get the time budget per move
+     * @return the time budget, in milliseconds
+     */
+    public long getTimeBudget() {
+        return TimeUnit.NANOSECONDS.toMillis(timeBudget);
+    }
+}
@@ -0,0 +1,147 @@
+package uk.ac.soton.comp1206.bot;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * The TranspositionTable remembers positions a search has already reached, keyed by Zobrist hash, so a position
+ * reached again through a different order of moves is not searched twice.
+ *
+ * It is a fixed-size, open-addressed table over a single long[] which any number of search threads can read and write
+ * without locks. Each entry is two words: the data, and the key XORed with the data. A reader only trusts an entry
+ * whose two words XOR back to the key it asked for, so an entry torn by two threads writing at once reads as a miss
+ * rather than as wrong data.
+ *
+ * Entry data packs a value, a depth and a move into one word; use pack and the static accessors.
+ */
+public class TranspositionTable {
+
+    /**
+     * The data returned by probe when a key is not in the table
+     */
+    public static final long MISS = 0;
+
+    /**
+     * The number of neighbouring entries a key can be stored in
+     */
+    private static final int PROBES = 4;
+
+    /**
+     * Marks a word as holding data, so that no packed entry is MISS
+     */
+    private static final long VALID = 1L << 31;
+
+    /**
+     * Gives plain (opaque) atomic access to the words of the table
+     */
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    /**
+     * Entry i is words 2i (key ^ data) and 2i + 1 (data)
+     */
+    private final long[] words;
+
+    /**
+     * The number of entries minus one, the number of entries being a power of two
+     */
+    private final int mask;
+
+    /**
+     * Create a new, empty table
+     * @param entries the number of entries, rounded up to a power of two
+     */
+    public TranspositionTable(int entries) {
+        if (entries <= 0 || entries > 1 << 29) {
+            throw new IllegalArgumentException("Unsupported table size: " + entries);
+        }
+        int size = Integer.highestOneBit(entries);
+        if (size < entries) {
+            size <<= 1;
+        }
+        size = Math.max(size, PROBES);
+        words = new long[2 * size];
+        mask = size - 1;
+    }
+
+    /**
+     * Look up a key
+     * @param key the Zobrist hash of the position
+     * @return the data stored with the key, or MISS
+     */
+    public long probe(long key) {
+        int index = (int) key & mask;
+        for (int i = 0; i < PROBES; i++) {
+            int entry = 2 * ((index + i) & mask);
+            long data = (long) WORDS.getOpaque(words, entry + 1);
+            if (data != MISS && ((long) WORDS.getOpaque(words, entry) ^ data) == key) {
+                return data;
+            }
+        }
+        return MISS;
+    }
+
+    /**
+     * Store data with a key, replacing the entry for the same key if there is one, or else an empty entry, or else
+     * the entry with the smallest depth among those the key can go in
+     * @param key the Zobrist hash of the position
+     * @param data the data, made by pack
+     */
+    public void store(long key, long data) {
+        int index = (int) key & mask;
+        int victim = -1;
+        int victimDepth = Integer.MAX_VALUE;
+        for (int i = 0; i < PROBES; i++) {
+            int entry = 2 * ((index + i) & mask);
+            long stored = (long) WORDS.getOpaque(words, entry + 1);
+            if (stored == MISS || ((long) WORDS.getOpaque(words, entry) ^ stored) == key) {
+                victim = entry;
+                break;
+            }
+            if (depth(stored) < victimDepth) {
+                victimDepth = depth(stored);
+                victim = entry;
+            }
+        }
+        WORDS.setOpaque(words, victim + 1, data);
+        WORDS.setOpaque(words, victim, key ^ data);
+    }
+
+    /**
+     * Empty the table. Not safe while other threads are using it.
+     */
+    public void clear() {
+        Arrays.fill(words, 0);
+    }
+
+    /**
+     * Get the number of entries in the table
+     * @return number of entries
+     */
+    public int size() {
+        return mask + 1;
+    }
+
+    /**
+     * Pack the data of an entry into a word
+     * @param value the value of the position
+     * @param depth the depth the position was searched to, or reached at, from 0 to 31
+     * @param move a move packed by MoveGenerator, using the low 26 bits
+     * @return the data
+     */
+    public static long pack(float value, int depth, int move) {
+        return (long) Float.floatToRawIntBits(value) << 32 | VALID | (long) (depth & 0x1F) << 26 | (move & 0x3FFFFFF);
+    }
+
+    public static float value(long data) {
+        return Float.intBitsToFloat((int) (data >>> 32));
+    }
+
+    public static int depth(long data) {
+        return (int) (data >>> 26) & 0x1F;
+    }
+
+    public static int move(long data) {
+        return (int) data & 0x3FFFFFF;
+    }
+}
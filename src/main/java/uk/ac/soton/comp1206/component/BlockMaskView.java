@@ -0,0 +1,73 @@
+package uk.ac.soton.comp1206.component;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A read-only Set of GameBlockCoordinates backed by a BitGrid block mask, such as the blocks of a ClearResult or of a
+ * hinted placement.
+ *
+ * Lets code which expects a Set of coordinates, like the LineClearedListener or GameBoard.showHint, be handed a mask
+ * without building a HashSet. Coordinates are only created as the set is iterated.
+ */
+public class BlockMaskView extends AbstractSet<GameBlockCoordinate> {
+
+    /**
+     * The number of columns in the grid the mask belongs to
+     */
+    private final int cols;
+
+    /**
+     * The blocks in this set, bit (y * cols + x) for the block at (x,y)
+     */
+    private final long blocks;
+
+    /**
+     * Create a new view of a block mask
+     * @param cols number of columns in the grid the mask belongs to
+     * @param blocks the block mask
+     */
+    public BlockMaskView(int cols, long blocks) {
+        this.cols = cols;
+        this.blocks = blocks;
+    }
+
+    @Override
+    public Iterator<GameBlockCoordinate> iterator() {
+        return new Iterator<>() {
+            private long remaining = blocks;
+
+            @Override
+            public boolean hasNext() {
+                return remaining != 0;
+            }
+
+            @Override
+            public GameBlockCoordinate next() {
+                if (remaining == 0) {
+                    throw new NoSuchElementException();
+                }
+                int index = Long.numberOfTrailingZeros(remaining);
+                remaining &= remaining - 1;
+                return new GameBlockCoordinate(index % cols, index / cols);
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return Long.bitCount(blocks);
+    }
+
+    @Override
+    public boolean contains(Object obj) {
+        if (!(obj instanceof GameBlockCoordinate)) {
+            return false;
+        }
+        GameBlockCoordinate coord = (GameBlockCoordinate) obj;
+        int index = coord.getY() * cols + coord.getX();
+        return coord.getX() >= 0 && coord.getX() < cols && index >= 0 && index < Long.SIZE
+            && (blocks & (1L << index)) != 0;
+    }
+}
@@ -24,6 +24,7 @@ public class GameBlock extends Canvas {
 
     private final GraphicsContext gc;
     private boolean isCenter = false;
+    private boolean isHint = false;
 
     private static final Logger logger = LogManager.getLogger(GameBlock.class);
 
@@ -128,6 +129,9 @@ public class GameBlock extends Canvas {
         //If the block is empty, paint it transparent
         if(value.get() == 0) {
             gc.clearRect(0,0,width,height);
+            if (isHint) {
+                paintHint();
+            }
             return;
         }
 
@@ -166,6 +170,25 @@ public class GameBlock extends Canvas {
         this.isCenter = isCenter;
         paint(); // Repaint to show/hide the circle
     }
+
+    /**
+     * Mark this block as part of the hinted placement, or not
+     * @param isHint true to show the hint
+     */
+    public void setHint(boolean isHint) {
+        this.isHint = isHint;
+        paint();
+    }
+
+    /**
+     * Paint the hint outline over an empty block
+     */
+    private void paintHint() {
+        gc.setFill(Color.color(1, 1, 1, 0.2));
+        gc.fillRect(0, 0, width, height);
+        gc.setStroke(Color.WHITE);
+        gc.strokeRect(2, 2, width - 4, height - 4);
+    }
     /**
      * Triggers a fade-out animation on this block.
      */
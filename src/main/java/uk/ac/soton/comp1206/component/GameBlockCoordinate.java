@@ -19,12 +19,6 @@ public class GameBlockCoordinate {
      */
     private final int y;
 
-    /**
-     * A hash is computed to enable comparisons between this and other GameBlockCoordinates.
-     */
-    private int hash = 0;
-
-
     /**
      * Create a new GameBlockCoordinate which stores a row and column reference to a block
      * @param x column
@@ -110,13 +104,7 @@ public class GameBlockCoordinate {
      * @return hash code
      */
     @Override public int hashCode() {
-        if (hash == 0) {
-            long bits = 7L;
-            bits = 31L * bits + Double.doubleToLongBits(getX());
-            bits = 31L * bits + Double.doubleToLongBits(getY());
-            hash = (int) (bits ^ (bits >> 32));
-        }
-        return hash;
+        return 31 * (31 * 7 + x) + y;
     }
 
     /**
@@ -1,5 +1,7 @@
 package uk.ac.soton.comp1206.component;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.GridPane;
@@ -62,6 +64,11 @@ public class GameBoard extends GridPane {
      */
     private BlockClickedListener blockClickedListener;
 
+    /**
+     * The blocks highlighted by the current hint
+     */
+    private final List<GameBlock> hinted = new ArrayList<>();
+
 
     /**
      * Create a new GameBoard, based off a given grid, with a visual width and height.
@@ -100,6 +107,29 @@ public class GameBoard extends GridPane {
             currentlyHovered.setExternalHover(true); // <--- AND HERE
         }
     }
+    /**
+     * Highlight the blocks of a hinted placement, replacing any hint shown before.
+     * @param coordinates The set of coordinates for the blocks to highlight.
+     */
+    public void showHint(Set<GameBlockCoordinate> coordinates) {
+        clearHint();
+        for (GameBlockCoordinate coord : coordinates) {
+            GameBlock block = getBlock(coord.getX(), coord.getY());
+            block.setHint(true);
+            hinted.add(block);
+        }
+    }
+
+    /**
+     * Remove the highlight from the hinted placement, if there is one.
+     */
+    public void clearHint() {
+        for (GameBlock block : hinted) {
+            block.setHint(false);
+        }
+        hinted.clear();
+    }
+
     /**
      * Triggers the fade-out animation on a set of blocks.
      * @param coordinates The set of coordinates for the blocks to be faded.
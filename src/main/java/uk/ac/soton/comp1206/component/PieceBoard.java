@@ -1,10 +1,10 @@
 package uk.ac.soton.comp1206.component;
 
-import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.PieceShape;
 import uk.ac.soton.comp1206.game.Grid;
 
 /**
- * A special GameBoard used to display a single GamePiece.
+ * A special GameBoard used to display a single piece.
  */
 public class PieceBoard extends GameBoard {
 
@@ -16,10 +16,10 @@ public class PieceBoard extends GameBoard {
   }
 
   /**
-   * Displays a given GamePiece on this board.
+   * Displays a given piece on this board.
    * @param piece The piece to display
    */
-  public void displayPiece(GamePiece piece) {
+  public void displayPiece(PieceShape piece) {
     // Clear the board first
     grid.clear();
 
@@ -0,0 +1,106 @@
+package uk.ac.soton.comp1206.engine;
+
+import java.util.SplittableRandom;
+import uk.ac.soton.comp1206.game.GamePiece;
+
+/**
+ * A PieceSource which deals every piece once, in a shuffled order, before shuffling them all again. This avoids long
+ * droughts of any one piece. Given the same seed, it produces the same pieces.
+ *
+ * Every bag is shuffled from a fresh, ordered bag using a fixed number of SplitMix64 draws, so the order of bag n
+ * depends only on the seed and n. Its saved state is just the bag number and the position within the bag.
+ */
+public class BagPieceSource implements PieceSource {
+
+    /**
+     * The number of random draws used to shuffle a bag
+     */
+    private static final int DRAWS_PER_BAG = GamePiece.PIECES - 1;
+
+    /**
+     * The seed all bags are shuffled from
+     */
+    private final long seed;
+
+    /**
+     * One of every piece number, in the order they are dealt
+     */
+    private final int[] bag = new int[GamePiece.PIECES];
+
+    /**
+     * The number of the bag being dealt, -1 before the first bag is shuffled
+     */
+    private long bagNumber = -1;
+
+    /**
+     * The position of the next piece to deal from the bag
+     */
+    private int position = GamePiece.PIECES;
+
+    /**
+     * Create a new source with an unpredictable seed
+     */
+    public BagPieceSource() {
+        this(new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Create a new source with the given seed
+     * @param seed the seed
+     */
+    public BagPieceSource(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Fill the bag in order and Fisher-Yates shuffle it with the draws belonging to the given bag number
+     * @param number the bag number
+     */
+    private void shuffle(long number) {
+        for (int piece = 0; piece < bag.length; piece++) {
+            bag[piece] = piece;
+        }
+        long state = seed + number * DRAWS_PER_BAG * RandomPieceSource.GAMMA;
+        for (int i = bag.length - 1; i > 0; i--) {
+            state += RandomPieceSource.GAMMA;
+            int j = RandomPieceSource.bounded(RandomPieceSource.mix(state), i + 1);
+            int temp = bag[i];
+            bag[i] = bag[j];
+            bag[j] = temp;
+        }
+        bagNumber = number;
+    }
+
+    @Override
+    public int nextPiece() {
+        if (position == bag.length) {
+            shuffle(bagNumber + 1);
+            position = 0;
+        }
+        return bag[position++];
+    }
+
+    @Override
+    public boolean isRestorable() {
+        return true;
+    }
+
+    /**
+     * Save the bag number and position within the bag, as (bagNumber << 8 | position)
+     * @return the state
+     */
+    @Override
+    public long getState() {
+        return bagNumber << 8 | position;
+    }
+
+    @Override
+    public void setState(long state) {
+        long number = state >> 8;
+        if (number >= 0 && number != bagNumber) {
+            shuffle(number);
+        }
+        bagNumber = number;
+        position = (int) (state & 0xFF);
+    }
+}
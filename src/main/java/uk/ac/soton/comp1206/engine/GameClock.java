@@ -0,0 +1,54 @@
+package uk.ac.soton.comp1206.engine;
+
+/**
+ * A GameClock tells the time and runs timers for games, such as the timer which costs the player a life when a piece
+ * is not played in time.
+ *
+ * There are two kinds: the GameScheduler, which runs in real time on a background thread, and the VirtualClock, whose
+ * time only moves when it is advanced, running every timer due on the way on the thread advancing it. A GameEngine
+ * timed by a GameTimer on a VirtualClock can be simulated headlessly, much faster than real time.
+ *
+ * All times are in milliseconds.
+ */
+public interface GameClock {
+
+    /**
+     * Get the time. Only differences between times mean anything: the time never goes backwards, but it does not start
+     * from any particular point.
+     * @return the time, in milliseconds
+     */
+    long millis();
+
+    /**
+     * Schedule a task
+     * @param task the task
+     * @param delay the time before it first runs
+     * @param period the time between runs, or 0 to run it once
+     * @return the timer, which can be rescheduled or cancelled
+     */
+    Timer schedule(Runnable task, long delay, long period);
+
+    /**
+     * A scheduled task
+     */
+    interface Timer {
+
+        /**
+         * Move the timer to a new time, whether or not it has already run or been cancelled
+         * @param delay the time from now before it next runs
+         * @param period the time between runs, or 0 to run it once
+         */
+        void reschedule(long delay, long period);
+
+        /**
+         * Stop the timer running again
+         */
+        void cancel();
+
+        /**
+         * Check whether the timer is waiting to run
+         * @return true if it is scheduled
+         */
+        boolean isPending();
+    }
+}
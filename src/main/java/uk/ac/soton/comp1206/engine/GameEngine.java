@@ -0,0 +1,531 @@
+package uk.ac.soton.comp1206.engine;
+
+import uk.ac.soton.comp1206.game.BitGrid;
+import uk.ac.soton.comp1206.game.Board;
+import uk.ac.soton.comp1206.game.ClearResult;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.Zobrist;
+
+/**
+ * The GameEngine holds the rules and state of a TetrECS game without depending on JavaFX, timers or sound, so that
+ * games can be run headless: on a server, in a benchmark or by a bot.
+ *
+ * It holds the board, the piece queue (current, next and following pieces), the score, level, lives and multiplier.
+ * Nothing happens on its own: the game is driven by explicit calls to play, rotate, swap and tick, where tick is what
+ * happens when the player runs out of time for a piece.
+ *
+ * Pieces in the queue are held as shape numbers (piece * GamePiece.ROTATIONS + rotation), or EMPTY when the queue has
+ * not been filled yet.
+ *
+ * Boards of up to 64 blocks, including the standard 5x5 board, are held in a BitGrid; bigger boards are held in a
+ * WideBitGrid. The rules are the same either way.
+ *
+ * The state of a game on a BitGrid can be saved and restored in constant time with snapshot and restore, which is
+ * what GameHistory uses to undo moves.
+ *
+ * The rules are those of a RuleTable, compiled from a RuleSet when the engine is made: the standard rules unless
+ * another is given.
+ *
+ * The Game class is a JavaFX adapter over an engine, which adds the timer, animations, sounds and bindable properties.
+ */
+public class GameEngine {
+
+    /**
+     * The shape number of a queue slot with no piece in it
+     */
+    public static final int EMPTY = -1;
+
+    /**
+     * The number of lives a new game starts with
+     */
+    public static final int STARTING_LIVES = 3;
+
+    /**
+     * The compiled rules of the game
+     */
+    private final RuleTable rules;
+
+    /**
+     * Supplies the piece number of each new piece
+     */
+    private final PieceSource pieces;
+
+    /**
+     * The board holding the state of the blocks
+     */
+    private final Board board;
+
+    /**
+     * The tablebase for the size of the board, used to check for legal moves, or null to check the board itself
+     */
+    private Tablebase tablebase;
+
+    /**
+     * The lines found by the last placement, waiting to be resolved
+     */
+    private final ClearResult clearResult = new ClearResult();
+
+    /**
+     * Whether a piece has been placed but its lines not yet resolved
+     */
+    private boolean placed;
+
+    private int current = EMPTY;
+    private int next = EMPTY;
+    private int following = EMPTY;
+
+    private int score;
+    private int level;
+    private int lives;
+    private int multiplier = 1;
+
+    /**
+     * Create a new engine with the specified columns and rows, spawning uniformly random pieces.
+     * The piece queue is left empty: call fillQueue to start a single player game.
+     * @param cols number of columns
+     * @param rows number of rows
+     */
+    public GameEngine(int cols, int rows) {
+        this(cols, rows, new RandomPieceSource());
+    }
+
+    /**
+     * Create a new engine with the specified columns and rows.
+     * The piece queue is left empty: call fillQueue to start a single player game.
+     * @param cols number of columns
+     * @param rows number of rows
+     * @param pieces supplies the piece number of each new piece
+     */
+    public GameEngine(int cols, int rows, PieceSource pieces) {
+        this(RuleTable.standard(cols, rows), pieces);
+    }
+
+    /**
+     * Create a new engine playing a set of compiled rules, on the board size of the rules.
+     * The piece queue is left empty: call fillQueue to start a single player game.
+     * @param rules the compiled rules
+     * @param pieces supplies the piece number of each new piece
+     */
+    public GameEngine(RuleTable rules, PieceSource pieces) {
+        this.rules = rules;
+        this.board = Board.create(rules.getCols(), rules.getRows());
+        this.pieces = pieces;
+        this.lives = rules.getStartingLives();
+        this.tablebase = board instanceof BitGrid ? Tablebase.find(rules.getCols(), rules.getRows()) : null;
+    }
+
+    /**
+     * Fill every slot of the piece queue with a new piece
+     */
+    public void fillQueue() {
+        following = spawnPiece();
+        next = spawnPiece();
+        current = spawnPiece();
+    }
+
+    /**
+     * Take a new, unrotated piece from the piece source
+     * @return the shape number of the new piece
+     */
+    private int spawnPiece() {
+        return pieces.nextPiece() * GamePiece.ROTATIONS;
+    }
+
+    /**
+     * Check if the current piece can be played with its center at the given coordinates
+     * @param x column
+     * @param y row
+     * @return true if the piece fits there
+     */
+    public boolean canPlay(int x, int y) {
+        if (current == EMPTY) {
+            return false;
+        }
+        return board.canPlay(getCurrentPiece(), getCurrentRotation(), x, y);
+    }
+
+    /**
+     * Check whether the current piece, or the following piece it can be swapped with, fits anywhere on the board.
+     * With a tablebase this is a single lookup. Otherwise, on a BitGrid the legal placements are kept up to date as
+     * blocks change, so this is a few word tests.
+     * @return true if there is a legal move, false if there is none or the queue is empty
+     */
+    public boolean hasLegalMove() {
+        if (current == EMPTY) {
+            return false;
+        }
+        if (tablebase != null) {
+            int wanted = 1 << getCurrentPiece() | (following != EMPTY ? 1 << following / GamePiece.ROTATIONS : 0);
+            return (tablebase.fittingPieces(getGrid().getOccupied()) & wanted) != 0;
+        }
+        return board.canPlayAnywhere(getCurrentPiece())
+            || (following != EMPTY && board.canPlayAnywhere(following / GamePiece.ROTATIONS));
+    }
+
+    /**
+     * Play the current piece with its center at the given coordinates: place it, clear any full lines, score them and
+     * move on to the next piece.
+     * @param x column
+     * @param y row
+     * @return true if the piece was played, false if it does not fit there
+     */
+    public boolean play(int x, int y) {
+        if (!place(x, y)) {
+            return false;
+        }
+        resolve();
+        nextPiece();
+        return true;
+    }
+
+    /**
+     * Write every legal move for the current, following and next pieces into the given array, without allocating
+     * @param moves the array to write into, at least MoveGenerator.maxMoves long
+     * @return the number of moves written
+     * @see MoveGenerator
+     */
+    public int generateMoves(int[] moves) {
+        return MoveGenerator.generate(this, moves);
+    }
+
+    /**
+     * Play a move packed by the MoveGenerator: swap in the following piece if the move uses it, turn the piece to the
+     * move's rotation and play it.
+     * Moves for the next piece cannot be played until it becomes the current piece.
+     * @param move the packed move
+     * @return true if the move was played, false if it is not legal now
+     */
+    public boolean playMove(int move) {
+        int slot = MoveGenerator.slot(move);
+        int shape = slot == MoveGenerator.SLOT_CURRENT ? current
+            : slot == MoveGenerator.SLOT_FOLLOWING ? following : EMPTY;
+        if (placed || shape == EMPTY || shape / GamePiece.ROTATIONS != MoveGenerator.piece(move)) {
+            return false;
+        }
+        if (!board.canPlay(MoveGenerator.piece(move), MoveGenerator.rotation(move),
+            MoveGenerator.x(move), MoveGenerator.y(move))) {
+            return false;
+        }
+
+        if (slot == MoveGenerator.SLOT_FOLLOWING) {
+            swap();
+        }
+        current = MoveGenerator.shape(move);
+        return play(MoveGenerator.x(move), MoveGenerator.y(move));
+    }
+
+    /**
+     * Place the current piece with its center at the given coordinates and find any lines it completes, without
+     * clearing them. The lines are available from getClearResult until resolve is called.
+     * Used when the lines need to stay on the board for a while, for example to animate them.
+     * @param x column
+     * @param y row
+     * @return true if the piece was placed, false if it does not fit there
+     */
+    public boolean place(int x, int y) {
+        if (placed || current == EMPTY) {
+            return false;
+        }
+        if (!board.canPlay(getCurrentPiece(), getCurrentRotation(), x, y)) {
+            return false;
+        }
+        board.play(getCurrentPiece(), getCurrentRotation(), x, y);
+        board.findFullLines(clearResult);
+        placed = true;
+        return true;
+    }
+
+    /**
+     * Clear and score the lines found by the last place. Does not move on to the next piece.
+     */
+    public void resolve() {
+        if (!placed) {
+            return;
+        }
+        placed = false;
+        board.clearLines(clearResult);
+        score(clearResult.getLineCount(), clearResult.getBlockCount());
+    }
+
+    /**
+     * Score a move and update the multiplier and level
+     * @param linesCleared the number of lines cleared
+     * @param blocksCleared the number of blocks cleared
+     */
+    private void score(int linesCleared, int blocksCleared) {
+        // A miss scores nothing, and decays the multiplier rather than growing it
+        score += rules.points(linesCleared, blocksCleared) * multiplier;
+        multiplier = rules.nextMultiplier(multiplier, linesCleared);
+        level = rules.level(score);
+    }
+
+    /**
+     * Move the queue along: the next piece becomes current, the following piece becomes next and a new piece is
+     * spawned into the following slot
+     */
+    public void nextPiece() {
+        current = next;
+        next = following;
+        following = spawnPiece();
+    }
+
+    /**
+     * Rotate the current piece once
+     */
+    public void rotate() {
+        rotate(1);
+    }
+
+    /**
+     * Rotate the current piece the given number of times
+     * @param rotations number of rotations
+     */
+    public void rotate(int rotations) {
+        if (current == EMPTY) {
+            return;
+        }
+        int rotation = Math.floorMod(getCurrentRotation() + rotations, GamePiece.ROTATIONS);
+        current = getCurrentPiece() * GamePiece.ROTATIONS + rotation;
+    }
+
+    /**
+     * Swap the current piece with the following piece, keeping their rotations
+     */
+    public void swap() {
+        if (current == EMPTY || following == EMPTY) {
+            return;
+        }
+        int temp = current;
+        current = following;
+        following = temp;
+    }
+
+    /**
+     * Handle the player running out of time for the current piece: lose a life and, if the game is not over, move on
+     * to the next piece
+     * @return true if the game carries on, false if that was the last life
+     */
+    public boolean tick() {
+        if (!loseLife()) {
+            return false;
+        }
+        nextPiece();
+        return true;
+    }
+
+    /**
+     * Lose a life and decay the multiplier (resetting it, under the standard rules), without moving on to the next
+     * piece
+     * @return true if the game carries on, false if that was the last life
+     */
+    public boolean loseLife() {
+        lives--;
+        multiplier = rules.nextMultiplier(multiplier, 0);
+        return lives > 0;
+    }
+
+    /**
+     * Check whether the game can be snapshotted and restored: only games on a BitGrid, of up to 64 blocks, can be
+     * @return true if snapshot and restore will work
+     */
+    public boolean canSnapshot() {
+        return board instanceof BitGrid;
+    }
+
+    /**
+     * Take an immutable snapshot of the game: the grid, the piece queue, the score, level, lives and multiplier, and
+     * the position of the piece source if it can be saved
+     * @return the snapshot
+     * @throws IllegalStateException if the board is too big to be a BitGrid
+     */
+    public GameState snapshot() {
+        BitGrid grid = getGrid();
+        boolean sourceSaved = pieces.isRestorable();
+        return new GameState(rules, grid.getCols(), grid.getRows(), grid.getOccupied(),
+            grid.getColourWord(0), grid.getColourWord(1), grid.getColourWord(2), grid.getColourWord(3),
+            current, next, following, score, level, lives, multiplier,
+            sourceSaved, sourceSaved ? pieces.getState() : 0);
+    }
+
+    /**
+     * Put the game back to a snapshot taken by snapshot. Any placement waiting to be resolved is abandoned.
+     * The piece source is only rewound if its state was saved in the snapshot.
+     * @param state the snapshot
+     * @throws IllegalArgumentException if the snapshot is of a board of a different size
+     * @throws IllegalStateException if the board is too big to be a BitGrid
+     */
+    public void restore(GameState state) {
+        if (state.getCols() != getCols() || state.getRows() != getRows()) {
+            throw new IllegalArgumentException("Cannot restore a " + state.getCols() + "x" + state.getRows()
+                + " game into a " + getCols() + "x" + getRows() + " board");
+        }
+        getGrid().restore(state.getOccupied(), state.getColourWord(0), state.getColourWord(1),
+            state.getColourWord(2), state.getColourWord(3));
+        current = state.getCurrentShape();
+        next = state.getNextShape();
+        following = state.getFollowingShape();
+        score = state.getScore();
+        level = state.getLevel();
+        lives = state.getLives();
+        multiplier = state.getMultiplier();
+        placed = false;
+        clearResult.reset();
+        if (state.hasSourceState() && pieces.isRestorable()) {
+            pieces.setState(state.getSourceState());
+        }
+    }
+
+    /**
+     * Get the time the player has to play each piece at the current level
+     * @return the delay in milliseconds
+     */
+    public int getTimerDelay() {
+        return rules.timerDelay(level);
+    }
+
+    /**
+     * Check whether the game has ended
+     * @return true if there are no lives left
+     */
+    public boolean isGameOver() {
+        return lives <= 0;
+    }
+
+    /**
+     * Check whether a piece has been placed but its lines not yet resolved
+     * @return true if resolve is pending
+     */
+    public boolean isPlaced() {
+        return placed;
+    }
+
+    /**
+     * Get the lines found by the last placement
+     * @return the clear result, reused by every placement
+     */
+    public ClearResult getClearResult() {
+        return clearResult;
+    }
+
+    /**
+     * Get the Zobrist hash of the game state that matters to play: the occupied blocks, the piece queue and the
+     * multiplier. Positions reached by different moves have the same hash.
+     * @return the hash
+     */
+    public long getHash() {
+        return Zobrist.state(board.getHash(), current, next, following, multiplier);
+    }
+
+    /**
+     * Get the compiled rules the game is played by
+     * @return the rules
+     */
+    public RuleTable getRules() {
+        return rules;
+    }
+
+    /**
+     * Use a tablebase to check for legal moves, in place of the one found in the working directory
+     * @param tablebase the tablebase for the size of the board, or null to check the board itself
+     * @throws IllegalArgumentException if the tablebase is for another size of board
+     */
+    public void setTablebase(Tablebase tablebase) {
+        if (tablebase != null && (tablebase.getCols() != getCols() || tablebase.getRows() != getRows())) {
+            throw new IllegalArgumentException("A " + tablebase.getCols() + "x" + tablebase.getRows()
+                + " tablebase does not fit a " + getCols() + "x" + getRows() + " board");
+        }
+        this.tablebase = tablebase;
+    }
+
+    /**
+     * Get the tablebase used to check for legal moves
+     * @return the tablebase, or null if the board is checked itself
+     */
+    public Tablebase getTablebase() {
+        return tablebase;
+    }
+
+    /**
+     * Get the board holding the state of the blocks
+     * @return the board
+     */
+    public Board getBoard() {
+        return board;
+    }
+
+    /**
+     * Get the board as a BitGrid, for callers which work on occupancy words such as the MoveGenerator
+     * @return the grid
+     * @throws IllegalStateException if the board is too big to be a BitGrid
+     */
+    public BitGrid getGrid() {
+        if (!(board instanceof BitGrid)) {
+            throw new IllegalStateException("A " + getCols() + "x" + getRows() + " board is not a BitGrid");
+        }
+        return (BitGrid) board;
+    }
+
+    /**
+     * Get the piece number of the current piece
+     * @return piece number, or EMPTY
+     */
+    public int getCurrentPiece() {
+        return current == EMPTY ? EMPTY : current / GamePiece.ROTATIONS;
+    }
+
+    /**
+     * Get the rotation of the current piece
+     * @return rotation, from 0 to 3
+     */
+    public int getCurrentRotation() {
+        return current == EMPTY ? 0 : current % GamePiece.ROTATIONS;
+    }
+
+    /**
+     * Get the shape number of the current piece
+     * @return shape number (piece * GamePiece.ROTATIONS + rotation), or EMPTY
+     */
+    public int getCurrentShape() {
+        return current;
+    }
+
+    /**
+     * Get the shape number of the next piece
+     * @return shape number, or EMPTY
+     */
+    public int getNextShape() {
+        return next;
+    }
+
+    /**
+     * Get the shape number of the following piece, which the current piece can be swapped with
+     * @return shape number, or EMPTY
+     */
+    public int getFollowingShape() {
+        return following;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public int getLives() {
+        return lives;
+    }
+
+    public int getMultiplier() {
+        return multiplier;
+    }
+
+    public int getCols() {
+        return board.getCols();
+    }
+
+    public int getRows() {
+        return board.getRows();
+    }
+}
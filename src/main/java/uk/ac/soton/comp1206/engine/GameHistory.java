@@ -0,0 +1,123 @@
+package uk.ac.soton.comp1206.engine;
+
+/**
+ * The GameHistory is an undo stack for a GameEngine. It keeps the most recent GameState snapshots in a ring buffer of
+ * fixed depth: once it is full, recording a new snapshot forgets the oldest one.
+ *
+ * Call record before every move that should be undoable, then undo or rewind to step back through them.
+ *
+ * Only engines which can be snapshotted, on boards of up to 64 blocks, can have a history.
+ */
+public class GameHistory {
+
+    /**
+     * The engine snapshots are taken from and restored into
+     */
+    private final GameEngine engine;
+
+    /**
+     * The snapshots, oldest at head
+     */
+    private final GameState[] states;
+
+    /**
+     * The position of the oldest snapshot
+     */
+    private int head;
+
+    /**
+     * The number of snapshots held
+     */
+    private int size;
+
+    /**
+     * Create a new, empty history for an engine
+     * @param engine the engine
+     * @param depth the largest number of snapshots to keep
+     * @throws IllegalArgumentException if the depth is not positive or the engine cannot be snapshotted
+     */
+    public GameHistory(GameEngine engine, int depth) {
+        if (depth <= 0) {
+            throw new IllegalArgumentException("History depth must be positive: " + depth);
+        }
+        if (!engine.canSnapshot()) {
+            throw new IllegalArgumentException("A " + engine.getCols() + "x" + engine.getRows()
+                + " game cannot be snapshotted");
+        }
+        this.engine = engine;
+        this.states = new GameState[depth];
+    }
+
+    /**
+     * Take a snapshot of the engine and push it, forgetting the oldest snapshot if the history is full
+     * @return the snapshot taken
+     */
+    public GameState record() {
+        GameState state = engine.snapshot();
+        if (size == states.length) {
+            states[head] = state;
+            head = (head + 1) % states.length;
+        } else {
+            states[(head + size) % states.length] = state;
+            size++;
+        }
+        return state;
+    }
+
+    /**
+     * Restore the engine to the last snapshot recorded and remove it from the history
+     * @return the snapshot restored, or null if the history is empty
+     */
+    public GameState undo() {
+        return rewind(1);
+    }
+
+    /**
+     * Step back the given number of snapshots, restore the engine to that one and remove it and every later snapshot
+     * from the history
+     * @param steps number of snapshots to step back, 1 for the last one recorded
+     * @return the snapshot restored, or null if the history holds fewer than steps snapshots
+     */
+    public GameState rewind(int steps) {
+        if (steps <= 0 || steps > size) {
+            return null;
+        }
+        size -= steps;
+        int index = (head + size) % states.length;
+        GameState state = states[index];
+
+        // Let go of the discarded snapshots
+        for (int i = 0; i < steps; i++) {
+            states[(index + i) % states.length] = null;
+        }
+        engine.restore(state);
+        return state;
+    }
+
+    /**
+     * Get the number of snapshots held
+     * @return number of snapshots
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the largest number of snapshots this history keeps
+     * @return the depth
+     */
+    public int getDepth() {
+        return states.length;
+    }
+
+    /**
+     * Forget every snapshot
+     */
+    public void clear() {
+        for (int i = 0; i < states.length; i++) {
+            states[i] = null;
+        }
+        head = 0;
+        size = 0;
+    }
+}
@@ -0,0 +1,152 @@
+package uk.ac.soton.comp1206.engine;
+
+/**
+ * A GameState is an immutable snapshot of everything a GameEngine needs to carry on a game: the occupancy and colour
+ * words of its grid, the piece queue, the score, level, lives and multiplier, and the position of its piece source.
+ *
+ * A snapshot is a handful of primitive fields, and the game's shared RuleTable so that bots score the moves they try
+ * by the same rules, so taking one and restoring it are both constant time, whatever has happened in the game since.
+ * Restoring a snapshot into an engine whose piece source is restorable deals the same pieces again, so a restored
+ * game replays exactly.
+ *
+ * Snapshots are taken with GameEngine.snapshot and restored with GameEngine.restore (or Game.restore, which also
+ * updates the UI). Only games on a BitGrid, of up to 64 blocks, can be snapshotted.
+ */
+public final class GameState {
+
+    private final RuleTable rules;
+    private final int cols;
+    private final int rows;
+
+    /**
+     * The BitGrid occupancy word
+     */
+    private final long occupied;
+
+    /**
+     * The four BitGrid colour words, 4 bits per block
+     */
+    private final long colours0;
+    private final long colours1;
+    private final long colours2;
+    private final long colours3;
+
+    /**
+     * The shape numbers of the piece queue
+     */
+    private final int current;
+    private final int next;
+    private final int following;
+
+    private final int score;
+    private final int level;
+    private final int lives;
+    private final int multiplier;
+
+    /**
+     * Whether the piece source state was saved
+     */
+    private final boolean sourceSaved;
+
+    /**
+     * The saved piece source state, if sourceSaved
+     */
+    private final long sourceState;
+
+    GameState(RuleTable rules, int cols, int rows, long occupied, long colours0, long colours1, long colours2, long colours3,
+              int current, int next, int following, int score, int level, int lives, int multiplier,
+              boolean sourceSaved, long sourceState) {
+        this.rules = rules;
+        this.cols = cols;
+        this.rows = rows;
+        this.occupied = occupied;
+        this.colours0 = colours0;
+        this.colours1 = colours1;
+        this.colours2 = colours2;
+        this.colours3 = colours3;
+        this.current = current;
+        this.next = next;
+        this.following = following;
+        this.score = score;
+        this.level = level;
+        this.lives = lives;
+        this.multiplier = multiplier;
+        this.sourceSaved = sourceSaved;
+        this.sourceState = sourceState;
+    }
+
+    /**
+     * Get the rules the game is played by
+     * @return the compiled rules
+     */
+    public RuleTable getRules() {
+        return rules;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public long getOccupied() {
+        return occupied;
+    }
+
+    /**
+     * Get one of the saved colour words
+     * @param word word number, from 0 to BitGrid.COLOUR_WORDS - 1
+     * @return the colour word
+     */
+    public long getColourWord(int word) {
+        switch (word) {
+            case 0: return colours0;
+            case 1: return colours1;
+            case 2: return colours2;
+            case 3: return colours3;
+            default: throw new IndexOutOfBoundsException("Colour word " + word);
+        }
+    }
+
+    public int getCurrentShape() {
+        return current;
+    }
+
+    public int getNextShape() {
+        return next;
+    }
+
+    public int getFollowingShape() {
+        return following;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public int getLives() {
+        return lives;
+    }
+
+    public int getMultiplier() {
+        return multiplier;
+    }
+
+    /**
+     * Check whether the position of the piece source was saved, so restoring will deal the same pieces again
+     * @return true if the source state was saved
+     */
+    public boolean hasSourceState() {
+        return sourceSaved;
+    }
+
+    public long getSourceState() {
+        return sourceState;
+    }
+}
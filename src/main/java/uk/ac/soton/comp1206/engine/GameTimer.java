@@ -0,0 +1,89 @@
+package uk.ac.soton.comp1206.engine;
+
+/**
+ * A GameTimer drives the life-loss timer of a GameEngine from a GameClock, with the same rules as the game: if the
+ * current piece is not played within the engine's timer delay, a life is lost and the next piece comes in with a new
+ * timer. Reset the timer every time a piece is played.
+ *
+ * With a VirtualClock, a whole game with timeouts can be played headlessly in microseconds: advance the clock to let
+ * pieces time out, for example with advanceToNext.
+ */
+public class GameTimer {
+
+    private final GameEngine engine;
+    private final GameClock clock;
+
+    /**
+     * Called after every timeout, once the engine has moved on
+     */
+    private final Runnable onTimeout;
+
+    private GameClock.Timer timer;
+
+    /**
+     * The number of times the timer has run out
+     */
+    private int timeouts;
+
+    /**
+     * Create a new timer for an engine. It does not start until start is called.
+     * @param engine the engine
+     * @param clock the clock to time it on
+     * @param onTimeout called after every timeout, once the engine has moved on, or null
+     */
+    public GameTimer(GameEngine engine, GameClock clock, Runnable onTimeout) {
+        this.engine = engine;
+        this.clock = clock;
+        this.onTimeout = onTimeout;
+    }
+
+    /**
+     * Start the timer for the current piece, or restart it if it is already running
+     */
+    public void start() {
+        if (timer == null) {
+            timer = clock.schedule(this::expire, engine.getTimerDelay(), 0);
+        } else {
+            timer.reschedule(engine.getTimerDelay(), 0);
+        }
+    }
+
+    /**
+     * Restart the timer for a new piece, at the delay for the current level. Does nothing if the timer is stopped.
+     */
+    public void reset() {
+        if (timer != null && timer.isPending()) {
+            timer.reschedule(engine.getTimerDelay(), 0);
+        }
+    }
+
+    /**
+     * Stop the timer
+     */
+    public void stop() {
+        if (timer != null) {
+            timer.cancel();
+        }
+    }
+
+    /**
+     * Get the number of times the timer has run out
+     * @return the number of timeouts
+     */
+    public int getTimeouts() {
+        return timeouts;
+    }
+
+    /**
+     * Lose a life for the current piece and, if the game carries on, time the next one
+     */
+    private void expire() {
+        timeouts++;
+        if (engine.tick()) {
+            timer.reschedule(engine.getTimerDelay(), 0);
+        }
+        if (onTimeout != null) {
+            onTimeout.run();
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package uk.ac.soton.comp1206.engine;
+
+import java.util.Arrays;
+import uk.ac.soton.comp1206.game.BitGrid;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.PlacementTable;
+
+/**
+ * The MoveGenerator lists every legal placement on a grid in one pass, writing them as packed ints into an array
+ * supplied by the caller so that nothing is allocated per move.
+ *
+ * A packed move holds which queue slot the piece comes from, the piece number, its rotation and the column and row of
+ * its center:
+ * <pre>
+ *   bits 24-25 slot, bits 16-23 shape (piece * 4 + rotation), bits 8-15 y, bits 0-7 x
+ * </pre>
+ * Use the static accessors to unpack a move and GameEngine.playMove to play one.
+ *
+ * Rotations which give the same shape as an earlier rotation of the same piece, even shifted within the 3x3 grid
+ * (such as every rotation of the Plus, or of the Square), are only listed once. Every piece covers the center of its
+ * grid in every rotation, so a shifted rotation's placements are all placements of the earlier one at another anchor
+ * on the board.
+ */
+public class MoveGenerator {
+
+    /**
+     * The slot of a move made with the current piece
+     */
+    public static final int SLOT_CURRENT = 0;
+
+    /**
+     * The slot of a move made with the next piece, once the current piece has been played
+     */
+    public static final int SLOT_NEXT = 1;
+
+    /**
+     * The slot of a move made with the following piece, after swapping it with the current piece
+     */
+    public static final int SLOT_FOLLOWING = 2;
+
+    /**
+     * The distinct rotations of every piece, indexed by piece number
+     */
+    private static final int[][] DISTINCT_ROTATIONS = new int[GamePiece.PIECES][];
+
+    static {
+        for (int piece = 0; piece < GamePiece.PIECES; piece++) {
+            int[] rotations = new int[GamePiece.ROTATIONS];
+            int count = 0;
+            for (int rotation = 0; rotation < GamePiece.ROTATIONS; rotation++) {
+                boolean seen = false;
+                for (int i = 0; i < count; i++) {
+                    if (normalise(GamePiece.getMask(piece, rotations[i]))
+                        == normalise(GamePiece.getMask(piece, rotation))) {
+                        seen = true;
+                        break;
+                    }
+                }
+                if (!seen) {
+                    rotations[count++] = rotation;
+                }
+            }
+            DISTINCT_ROTATIONS[piece] = Arrays.copyOf(rotations, count);
+        }
+    }
+
+    private MoveGenerator() {
+    }
+
+    /**
+     * Shift a 9 bit shape mask into the top left of its 3x3 grid, so shapes which differ only by a shift are equal
+     * @param mask the shape mask, block (x,y) at bit (y * 3 + x)
+     * @return the shifted mask
+     */
+    private static int normalise(int mask) {
+        while ((mask & 0b000_000_111) == 0) {
+            mask >>>= 3;
+        }
+        while ((mask & 0b001_001_001) == 0) {
+            mask >>>= 1;
+        }
+        return mask;
+    }
+
+    /**
+     * Get the largest number of moves generate can write for a grid of the given size
+     * @param cols number of columns
+     * @param rows number of rows
+     * @return the array size needed to hold every move
+     */
+    public static int maxMoves(int cols, int rows) {
+        return 3 * GamePiece.ROTATIONS * cols * rows;
+    }
+
+    /**
+     * Write every legal move for the current, following (swapped) and next pieces of an engine.
+     * Moves for the following piece are skipped when it is the same piece as the current one.
+     * @param engine the engine
+     * @param moves the array to write into, at least maxMoves long
+     * @return the number of moves written
+     */
+    public static int generate(GameEngine engine, int[] moves) {
+        BitGrid grid = engine.getGrid();
+        int count = 0;
+
+        int current = engine.getCurrentShape();
+        if (current != GameEngine.EMPTY) {
+            count = generate(grid, current / GamePiece.ROTATIONS, SLOT_CURRENT, moves, count);
+        }
+        int following = engine.getFollowingShape();
+        if (following != GameEngine.EMPTY && (current == GameEngine.EMPTY
+            || following / GamePiece.ROTATIONS != current / GamePiece.ROTATIONS)) {
+            count = generate(grid, following / GamePiece.ROTATIONS, SLOT_FOLLOWING, moves, count);
+        }
+        int next = engine.getNextShape();
+        if (next != GameEngine.EMPTY) {
+            count = generate(grid, next / GamePiece.ROTATIONS, SLOT_NEXT, moves, count);
+        }
+        return count;
+    }
+
+    /**
+     * Write every legal move of one piece, in every distinct rotation, on a grid
+     * @param grid the grid
+     * @param piece piece number
+     * @param slot the queue slot to record in the moves
+     * @param moves the array to write into
+     * @param offset the position in the array to start writing at
+     * @return the position after the last move written
+     */
+    public static int generate(BitGrid grid, int piece, int slot, int[] moves, int offset) {
+        // The grid keeps the legal anchors of every shape up to date, so only the moves themselves need writing
+        int cols = grid.getCols();
+        int count = offset;
+        for (int rotation : DISTINCT_ROTATIONS[piece]) {
+            int shape = piece * GamePiece.ROTATIONS + rotation;
+            for (long legal = grid.getLegalAnchors(shape); legal != 0; legal &= legal - 1) {
+                int anchor = Long.numberOfTrailingZeros(legal);
+                moves[count++] = pack(slot, shape, anchor % cols, anchor / cols);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Write every legal move of one piece, in every distinct rotation, on a board given only by its occupancy word.
+     * Used by searches which play moves on occupancy words rather than on a BitGrid.
+     * @param table the placement table for the size of the board
+     * @param occupied the BitGrid occupancy word
+     * @param piece piece number
+     * @param slot the queue slot to record in the moves
+     * @param moves the array to write into
+     * @param offset the position in the array to start writing at
+     * @return the position after the last move written
+     */
+    public static int generate(PlacementTable table, long occupied, int piece, int slot, int[] moves, int offset) {
+        int cols = table.getCols();
+        int anchors = cols * table.getRows();
+        int count = offset;
+
+        for (int rotation : DISTINCT_ROTATIONS[piece]) {
+            int shape = piece * GamePiece.ROTATIONS + rotation;
+            for (int anchor = 0; anchor < anchors; anchor++) {
+                long mask = table.mask(shape, anchor);
+                if (mask != 0 && (occupied & mask) == 0) {
+                    moves[count++] = pack(slot, shape, anchor % cols, anchor / cols);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Pack a move into an int
+     * @param slot the queue slot the piece comes from
+     * @param shape shape number (piece * GamePiece.ROTATIONS + rotation)
+     * @param x column of the center of the piece
+     * @param y row of the center of the piece
+     * @return the packed move
+     */
+    public static int pack(int slot, int shape, int x, int y) {
+        return slot << 24 | shape << 16 | y << 8 | x;
+    }
+
+    public static int slot(int move) {
+        return move >>> 24;
+    }
+
+    public static int shape(int move) {
+        return (move >>> 16) & 0xFF;
+    }
+
+    public static int piece(int move) {
+        return shape(move) / GamePiece.ROTATIONS;
+    }
+
+    public static int rotation(int move) {
+        return shape(move) % GamePiece.ROTATIONS;
+    }
+
+    public static int y(int move) {
+        return (move >>> 8) & 0xFF;
+    }
+
+    public static int x(int move) {
+        return move & 0xFF;
+    }
+}
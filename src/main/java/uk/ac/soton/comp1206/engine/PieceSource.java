@@ -0,0 +1,43 @@
+package uk.ac.soton.comp1206.engine;
+
+/**
+ * A PieceSource supplies the piece number of every new piece spawned into a GameEngine's piece queue.
+ *
+ * Seeded sources produce the same stream of pieces every time, so games can be replayed and benchmarks and bots can be
+ * compared on identical piece sequences. Restorable sources can also save their position in that stream as a single
+ * word, so a GameState can rewind the pieces along with the board.
+ */
+public interface PieceSource {
+
+    /**
+     * Take the next piece
+     * @return a piece number, from 0 to GamePiece.PIECES - 1
+     */
+    int nextPiece();
+
+    /**
+     * Check whether the position of this source in its stream of pieces can be saved and restored, for GameState
+     * @return true if getState and setState are supported
+     */
+    default boolean isRestorable() {
+        return false;
+    }
+
+    /**
+     * Save the position of this source in its stream of pieces
+     * @return the state, as a single word
+     * @throws UnsupportedOperationException if this source is not restorable
+     */
+    default long getState() {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " cannot be saved");
+    }
+
+    /**
+     * Restore a position saved by getState, so the same pieces are dealt again from there
+     * @param state the saved state
+     * @throws UnsupportedOperationException if this source is not restorable
+     */
+    default void setState(long state) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " cannot be restored");
+    }
+}
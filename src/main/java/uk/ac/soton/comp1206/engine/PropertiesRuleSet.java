@@ -0,0 +1,159 @@
+package uk.ac.soton.comp1206.engine;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Properties;
+
+/**
+ * A RuleSet read from a properties file, so a variant can be made without writing any code. Every key is optional,
+ * and a missing key keeps the standard rule:
+ * <pre>
+ *   name=blitz
+ *   cols=5
+ *   rows=5
+ *   pieces=0,1,2,3,4,5,6,7,8,9,10,11,12,13,14
+ *   lives=3
+ *   points.lineBlock=10    # points = lineBlock * lines * blocks + line * lines + block * blocks
+ *   points.line=0
+ *   points.block=0
+ *   multiplier.step=1
+ *   multiplier.max=2147483647
+ *   multiplier.decay=0     # 256ths of the multiplier above 1 kept after a miss
+ *   level.score=1000
+ *   delay.start=12000      # delay = max(delay.min, delay.start - delay.step * level)
+ *   delay.step=500
+ *   delay.min=2500
+ * </pre>
+ */
+public class PropertiesRuleSet implements RuleSet {
+
+    private final String name;
+    private final int cols;
+    private final int rows;
+    private final int[] pieces;
+    private final int lives;
+    private final int lineBlockPoints;
+    private final int linePoints;
+    private final int blockPoints;
+    private final int multiplierStep;
+    private final int maxMultiplier;
+    private final int multiplierDecay;
+    private final int levelScore;
+    private final int delayStart;
+    private final int delayStep;
+    private final int delayMin;
+
+    /**
+     * Create a rule set from properties
+     * @param props the properties
+     * @param defaultName the name if the properties do not give one
+     * @throws IllegalArgumentException if a value is not a number
+     */
+    public PropertiesRuleSet(Properties props, String defaultName) {
+        RuleSet standard = new StandardRules();
+        name = props.getProperty("name", defaultName);
+        cols = getInt(props, "cols", standard.getCols());
+        rows = getInt(props, "rows", standard.getRows());
+        String list = props.getProperty("pieces");
+        pieces = list == null ? standard.getPieces()
+            : Arrays.stream(list.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+        lives = getInt(props, "lives", standard.getStartingLives());
+        lineBlockPoints = getInt(props, "points.lineBlock", 10);
+        linePoints = getInt(props, "points.line", 0);
+        blockPoints = getInt(props, "points.block", 0);
+        multiplierStep = getInt(props, "multiplier.step", standard.getMultiplierStep());
+        maxMultiplier = getInt(props, "multiplier.max", standard.getMaxMultiplier());
+        multiplierDecay = getInt(props, "multiplier.decay", standard.getMultiplierDecay());
+        levelScore = getInt(props, "level.score", standard.getLevelScore());
+        delayStart = getInt(props, "delay.start", 12000);
+        delayStep = getInt(props, "delay.step", 500);
+        delayMin = getInt(props, "delay.min", 2500);
+    }
+
+    /**
+     * Read a rule set from a properties file
+     * @param path the file
+     * @return the rule set, named after the file unless it gives a name
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if a value is not a number
+     */
+    public static PropertiesRuleSet load(Path path) throws IOException {
+        Properties props = new Properties();
+        try (InputStream in = Files.newInputStream(path)) {
+            props.load(in);
+        }
+        String file = path.getFileName().toString();
+        return new PropertiesRuleSet(props, file.endsWith(".properties")
+            ? file.substring(0, file.length() - ".properties".length()) : file);
+    }
+
+    private static int getInt(Properties props, String key, int fallback) {
+        String value = props.getProperty(key);
+        if (value == null) {
+            return fallback;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Bad value for " + key + ": " + value, e);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int getCols() {
+        return cols;
+    }
+
+    @Override
+    public int getRows() {
+        return rows;
+    }
+
+    @Override
+    public int[] getPieces() {
+        return pieces.clone();
+    }
+
+    @Override
+    public int getStartingLives() {
+        return lives;
+    }
+
+    @Override
+    public int getPoints(int lines, int blocks) {
+        return lineBlockPoints * lines * blocks + linePoints * lines + blockPoints * blocks;
+    }
+
+    @Override
+    public int getMultiplierStep() {
+        return multiplierStep;
+    }
+
+    @Override
+    public int getMaxMultiplier() {
+        return maxMultiplier;
+    }
+
+    @Override
+    public int getMultiplierDecay() {
+        return multiplierDecay;
+    }
+
+    @Override
+    public int getLevelScore() {
+        return levelScore;
+    }
+
+    @Override
+    public int getTimerDelay(int level) {
+        return Math.max(delayMin, delayStart - delayStep * level);
+    }
+}
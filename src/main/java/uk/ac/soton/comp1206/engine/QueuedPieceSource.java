@@ -0,0 +1,90 @@
+package uk.ac.soton.comp1206.engine;
+
+import java.util.Arrays;
+import uk.ac.soton.comp1206.game.GamePiece;
+
+/**
+ * A PieceSource which deals pieces that have been added to it from elsewhere, such as the pieces sent by the server in
+ * a multiplayer game, in the order they were added.
+ *
+ * If a piece is needed before one has arrived, the source runs its empty handler (for example, to ask for more) and
+ * deals a fallback piece.
+ */
+public class QueuedPieceSource implements PieceSource {
+
+    /**
+     * The piece dealt when the queue is empty
+     */
+    public static final int FALLBACK_PIECE = 0;
+
+    /**
+     * A ring buffer of queued piece numbers
+     */
+    private int[] queue = new int[16];
+
+    /**
+     * The position of the first queued piece in the ring buffer
+     */
+    private int head;
+
+    /**
+     * The number of queued pieces
+     */
+    private int size;
+
+    /**
+     * Run when a piece is needed but the queue is empty
+     */
+    private Runnable onEmpty;
+
+    /**
+     * Add a piece to the back of the queue
+     * @param piece piece number
+     */
+    public synchronized void add(int piece) {
+        if (piece < 0 || piece >= GamePiece.PIECES) {
+            throw new IndexOutOfBoundsException("No such piece: " + piece);
+        }
+        if (size == queue.length) {
+            //Grow, keeping the head where it is: the pieces wrapped round to the front of the old array are copied to
+            //just after its end, so the queue runs on from the head without a break
+            int[] bigger = Arrays.copyOf(queue, queue.length * 2);
+            System.arraycopy(queue, 0, bigger, queue.length, head);
+            queue = bigger;
+        }
+        queue[(head + size) % queue.length] = piece;
+        size++;
+    }
+
+    /**
+     * Set what to do when a piece is needed but the queue is empty
+     * @param onEmpty the handler
+     */
+    public void setOnEmpty(Runnable onEmpty) {
+        this.onEmpty = onEmpty;
+    }
+
+    /**
+     * Get the number of pieces waiting in the queue
+     * @return the number of queued pieces
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public int nextPiece() {
+        synchronized (this) {
+            if (size > 0) {
+                int piece = queue[head];
+                head = (head + 1) % queue.length;
+                size--;
+                return piece;
+            }
+        }
+        if (onEmpty != null) {
+            onEmpty.run();
+        }
+        return FALLBACK_PIECE;
+    }
+}
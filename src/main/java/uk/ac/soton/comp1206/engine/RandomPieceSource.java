@@ -0,0 +1,110 @@
+package uk.ac.soton.comp1206.engine;
+
+import java.util.SplittableRandom;
+import uk.ac.soton.comp1206.game.GamePiece;
+
+/**
+ * A PieceSource which picks every piece uniformly at random, from all the pieces or from the piece set of a RuleSet.
+ * Given the same seed, it produces the same pieces.
+ *
+ * The random numbers come from SplitMix64, the generator behind SplittableRandom, run by hand so that its whole state
+ * is one long word which can be saved and restored.
+ */
+public class RandomPieceSource implements PieceSource {
+
+    /**
+     * The SplitMix64 increment, the odd golden ratio constant used by SplittableRandom
+     */
+    static final long GAMMA = 0x9e3779b97f4a7c15L;
+
+    /**
+     * Every piece number, in order
+     */
+    private static final int[] ALL_PIECES = new int[GamePiece.PIECES];
+
+    static {
+        for (int i = 0; i < ALL_PIECES.length; i++) {
+            ALL_PIECES[i] = i;
+        }
+    }
+
+    /**
+     * The SplitMix64 state, advanced by GAMMA for every number drawn
+     */
+    private long state;
+
+    /**
+     * The piece numbers to pick from
+     */
+    private final int[] pieces;
+
+    /**
+     * Create a new source with an unpredictable seed
+     */
+    public RandomPieceSource() {
+        this(new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Create a new source with the given seed
+     * @param seed the seed
+     */
+    public RandomPieceSource(long seed) {
+        this(seed, ALL_PIECES);
+    }
+
+    /**
+     * Create a new source with the given seed, picking from a set of pieces
+     * @param seed the seed
+     * @param pieces the piece numbers to pick from
+     */
+    public RandomPieceSource(long seed, int[] pieces) {
+        if (pieces.length == 0) {
+            throw new IllegalArgumentException("No pieces to pick from");
+        }
+        this.state = seed;
+        this.pieces = pieces.clone();
+    }
+
+    /**
+     * The SplitMix64 output function, which turns a state into a well mixed random word
+     * @param z the state
+     * @return the random word
+     */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Map a random word onto [0, bound) with a multiply and shift, so every draw uses exactly one word
+     * @param random the random word
+     * @param bound the exclusive upper bound
+     * @return a number from 0 to bound - 1
+     */
+    static int bounded(long random, int bound) {
+        return (int) (((random >>> 32) * bound) >>> 32);
+    }
+
+    @Override
+    public int nextPiece() {
+        state += GAMMA;
+        return pieces[bounded(mix(state), pieces.length)];
+    }
+
+    @Override
+    public boolean isRestorable() {
+        return true;
+    }
+
+    @Override
+    public long getState() {
+        return state;
+    }
+
+    @Override
+    public void setState(long state) {
+        this.state = state;
+    }
+}
@@ -0,0 +1,123 @@
+package uk.ac.soton.comp1206.engine;
+
+import uk.ac.soton.comp1206.game.GamePiece;
+
+/**
+ * A RuleSet describes a variant of TetrECS: the board size, the pieces dealt, the scoring, how the multiplier grows and
+ * decays, the levels and the time allowed for each piece. Every method has the standard rules as its default, so a
+ * variant only overrides what it changes.
+ *
+ * Rule sets are found by name with RuleSets: the standard rules, any registered as services of this interface (for
+ * ServiceLoader, in module-info and META-INF/services), and properties files read by PropertiesRuleSet.
+ *
+ * A rule set is compiled into a RuleTable of lookup tables when the game starts, and the engine only ever indexes
+ * those tables, so a variant plays at the same speed as the standard game. The one exception is the points of a move
+ * on a board too big to tabulate them, which are asked of the rule set, so a rule set must be safe to share.
+ */
+public interface RuleSet {
+
+    /**
+     * Get the name the rule set is found by
+     * @return the name
+     */
+    String getName();
+
+    /**
+     * Get the number of columns on the board
+     * @return the columns
+     */
+    default int getCols() {
+        return 5;
+    }
+
+    /**
+     * Get the number of rows on the board
+     * @return the rows
+     */
+    default int getRows() {
+        return 5;
+    }
+
+    /**
+     * Get the piece numbers of the pieces dealt, each dealt with equal chance
+     * @return the piece numbers, from 0 to GamePiece.PIECES - 1
+     */
+    default int[] getPieces() {
+        int[] pieces = new int[GamePiece.PIECES];
+        for (int i = 0; i < pieces.length; i++) {
+            pieces[i] = i;
+        }
+        return pieces;
+    }
+
+    /**
+     * Get the number of lives a game starts with
+     * @return the lives, at least 1
+     */
+    default int getStartingLives() {
+        return GameEngine.STARTING_LIVES;
+    }
+
+    /**
+     * Get the points for a move before the multiplier is applied. A move which clears nothing scores nothing.
+     * @param lines the number of lines cleared, at least 1
+     * @param blocks the number of blocks cleared
+     * @return the points, which the multiplier is then applied to
+     */
+    default int getPoints(int lines, int blocks) {
+        return lines * blocks * 10;
+    }
+
+    /**
+     * Get how much the multiplier grows after every move which clears a line
+     * @return the step, at least 0
+     */
+    default int getMultiplierStep() {
+        return 1;
+    }
+
+    /**
+     * Get the highest the multiplier can grow
+     * @return the cap, at least 1
+     */
+    default int getMaxMultiplier() {
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * Get how much of the multiplier above 1 is kept after a move which clears nothing, or a lost life, in 256ths:
+     * 0 resets it to 1, 128 halves what it has gained, 256 keeps all of it
+     * @return the share kept, from 0 to 256
+     */
+    default int getMultiplierDecay() {
+        return 0;
+    }
+
+    /**
+     * Get the score needed for each level
+     * @return the points per level, at least 1
+     */
+    default int getLevelScore() {
+        return 1000;
+    }
+
+    /**
+     * Get the time allowed for each piece at a level. Only the first RuleTable.LEVELS levels are looked up; the
+     * levels after them have the delay of the last.
+     * @param level the level, from 0
+     * @return the delay in milliseconds
+     */
+    default int getTimerDelay(int level) {
+        // The delay is the maximum of either 2500ms or (12000 - 500 * level)
+        return Math.max(2500, 12000 - 500 * level);
+    }
+
+    /**
+     * Make a source of the pieces of this rule set
+     * @param seed the seed, so the same pieces are dealt every time
+     * @return the piece source
+     */
+    default PieceSource createPieceSource(long seed) {
+        return new RandomPieceSource(seed, getPieces());
+    }
+}
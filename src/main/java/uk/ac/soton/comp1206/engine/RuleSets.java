@@ -0,0 +1,61 @@
+package uk.ac.soton.comp1206.engine;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * RuleSets finds rule sets by name: the standard rules, any RuleSet registered as a service for ServiceLoader, and
+ * properties files read by PropertiesRuleSet, named by their path.
+ */
+public class RuleSets {
+
+    private RuleSets() {
+    }
+
+    /**
+     * Find a rule set
+     * @param name the name of the standard rules or a service, or the path of a properties file
+     * @return the rule set
+     * @throws IllegalArgumentException if there is no such rule set
+     * @throws UncheckedIOException if the properties file cannot be read
+     */
+    public static RuleSet get(String name) {
+        if (name.equals(StandardRules.NAME)) {
+            return new StandardRules();
+        }
+        for (RuleSet rules : ServiceLoader.load(RuleSet.class)) {
+            if (rules.getName().equals(name)) {
+                return rules;
+            }
+        }
+        Path path = Paths.get(name);
+        if (Files.isRegularFile(path)) {
+            try {
+                return PropertiesRuleSet.load(path);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read rules from " + path, e);
+            }
+        }
+        throw new IllegalArgumentException("Unknown rules: " + name + ", expected a properties file or one of "
+            + getNames());
+    }
+
+    /**
+     * Get the names of the standard rules and of every rule set registered as a service
+     * @return the names
+     */
+    public static List<String> getNames() {
+        List<String> names = new ArrayList<>();
+        names.add(StandardRules.NAME);
+        for (RuleSet rules : ServiceLoader.load(RuleSet.class)) {
+            names.add(rules.getName());
+        }
+        return names;
+    }
+}
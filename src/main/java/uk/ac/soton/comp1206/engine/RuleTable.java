@@ -0,0 +1,216 @@
+package uk.ac.soton.comp1206.engine;
+
+import java.util.concurrent.ConcurrentHashMap;
+import uk.ac.soton.comp1206.game.GamePiece;
+
+/**
+ * A RuleTable is a RuleSet compiled into lookup tables when a game starts, so that the engine does not call back into
+ * the rule set during play. Scoring a move, growing or decaying the multiplier, working out the level and the timer
+ * delay are each an array lookup or a little arithmetic, with no branching on the rules and no boxing.
+ *
+ * The points table is indexed by lines and blocks cleared, which are bounded by the board size. On a board too big
+ * for that table to be worth its memory, the points of each move are asked of the rule set instead. The multiplier
+ * is updated by one formula for every move, 1 + (multiplier - 1) * keep / 256 + step, with the keep and step for a
+ * clear and for a miss held in two-entry arrays indexed by whether anything was cleared.
+ *
+ * Tables are immutable, so one can be shared by every engine playing the same rules. The standard tables for each
+ * board size are shared that way, so bots can tell from a snapshot's table whether they are set up for its rules.
+ */
+public final class RuleTable {
+
+    /**
+     * The number of levels with a timer delay of their own; later levels have the delay of the last
+     */
+    public static final int LEVELS = 64;
+
+    /**
+     * The most entries a points table can have: enough for any square board up to 31x31
+     */
+    public static final int MAX_POINTS_TABLE = 1 << 16;
+
+    /**
+     * The standard tables built so far, by board size
+     */
+    private static final ConcurrentHashMap<Long, RuleTable> standard = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final int cols;
+    private final int rows;
+    private final int[] pieces;
+    private final int startingLives;
+
+    /**
+     * The points for a move before the multiplier, at lines * stride + blocks, or null if the board is too big to
+     * tabulate them, when the rule set is kept to ask instead
+     */
+    private final int[] points;
+    private final int stride;
+    private final RuleSet rules;
+
+    /**
+     * The share of the multiplier above 1 kept, in 256ths, and the step added, after a miss [0] and a clear [1]
+     */
+    private final long[] multiplierKeep = new long[2];
+    private final int[] multiplierStep = new int[2];
+    private final int maxMultiplier;
+
+    private final int levelScore;
+
+    /**
+     * The timer delay of each level, in milliseconds
+     */
+    private final int[] delays = new int[LEVELS];
+
+    private RuleTable(RuleSet rules) {
+        name = rules.getName();
+        cols = rules.getCols();
+        rows = rules.getRows();
+        pieces = rules.getPieces().clone();
+        startingLives = rules.getStartingLives();
+        maxMultiplier = rules.getMaxMultiplier();
+        levelScore = rules.getLevelScore();
+        int decay = rules.getMultiplierDecay();
+        int step = rules.getMultiplierStep();
+
+        if (cols <= 0 || rows <= 0) {
+            throw new IllegalArgumentException("Unsupported board in " + name + ": " + cols + "x" + rows);
+        }
+        if (pieces.length == 0) {
+            throw new IllegalArgumentException("No pieces in " + name);
+        }
+        for (int piece : pieces) {
+            if (piece < 0 || piece >= GamePiece.PIECES) {
+                throw new IllegalArgumentException("Unknown piece in " + name + ": " + piece);
+            }
+        }
+        if (startingLives < 1 || maxMultiplier < 1 || levelScore < 1 || step < 0 || decay < 0 || decay > 256) {
+            throw new IllegalArgumentException("Unsupported lives, multiplier or levels in " + name);
+        }
+
+        // No more than every row and column can be cleared at once, and no more than every block
+        long size = (cols + rows + 1L) * ((long) cols * rows + 1);
+        if (size <= MAX_POINTS_TABLE) {
+            stride = cols * rows + 1;
+            points = new int[(int) size];
+            for (int lines = 1; lines <= cols + rows; lines++) {
+                for (int blocks = 0; blocks < stride; blocks++) {
+                    points[lines * stride + blocks] = rules.getPoints(lines, blocks);
+                }
+            }
+            this.rules = null;
+        } else {
+            stride = 0;
+            points = null;
+            this.rules = rules;
+        }
+
+        multiplierKeep[0] = decay;
+        multiplierKeep[1] = 256;
+        multiplierStep[1] = step;
+
+        for (int level = 0; level < LEVELS; level++) {
+            delays[level] = rules.getTimerDelay(level);
+        }
+    }
+
+    /**
+     * Compile a rule set
+     * @param rules the rule set
+     * @return the tables
+     * @throws IllegalArgumentException if the rules are not ones the engine can play
+     */
+    public static RuleTable compile(RuleSet rules) {
+        return new RuleTable(rules);
+    }
+
+    /**
+     * Get the standard rules on a board of any size, compiling them if needed
+     * @param cols number of columns
+     * @param rows number of rows
+     * @return the shared tables for that size
+     */
+    public static RuleTable standard(int cols, int rows) {
+        return standard.computeIfAbsent(((long) cols << 32) | rows,
+            k -> new RuleTable(new StandardRules(cols, rows)));
+    }
+
+    /**
+     * Get the points for a move before the multiplier is applied
+     * @param lines the number of lines cleared
+     * @param blocks the number of blocks cleared
+     * @return the points, 0 if nothing was cleared
+     */
+    public int points(int lines, int blocks) {
+        if (points != null) {
+            return points[lines * stride + blocks];
+        }
+        return lines == 0 ? 0 : rules.getPoints(lines, blocks);
+    }
+
+    /**
+     * Work out the multiplier after a move
+     * @param multiplier the multiplier the move was scored with
+     * @param lines the number of lines the move cleared, or 0 for a miss or a lost life
+     * @return the new multiplier
+     */
+    public int nextMultiplier(int multiplier, int lines) {
+        // 1 if any lines were cleared, 0 if not
+        int cleared = -lines >>> 31;
+        long next = 1 + ((multiplier - 1L) * multiplierKeep[cleared] >>> 8) + multiplierStep[cleared];
+        return (int) Math.min(next, maxMultiplier);
+    }
+
+    /**
+     * Work out the level of a score
+     * @param score the score
+     * @return the level
+     */
+    public int level(int score) {
+        return score / levelScore;
+    }
+
+    /**
+     * Get the time allowed for each piece at a level
+     * @param level the level
+     * @return the delay in milliseconds
+     */
+    public int timerDelay(int level) {
+        return delays[Math.min(level, LEVELS - 1)];
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Get the piece numbers of the pieces dealt
+     * @return a copy of the piece numbers
+     */
+    public int[] getPieces() {
+        return pieces.clone();
+    }
+
+    public int getStartingLives() {
+        return startingLives;
+    }
+
+    /**
+     * Get how much the multiplier grows after a move which clears a line
+     * @return the step
+     */
+    public int getMultiplierStep() {
+        return multiplierStep[1];
+    }
+
+    public int getMaxMultiplier() {
+        return maxMultiplier;
+    }
+}
@@ -0,0 +1,55 @@
+package uk.ac.soton.comp1206.engine;
+
+import uk.ac.soton.comp1206.game.GamePiece;
+
+/**
+ * A PieceSource which deals a fixed sequence of pieces, starting again from the beginning when it runs out.
+ * Useful for replays, puzzles and tests.
+ */
+public class ScriptedPieceSource implements PieceSource {
+
+    private final int[] pieces;
+
+    /**
+     * The position of the next piece to deal
+     */
+    private int position;
+
+    /**
+     * Create a new source dealing the given pieces in order
+     * @param pieces the piece numbers to deal
+     */
+    public ScriptedPieceSource(int... pieces) {
+        if (pieces.length == 0) {
+            throw new IllegalArgumentException("No pieces to deal");
+        }
+        for (int piece : pieces) {
+            if (piece < 0 || piece >= GamePiece.PIECES) {
+                throw new IndexOutOfBoundsException("No such piece: " + piece);
+            }
+        }
+        this.pieces = pieces.clone();
+    }
+
+    @Override
+    public int nextPiece() {
+        int piece = pieces[position];
+        position = (position + 1) % pieces.length;
+        return piece;
+    }
+
+    @Override
+    public boolean isRestorable() {
+        return true;
+    }
+
+    @Override
+    public long getState() {
+        return position;
+    }
+
+    @Override
+    public void setState(long state) {
+        this.position = (int) state;
+    }
+}
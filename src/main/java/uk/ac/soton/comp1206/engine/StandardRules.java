@@ -0,0 +1,47 @@
+package uk.ac.soton.comp1206.engine;
+
+/**
+ * The standard rules of TetrECS, on a board of any size
+ */
+public class StandardRules implements RuleSet {
+
+    /**
+     * The name the standard rules are found by
+     */
+    public static final String NAME = "standard";
+
+    private final int cols;
+    private final int rows;
+
+    /**
+     * Create the standard rules on the standard 5x5 board
+     */
+    public StandardRules() {
+        this(5, 5);
+    }
+
+    /**
+     * Create the standard rules on a board of another size
+     * @param cols number of columns
+     * @param rows number of rows
+     */
+    public StandardRules(int cols, int rows) {
+        this.cols = cols;
+        this.rows = rows;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public int getCols() {
+        return cols;
+    }
+
+    @Override
+    public int getRows() {
+        return rows;
+    }
+}
@@ -0,0 +1,286 @@
+package uk.ac.soton.comp1206.engine;
+
+import java.util.concurrent.ConcurrentHashMap;
+import uk.ac.soton.comp1206.game.BitGrid;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.Zobrist;
+
+/**
+ * Symmetry maps the boards of a square BitGrid through its 8 symmetries: the 4 rotations, each with or without a
+ * mirror. Boards which are rotations or reflections of each other play exactly the same, once the pieces are turned
+ * or mirrored to match, so caches, transposition tables and tablebases only need to hold one of each: the canonical
+ * board, which is the one with the smallest occupancy word.
+ *
+ * Moving an occupancy word through a symmetry is a bit permutation, done a byte at a time with lookup tables built
+ * for each board size. Moves are mapped by mapping the center of the piece and its shape: rotating a piece gives
+ * another rotation of it, and mirroring gives a rotation of its mirror image, which the piece set always contains.
+ *
+ * Symmetry 0 is the identity. Symmetry s rotates the board s % 4 times clockwise, then mirrors it left to right if
+ * s >= 4.
+ */
+public class Symmetry {
+
+    /**
+     * The number of symmetries of a square board
+     */
+    public static final int COUNT = 8;
+
+    /**
+     * The symmetry which changes nothing
+     */
+    public static final int IDENTITY = 0;
+
+    /**
+     * The tables built so far, keyed by board size
+     */
+    private static final ConcurrentHashMap<Integer, Symmetry> tables = new ConcurrentHashMap<>();
+
+    /**
+     * The shape each shape becomes under each symmetry, indexed by (symmetry * shapes + shape)
+     */
+    private static final int[] SHAPES = new int[COUNT * GamePiece.PIECES * GamePiece.ROTATIONS];
+
+    /**
+     * The symmetry which undoes each symmetry
+     */
+    private static final int[] INVERSE = new int[COUNT];
+
+    static {
+        int shapes = GamePiece.PIECES * GamePiece.ROTATIONS;
+        for (int symmetry = 0; symmetry < COUNT; symmetry++) {
+            for (int shape = 0; shape < shapes; shape++) {
+                int mask = GamePiece.getMask(shape / GamePiece.ROTATIONS, shape % GamePiece.ROTATIONS);
+                int mapped = 0;
+                for (int bit = 0; bit < 9; bit++) {
+                    if ((mask & (1 << bit)) != 0) {
+                        int point = point(symmetry, bit % 3, bit / 3, 3);
+                        mapped |= 1 << point;
+                    }
+                }
+                SHAPES[symmetry * shapes + shape] = findShape(mapped);
+            }
+
+            for (int inverse = 0; inverse < COUNT; inverse++) {
+                if (point(inverse, point(symmetry, 1, 0, 3) % 3, point(symmetry, 1, 0, 3) / 3, 3) == 1
+                    && point(inverse, point(symmetry, 0, 1, 3) % 3, point(symmetry, 0, 1, 3) / 3, 3) == 3) {
+                    INVERSE[symmetry] = inverse;
+                }
+            }
+        }
+    }
+
+    /**
+     * The width and height of the board
+     */
+    private final int size;
+
+    /**
+     * The block each block moves to under each symmetry, indexed by (symmetry * blocks + block)
+     */
+    private final int[] points;
+
+    /**
+     * The bit permutation tables: the bits each byte of an occupancy word moves to, indexed by
+     * ((symmetry * chunks + chunk) * 256 + byte value)
+     */
+    private final long[] lookup;
+
+    /**
+     * The number of bytes of the occupancy word used by a board of this size
+     */
+    private final int chunks;
+
+    /**
+     * Get the symmetry tables for a square board, building them if needed
+     * @param size the width and height of the board
+     * @return the shared tables for that size
+     */
+    public static Symmetry forSize(int size) {
+        return tables.computeIfAbsent(size, Symmetry::new);
+    }
+
+    private Symmetry(int size) {
+        if (size <= 0 || size * size > BitGrid.MAX_BLOCKS) {
+            throw new IllegalArgumentException("Unsupported board size: " + size + "x" + size);
+        }
+        this.size = size;
+        int blocks = size * size;
+        chunks = (blocks + 7) / 8;
+        points = new int[COUNT * blocks];
+        lookup = new long[COUNT * chunks * 256];
+
+        for (int symmetry = 0; symmetry < COUNT; symmetry++) {
+            for (int block = 0; block < blocks; block++) {
+                points[symmetry * blocks + block] = point(symmetry, block % size, block / size, size);
+            }
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                for (int value = 0; value < 256; value++) {
+                    long mapped = 0;
+                    for (int bit = 0; bit < 8; bit++) {
+                        int block = chunk * 8 + bit;
+                        if ((value & (1 << bit)) != 0 && block < blocks) {
+                            mapped |= 1L << points[symmetry * blocks + block];
+                        }
+                    }
+                    lookup[(symmetry * chunks + chunk) * 256 + value] = mapped;
+                }
+            }
+        }
+    }
+
+    /**
+     * Work out where a block moves to under a symmetry
+     * @return the new block index (y * size + x)
+     */
+    private static int point(int symmetry, int x, int y, int size) {
+        for (int turn = 0; turn < symmetry % 4; turn++) {
+            int rotated = size - 1 - y;
+            y = x;
+            x = rotated;
+        }
+        if (symmetry >= 4) {
+            x = size - 1 - x;
+        }
+        return y * size + x;
+    }
+
+    /**
+     * Find the shape number with the given 3x3 mask
+     */
+    private static int findShape(int mask) {
+        for (int shape = 0; shape < GamePiece.PIECES * GamePiece.ROTATIONS; shape++) {
+            if (GamePiece.getMask(shape / GamePiece.ROTATIONS, shape % GamePiece.ROTATIONS) == mask) {
+                return shape;
+            }
+        }
+        throw new IllegalStateException("The piece set is not closed under reflection: no piece has mask " + mask);
+    }
+
+    /**
+     * Move an occupancy word through a symmetry
+     * @param symmetry the symmetry, from 0 to COUNT - 1
+     * @param occupied the occupancy word
+     * @return the occupancy of the transformed board
+     */
+    public long transform(int symmetry, long occupied) {
+        long mapped = 0;
+        int base = symmetry * chunks * 256;
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            mapped |= lookup[base + chunk * 256 + (int) ((occupied >>> (chunk * 8)) & 0xFF)];
+        }
+        return mapped;
+    }
+
+    /**
+     * Get the canonical form of a board: the smallest occupancy word among its 8 symmetries
+     * @param occupied the occupancy word
+     * @return the canonical occupancy word
+     */
+    public long canonical(long occupied) {
+        return transform(canonicalSymmetry(occupied), occupied);
+    }
+
+    /**
+     * Find the symmetry which takes a board to its canonical form. Moves found on the canonical board are mapped back
+     * with unmapMove.
+     * @param occupied the occupancy word
+     * @return the symmetry, the lowest numbered one if several give the canonical form
+     */
+    public int canonicalSymmetry(long occupied) {
+        int best = IDENTITY;
+        long smallest = occupied;
+        for (int symmetry = 1; symmetry < COUNT; symmetry++) {
+            long mapped = transform(symmetry, occupied);
+            if (Long.compareUnsigned(mapped, smallest) < 0) {
+                smallest = mapped;
+                best = symmetry;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Get the Zobrist hash of the canonical form of a whole game state, for caches and transposition tables: the
+     * smallest hash of the state under any symmetry, with the board and the pieces in the queue transformed together
+     * @param occupied the occupancy word
+     * @param current shape number of the current piece, or GameEngine.EMPTY
+     * @param next shape number of the next piece, or GameEngine.EMPTY
+     * @param following shape number of the following piece, or GameEngine.EMPTY
+     * @param multiplier the multiplier
+     * @return the canonical hash
+     */
+    public long canonicalHash(long occupied, int current, int next, int following, int multiplier) {
+        long smallest = 0;
+        for (int symmetry = 0; symmetry < COUNT; symmetry++) {
+            long hash = Zobrist.state(Zobrist.hash(transform(symmetry, occupied)), shape(symmetry, current),
+                shape(symmetry, next), shape(symmetry, following), multiplier);
+            if (symmetry == 0 || Long.compareUnsigned(hash, smallest) < 0) {
+                smallest = hash;
+            }
+        }
+        return smallest;
+    }
+
+    /**
+     * Get the block a block moves to under a symmetry
+     * @param symmetry the symmetry
+     * @param x column
+     * @param y row
+     * @return the new block index (y * size + x)
+     */
+    public int point(int symmetry, int x, int y) {
+        return points[symmetry * size * size + y * size + x];
+    }
+
+    /**
+     * Get the shape a shape becomes under a symmetry. Mirroring gives a rotation of the mirror image piece.
+     * @param symmetry the symmetry
+     * @param shape shape number (piece * GamePiece.ROTATIONS + rotation), or GameEngine.EMPTY
+     * @return the new shape number, or GameEngine.EMPTY
+     */
+    public static int shape(int symmetry, int shape) {
+        if (shape < 0) {
+            return shape;
+        }
+        return SHAPES[symmetry * GamePiece.PIECES * GamePiece.ROTATIONS + shape];
+    }
+
+    /**
+     * Get the symmetry which undoes a symmetry
+     * @param symmetry the symmetry
+     * @return its inverse
+     */
+    public static int inverse(int symmetry) {
+        return INVERSE[symmetry];
+    }
+
+    /**
+     * Map a move packed by the MoveGenerator through a symmetry, giving the same placement on the transformed board
+     * @param symmetry the symmetry
+     * @param move the packed move
+     * @return the packed move on the transformed board
+     */
+    public int mapMove(int symmetry, int move) {
+        int point = point(symmetry, MoveGenerator.x(move), MoveGenerator.y(move));
+        return MoveGenerator.pack(MoveGenerator.slot(move), shape(symmetry, MoveGenerator.shape(move)),
+            point % size, point / size);
+    }
+
+    /**
+     * Map a move found on a transformed board back to the original board
+     * @param symmetry the symmetry the board was transformed by
+     * @param move the packed move on the transformed board
+     * @return the packed move on the original board
+     */
+    public int unmapMove(int symmetry, int move) {
+        return mapMove(inverse(symmetry), move);
+    }
+
+    /**
+     * Get the width and height of the board these tables are for
+     * @return the board size
+     */
+    public int getSize() {
+        return size;
+    }
+}
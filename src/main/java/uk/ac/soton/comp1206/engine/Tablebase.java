@@ -0,0 +1,305 @@
+package uk.ac.soton.comp1206.engine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.PlacementTable;
+
+/**
+ * The Tablebase records, for every possible occupancy of a small board, which pieces can still be played somewhere in
+ * some rotation. A board where no piece fits is dead: whatever is dealt, the player will lose a life.
+ *
+ * A 5x5 occupancy fits in 25 bits, so every one of the 33 million boards is enumerated. The result is one 16 bit word
+ * per occupancy, bit p set when piece p fits, written to a file and read back through a MappedByteBuffer, so a lookup
+ * is a single read and the table costs no heap.
+ *
+ * The table is built by working from free space rather than occupancy: every placement marks its piece as fitting in
+ * exactly its own blocks, and a piece which fits in some free space also fits in every larger free space. Spreading
+ * the marks to supersets one bit at a time (a subset sum transform) covers every board in 25 passes over the table,
+ * each split across the pool.
+ *
+ * The file starts with a header: the magic number, the number of columns, rows and pieces, then the table.
+ *
+ * The engine and the bots look for a tablebase for their board size in the working directory, named by fileName (see
+ * TablebaseGenerator), and use it to check whether a piece can still be played. Without one they work it out from the
+ * placement tables instead, with the same answers.
+ */
+public class Tablebase {
+
+    /**
+     * The magic number at the start of every tablebase file
+     */
+    public static final int MAGIC = 0x54454231;
+
+    /**
+     * The largest number of blocks a tablebase can cover, so that the table fits comfortably in memory
+     */
+    public static final int MAX_BLOCKS = 25;
+
+    /**
+     * The size of the file header, in bytes
+     */
+    private static final int HEADER = 4 * Integer.BYTES;
+
+    /**
+     * The fewest table words a task works through before the rest are split off to other tasks
+     */
+    private static final int SPLIT_THRESHOLD = 1 << 16;
+
+    /**
+     * The tablebase found in the working directory for each board size, empty if there is none
+     */
+    private static final Map<Long, Optional<Tablebase>> found = new ConcurrentHashMap<>();
+
+    /**
+     * The table, starting after the header
+     */
+    private final ByteBuffer table;
+
+    private final int cols;
+    private final int rows;
+
+    private Tablebase(ByteBuffer table, int cols, int rows) {
+        this.table = table;
+        this.cols = cols;
+        this.rows = rows;
+    }
+
+    /**
+     * Open a tablebase file, mapping it into memory
+     * @param path the file
+     * @return the tablebase
+     * @throws IOException if the file cannot be read or is not a tablebase
+     */
+    public static Tablebase open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (mapped.capacity() < HEADER || mapped.getInt(0) != MAGIC) {
+                throw new IOException(path + " is not a tablebase");
+            }
+            int cols = mapped.getInt(4);
+            int rows = mapped.getInt(8);
+            int pieces = mapped.getInt(12);
+            if (pieces != GamePiece.PIECES || cols * rows > MAX_BLOCKS
+                || mapped.capacity() != HEADER + ((long) Character.BYTES << (cols * rows))) {
+                throw new IOException(path + " does not match this piece set or is truncated");
+            }
+            return new Tablebase(mapped.position(HEADER).slice(), cols, rows);
+        }
+    }
+
+    /**
+     * Get the name of the file the tablebase for a board size is looked for in
+     * @param cols number of columns
+     * @param rows number of rows
+     * @return the file name
+     */
+    public static String fileName(int cols, int rows) {
+        return "tablebase-" + cols + "x" + rows + ".bin";
+    }
+
+    /**
+     * Find the tablebase for a board size in the working directory, opening it the first time it is asked for
+     * @param cols number of columns
+     * @param rows number of rows
+     * @return the tablebase, or null if there is no file for that size or it cannot be read
+     */
+    public static Tablebase find(int cols, int rows) {
+        if (cols * rows > MAX_BLOCKS) {
+            return null;
+        }
+        return found.computeIfAbsent((long) cols << 32 | rows, size -> {
+            Path path = Paths.get(fileName(cols, rows));
+            if (!Files.isReadable(path)) {
+                return Optional.empty();
+            }
+            try {
+                Tablebase tablebase = open(path);
+                if (tablebase.getCols() != cols || tablebase.getRows() != rows) {
+                    return Optional.empty();
+                }
+                return Optional.of(tablebase);
+            } catch (IOException e) {
+                // A bad file is no worse than none: the callers work the answers out themselves
+                return Optional.empty();
+            }
+        }).orElse(null);
+    }
+
+    /**
+     * Get the pieces which can be played somewhere on a board
+     * @param occupied the BitGrid occupancy word
+     * @return a mask with bit p set for every piece p which fits in some rotation
+     */
+    public int fittingPieces(long occupied) {
+        return table.getChar((int) occupied << 1);
+    }
+
+    /**
+     * Check whether a piece can be played anywhere on a board
+     * @param occupied the BitGrid occupancy word
+     * @param piece piece number
+     * @return true if the piece fits somewhere in some rotation
+     */
+    public boolean canPlay(long occupied, int piece) {
+        return (fittingPieces(occupied) & (1 << piece)) != 0;
+    }
+
+    /**
+     * Check whether no piece at all can be played on a board
+     * @param occupied the BitGrid occupancy word
+     * @return true if the board is dead
+     */
+    public boolean isDead(long occupied) {
+        return fittingPieces(occupied) == 0;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Build the table for a board, in parallel on the given pool
+     * @param cols number of columns
+     * @param rows number of rows
+     * @param pool the pool to build on
+     * @return the fitting pieces of every occupancy, indexed by occupancy
+     */
+    public static char[] generate(int cols, int rows, ForkJoinPool pool) {
+        int blocks = cols * rows;
+        if (blocks > MAX_BLOCKS) {
+            throw new IllegalArgumentException("Unsupported tablebase size: " + cols + "x" + rows);
+        }
+        PlacementTable placements = PlacementTable.forSize(cols, rows);
+        int size = 1 << blocks;
+        int full = size - 1;
+
+        // Mark each piece as fitting in exactly the free space of each of its placements
+        char[] fits = new char[size];
+        for (int shape = 0; shape < GamePiece.PIECES * GamePiece.ROTATIONS; shape++) {
+            for (int anchor = 0; anchor < blocks; anchor++) {
+                long mask = placements.mask(shape, anchor);
+                if (mask != 0) {
+                    fits[(int) mask] |= 1 << (shape / GamePiece.ROTATIONS);
+                }
+            }
+        }
+
+        // Spread the marks from every free space to its supersets, one block at a time
+        for (int bit = 0; bit < blocks; bit++) {
+            pool.invoke(new Spread(fits, 1 << bit, 0, size));
+        }
+
+        // Index by occupancy rather than free space
+        pool.invoke(new Flip(fits, full, 0, size >>> 1));
+        return fits;
+    }
+
+    /**
+     * Write a table built by generate to a file
+     * @param path the file
+     * @param cols number of columns
+     * @param rows number of rows
+     * @param fits the table
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Path path, int cols, int rows, char[] fits) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+            buffer.putInt(MAGIC).putInt(cols).putInt(rows).putInt(GamePiece.PIECES);
+            for (char word : fits) {
+                if (!buffer.hasRemaining()) {
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                    buffer.clear();
+                }
+                buffer.putChar(word);
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * One pass of the subset sum transform: every set with the bit ORs in the marks of the same set without it
+     */
+    private static class Spread extends RecursiveAction {
+        private final char[] fits;
+        private final int bit;
+        private final int from;
+        private final int to;
+
+        Spread(char[] fits, int bit, int from, int to) {
+            this.fits = fits;
+            this.bit = bit;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SPLIT_THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Spread(fits, bit, from, middle), new Spread(fits, bit, middle, to));
+                return;
+            }
+            for (int set = from; set < to; set++) {
+                if ((set & bit) != 0) {
+                    fits[set] |= fits[set ^ bit];
+                }
+            }
+        }
+    }
+
+    /**
+     * Swap every entry with the entry of its complement, turning a table indexed by free space into one indexed by
+     * occupancy
+     */
+    private static class Flip extends RecursiveAction {
+        private final char[] fits;
+        private final int full;
+        private final int from;
+        private final int to;
+
+        Flip(char[] fits, int full, int from, int to) {
+            this.fits = fits;
+            this.full = full;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SPLIT_THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Flip(fits, full, from, middle), new Flip(fits, full, middle, to));
+                return;
+            }
+            for (int set = from; set < to; set++) {
+                char temp = fits[set];
+                fits[set] = fits[full ^ set];
+                fits[full ^ set] = temp;
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package uk.ac.soton.comp1206.engine;
+
+import java.util.PriorityQueue;
+
+/**
+ * A VirtualClock is a GameClock whose time only moves when it is advanced. Advancing it runs every timer due on the
+ * way, in order of their deadlines, on the thread advancing it, with the clock reading each timer's deadline as it
+ * runs. Nothing waits in real time, so a game with timers lasting seconds can be simulated in microseconds.
+ *
+ * A VirtualClock is not thread safe: schedule and advance it from one thread.
+ */
+public class VirtualClock implements GameClock {
+
+    /**
+     * The timers waiting to run, earliest first, and in the order they were scheduled for equal deadlines
+     */
+    private final PriorityQueue<VirtualTimer> queue = new PriorityQueue<>((a, b) -> a.deadline != b.deadline
+        ? Long.compare(a.deadline, b.deadline) : Long.compare(a.sequence, b.sequence));
+
+    private long now;
+
+    /**
+     * Counts timers scheduled, to order timers with equal deadlines
+     */
+    private long sequence;
+
+    /**
+     * Create a new clock reading 0
+     */
+    public VirtualClock() {
+    }
+
+    @Override
+    public long millis() {
+        return now;
+    }
+
+    @Override
+    public Timer schedule(Runnable task, long delay, long period) {
+        VirtualTimer timer = new VirtualTimer(task);
+        timer.reschedule(delay, period);
+        return timer;
+    }
+
+    /**
+     * Move the time forward, running every timer due by the new time
+     * @param millis the time to move forward by, in milliseconds
+     */
+    public void advance(long millis) {
+        advanceTo(now + millis);
+    }
+
+    /**
+     * Move the time forward to a given time, running every timer due by then
+     * @param time the new time, in milliseconds
+     */
+    public void advanceTo(long time) {
+        while (!queue.isEmpty() && queue.peek().deadline <= time) {
+            runNext();
+        }
+        now = Math.max(now, time);
+    }
+
+    /**
+     * Move the time forward to the deadline of the next timer, and run it
+     * @return true if a timer ran, false if none is scheduled
+     */
+    public boolean advanceToNext() {
+        if (queue.isEmpty()) {
+            return false;
+        }
+        runNext();
+        return true;
+    }
+
+    /**
+     * Get the number of timers waiting to run
+     * @return the number of timers
+     */
+    public int getPending() {
+        return queue.size();
+    }
+
+    /**
+     * Take the earliest timer, move the time to its deadline, put it back if it repeats, and run it
+     */
+    private void runNext() {
+        VirtualTimer timer = queue.poll();
+        timer.queued = false;
+        now = Math.max(now, timer.deadline);
+        if (timer.period > 0) {
+            timer.deadline += timer.period;
+            timer.sequence = sequence++;
+            queue.add(timer);
+            timer.queued = true;
+        }
+        timer.task.run();
+    }
+
+    /**
+     * A timer on a VirtualClock
+     */
+    private class VirtualTimer implements Timer {
+        private final Runnable task;
+        private long deadline;
+        private long period;
+        private long sequence;
+        private boolean queued;
+
+        VirtualTimer(Runnable task) {
+            this.task = task;
+        }
+
+        @Override
+        public void reschedule(long delay, long period) {
+            cancel();
+            this.deadline = now + Math.max(delay, 0);
+            this.period = Math.max(period, 0);
+            this.sequence = VirtualClock.this.sequence++;
+            queue.add(this);
+            queued = true;
+        }
+
+        @Override
+        public void cancel() {
+            if (queued) {
+                queue.remove(this);
+                queued = false;
+            }
+        }
+
+        @Override
+        public boolean isPending() {
+            return queued;
+        }
+    }
+}
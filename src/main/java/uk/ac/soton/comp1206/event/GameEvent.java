@@ -0,0 +1,142 @@
+package uk.ac.soton.comp1206.event;
+
+import java.util.Set;
+import uk.ac.soton.comp1206.component.BlockMaskView;
+import uk.ac.soton.comp1206.component.GameBlockCoordinate;
+import uk.ac.soton.comp1206.engine.GameEngine;
+import uk.ac.soton.comp1206.game.PieceShape;
+
+/**
+ * A GameEvent is something that happened in a game, as published on a GameEventBus.
+ *
+ * Events are preallocated in the bus's ring and refilled for every publish, so they hold primitives: shape numbers
+ * for the pieces, and a block mask for a line clear. Pieces are looked up as shared PieceShapes, and the Set of cleared
+ * blocks the LineClearedListener takes is made the first time any subscriber asks for it, and shared by every
+ * subscriber of that event.
+ */
+public final class GameEvent {
+
+  /**
+   * The current and following pieces have changed
+   */
+  public static final int NEXT_PIECE = 0;
+
+  /**
+   * One or more lines were cleared, and are about to be removed
+   */
+  public static final int LINE_CLEARED = 1;
+
+  /**
+   * The game loop timer has started again
+   */
+  public static final int GAME_LOOP = 2;
+
+  /**
+   * The last life has been lost
+   */
+  public static final int GAME_OVER = 3;
+
+  /**
+   * The number of event types
+   */
+  public static final int TYPES = 4;
+
+  private int type;
+  private int currentShape;
+  private int nextShape;
+  private int cols;
+  private long clearedBlocks;
+  private int delay;
+
+  /**
+   * Made from the mask when first asked for, until the event is refilled
+   */
+  private BlockMaskView cleared;
+
+  GameEvent() {
+  }
+
+  /**
+   * Refill the event for a new publish
+   */
+  void set(int type, int currentShape, int nextShape, int cols, long clearedBlocks, int delay) {
+    this.type = type;
+    this.currentShape = currentShape;
+    this.nextShape = nextShape;
+    this.cols = cols;
+    this.clearedBlocks = clearedBlocks;
+    this.delay = delay;
+    this.cleared = null;
+  }
+
+  /**
+   * Get the type of the event
+   * @return one of NEXT_PIECE, LINE_CLEARED, GAME_LOOP or GAME_OVER
+   */
+  public int getType() {
+    return type;
+  }
+
+  /**
+   * Get the shape number of the current piece, for a NEXT_PIECE event
+   * @return shape number (piece * GamePiece.ROTATIONS + rotation), or GameEngine.EMPTY
+   */
+  public int getCurrentShape() {
+    return currentShape;
+  }
+
+  /**
+   * Get the shape number of the following piece, for a NEXT_PIECE event
+   * @return shape number (piece * GamePiece.ROTATIONS + rotation), or GameEngine.EMPTY
+   */
+  public int getNextShape() {
+    return nextShape;
+  }
+
+  /**
+   * Get the current piece, for a NEXT_PIECE event
+   * @return the piece, or null for an empty slot
+   */
+  public PieceShape getCurrentPiece() {
+    return toPiece(currentShape);
+  }
+
+  /**
+   * Get the following piece, for a NEXT_PIECE event
+   * @return the piece, or null for an empty slot
+   */
+  public PieceShape getNextPiece() {
+    return toPiece(nextShape);
+  }
+
+  /**
+   * Get the blocks cleared, for a LINE_CLEARED event
+   * @return the block mask, bit (y * cols + x) for the block at (x,y)
+   */
+  public long getClearedBlocks() {
+    return clearedBlocks;
+  }
+
+  /**
+   * Get the blocks cleared as coordinates, for a LINE_CLEARED event
+   * @return a read-only set of the blocks cleared
+   */
+  public Set<GameBlockCoordinate> getClearedSet() {
+    if (cleared == null) {
+      cleared = new BlockMaskView(cols, clearedBlocks);
+    }
+    return cleared;
+  }
+
+  /**
+   * Get the length of the new timer cycle, for a GAME_LOOP event
+   * @return the delay in milliseconds
+   */
+  public int getDelay() {
+    return delay;
+  }
+
+  private static PieceShape toPiece(int shape) {
+    return shape == GameEngine.EMPTY ? null : PieceShape.of(shape);
+  }
+}
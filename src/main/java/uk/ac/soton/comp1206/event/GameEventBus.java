@@ -0,0 +1,187 @@
+package uk.ac.soton.comp1206.event;
+
+import java.util.Arrays;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The GameEventBus hands the events of a game to any number of subscribers: the scene, sound, statistics, the network
+ * or a bot. Subscribers can listen to every event or to one type.
+ *
+ * Events are published through a ring of preallocated GameEvents. Publishing fills the next slot and then, unless an
+ * outer publish is already doing so, hands every waiting event to its subscribers in order. An event published by a
+ * subscriber is therefore seen by everyone only after the event being handled, so every subscriber sees the same
+ * order, and nothing is allocated however many subscribers there are.
+ *
+ * Subscribing and unsubscribing copy the subscriber arrays, so they can happen at any time, even during dispatch.
+ * Events must all be published from one thread, the JavaFX thread for a Game.
+ */
+public class GameEventBus {
+
+  private static final Logger logger = LogManager.getLogger(GameEventBus.class);
+
+  /**
+   * The number of events in the ring unless given
+   */
+  public static final int DEFAULT_CAPACITY = 64;
+
+  private static final GameEventListener[] NONE = new GameEventListener[0];
+
+  /**
+   * The subscribers to each type of event, including the subscribers to every event
+   */
+  private volatile GameEventListener[][] subscribers = new GameEventListener[GameEvent.TYPES][];
+
+  private final GameEvent[] ring;
+
+  /**
+   * The number of slots minus one, the number of slots being a power of two
+   */
+  private final int mask;
+
+  /**
+   * The number of events published, and the number handed to every subscriber
+   */
+  private long published;
+  private long dispatched;
+
+  /**
+   * Whether the events in the ring are being handed out
+   */
+  private boolean dispatching;
+
+  /**
+   * Create a new bus with the default capacity
+   */
+  public GameEventBus() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Create a new bus
+   * @param capacity the most events that can wait to be handed out, rounded up to a power of two
+   */
+  public GameEventBus(int capacity) {
+    if (capacity <= 0 || capacity > 1 << 20) {
+      throw new IllegalArgumentException("Unsupported capacity: " + capacity);
+    }
+    int size = Integer.highestOneBit(capacity);
+    if (size < capacity) {
+      size <<= 1;
+    }
+    ring = new GameEvent[size];
+    for (int i = 0; i < size; i++) {
+      ring[i] = new GameEvent();
+    }
+    mask = size - 1;
+    Arrays.fill(subscribers, NONE);
+  }
+
+  /**
+   * Subscribe to every event
+   * @param listener the subscriber
+   */
+  public void subscribe(GameEventListener listener) {
+    for (int type = 0; type < GameEvent.TYPES; type++) {
+      subscribe(type, listener);
+    }
+  }
+
+  /**
+   * Subscribe to one type of event
+   * @param type the type, such as GameEvent.NEXT_PIECE
+   * @param listener the subscriber
+   */
+  public synchronized void subscribe(int type, GameEventListener listener) {
+    GameEventListener[][] copy = subscribers.clone();
+    copy[type] = Arrays.copyOf(copy[type], copy[type].length + 1);
+    copy[type][copy[type].length - 1] = listener;
+    subscribers = copy;
+  }
+
+  /**
+   * Remove a subscriber from every type of event it subscribed to
+   * @param listener the subscriber
+   */
+  public synchronized void unsubscribe(GameEventListener listener) {
+    GameEventListener[][] copy = subscribers.clone();
+    for (int type = 0; type < GameEvent.TYPES; type++) {
+      copy[type] = Arrays.stream(copy[type]).filter(l -> l != listener).toArray(GameEventListener[]::new);
+    }
+    subscribers = copy;
+  }
+
+  /**
+   * Check whether anything is subscribed to a type of event, to skip work only done to publish it
+   * @param type the type, such as GameEvent.NEXT_PIECE
+   * @return true if there are subscribers
+   */
+  public boolean hasSubscribers(int type) {
+    return subscribers[type].length > 0;
+  }
+
+  /**
+   * Publish a change to the current and following pieces
+   * @param currentShape the current shape number, or GameEngine.EMPTY
+   * @param nextShape the following shape number, or GameEngine.EMPTY
+   */
+  public void publishNextPiece(int currentShape, int nextShape) {
+    publish(GameEvent.NEXT_PIECE, currentShape, nextShape, 0, 0, 0);
+  }
+
+  /**
+   * Publish a line clear
+   * @param cols the number of columns in the grid
+   * @param blocks the blocks cleared, bit (y * cols + x) for the block at (x,y)
+   */
+  public void publishLineCleared(int cols, long blocks) {
+    publish(GameEvent.LINE_CLEARED, 0, 0, cols, blocks, 0);
+  }
+
+  /**
+   * Publish the start of a new timer cycle
+   * @param delay the length of the cycle in milliseconds
+   */
+  public void publishGameLoop(int delay) {
+    publish(GameEvent.GAME_LOOP, 0, 0, 0, 0, delay);
+  }
+
+  /**
+   * Publish the end of the game
+   */
+  public void publishGameOver() {
+    publish(GameEvent.GAME_OVER, 0, 0, 0, 0, 0);
+  }
+
+  /**
+   * Fill the next slot of the ring, and hand out every waiting event unless an outer publish is already
+   */
+  private void publish(int type, int currentShape, int nextShape, int cols, long blocks, int delay) {
+    if (published - dispatched > mask) {
+      throw new IllegalStateException("More than " + ring.length + " events published while handling one");
+    }
+    ring[(int) (published & mask)].set(type, currentShape, nextShape, cols, blocks, delay);
+    published++;
+    if (dispatching) {
+      return;
+    }
+
+    dispatching = true;
+    try {
+      while (dispatched < published) {
+        GameEvent event = ring[(int) (dispatched & mask)];
+        for (GameEventListener listener : subscribers[event.getType()]) {
+          try {
+            listener.onEvent(event);
+          } catch (RuntimeException e) {
+            // One failing subscriber should not keep the event from the rest
+            logger.error("Subscriber failed on event type {}", event.getType(), e);
+          }
+        }
+        dispatched++;
+      }
+    } finally {
+      dispatching = false;
+    }
+  }
+}
@@ -0,0 +1,13 @@
+package uk.ac.soton.comp1206.event;
+
+/**
+ * The Game Event listener is used to subscribe to events published on a GameEventBus.
+ */
+public interface GameEventListener {
+  /**
+   * Called with each event published, on the thread publishing it.
+   * The event is reused once every subscriber has seen it, so read what is needed from it before returning.
+   * @param event the event
+   */
+  void onEvent(GameEvent event);
+}
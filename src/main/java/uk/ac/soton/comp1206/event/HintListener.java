@@ -0,0 +1,12 @@
+package uk.ac.soton.comp1206.event;
+
+/**
+ * The Hint listener is used to handle the event when a hint search finishes.
+ */
+public interface HintListener {
+  /**
+   * Called with the best move found for the position the hint was asked for.
+   * @param move the move packed by MoveGenerator, or Bot.NO_MOVE if no piece can be played
+   */
+  void onHint(int move);
+}
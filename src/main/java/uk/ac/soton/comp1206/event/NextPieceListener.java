@@ -1,11 +1,11 @@
 package uk.ac.soton.comp1206.event;
 
-import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.PieceShape;
 
 public interface NextPieceListener {
   /**
    * Called when a new piece is generated.
    * @param nextPiece the new piece
    */
-  void onNextPiece(GamePiece currentPiece, GamePiece nextPiece);
+  void onNextPiece(PieceShape currentPiece, PieceShape nextPiece);
 }
\ No newline at end of file
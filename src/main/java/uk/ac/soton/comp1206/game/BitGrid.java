@@ -0,0 +1,562 @@
+package uk.ac.soton.comp1206.game;
+
+import java.util.Arrays;
+
+/**
+ * The BitGrid is a compact model of a game board which does not depend on JavaFX.
+ *
+ * Occupancy is held as bits inside a single long word, where the block at column x and row y is bit (y * cols + x).
+ * The value of each block (used for colouring, from 0 to 15) is held separately in a colour plane of 4 bit nibbles,
+ * 16 blocks to a long word, so the whole grid can be saved and restored a few words at a time.
+ *
+ * Placement checks are a single AND against the occupancy word and full rows and columns are found by comparing the
+ * occupancy against line masks which are precomputed when the grid is created.
+ *
+ * The number of occupied blocks in every row and column is kept up to date as blocks are filled and emptied, along
+ * with which rows and columns have changed. Finding full lines after a move only looks at the lines that move touched.
+ * So is the Zobrist hash of the occupancy. The anchors at which every shape still fits are brought up to date from the
+ * blocks changed since they were last asked for, so checking whether a piece can be played anywhere at all is a few
+ * word operations per changed block, and costs nothing while nobody asks.
+ */
+public class BitGrid implements Board {
+
+    /**
+     * The largest number of blocks a BitGrid can hold, one per bit of the occupancy word
+     */
+    public static final int MAX_BLOCKS = Long.SIZE;
+
+    /**
+     * The number of long words in the colour plane
+     */
+    public static final int COLOUR_WORDS = MAX_BLOCKS / 16;
+
+    /**
+     * The number of shapes: every rotation of every piece
+     */
+    private static final int SHAPES = GamePiece.PIECES * GamePiece.ROTATIONS;
+
+    /**
+     * The number of columns in this grid
+     */
+    private final int cols;
+
+    /**
+     * The number of rows in this grid
+     */
+    private final int rows;
+
+    /**
+     * One bit per block, set when the block is occupied
+     */
+    private long occupied;
+
+    /**
+     * The value of every block as 4 bit nibbles, block (y * cols + x) in nibble (index % 16) of word (index / 16).
+     * 0 means empty.
+     */
+    private final long[] colours = new long[COLOUR_WORDS];
+
+    /**
+     * The mask of every block in each row, indexed by row
+     */
+    private final long[] rowMasks;
+
+    /**
+     * The mask of every block in each column, indexed by column
+     */
+    private final long[] colMasks;
+
+    /**
+     * The mask of every block in the grid
+     */
+    private final long fullMask;
+
+    /**
+     * The precomputed mask of every placement on a grid of this size
+     */
+    private final PlacementTable placements;
+
+    /**
+     * The number of occupied blocks in each row, indexed by row
+     */
+    private final int[] rowCounts;
+
+    /**
+     * The number of occupied blocks in each column, indexed by column
+     */
+    private final int[] colCounts;
+
+    /**
+     * The Zobrist hash of the occupancy
+     */
+    private long hash;
+
+    /**
+     * The anchors at which each shape fits, indexed by shape number (piece * GamePiece.ROTATIONS + rotation), with
+     * bit (y * cols + x) set when the shape can be played with its center at (x, y)
+     */
+    private final long[] legal = new long[SHAPES];
+
+    /**
+     * The blocks filled and emptied since legal was last brought up to date
+     */
+    private long filledSinceSync;
+    private long emptiedSinceSync;
+
+    /**
+     * A mask with bit y set for every row y which has gained a block since the last call to resetTouched
+     */
+    private long touchedRows;
+
+    /**
+     * A mask with bit x set for every column x which has gained a block since the last call to resetTouched
+     */
+    private long touchedCols;
+
+    /**
+     * Create a new empty BitGrid with the specified number of columns and rows
+     * @param cols number of columns
+     * @param rows number of rows
+     */
+    public BitGrid(int cols, int rows) {
+        if (cols <= 0 || rows <= 0 || cols * rows > MAX_BLOCKS) {
+            throw new IllegalArgumentException("Unsupported grid size: " + cols + "x" + rows);
+        }
+        this.cols = cols;
+        this.rows = rows;
+
+        //Precompute the line masks
+        rowMasks = new long[rows];
+        colMasks = new long[cols];
+        for (int y = 0; y < rows; y++) {
+            for (int x = 0; x < cols; x++) {
+                long bit = 1L << (y * cols + x);
+                rowMasks[y] |= bit;
+                colMasks[x] |= bit;
+            }
+        }
+        fullMask = cols * rows == MAX_BLOCKS ? -1L : (1L << (cols * rows)) - 1;
+        placements = PlacementTable.forSize(cols, rows);
+        rowCounts = new int[rows];
+        colCounts = new int[cols];
+        resetLegal();
+    }
+
+    /**
+     * Get the value represented at the given x and y index within the grid
+     * @param x column
+     * @param y row
+     * @return the value, or -1 if the index is outside the grid
+     */
+    @Override
+    public int get(int x, int y) {
+        if (x < 0 || x >= cols || y < 0 || y >= rows) {
+            return -1;
+        }
+        return colour(y * cols + x);
+    }
+
+    /**
+     * Update the value at the given x and y index within the grid
+     * @param x column
+     * @param y row
+     * @param value the new value, 0 to empty the block
+     * @throws IndexOutOfBoundsException if the index is outside the grid
+     */
+    @Override
+    public void set(int x, int y, int value) {
+        if (x < 0 || x >= cols || y < 0 || y >= rows) {
+            throw new IndexOutOfBoundsException("No block at (" + x + ", " + y + ") in a " + cols + "x" + rows + " grid");
+        }
+        int index = y * cols + x;
+        long bit = 1L << index;
+        setColour(index, value);
+        if (value == 0) {
+            if ((occupied & bit) != 0) {
+                occupied &= ~bit;
+                emptiedSinceSync |= bit;
+                hash ^= Zobrist.key(index);
+                rowCounts[y]--;
+                colCounts[x]--;
+            }
+        } else if ((occupied & bit) == 0) {
+            occupied |= bit;
+            filledSinceSync |= bit;
+            hash ^= Zobrist.key(index);
+            rowCounts[y]++;
+            colCounts[x]++;
+            touchedRows |= 1L << y;
+            touchedCols |= 1L << x;
+        }
+    }
+
+    /**
+     * Get the value of a block from the colour plane
+     * @param index block index (y * cols + x)
+     * @return the value
+     */
+    private int colour(int index) {
+        return (int) (colours[index >>> 4] >>> ((index & 15) << 2)) & 0xF;
+    }
+
+    /**
+     * Set the value of a block in the colour plane
+     * @param index block index (y * cols + x)
+     * @param value the value, from 0 to 15
+     */
+    private void setColour(int index, int value) {
+        int shift = (index & 15) << 2;
+        colours[index >>> 4] = (colours[index >>> 4] & ~(0xFL << shift)) | ((long) (value & 0xF) << shift);
+    }
+
+    /**
+     * Get a word of the colour plane, for saving the grid
+     * @param word word number, from 0 to COLOUR_WORDS - 1
+     * @return 16 block values as 4 bit nibbles
+     */
+    public long getColourWord(int word) {
+        return colours[word];
+    }
+
+    /**
+     * Replace the whole contents of the grid with saved words, as returned by getOccupied and getColourWord.
+     * The row and column counters are rebuilt and no lines are left touched.
+     * @param occupied the occupancy word
+     * @param colours0 colour plane word 0
+     * @param colours1 colour plane word 1
+     * @param colours2 colour plane word 2
+     * @param colours3 colour plane word 3
+     */
+    public void restore(long occupied, long colours0, long colours1, long colours2, long colours3) {
+        this.occupied = occupied;
+        colours[0] = colours0;
+        colours[1] = colours1;
+        colours[2] = colours2;
+        colours[3] = colours3;
+        hash = Zobrist.hash(occupied);
+        resetLegal();
+        for (int y = 0; y < rows; y++) {
+            rowCounts[y] = Long.bitCount(occupied & rowMasks[y]);
+        }
+        for (int x = 0; x < cols; x++) {
+            colCounts[x] = Long.bitCount(occupied & colMasks[x]);
+        }
+        resetTouched();
+    }
+
+    /**
+     * Get the mask of blocks the given piece would cover, with its center at the given coordinates
+     * @param piece the piece
+     * @param gridX x-coordinate for the center of the piece
+     * @param gridY y-coordinate for the center of the piece
+     * @return the mask of covered blocks, or 0 if any block of the piece would be off the grid
+     */
+    public long pieceMask(PieceShape piece, int gridX, int gridY) {
+        return placements.mask(piece.getPiece(), piece.getRotation(), gridX, gridY);
+    }
+
+    /**
+     * Check if a set of blocks can be filled
+     * @param mask the blocks to fill, as returned by pieceMask
+     * @return true if the mask is on the grid and none of its blocks are occupied
+     */
+    public boolean canPlace(long mask) {
+        return mask != 0 && (occupied & mask) == 0;
+    }
+
+    /**
+     * Check if a gamepiece can be placed with its center at the given grid coordinates
+     * @param piece piece to check
+     * @param gridX x-coordinate for the center of the piece
+     * @param gridY y-coordinate for the center of the piece
+     * @return true if piece can be placed, false if not
+     */
+    public boolean canPlayPiece(PieceShape piece, int gridX, int gridY) {
+        return canPlace(pieceMask(piece, gridX, gridY));
+    }
+
+    @Override
+    public boolean canPlay(int piece, int rotation, int x, int y) {
+        return canPlace(placements.mask(piece, rotation, x, y));
+    }
+
+    @Override
+    public void play(int piece, int rotation, int x, int y) {
+        place(placements.mask(piece, rotation, x, y), piece + 1);
+    }
+
+    /**
+     * Fill a set of blocks with the given value. Assumes canPlace has already been checked.
+     * @param mask the blocks to fill
+     * @param value the value to fill them with
+     */
+    public void place(long mask, int value) {
+        for (long remaining = mask; remaining != 0; remaining &= remaining - 1) {
+            int index = Long.numberOfTrailingZeros(remaining);
+            setColour(index, value);
+            if ((occupied & (1L << index)) == 0) {
+                int x = index % cols;
+                int y = index / cols;
+                hash ^= Zobrist.key(index);
+                rowCounts[y]++;
+                colCounts[x]++;
+                touchedRows |= 1L << y;
+                touchedCols |= 1L << x;
+            }
+        }
+        filledSinceSync |= mask & ~occupied;
+        occupied |= mask;
+    }
+
+    /**
+     * Place a given piece on the grid with its center at the given coordinates.
+     * Assumes canPlayPiece has already been checked.
+     * @param piece the piece to place
+     * @param gridX the x-coordinate for the center of piece
+     * @param gridY the y-coordinate for the center of piece
+     */
+    public void playPiece(PieceShape piece, int gridX, int gridY) {
+        place(pieceMask(piece, gridX, gridY), piece.getValue());
+    }
+
+    /**
+     * Find every full row among the rows which have gained a block since the last call to resetTouched.
+     * A row can only become full by gaining a block, so this finds every newly full row.
+     * @return a mask with bit y set for every full row y
+     */
+    public long fullRows() {
+        long full = 0;
+        for (long remaining = touchedRows; remaining != 0; remaining &= remaining - 1) {
+            int y = Long.numberOfTrailingZeros(remaining);
+            if (rowCounts[y] == cols) {
+                full |= 1L << y;
+            }
+        }
+        return full;
+    }
+
+    /**
+     * Find every full column among the columns which have gained a block since the last call to resetTouched.
+     * A column can only become full by gaining a block, so this finds every newly full column.
+     * @return a mask with bit x set for every full column x
+     */
+    public long fullCols() {
+        long full = 0;
+        for (long remaining = touchedCols; remaining != 0; remaining &= remaining - 1) {
+            int x = Long.numberOfTrailingZeros(remaining);
+            if (colCounts[x] == rows) {
+                full |= 1L << x;
+            }
+        }
+        return full;
+    }
+
+    /**
+     * Find every line which has become full since the last check, and forget which lines have been touched.
+     * The blocks are not emptied: call clearBlocks with the result's blocks to do so.
+     * @param result the result to fill in
+     */
+    @Override
+    public void findFullLines(ClearResult result) {
+        long fullRows = fullRows();
+        long fullCols = fullCols();
+        resetTouched();
+        result.set(fullRows, fullCols, lineBlocks(fullRows, fullCols));
+    }
+
+    /**
+     * Forget which rows and columns have been touched, once their full lines have been dealt with
+     */
+    public void resetTouched() {
+        touchedRows = 0;
+        touchedCols = 0;
+    }
+
+    /**
+     * Get the number of occupied blocks in a row
+     * @param y row
+     * @return the number of occupied blocks
+     */
+    public int getRowCount(int y) {
+        return rowCounts[y];
+    }
+
+    /**
+     * Get the number of occupied blocks in a column
+     * @param x column
+     * @return the number of occupied blocks
+     */
+    public int getColCount(int x) {
+        return colCounts[x];
+    }
+
+    /**
+     * Get the mask of every block in the given rows and columns
+     * @param rowBits a mask with bit y set for every row y
+     * @param colBits a mask with bit x set for every column x
+     * @return the mask of blocks in any of those lines
+     */
+    public long lineBlocks(long rowBits, long colBits) {
+        long mask = 0;
+        for (long remaining = rowBits; remaining != 0; remaining &= remaining - 1) {
+            mask |= rowMasks[Long.numberOfTrailingZeros(remaining)];
+        }
+        for (long remaining = colBits; remaining != 0; remaining &= remaining - 1) {
+            mask |= colMasks[Long.numberOfTrailingZeros(remaining)];
+        }
+        return mask;
+    }
+
+    /**
+     * Empty a set of blocks
+     * @param mask the blocks to empty
+     */
+    public void clearBlocks(long mask) {
+        long emptied = mask & occupied;
+        for (long remaining = emptied; remaining != 0; remaining &= remaining - 1) {
+            int index = Long.numberOfTrailingZeros(remaining);
+            setColour(index, 0);
+            hash ^= Zobrist.key(index);
+            rowCounts[index / cols]--;
+            colCounts[index % cols]--;
+        }
+        occupied &= ~mask;
+        emptiedSinceSync |= emptied;
+    }
+
+    /**
+     * Bring the legal anchors of every shape up to date with the blocks changed since the last sync: placements
+     * covering a filled block are ruled out, and placements covering an emptied block are checked again
+     */
+    private void syncLegal() {
+        if ((filledSinceSync | emptiedSinceSync) == 0) {
+            return;
+        }
+        for (int shape = 0; shape < SHAPES; shape++) {
+            long ruledOut = 0;
+            for (long remaining = filledSinceSync; remaining != 0; remaining &= remaining - 1) {
+                ruledOut |= placements.covers(shape, Long.numberOfTrailingZeros(remaining));
+            }
+            long recheck = 0;
+            for (long remaining = emptiedSinceSync; remaining != 0; remaining &= remaining - 1) {
+                recheck |= placements.covers(shape, Long.numberOfTrailingZeros(remaining));
+            }
+            legal[shape] = (legal[shape] & ~ruledOut & ~recheck) | placements.legalAnchors(occupied, shape, recheck);
+        }
+        filledSinceSync = 0;
+        emptiedSinceSync = 0;
+    }
+
+    /**
+     * Start the legal anchors of every shape again from an empty board, with every occupied block waiting to be
+     * ruled out at the next sync
+     */
+    private void resetLegal() {
+        for (int shape = 0; shape < SHAPES; shape++) {
+            legal[shape] = placements.onBoard(shape);
+        }
+        filledSinceSync = occupied;
+        emptiedSinceSync = 0;
+    }
+
+    /**
+     * Get every anchor at which a shape can be played
+     * @param shape shape number (piece * GamePiece.ROTATIONS + rotation)
+     * @return a mask with bit (y * cols + x) set when the shape fits with its center at (x, y)
+     */
+    public long getLegalAnchors(int shape) {
+        syncLegal();
+        return legal[shape];
+    }
+
+    @Override
+    public boolean canPlayAnywhere(int piece) {
+        syncLegal();
+        int shape = piece * GamePiece.ROTATIONS;
+        return (legal[shape] | legal[shape + 1] | legal[shape + 2] | legal[shape + 3]) != 0;
+    }
+
+    @Override
+    public void clearLines(ClearResult result) {
+        clearBlocks(result.getBlocks());
+    }
+
+    /**
+     * Empty every block in the grid
+     */
+    @Override
+    public void clear() {
+        occupied = 0;
+        hash = 0;
+        Arrays.fill(colours, 0);
+        Arrays.fill(rowCounts, 0);
+        Arrays.fill(colCounts, 0);
+        resetTouched();
+        resetLegal();
+    }
+
+    /**
+     * Get the occupancy word of this grid
+     * @return a mask with a bit set for every occupied block
+     */
+    public long getOccupied() {
+        return occupied;
+    }
+
+    @Override
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Get the placement table for a grid of this size
+     * @return the placement table
+     */
+    public PlacementTable getPlacements() {
+        return placements;
+    }
+
+    /**
+     * Get the mask of every block in the grid
+     * @return the full mask
+     */
+    public long getFullMask() {
+        return fullMask;
+    }
+
+    /**
+     * Get the mask of every block in a row
+     * @param y row
+     * @return the row mask
+     */
+    public long getRowMask(int y) {
+        return rowMasks[y];
+    }
+
+    /**
+     * Get the mask of every block in a column
+     * @param x column
+     * @return the column mask
+     */
+    public long getColMask(int x) {
+        return colMasks[x];
+    }
+
+    /**
+     * Get the number of columns in this grid
+     * @return number of columns
+     */
+    @Override
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Get the number of rows in this grid
+     * @return number of rows
+     */
+    @Override
+    public int getRows() {
+        return rows;
+    }
+}
@@ -0,0 +1,104 @@
+package uk.ac.soton.comp1206.game;
+
+/**
+ * A Board is a JavaFX-free model of the blocks of a game board, which pieces can be played onto and full lines cleared
+ * from. The GameEngine plays its games on a Board.
+ *
+ * There are two implementations: the BitGrid, which keeps the whole board in a single long word and suits the standard
+ * 5x5 game, and the WideBitGrid, which keeps one or more words per row and suits boards of any size.
+ */
+public interface Board {
+
+    /**
+     * Create a board of the given size, using a BitGrid if it fits in one word and a WideBitGrid otherwise
+     * @param cols number of columns
+     * @param rows number of rows
+     * @return the new, empty board
+     */
+    static Board create(int cols, int rows) {
+        if ((long) cols * rows <= BitGrid.MAX_BLOCKS) {
+            return new BitGrid(cols, rows);
+        }
+        return new WideBitGrid(cols, rows);
+    }
+
+    /**
+     * Get the value represented at the given x and y index within the board
+     * @param x column
+     * @param y row
+     * @return the value, or -1 if the index is outside the board
+     */
+    int get(int x, int y);
+
+    /**
+     * Update the value at the given x and y index within the board
+     * @param x column
+     * @param y row
+     * @param value the new value, 0 to empty the block
+     * @throws IndexOutOfBoundsException if the index is outside the board
+     */
+    void set(int x, int y, int value);
+
+    /**
+     * Check if a piece can be placed with its center at the given coordinates
+     * @param piece piece number
+     * @param rotation rotation, from 0 to 3
+     * @param x column of the center of the piece
+     * @param y row of the center of the piece
+     * @return true if every block of the piece is on the board and empty
+     */
+    boolean canPlay(int piece, int rotation, int x, int y);
+
+    /**
+     * Place a piece with its center at the given coordinates. Assumes canPlay has already been checked.
+     * @param piece piece number
+     * @param rotation rotation, from 0 to 3
+     * @param x column of the center of the piece
+     * @param y row of the center of the piece
+     */
+    void play(int piece, int rotation, int x, int y);
+
+    /**
+     * Check if a piece can be placed anywhere on the board, in any rotation
+     * @param piece piece number
+     * @return true if there is at least one legal placement
+     */
+    boolean canPlayAnywhere(int piece);
+
+    /**
+     * Find every line which has become full since the last check. The blocks are not emptied.
+     * @param result the result to fill in
+     */
+    void findFullLines(ClearResult result);
+
+    /**
+     * Empty every block of the lines found by the last call to findFullLines
+     * @param result the result filled in by findFullLines
+     */
+    void clearLines(ClearResult result);
+
+    /**
+     * Empty every block in the board
+     */
+    void clear();
+
+    /**
+     * Get the Zobrist hash of which blocks are occupied, kept up to date as blocks are filled and emptied.
+     * Boards with the same occupancy have the same hash, however it was reached.
+     * @return the hash
+     * @see Zobrist
+     */
+    long getHash();
+
+    /**
+     * Get the number of columns in this board
+     * @return number of columns
+     */
+    int getCols();
+
+    /**
+     * Get the number of rows in this board
+     * @return number of rows
+     */
+    int getRows();
+}
@@ -0,0 +1,132 @@
+package uk.ac.soton.comp1206.game;
+
+/**
+ * A ClearResult holds the outcome of looking for full lines after a move, as plain bit masks so that it can be filled
+ * in over and over without allocating.
+ *
+ * Rows and columns are held as masks with bit y (or x) set for every full row (or column). The blocks are held as a
+ * BitGrid mask, with bit (y * cols + x) set for every block in a full line.
+ *
+ * Boards too big for a single word, such as the WideBitGrid, only fill in the line and block counts.
+ */
+public class ClearResult {
+
+    /**
+     * A mask with bit y set for every full row y
+     */
+    private long rows;
+
+    /**
+     * A mask with bit x set for every full column x
+     */
+    private long cols;
+
+    /**
+     * A mask of every block in a full line
+     */
+    private long blocks;
+
+    /**
+     * The number of full rows and columns
+     */
+    private int lineCount;
+
+    /**
+     * The number of blocks in a full line, counting blocks at a crossing once
+     */
+    private int blockCount;
+
+    /**
+     * Fill in this result
+     * @param rows a mask with bit y set for every full row y
+     * @param cols a mask with bit x set for every full column x
+     * @param blocks a mask of every block in a full line
+     */
+    public void set(long rows, long cols, long blocks) {
+        this.rows = rows;
+        this.cols = cols;
+        this.blocks = blocks;
+        this.lineCount = Long.bitCount(rows) + Long.bitCount(cols);
+        this.blockCount = Long.bitCount(blocks);
+    }
+
+    /**
+     * Fill in this result with counts only, leaving the masks empty. Used by boards too big for a single word.
+     * @param lineCount the number of full rows and columns
+     * @param blockCount the number of blocks in a full line
+     */
+    public void setCounts(int lineCount, int blockCount) {
+        this.rows = 0;
+        this.cols = 0;
+        this.blocks = 0;
+        this.lineCount = lineCount;
+        this.blockCount = blockCount;
+    }
+
+    /**
+     * Empty this result
+     */
+    public void reset() {
+        set(0, 0, 0);
+    }
+
+    /**
+     * Copy another result into this one
+     * @param other the result to copy
+     */
+    public void copyFrom(ClearResult other) {
+        this.rows = other.rows;
+        this.cols = other.cols;
+        this.blocks = other.blocks;
+        this.lineCount = other.lineCount;
+        this.blockCount = other.blockCount;
+    }
+
+    /**
+     * Get the full rows
+     * @return a mask with bit y set for every full row y
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * Get the full columns
+     * @return a mask with bit x set for every full column x
+     */
+    public long getCols() {
+        return cols;
+    }
+
+    /**
+     * Get the blocks in full lines
+     * @return a BitGrid mask of every block in a full line
+     */
+    public long getBlocks() {
+        return blocks;
+    }
+
+    /**
+     * Get the number of blocks cleared
+     * @return the number of blocks in a full line
+     */
+    public int getBlockCount() {
+        return blockCount;
+    }
+
+    /**
+     * Get the number of lines cleared
+     * @return the number of full rows plus the number of full columns
+     */
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Check whether any lines were found
+     * @return true if there are no full lines
+     */
+    public boolean isEmpty() {
+        return lineCount == 0;
+    }
+}
@@ -1,46 +1,70 @@
 package uk.ac.soton.comp1206.game;
 
 import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.Random;
 import javafx.animation.PauseTransition;
 import javafx.application.Platform;
 import javafx.util.Duration;
 import javafx.util.Pair;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.bot.Bot;
+import uk.ac.soton.comp1206.bot.HintEngine;
 import uk.ac.soton.comp1206.multimedia.Multimedia;
 import uk.ac.soton.comp1206.component.GameBlock;
-import uk.ac.soton.comp1206.component.GameBlockCoordinate;
+import uk.ac.soton.comp1206.engine.GameClock;
+import uk.ac.soton.comp1206.engine.GameEngine;
+import uk.ac.soton.comp1206.engine.GameState;
+import uk.ac.soton.comp1206.engine.PieceSource;
+import uk.ac.soton.comp1206.engine.RandomPieceSource;
+import uk.ac.soton.comp1206.engine.RuleSet;
+import uk.ac.soton.comp1206.engine.RuleTable;
 import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.SimpleIntegerProperty;
+import uk.ac.soton.comp1206.event.GameEvent;
+import uk.ac.soton.comp1206.event.GameEventBus;
+import uk.ac.soton.comp1206.event.GameEventListener;
 import uk.ac.soton.comp1206.event.GameLoopListener;
 import uk.ac.soton.comp1206.event.GameOverListener;
+import uk.ac.soton.comp1206.event.HintListener;
 import uk.ac.soton.comp1206.event.LineClearedListener;
 import uk.ac.soton.comp1206.event.NextPieceListener;
-import java.util.Timer;
-import java.util.TimerTask;
 import uk.ac.soton.comp1206.utility.Statistics;
 
 /**
  * The Game class handles the main logic, state and properties of the TetrECS game. Methods to manipulate the game state
  * and to handle actions made by the player should take place inside this class.
+ *
+ * The rules themselves live in a headless GameEngine. The Game drives the engine from the player's actions and the
+ * game loop timer, and adds what JavaFX needs on top: bindable properties, animations, sounds and listeners.
  */
 public class Game {
 
     private static final Logger logger = LogManager.getLogger(Game.class);
 
-    protected GamePiece currentPiece;
-    protected GamePiece nextPiece;
-    protected GamePiece followingPiece;
+    /**
+     * The engine holding the rules and state of this game
+     */
+    protected final GameEngine engine;
+
     /**
      * Number of rows
      */
     protected final int rows;
-    private GameOverListener gameOverListener;
-    private GameLoopListener gameLoopListener;
-    private Timer gameLoopTimer;
-    private NextPieceListener nextPieceListener;
+
+    /**
+     * Hands the game's events to every subscriber
+     */
+    private final GameEventBus events = new GameEventBus();
+
+    /**
+     * The clock the game is timed on: the shared GameScheduler unless another is set before the game starts
+     */
+    private GameClock clock;
+
+    /**
+     * The game loop timer on the clock, made when the game starts and rescheduled for every piece
+     */
+    private GameClock.Timer gameLoopTimer;
     public ArrayList<Pair<String, Integer>> finalScores = new ArrayList<>();
 
 
@@ -48,12 +72,18 @@ public class Game {
      * Number of columns
      */
     protected final int cols;
-    private LineClearedListener lineClearedListener;
+    private HintListener hintListener;
+
+    /**
+     * Finds hints in the background, created on the first request for one
+     */
+    private HintEngine hintEngine;
 
     /**
      * The grid model linked to the game
      */
     protected final Grid grid;
+
     public final IntegerProperty score = new SimpleIntegerProperty(0);
     public final IntegerProperty level = new SimpleIntegerProperty(0);
     public final IntegerProperty lives = new SimpleIntegerProperty(3);
@@ -65,14 +95,34 @@ public class Game {
      * @param rows number of rows
      */
     public Game(int cols, int rows) {
+        this(cols, rows, new RandomPieceSource());
+    }
+
+    /**
+     * Create a new game with the specified rows and columns, taking its pieces from the given source.
+     * A seeded source gives a game which can be replayed exactly.
+     * @param cols number of columns
+     * @param rows number of rows
+     * @param pieces the source of new pieces
+     */
+    public Game(int cols, int rows, PieceSource pieces) {
         // Call the protected constructor to handle the core initialization
-        this(cols, rows, false);
+        this(cols, rows, pieces, true);
 
         // --- SINGLE PLAYER PIECE INITIALIZATION ---
         // This logic is specific to single-player mode.
-        followingPiece = spawnPiece();
-        nextPiece = spawnPiece();
-        currentPiece = spawnPiece();
+        engine.fillQueue();
+    }
+
+    /**
+     * Create a new game played by a rule set, on the rule set's board, taking its pieces from the given source.
+     * The rules are compiled into lookup tables here, before play starts.
+     * @param rules the rule set
+     * @param pieces the source of new pieces, such as one made by the rule set
+     */
+    public Game(RuleSet rules, PieceSource pieces) {
+        this(RuleTable.compile(rules), pieces, true);
+        engine.fillQueue();
     }
 
     /**
@@ -80,12 +130,26 @@ public class Game {
      * Used by MultiplayerGame.
      * @param cols number of columns
      * @param rows number of rows
+     * @param pieces the source of new pieces
+     * @param multiplayer whether this is a multiplayer game
+     */
+    protected Game(int cols, int rows, PieceSource pieces, boolean multiplayer) {
+        this(RuleTable.standard(cols, rows), pieces, multiplayer);
+    }
+
+    /**
+     * Create a new game played by compiled rules. Does not generate pieces.
+     * @param rules the compiled rules
+     * @param pieces the source of new pieces
+     * @param multiplayer whether this is a multiplayer game
      */
-    protected Game(int cols, int rows, boolean multiplayer) {
-        this.cols = cols;
-        this.rows = rows;
-        this.grid = new Grid(cols,rows);
-        logger.info("New multiplayer game created with size {}x{}", cols, rows);
+    protected Game(RuleTable rules, PieceSource pieces, boolean multiplayer) {
+        this.cols = rules.getCols();
+        this.rows = rules.getRows();
+        this.engine = new GameEngine(rules, pieces);
+        this.grid = new Grid(engine.getBoard());
+        lives.set(engine.getLives());
+        logger.info("New {} game created with size {}x{}", rules.getName(), cols, rows);
         Statistics.gamesPlayed.set(Statistics.gamesPlayed.get() + 1);
     }
     /**
@@ -114,60 +178,55 @@ public class Game {
         int y = gameBlock.getY();
         logger.info("Block clicked at ({}, {})", x, y);
 
-        //checking if the piece can be played at this location
-        if (grid.canPlayPiece(currentPiece, x, y)) {
-            //if it can, then play the piece
-            logger.info("Piece {} can be played at ({}, {})", currentPiece.toString(), x, y);
-            grid.playPiece(currentPiece, x, y);
+        //try to place the piece at this location
+        if (engine.place(x, y)) {
+            logger.info("Piece {} played at ({}, {})", getCurrentPiece(), x, y);
+            grid.refresh();
 
             afterPiece();
 
         } else {
-            logger.info("Cannot play piece {} at ({}, {})", currentPiece.toString(), x, y);
+            logger.info("Cannot play piece {} at ({}, {})", getCurrentPiece(), x, y);
             Multimedia.playSound("fail.wav");
             //add sound if a piece fails to move
         }
     }
-    /**
-     * spawns a new random GamePiece
-     * @return the new GamePiece
-     */
-    public GamePiece spawnPiece(){
-        //GamePiece class has 15 pieces defined, numbered 0-14
-        Random random = new Random();
-        int pieceNumber = random.nextInt(15);
-        logger.info("Spawning new piece: {}", pieceNumber);
-        return GamePiece.createPiece(pieceNumber);
-    }
     /**
      * handle what happens when next piece is needed
      */
     public void nextPiece() {
         logger.info("Generating next piece");
-        currentPiece = nextPiece;
-        nextPiece = followingPiece;
-        followingPiece = spawnPiece(); // Always keep the queue full
+        engine.nextPiece(); // Always keep the queue full
 
         // Notify the UI that both the current and next pieces have changed
-        if (nextPieceListener != null) {
-            nextPieceListener.onNextPiece(currentPiece, nextPiece);
+        publishPieces();
+
+        checkForLegalMove();
+    }
+
+    /**
+     * If neither the current piece nor the piece it can be swapped with fits anywhere, lose the life straight away
+     * rather than making the player wait for the timer
+     */
+    protected void checkForLegalMove() {
+        if (engine.getCurrentShape() == GameEngine.EMPTY || engine.isGameOver() || engine.hasLegalMove()) {
+            return;
         }
+        logger.info("No legal move for piece {}, losing a life", getCurrentPiece());
+        resetTimer();
+        loseLife();
     }
     /**
      * Swaps the current piece with the following piece.
      */
     public void swapCurrentPiece() {
-        if (currentPiece != null && followingPiece != null) {
-            GamePiece temp = currentPiece;
-            currentPiece = followingPiece;
-            followingPiece = temp;
+        if (engine.getCurrentShape() != GameEngine.EMPTY && engine.getFollowingShape() != GameEngine.EMPTY) {
+            engine.swap();
 
             logger.info("Swapped current piece with following piece");
 
             // Notify the UI of the change
-            if (nextPieceListener != null) {
-                nextPieceListener.onNextPiece(currentPiece, nextPiece);
-            }
+            publishPieces();
         }
     }
     /**
@@ -175,53 +234,47 @@ public class Game {
      * includes clearing lines and preparing the next piece
      */
     private void afterPiece() {
-        HashSet<GameBlockCoordinate> clearedBlocks = grid.clearLines();
+        ClearResult clearResult = engine.getClearResult();
+
+        if (!clearResult.isEmpty()) {
+            // Copy out the primitives, as clearResult is reused by the next move
+            long clearedBlocks = clearResult.getBlocks();
+            int linesCleared = clearResult.getLineCount();
+            int blocksCleared = clearResult.getBlockCount();
 
-        if (!clearedBlocks.isEmpty()) {
             Multimedia.playSound("clear.wav");
-            logger.info("Lines cleared! Animating {} blocks.", clearedBlocks.size());
+            logger.info("Lines cleared! Animating {} blocks.", blocksCleared);
 
             // Notify the listener to START the animation
-            if (lineClearedListener != null) {
-                lineClearedListener.onLineCleared(clearedBlocks);
-            }
+            events.publishLineCleared(cols, clearedBlocks);
 
             // Create a pause that matches the animation duration
             PauseTransition delay = new PauseTransition(new Duration(500));
             delay.setOnFinished(e -> {
                 // AFTER the pause, clear the grid data
-                for (GameBlockCoordinate coord : clearedBlocks) {
-                    grid.set(coord.getX(), coord.getY(), 0);
-                }
+                engine.resolve();
+                grid.refresh();
 
                 // Then continue with the rest of the game logic
-                continueGameFlow(clearedBlocks);
+                continueGameFlow(linesCleared, blocksCleared);
             });
             delay.play();
 
         } else {
             // If no lines were cleared, continue immediately
-            continueGameFlow(clearedBlocks);
+            engine.resolve();
+            continueGameFlow(0, 0);
         }
     }
 
     /**
      * Handles scoring and getting the next piece.
      * Separated to be called after the clear line animation delay.
-     * @param clearedBlocks the blocks that were cleared
-     */
-    private void continueGameFlow(HashSet<GameBlockCoordinate> clearedBlocks) {
-        // --- Calculate score ---
-        int linesCleared = 0;
-        HashSet<Integer> clearedRows = new HashSet<>();
-        HashSet<Integer> clearedCols = new HashSet<>();
-        for(GameBlockCoordinate coord : clearedBlocks) {
-            clearedRows.add(coord.getY());
-            clearedCols.add(coord.getX());
-        }
-        linesCleared = clearedRows.size() + clearedCols.size();
-
-        score(linesCleared, clearedBlocks.size());
+     * @param linesCleared the number of rows and columns that were cleared
+     * @param blocksCleared the number of blocks that were cleared
+     */
+    private void continueGameFlow(int linesCleared, int blocksCleared) {
+        score(linesCleared, blocksCleared);
 
         resetTimer();
         nextPiece();
@@ -229,41 +282,81 @@ public class Game {
 
     /**
      * Handles scoring based on lines and blocks cleared.
+     * The points, multiplier and level are worked out by the engine when the move is resolved; this publishes them to
+     * the properties and the statistics.
      * @param linesCleared the number of lines cleared
      * @param blocksCleared the number of blocks cleared
      */
     protected void score(int linesCleared, int blocksCleared) {
-        if (linesCleared > 0) {
-            // Add points based on the formula
-            int points = linesCleared * blocksCleared * 10 * multiplier.get();
-            score.set(score.get() + points);
-
-            // Increase the multiplier for the next successful clear
-            multiplier.set(multiplier.get() + 1);
+        updateProperties();
 
+        if (linesCleared > 0) {
             Statistics.linesCleared.set(Statistics.linesCleared.get() + linesCleared);
             if (multiplier.get() > Statistics.highestMultiplier.get()) {
                 Statistics.highestMultiplier.set(multiplier.get());
             }
-        } else {
-            // If no lines were cleared, reset the multiplier
-            multiplier.set(1);
         }
         if (score.get() > Statistics.highestScore.get()) {
             Statistics.highestScore.set(score.get());
         }
+    }
 
-        // Update the level based on the score
-        level.set(score.get() / 1000);
+    /**
+     * Copy the score, level, lives and multiplier from the engine into their properties
+     */
+    private void updateProperties() {
+        score.set(engine.getScore());
+        level.set(engine.getLevel());
+        lives.set(engine.getLives());
+        multiplier.set(engine.getMultiplier());
     }
-    public void setNextPieceListener(NextPieceListener listener){
-        this.nextPieceListener = listener;
+
+    /**
+     * Get the bus the game publishes its events on, for subscribers such as the scene, sound, the network or a bot
+     * @return the event bus
+     */
+    public GameEventBus getEvents() {
+        return events;
     }
-    public void setLineClearedListener(LineClearedListener listener) {
-        this.lineClearedListener = listener;
+
+    /**
+     * Subscribe to changes to the current and following pieces
+     * @param listener the listener
+     * @return the subscription, which can be removed with getEvents().unsubscribe
+     */
+    public GameEventListener addNextPieceListener(NextPieceListener listener) {
+        GameEventListener subscriber = event -> listener.onNextPiece(event.getCurrentPiece(), event.getNextPiece());
+        events.subscribe(GameEvent.NEXT_PIECE, subscriber);
+        return subscriber;
     }
-    public void setGameLoopListener(GameLoopListener listener){
-        this.gameLoopListener = listener;
+
+    /**
+     * Subscribe to line clears
+     * @param listener the listener
+     * @return the subscription, which can be removed with getEvents().unsubscribe
+     */
+    public GameEventListener addLineClearedListener(LineClearedListener listener) {
+        GameEventListener subscriber = event -> listener.onLineCleared(event.getClearedSet());
+        events.subscribe(GameEvent.LINE_CLEARED, subscriber);
+        return subscriber;
+    }
+
+    /**
+     * Subscribe to the game loop timer starting again
+     * @param listener the listener
+     * @return the subscription, which can be removed with getEvents().unsubscribe
+     */
+    public GameEventListener addGameLoopListener(GameLoopListener listener) {
+        GameEventListener subscriber = event -> listener.onGameLoop(event.getDelay());
+        events.subscribe(GameEvent.GAME_LOOP, subscriber);
+        return subscriber;
+    }
+
+    /**
+     * Publish the current and following pieces
+     */
+    private void publishPieces() {
+        events.publishNextPiece(engine.getCurrentShape(), engine.getNextShape());
     }
 
     /**
@@ -273,28 +366,115 @@ public class Game {
     public Grid getGrid() {
         return grid;
     }
-    public void setGameOverListener(GameOverListener listener){
-        this.gameOverListener = listener;
+
+    /**
+     * Get the headless engine holding the rules and state of this game
+     * @return the game engine
+     */
+    public GameEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Put the game back to a snapshot taken from its engine, for undo and rewind, and show the restored board, pieces
+     * and score. The timer starts again for the restored current piece.
+     * Only games of up to 64 blocks can be snapshotted, so only they can be restored.
+     * @param state the snapshot
+     * @throws IllegalStateException if the board is too big to be snapshotted
+     */
+    public void restore(GameState state) {
+        if (!engine.canSnapshot()) {
+            throw new IllegalStateException("A " + engine.getCols() + "x" + engine.getRows()
+                + " game cannot be restored");
+        }
+        engine.restore(state);
+        grid.refresh();
+        updateProperties();
+        resetTimer();
+
+        publishPieces();
+    }
+    /**
+     * Subscribe to the end of the game. If the game is already over, the listener is called straight away.
+     * @param listener the listener
+     * @return the subscription, which can be removed with getEvents().unsubscribe
+     */
+    public GameEventListener addGameOverListener(GameOverListener listener) {
+        GameEventListener subscriber = event -> listener.onGameOver();
+        events.subscribe(GameEvent.GAME_OVER, subscriber);
         if (lives.get() <= 0) {
             logger.info("Game Over!");
-            gameLoopTimer.cancel();
-
-            if (gameOverListener != null) {
-                // Run on JavaFX thread to be safe with UI changes
-                Platform.runLater(gameOverListener::onGameOver);
+            if (gameLoopTimer != null) {
+                gameLoopTimer.cancel();
             }
-            return;
+            // Run on JavaFX thread to be safe with UI changes
+            Platform.runLater(listener::onGameOver);
         }
+        return subscriber;
     }
     public void shutdown() {
         if (gameLoopTimer != null) {
             gameLoopTimer.cancel();
             logger.info("Game timer shut down.");
         }
+        if (hintEngine != null) {
+            hintEngine.shutdown();
+        }
+    }
+
+    /**
+     * Start looking for the best move for the current position in the background, within the hint engine's time
+     * budget. The move is delivered to the hint listener on the JavaFX thread, unless the position has changed by then.
+     * The move always plays the current piece. Boards too big to snapshot, of more than 64 blocks, get no hints.
+     */
+    public void requestHint() {
+        if (!engine.canSnapshot() || engine.getCurrentShape() == GameEngine.EMPTY || engine.isGameOver()) {
+            return;
+        }
+        if (hintEngine == null) {
+            hintEngine = new HintEngine();
+        }
+        long position = engine.getHash();
+        hintEngine.requestHint(engine.snapshot(), move -> Platform.runLater(() -> {
+            // Drop hints for positions the player has already moved on from
+            if (hintListener != null && engine.getHash() == position) {
+                hintListener.onHint(move);
+            }
+        }));
+    }
+
+    /**
+     * Get the best move found so far by the latest hint search, which may still be running
+     * @return the move packed by MoveGenerator, or Bot.NO_MOVE if there is none yet
+     */
+    public int getHint() {
+        return hintEngine == null ? Bot.NO_MOVE : hintEngine.getBestSoFar();
+    }
+
+    /**
+     * Abandon the hint search in progress, if any
+     */
+    public void cancelHint() {
+        if (hintEngine != null) {
+            hintEngine.cancel();
+        }
+    }
+
+    public void setHintListener(HintListener listener) {
+        this.hintListener = listener;
     }
 
-    public GamePiece getNextPiece() {
-        return nextPiece;
+    public PieceShape getNextPiece() {
+        return toPiece(engine.getNextShape());
+    }
+
+    /**
+     * Get the shared PieceShape for a shape number from the engine's piece queue
+     * @param shape shape number (piece * GamePiece.ROTATIONS + rotation)
+     * @return the shape, or null for an empty slot
+     */
+    private static PieceShape toPiece(int shape) {
+        return shape == GameEngine.EMPTY ? null : PieceShape.of(shape);
     }
     /**
      * Get the number of columns in this game
@@ -303,37 +483,55 @@ public class Game {
     public int getCols() {
         return cols;
     }
+    /**
+     * Set the clock the game is timed on, such as a VirtualClock to run it faster than real time.
+     * Must be called before the game starts.
+     *
+     * This only moves the timeouts onto the clock. A life lost here still publishes to JavaFX properties and plays a
+     * sound, and the timer hops onto the JavaFX thread unless it fires there, so a Game needs the JavaFX toolkit
+     * whatever its clock. Virtual time simulation without JavaFX is only for a GameEngine driven by a GameTimer.
+     * @param clock the clock
+     */
+    public void setClock(GameClock clock) {
+        if (gameLoopTimer != null) {
+            throw new IllegalStateException("The game has already started");
+        }
+        this.clock = clock;
+    }
+
+    /**
+     * Get the clock the game is timed on
+     * @return the clock, the shared GameScheduler unless another was set
+     */
+    public GameClock getClock() {
+        if (clock == null) {
+            clock = GameScheduler.getShared();
+        }
+        return clock;
+    }
+
     /**
      * Calculates the delay for the game loop timer based on the current level.
      * @return the delay in milliseconds
      */
     public int getTimerDelay() {
-        // The delay is the maximum of either 2500ms or (12000 - 500 * level)
-        return Math.max(2500, 12000 - 500 * level.get());
+        return engine.getTimerDelay();
     }
     /**
      * Starts the game loop timer.
      */
     public void startTimer() {
-        // Cancel any existing timer
+        // Move the existing timeout, or schedule the gameLoop task the first time
         if (gameLoopTimer != null) {
-            gameLoopTimer.cancel();
+            gameLoopTimer.reschedule(getTimerDelay(), getTimerDelay());
+        } else {
+            gameLoopTimer = getClock().schedule(this::gameLoop, getTimerDelay(), getTimerDelay());
         }
 
-        // Create a new timer and schedule the gameLoop task
-        gameLoopTimer = new Timer();
-        gameLoopTimer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                // This code runs when the timer fires
-                gameLoop();
-            }
-        }, getTimerDelay(), getTimerDelay()); // Initial delay and repeat interval
-
         logger.info("Timer started with delay: {}ms", getTimerDelay());
       // Notify the listener
-      if(gameLoopListener != null) {
-        Platform.runLater(() -> gameLoopListener.onGameLoop(getTimerDelay()));
+      if (events.hasSubscribers(GameEvent.GAME_LOOP)) {
+        Platform.runLater(() -> events.publishGameLoop(getTimerDelay()));
       }
     }
     /**
@@ -342,35 +540,48 @@ public class Game {
     protected void gameLoop() {
         logger.info("Game loop fired!");
 
-        // Use Platform.runLater to make changes to JavaFX properties from a background thread
-        Platform.runLater(() -> {
-            // Decrement lives
-            lives.set(lives.get() - 1);
-            Multimedia.playSound("lifelose.wav");
-
-            // Check for game over
-            if (lives.get() <= 0) {
-                logger.info("Game Over!");
-                if (gameLoopTimer != null) {
-                    gameLoopTimer.cancel(); // Stop the timer
-                }
-                if (gameOverListener != null) {
-                    gameOverListener.onGameOver();
-                }
-                return; // Stop processing
+        // Use Platform.runLater to make changes to JavaFX properties from a background thread. A VirtualClock
+        // advanced on the JavaFX thread runs the timer there already.
+        if (Platform.isFxApplicationThread()) {
+            loseLife();
+        } else {
+            Platform.runLater(this::loseLife);
+        }
+    }
+
+    /**
+     * Lose a life and move on to the next piece, or end the game if that was the last life.
+     * Called on the JavaFX thread, when the timer runs out or when the current piece cannot be played anywhere.
+     */
+    protected void loseLife() {
+        // Decrement lives and reset the multiplier
+        boolean alive = engine.loseLife();
+        updateProperties();
+        lifeLost();
+        Multimedia.playSound("lifelose.wav");
+
+        // Check for game over
+        if (!alive) {
+            logger.info("Game Over!");
+            if (gameLoopTimer != null) {
+                gameLoopTimer.cancel(); // Stop the timer
             }
+            events.publishGameOver();
+            return; // Stop processing
+        }
 
-            // Get the next piece and reset the multiplier
-            nextPiece();
-            multiplier.set(1);
+        // Notify the UI to restart the timer bar animation for the new piece/life
+        events.publishGameLoop(getTimerDelay());
 
-            // --- THIS IS THE FIX ---
-            // Notify the UI to restart the timer bar animation for the new piece/life
-            if (gameLoopListener != null) {
-                gameLoopListener.onGameLoop(getTimerDelay());
-            }
-            // --- END OF FIX ---
-        });
+        // Get the next piece, which may lose another life straight away if it cannot be played either
+        nextPiece();
+    }
+
+    /**
+     * Called once for every life lost, as soon as the lives property shows it and before the game moves on, which may
+     * lose another life straight away
+     */
+    protected void lifeLost() {
     }
 
     /**
@@ -378,7 +589,6 @@ public class Game {
      */
     public void resetTimer() {
         if (gameLoopTimer != null) {
-            gameLoopTimer.cancel();
             startTimer();
         }
     }
@@ -386,20 +596,17 @@ public class Game {
      * Rotates the current piece.
      */
     public void rotateCurrentPiece() {
-        if (currentPiece != null) {
+        if (engine.getCurrentShape() != GameEngine.EMPTY) {
             Multimedia.playSound("rotate.wav");
-            currentPiece.rotate();
+            engine.rotate();
             // We need a way to tell the UI that the piece has changed.
-            // The NextPieceListener is perfect for this, as it's already set up
-            // to update the preview boards.
-            if (nextPieceListener != null) {
-                nextPieceListener.onNextPiece(currentPiece, nextPiece); // We will update this listener
-            }
+            // A NEXT_PIECE event is perfect for this, as the preview boards already listen for it.
+            publishPieces();
         }
     }
 
-    public GamePiece getCurrentPiece() {
-        return currentPiece;
+    public PieceShape getCurrentPiece() {
+        return toPiece(engine.getCurrentShape());
     }
     /**
      * Get the number of rows in this game
@@ -0,0 +1,361 @@
+package uk.ac.soton.comp1206.game;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.engine.GameClock;
+
+/**
+ * The GameScheduler runs the timers of any number of games on a single background thread, as a hashed wheel timer.
+ *
+ * Time is cut into ticks, and the wheel is a ring of slots, one per tick, each holding a linked list of the timeouts
+ * due in that tick (or in the same slot on a later turn of the wheel). Scheduling, rescheduling and cancelling a
+ * timeout only link or unlink it from a list, so each is O(1) however many games are running, and a timeout is
+ * reused for the whole of a game rather than made again for every piece.
+ *
+ * Deadlines are kept in System.nanoTime, which is monotonic, and a repeating timeout's next deadline is its last
+ * deadline plus its period rather than the time it actually ran, so late ticks do not add up into drift. The wheel
+ * thread sleeps until the next tick is due and catches up on any it overslept; it sleeps for as long as it likes when
+ * nothing is scheduled.
+ *
+ * Tasks run on the wheel thread, one after another, so they should be short: a game hands its work to the JavaFX
+ * thread with Platform.runLater.
+ *
+ * The GameScheduler is the real time GameClock; a VirtualClock can stand in for it to run games faster than real time.
+ */
+public class GameScheduler implements GameClock {
+
+    private static final Logger logger = LogManager.getLogger(GameScheduler.class);
+
+    /**
+     * The length of a tick used by the shared scheduler, in milliseconds
+     */
+    public static final long DEFAULT_TICK = 10;
+
+    /**
+     * The number of slots in the wheel of the shared scheduler: about 10 seconds of ticks
+     */
+    public static final int DEFAULT_WHEEL_SIZE = 1024;
+
+    /**
+     * The scheduler shared by every game, made when first needed
+     */
+    private static GameScheduler shared;
+
+    /**
+     * Guards the wheel and every timeout in it
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Signalled when a timeout is scheduled, to wake the wheel thread if it is waiting for work
+     */
+    private final Condition scheduled = lock.newCondition();
+
+    /**
+     * The first timeout in each slot, or null
+     */
+    private final Timeout[] wheel;
+
+    /**
+     * The number of slots minus one, the number of slots being a power of two
+     */
+    private final int mask;
+
+    private final long tickNanos;
+
+    /**
+     * The time the wheel started, from System.nanoTime: tick n ends at start + n * tickNanos
+     */
+    private final long start;
+
+    /**
+     * The last tick the wheel has processed
+     */
+    private long tick;
+
+    /**
+     * The number of timeouts in the wheel
+     */
+    private int pending;
+
+    private volatile boolean running = true;
+
+    private final Thread thread;
+
+    /**
+     * Get the scheduler shared by every game, starting it if needed
+     * @return the shared scheduler
+     */
+    public static synchronized GameScheduler getShared() {
+        if (shared == null) {
+            shared = new GameScheduler(DEFAULT_TICK, DEFAULT_WHEEL_SIZE, TimeUnit.MILLISECONDS);
+        }
+        return shared;
+    }
+
+    /**
+     * Create a new scheduler and start its thread
+     * @param tick the length of a tick
+     * @param wheelSize the number of slots in the wheel, rounded up to a power of two
+     * @param unit the unit of the tick
+     */
+    public GameScheduler(long tick, int wheelSize, TimeUnit unit) {
+        if (tick <= 0 || wheelSize <= 0 || wheelSize > 1 << 20) {
+            throw new IllegalArgumentException("Unsupported wheel: " + wheelSize + " ticks of " + tick + " " + unit);
+        }
+        int size = Integer.highestOneBit(wheelSize);
+        if (size < wheelSize) {
+            size <<= 1;
+        }
+        this.wheel = new Timeout[size];
+        this.mask = size - 1;
+        this.tickNanos = unit.toNanos(tick);
+        this.start = System.nanoTime();
+
+        thread = new Thread(this::run, "GameScheduler");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Schedule a task
+     * @param task the task, run on the scheduler's thread
+     * @param delay the time before it first runs
+     * @param period the time between runs, or 0 to run it once
+     * @param unit the unit of the delay and period
+     * @return the timeout, which can be rescheduled or cancelled
+     */
+    public Timeout schedule(Runnable task, long delay, long period, TimeUnit unit) {
+        Timeout timeout = new Timeout(task);
+        timeout.reschedule(delay, period, unit);
+        return timeout;
+    }
+
+    @Override
+    public long millis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    @Override
+    public Timeout schedule(Runnable task, long delay, long period) {
+        return schedule(task, delay, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop the scheduler's thread. Nothing scheduled will run again.
+     */
+    public void shutdown() {
+        running = false;
+        thread.interrupt();
+    }
+
+    /**
+     * Get the number of timeouts waiting to run
+     * @return the number of timeouts
+     */
+    public int getPending() {
+        lock.lock();
+        try {
+            return pending;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The wheel thread: wait for each tick to be due, then run every timeout due in it
+     */
+    private void run() {
+        List<Timeout> due = new ArrayList<>();
+        while (running) {
+            lock.lock();
+            try {
+                while (running && pending == 0) {
+                    scheduled.await();
+                }
+                long now = System.nanoTime();
+                long wait = start + (tick + 1) * tickNanos - now;
+                if (wait > 0) {
+                    // Sleep until the next tick, or until something due sooner is scheduled
+                    scheduled.awaitNanos(wait);
+                    continue;
+                }
+
+                // Process every tick that has ended, in case the thread overslept. A whole turn of the wheel visits
+                // every slot, at the latest tick with that slot, so nothing overdue is missed.
+                long last = (now - start) / tickNanos;
+                for (long t = Math.max(tick + 1, last - mask); t <= last && pending > 0; t++) {
+                    collect(t, now, due);
+                }
+                tick = last;
+            } catch (InterruptedException e) {
+                continue;
+            } finally {
+                lock.unlock();
+            }
+
+            for (Timeout timeout : due) {
+                try {
+                    timeout.task.run();
+                } catch (RuntimeException e) {
+                    logger.error("Scheduled task failed", e);
+                }
+            }
+            due.clear();
+        }
+    }
+
+    /**
+     * Take every timeout due by a tick out of its slot, putting repeating ones back for their next run.
+     * Called with the lock held.
+     * @param current the tick
+     * @param now the time, from System.nanoTime
+     * @param due the list to add the timeouts to
+     */
+    private void collect(long current, long now, List<Timeout> due) {
+        Timeout timeout = wheel[(int) (current & mask)];
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            if (timeout.tick <= current) {
+                unlink(timeout);
+                due.add(timeout);
+                if (timeout.period > 0) {
+                    // Keep to the original schedule, however late this run is, but skip any runs missed entirely
+                    // rather than running them all at once
+                    timeout.deadline += timeout.period;
+                    if (timeout.deadline <= now) {
+                        timeout.deadline += ((now - timeout.deadline) / timeout.period + 1) * timeout.period;
+                    }
+                    link(timeout, Math.max(tickOf(timeout.deadline), current + 1));
+                }
+            }
+            timeout = next;
+        }
+    }
+
+    /**
+     * Work out the tick by the end of which a deadline has passed
+     */
+    private long tickOf(long deadline) {
+        long elapsed = deadline - start;
+        return elapsed <= 0 ? 0 : (elapsed + tickNanos - 1) / tickNanos;
+    }
+
+    /**
+     * Add a timeout to the slot of a tick. Called with the lock held.
+     */
+    private void link(Timeout timeout, long due) {
+        int slot = (int) (due & mask);
+        timeout.tick = due;
+        timeout.prev = null;
+        timeout.next = wheel[slot];
+        if (timeout.next != null) {
+            timeout.next.prev = timeout;
+        }
+        wheel[slot] = timeout;
+        timeout.linked = true;
+        pending++;
+    }
+
+    /**
+     * Remove a timeout from its slot, if it is in one. Called with the lock held.
+     */
+    private void unlink(Timeout timeout) {
+        if (!timeout.linked) {
+            return;
+        }
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            wheel[(int) (timeout.tick & mask)] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.linked = false;
+        pending--;
+    }
+
+    /**
+     * A task in the wheel, which can be rescheduled or cancelled at any time from any thread
+     */
+    public final class Timeout implements GameClock.Timer {
+        private final Runnable task;
+
+        /**
+         * When it is next due, from System.nanoTime, and the time between runs, or 0 to run once
+         */
+        private long deadline;
+        private long period;
+
+        /**
+         * The tick it is due in, and its neighbours in the slot of that tick
+         */
+        private long tick;
+        private Timeout prev;
+        private Timeout next;
+        private boolean linked;
+
+        private Timeout(Runnable task) {
+            this.task = task;
+        }
+
+        /**
+         * Move the timeout to a new time, whether or not it has already run or been cancelled
+         * @param delay the time from now before it next runs
+         * @param period the time between runs, or 0 to run it once
+         * @param unit the unit of the delay and period
+         */
+        public void reschedule(long delay, long period, TimeUnit unit) {
+            lock.lock();
+            try {
+                unlink(this);
+                this.deadline = System.nanoTime() + unit.toNanos(Math.max(delay, 0));
+                this.period = unit.toNanos(Math.max(period, 0));
+                link(this, Math.max(tickOf(deadline), GameScheduler.this.tick + 1));
+                scheduled.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void reschedule(long delay, long period) {
+            reschedule(delay, period, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * Stop the timeout running again. Its task may still be running, or about to run, on the wheel thread.
+         */
+        @Override
+        public void cancel() {
+            lock.lock();
+            try {
+                unlink(this);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Check whether the timeout is waiting to run
+         * @return true if it is scheduled
+         */
+        @Override
+        public boolean isPending() {
+            lock.lock();
+            try {
+                return linked;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -1,17 +1,15 @@
 package uk.ac.soton.comp1206.game;
 
-import java.util.HashSet;
-import java.util.Set;
 import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.SimpleIntegerProperty;
-import uk.ac.soton.comp1206.component.GameBlockCoordinate;
 
 /**
  * The Grid is a model which holds the state of a game board. It is made up of a set of Integer values arranged in a 2D
  * arrow, with rows and columns.
  *
- * Each value inside the Grid is an IntegerProperty can be bound to enable modification and display of the contents of
- * the grid.
+ * The values themselves are held in a Board, usually a BitGrid. Each value can also be fetched as an IntegerProperty which can be bound
+ * to enable display of the contents of the grid. These properties are only created the first time one is requested, so
+ * a Grid which is never displayed does not pay for them.
  *
  * The Grid contains functions related to modifying the model, for example, placing a piece inside the grid.
  *
@@ -30,9 +28,14 @@ public class Grid {
     private final int rows;
 
     /**
-     * The grid is a 2D arrow with rows and columns of SimpleIntegerProperties.
+     * The board holding the values of this grid
      */
-    private final SimpleIntegerProperty[][] grid;
+    private final Board bits;
+
+    /**
+     * A 2D arrow with rows and columns of SimpleIntegerProperties mirroring the board. Null until first requested.
+     */
+    private SimpleIntegerProperty[][] grid;
 
     /**
      * Create a new Grid with the specified number of columns and rows and initialise them
@@ -40,18 +43,18 @@ public class Grid {
      * @param rows number of rows
      */
     public Grid(int cols, int rows) {
-        this.cols = cols;
-        this.rows = rows;
-
-        //Create the grid itself
-        grid = new SimpleIntegerProperty[cols][rows];
+        this(Board.create(cols, rows));
+    }
 
-        //Add a SimpleIntegerProperty to every block in the grid
-        for(var y = 0; y < rows; y++) {
-            for(var x = 0; x < cols; x++) {
-                grid[x][y] = new SimpleIntegerProperty(0);
-            }
-        }
+    /**
+     * Create a new Grid displaying an existing Board, such as the board of a GameEngine.
+     * If the Board is changed directly, call refresh to update the properties.
+     * @param bits the board to display
+     */
+    public Grid(Board bits) {
+        this.cols = bits.getCols();
+        this.rows = bits.getRows();
+        this.bits = bits;
     }
 
     /**
@@ -61,9 +64,34 @@ public class Grid {
      * @return the IntegerProperty at the given x and y in this grid
      */
     public IntegerProperty getGridProperty(int x, int y) {
+        if (grid == null) {
+            //Create a SimpleIntegerProperty for every block in the grid, holding its current value
+            grid = new SimpleIntegerProperty[cols][rows];
+            for (var gy = 0; gy < rows; gy++) {
+                for (var gx = 0; gx < cols; gx++) {
+                    grid[gx][gy] = new SimpleIntegerProperty(bits.get(gx, gy));
+                }
+            }
+        }
         return grid[x][y];
     }
 
+    /**
+     * Get the Board holding the values of this grid
+     * @return the underlying board
+     */
+    public Board getBoard() {
+        return bits;
+    }
+
+    /**
+     * Get the Zobrist hash of which blocks of the grid are occupied, for spotting positions seen before
+     * @return the hash
+     */
+    public long getHash() {
+        return bits.getHash();
+    }
+
     /**
      * Update the value at the given x and y index within the grid
      * @param x column
@@ -71,7 +99,10 @@ public class Grid {
      * @param value the new value
      */
     public void set(int x, int y, int value) {
-        grid[x][y].set(value);
+        bits.set(x, y, value);
+        if (grid != null) {
+            grid[x][y].set(value);
+        }
     }
 
     /**
@@ -81,12 +112,32 @@ public class Grid {
      * @return the value
      */
     public int get(int x, int y) {
-        try {
-            //Get the value held in the property at the x and y index provided
-            return grid[x][y].get();
-        } catch (ArrayIndexOutOfBoundsException e) {
-            //No such index
-            return -1;
+        return bits.get(x, y);
+    }
+
+    /**
+     * Copy every value from the board into its property, if they have been created.
+     * Needed after the board has been changed directly rather than through this Grid.
+     */
+    public void refresh() {
+        refresh(0, 0, cols - 1, rows - 1);
+    }
+
+    /**
+     * Copy the values of a rectangle of blocks from the board into their properties, if they have been created
+     * @param fromX first column, clipped to the grid
+     * @param fromY first row, clipped to the grid
+     * @param toX last column, clipped to the grid
+     * @param toY last row, clipped to the grid
+     */
+    private void refresh(int fromX, int fromY, int toX, int toY) {
+        if (grid == null) {
+            return;
+        }
+        for (int y = Math.max(0, fromY); y <= Math.min(rows - 1, toY); y++) {
+            for (int x = Math.max(0, fromX); x <= Math.min(cols - 1, toX); x++) {
+                grid[x][y].set(bits.get(x, y));
+            }
         }
     }
 
@@ -99,45 +150,12 @@ public class Grid {
      * @param gridY y-coordinate for the center of the piece
      * @return true if piece can be placed, false if not
      */
-    public boolean canPlayPiece(GamePiece piece, int gridX, int gridY){
-        int[][] blocks = piece.getBlocks();
-
-        //loop through 3x3 blocks of the gamepiece
-        for (int x = 0; x < 3; x++){
-            for (int y = 0; y < 3; y++){
-
-                //if block in the piece is empty, we dont care, so we skip to next one
-                if (blocks[x][y] == 0){
-                    continue;
-                }
-
-                //calculate the actual position on the main grid
-                // offset is -1 because top-left of the piece is at (0,0) relative to its center at (1,1)
-                int actualX = gridX + (x - 1);
-                int actualY = gridY + (y - 1);
-
-                // ---- Rule 1: Check if block is out of bounds ----
-                if (actualX < 0 || actualX >= cols || actualY < 0 || actualY >= rows) {
-                    //this block of piece would be off the grid, so the placement is invalid
-                    return false;
-                }
-
-                // ----Rule 2: Check if grid space is already occupied ----
-                if (get(actualX, actualY) != 0){
-
-                    //this grid cell is already filled so we can't place block here
-                    return false;
-                }
-            }
-        }
-        //if we looped through all the pieces blocks and none of them failed the checks, then placement is valid
-
-        return true;
-
+    public boolean canPlayPiece(PieceShape piece, int gridX, int gridY){
+        return bits.canPlay(piece.getPiece(), piece.getRotation(), gridX, gridY);
     }
 
     /**
-     * Place a given GamePiece on the grid at the given coordinates
+     * Place a given piece on the grid at the given coordinates
      * assumes canPlayPiece has already been checked
      * coordinates are for the center of the piece
      *
@@ -145,76 +163,29 @@ public class Grid {
      * @param gridX the x-coordinate for the center of piece
      * @param gridY the y-coordinate for the center of piece
      */
-    public void playPiece(GamePiece piece, int gridX, int gridY) {
-        int[][] blocks = piece.getBlocks();
-
-        for (int x = 0; x < 3; x++) {
-            for (int y = 0; y < 3; y++) {
-
-                if (blocks[x][y] == 0) {
-                    continue;
-                }
-
-                // --- VERIFY THIS SECTION ---
-                int actualX = gridX + (x - 1);
-                int actualY = gridY + (y - 1);
-
-                set(actualX, actualY, piece.getValue());
-            }
-        }
+    public void playPiece(PieceShape piece, int gridX, int gridY) {
+        bits.play(piece.getPiece(), piece.getRotation(), gridX, gridY);
+        refresh(gridX - 1, gridY - 1, gridX + 1, gridY + 1);
     }
+
     /**
-     * Clears any full lines (rows or columns) from the grid.
-     * This method both DETECTS and CLEARS the lines.
+     * Finds any full lines (rows or columns) in the grid.
+     * The blocks are not cleared here: the game clears them once the clear animation has finished.
      *
-     * @return A HashSet containing the GameBlockCoordinates of all blocks that were cleared.
-     */
-    public HashSet<GameBlockCoordinate> clearLines() {
-        HashSet<GameBlockCoordinate> clearedBlocks = new HashSet<>();
-
-        // --- Check for full rows ---
-        for (int y = 0; y < rows; y++) {
-            boolean rowIsFull = true;
-            for (int x = 0; x < cols; x++) {
-                if (get(x, y) == 0) {
-                    rowIsFull = false;
-                    break;
-                }
-            }
-
-            if (rowIsFull) {
-                for (int x = 0; x < cols; x++) {
-                    clearedBlocks.add(new GameBlockCoordinate(x, y));
-                }
-            }
-        }
-
-        // --- Check for full columns ---
-        for (int x = 0; x < cols; x++) {
-            boolean columnIsFull = true;
-            for (int y = 0; y < rows; y++) {
-                if (get(x, y) == 0) {
-                    columnIsFull = false;
-                    break;
-                }
-            }
-
-            if (columnIsFull) {
-                for (int y = 0; y < rows; y++) {
-                    clearedBlocks.add(new GameBlockCoordinate(x, y));
-                }
-            }
-        }
-
-        // --- Now, clear the blocks identified ---
-        // Note: The animation will happen first, then the data will be cleared
-        // when the animation finishes via the binding.
-        for (GameBlockCoordinate coord : clearedBlocks) {
-            // We are NOT calling set(x,y,0) here directly anymore.
-            // The animation's onFinished event will do this for us.
-        }
+     * @param result the reusable result to fill in with the full rows, columns and blocks
+     */
+    public void clearLines(ClearResult result) {
+        //Only the lines touched since the last check can have become full
+        bits.findFullLines(result);
+    }
 
-        return clearedBlocks;
+    /**
+     * Empty every block of the lines found by the last call to clearLines
+     * @param result the result filled in by clearLines
+     */
+    public void clearFullLines(ClearResult result) {
+        bits.clearLines(result);
+        refresh();
     }
 
 
@@ -237,11 +208,8 @@ public class Grid {
      * Clears the grid by setting all values to 0.
      */
     public void clear() {
-        for (int y = 0; y < rows; y++) {
-            for (int x = 0; x < cols; x++) {
-                set(x, y, 0);
-            }
-        }
+        bits.clear();
+        refresh();
     }
 
 }
@@ -0,0 +1,56 @@
+package uk.ac.soton.comp1206.game;
+
+/**
+ * A LineScanner does the bulk word operations a WideBitGrid needs to scan whole rows and columns.
+ *
+ * The fastest available scanner is picked by best(): one using the jdk.incubator.vector API when that module has been
+ * added to the JVM (with --add-modules jdk.incubator.vector), and a plain scalar loop otherwise.
+ */
+public interface LineScanner {
+
+    /**
+     * Check that every bit set in a mask is also set in a run of words
+     * @param words the words to check
+     * @param offset the position of the first word to check
+     * @param mask the bits which must be set, one mask word per word checked
+     * @return true if (words[offset + i] & mask[i]) == mask[i] for every i
+     */
+    boolean containsAll(long[] words, int offset, long[] mask);
+
+    /**
+     * AND a run of words into an accumulator
+     * @param accumulator the words to AND into, updated in place
+     * @param words the words to AND in
+     * @param offset the position of the first word to AND in
+     */
+    void and(long[] accumulator, long[] words, int offset);
+
+    /**
+     * Get a short name for this scanner, for logging and benchmarks
+     * @return the name
+     */
+    String getName();
+
+    /**
+     * Get the fastest scanner available in this JVM
+     * @return the vector scanner if the Vector API is available, otherwise the scalar scanner
+     */
+    static LineScanner best() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return new VectorLineScanner();
+            } catch (LinkageError e) {
+                //Fall through to the scalar scanner
+            }
+        }
+        return scalar();
+    }
+
+    /**
+     * Get the scalar scanner, which works in every JVM
+     * @return the scalar scanner
+     */
+    static LineScanner scalar() {
+        return ScalarLineScanner.INSTANCE;
+    }
+}
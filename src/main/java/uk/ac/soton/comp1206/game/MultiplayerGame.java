@@ -7,6 +7,8 @@ import javafx.collections.FXCollections;
 import javafx.util.Pair;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.engine.GameEngine;
+import uk.ac.soton.comp1206.engine.QueuedPieceSource;
 import uk.ac.soton.comp1206.event.CommunicationsListener;
 import uk.ac.soton.comp1206.network.Communicator;
 import java.util.ArrayList;
@@ -15,13 +17,22 @@ public class MultiplayerGame extends Game {
 
   private static final Logger logger = LogManager.getLogger(MultiplayerGame.class);
   private final Communicator communicator;
-  private final ArrayList<GamePiece> pieceQueue = new ArrayList<>();
+  private final QueuedPieceSource pieceQueue;
   private final ListProperty<String> leaderboardProperty = new SimpleListProperty<>(FXCollections.observableArrayList());
   private CommunicationsListener listener; // Field to hold our listener
 
   public MultiplayerGame(int cols, int rows, Communicator communicator) {
-    super(cols, rows, true);
+    this(cols, rows, communicator, new QueuedPieceSource());
+  }
+
+  private MultiplayerGame(int cols, int rows, Communicator communicator, QueuedPieceSource pieceQueue) {
+    super(cols, rows, pieceQueue, true);
     this.communicator = communicator;
+    this.pieceQueue = pieceQueue;
+    pieceQueue.setOnEmpty(() -> {
+      logger.warn("Piece queue is empty! Requesting new piece.");
+      requestPiece();
+    });
     setupNetworking();
   }
 
@@ -42,8 +53,8 @@ public class MultiplayerGame extends Game {
 
       if (command.equals("PIECE")) {
         int pieceIndex = Integer.parseInt(data);
-        pieceQueue.add(GamePiece.createPiece(pieceIndex));
-        if (currentPiece == null) {
+        pieceQueue.add(pieceIndex);
+        if (engine.getCurrentShape() == GameEngine.EMPTY) {
           nextPiece();
         }
       } else if (command.equals("SCORES")) {
@@ -76,16 +87,6 @@ public class MultiplayerGame extends Game {
     }
   }
 
-  @Override
-  public GamePiece spawnPiece() {
-    if (pieceQueue.isEmpty()) {
-      logger.warn("Piece queue is empty! Requesting new piece.");
-      requestPiece();
-      return GamePiece.createPiece(0);
-    }
-    return pieceQueue.remove(0);
-  }
-
   @Override
   public void nextPiece() {
     super.nextPiece();
@@ -99,8 +100,7 @@ public class MultiplayerGame extends Game {
   }
 
   @Override
-  protected void gameLoop() {
-    super.gameLoop();
+  protected void lifeLost() {
     communicator.send("LIVES " + lives.get());
   }
 
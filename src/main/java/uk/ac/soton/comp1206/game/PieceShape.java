@@ -0,0 +1,301 @@
+package uk.ac.soton.comp1206.game;
+
+/**
+ * A PieceShape is one of the 15 pieces in one of its 4 rotations, with its block makeup, 9 bit block mask, value and
+ * name.
+ *
+ * There are exactly 60 of them, made when the class is loaded and interned by shape number (piece * ROTATIONS +
+ * rotation), so getting a piece or rotating one is an array lookup which allocates nothing. They are immutable, so the
+ * same instances are shared by every game, thread and view. The current piece of a game is just its shape number.
+ */
+public final class PieceShape {
+
+    /**
+     * Every shape, indexed by shape number
+     */
+    private static final PieceShape[] SHAPES = new PieceShape[GamePiece.PIECES * GamePiece.ROTATIONS];
+
+    /**
+     * The name of every piece, indexed by piece number
+     */
+    private static final String[] NAMES = new String[GamePiece.PIECES];
+
+    static {
+        for (int piece = 0; piece < GamePiece.PIECES; piece++) {
+            int[][] blocks = defineBlocks(piece);
+
+            //Use the shape of the block to create a grid with either 0 (empty) or the value of this shape for each block.
+            for (int x = 0; x < 3; x++) {
+                for (int y = 0; y < 3; y++) {
+                    if (blocks[x][y] != 0) blocks[x][y] = piece + 1;
+                }
+            }
+
+            for (int rotation = 0; rotation < GamePiece.ROTATIONS; rotation++) {
+                SHAPES[piece * GamePiece.ROTATIONS + rotation] = new PieceShape(piece, rotation, blocks);
+                blocks = rotateBlocks(blocks);
+            }
+        }
+    }
+
+    private final int piece;
+    private final int rotation;
+
+    /**
+     * The 3x3 grid of this shape, indexed by [x][y], with the value of the piece in each filled block
+     */
+    private final int[][] blocks;
+
+    /**
+     * The blocks of this shape as a 9 bit mask, where block (x,y) is bit (y * 3 + x)
+     */
+    private final int mask;
+
+    private PieceShape(int piece, int rotation, int[][] blocks) {
+        this.piece = piece;
+        this.rotation = rotation;
+        this.blocks = blocks;
+        int mask = 0;
+        for (int x = 0; x < 3; x++) {
+            for (int y = 0; y < 3; y++) {
+                if (blocks[x][y] != 0) mask |= 1 << (y * 3 + x);
+            }
+        }
+        this.mask = mask;
+    }
+
+    /**
+     * Get the shape of a shape number
+     * @param shape shape number (piece * ROTATIONS + rotation)
+     * @return the shape
+     * @throws IndexOutOfBoundsException if there is no such shape
+     */
+    public static PieceShape of(int shape) {
+        return SHAPES[shape];
+    }
+
+    /**
+     * Get the shape of a piece in a rotation
+     * @param piece piece number
+     * @param rotation number of times to rotate, wrapped to 0 to 3
+     * @return the shape
+     * @throws IndexOutOfBoundsException if there is no such piece
+     */
+    public static PieceShape of(int piece, int rotation) {
+        if (piece < 0 || piece >= GamePiece.PIECES) {
+            //Not a valid piece number
+            throw new IndexOutOfBoundsException("No such piece: " + piece);
+        }
+        return SHAPES[piece * GamePiece.ROTATIONS + Math.floorMod(rotation, GamePiece.ROTATIONS)];
+    }
+
+    /**
+     * Define the block makeup and name of the specified piece number, unrotated
+     * @param piece piece number
+     * @return 2D grid of the blocks, 1 for filled
+     */
+    private static int[][] defineBlocks(int piece) {
+        switch (piece) {
+            //Line
+            case 0 -> {
+                NAMES[piece] = "Line";
+                return new int[][] {{0, 0, 0}, {1, 1, 1}, {0, 0, 0}};
+            }
+
+            //C
+            case 1 -> {
+                NAMES[piece] = "C";
+                return new int[][] {{0, 0, 0}, {1, 1, 1}, {1, 0, 1}};
+            }
+
+            //Plus
+            case 2 -> {
+                NAMES[piece] = "Plus";
+                return new int[][] {{0, 1, 0}, {1, 1, 1}, {0, 1, 0}};
+            }
+
+            //Dot
+            case 3 -> {
+                NAMES[piece] = "Dot";
+                return new int[][] {{0, 0, 0}, {0, 1, 0}, {0, 0, 0}};
+            }
+
+            //Square
+            case 4 -> {
+                NAMES[piece] = "Square";
+                return new int[][] {{1, 1, 0}, {1, 1, 0}, {0, 0, 0}};
+            }
+
+            //L
+            case 5 -> {
+                NAMES[piece] = "L";
+                return new int[][] {{0, 0, 0}, {1, 1, 1}, {0, 0, 1}};
+            }
+
+            //J
+            case 6 -> {
+                NAMES[piece] = "J";
+                return new int[][] {{0, 0, 1}, {1, 1, 1}, {0, 0, 0}};
+            }
+
+            //S
+            case 7 -> {
+                NAMES[piece] = "S";
+                return new int[][] {{0, 0, 0}, {0, 1, 1}, {1, 1, 0}};
+            }
+
+            //Z
+            case 8 -> {
+                NAMES[piece] = "Z";
+                return new int[][] {{1, 1, 0}, {0, 1, 1}, {0, 0, 0}};
+            }
+
+            //T
+            case 9 -> {
+                NAMES[piece] = "T";
+                return new int[][] {{1, 0, 0}, {1, 1, 0}, {1, 0, 0}};
+            }
+
+            //X
+            case 10 -> {
+                NAMES[piece] = "X";
+                return new int[][] {{1, 0, 1}, {0, 1, 0}, {1, 0, 1}};
+            }
+
+            //Corner
+            case 11 -> {
+                NAMES[piece] = "Corner";
+                return new int[][] {{0, 0, 0}, {1, 1, 0}, {1, 0, 0}};
+            }
+
+            //Inverse Corner
+            case 12 -> {
+                NAMES[piece] = "Inverse Corner";
+                return new int[][] {{1, 0, 0}, {1, 1, 0}, {0, 0, 0}};
+            }
+
+            //Diagonal
+            case 13 -> {
+                NAMES[piece] = "Diagonal";
+                return new int[][] {{1, 0, 0}, {0, 1, 0}, {0, 0, 1}};
+            }
+
+            //Double
+            case 14 -> {
+                NAMES[piece] = "Double";
+                return new int[][] {{0, 1, 0}, {0, 1, 0}, {0, 0, 0}};
+            }
+        }
+
+        //Not a valid piece number
+        throw new IndexOutOfBoundsException("No such piece: " + piece);
+    }
+
+    /**
+     * Rotate a 3x3 grid of blocks once
+     * @param blocks the blocks to rotate
+     * @return a new, rotated grid
+     */
+    private static int[][] rotateBlocks(int[][] blocks) {
+        int[][] rotated = new int[3][3];
+        rotated[2][0] = blocks[0][0];
+        rotated[1][0] = blocks[0][1];
+        rotated[0][0] = blocks[0][2];
+
+        rotated[2][1] = blocks[1][0];
+        rotated[1][1] = blocks[1][1];
+        rotated[0][1] = blocks[1][2];
+
+        rotated[2][2] = blocks[2][0];
+        rotated[1][2] = blocks[2][1];
+        rotated[0][2] = blocks[2][2];
+
+        return rotated;
+    }
+
+    /**
+     * Get this piece turned the given number of rotations
+     * @param rotations number of rotations
+     * @return the rotated shape
+     */
+    public PieceShape rotate(int rotations) {
+        return SHAPES[piece * GamePiece.ROTATIONS + Math.floorMod(rotation + rotations, GamePiece.ROTATIONS)];
+    }
+
+    /**
+     * Get this piece turned once
+     * @return the rotated shape
+     */
+    public PieceShape rotate() {
+        return rotate(1);
+    }
+
+    /**
+     * Get the piece number of this shape
+     * @return piece number
+     */
+    public int getPiece() {
+        return piece;
+    }
+
+    /**
+     * Get the number of times this shape is rotated from the piece's starting rotation
+     * @return rotation, from 0 to 3
+     */
+    public int getRotation() {
+        return rotation;
+    }
+
+    /**
+     * Get the shape number of this shape
+     * @return shape number (piece * ROTATIONS + rotation)
+     */
+    public int getShape() {
+        return piece * GamePiece.ROTATIONS + rotation;
+    }
+
+    /**
+     * Get the value of this piece, the colour of its blocks
+     * @return piece value
+     */
+    public int getValue() {
+        return piece + 1;
+    }
+
+    /**
+     * Get the name of this piece
+     * @return the name
+     */
+    public String getName() {
+        return NAMES[piece];
+    }
+
+    /**
+     * Get the block makeup of this shape
+     * @return a copy of the 2D grid of the blocks, indexed by [x][y]
+     */
+    public int[][] getBlocks() {
+        int[][] copy = new int[blocks.length][];
+        for (int x = 0; x < blocks.length; x++) {
+            copy[x] = blocks[x].clone();
+        }
+        return copy;
+    }
+
+    /**
+     * Get the block makeup of this shape as a 9 bit mask, where block (x,y) is bit (y * 3 + x)
+     * @return the block mask
+     */
+    public int getMask() {
+        return mask;
+    }
+
+    /**
+     * Return the string representation of this piece
+     * @return the name of this piece
+     */
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
@@ -0,0 +1,276 @@
+package uk.ac.soton.comp1206.game;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The PlacementTable holds the block mask of every piece, in every rotation, at every anchor of a board of a given
+ * size. The anchor is the block the center of the piece sits on, as used by Grid.canPlayPiece.
+ *
+ * A mask of 0 means the piece would hang off the board at that anchor. Checking or applying a move is therefore a
+ * single lookup followed by a single AND (or OR) against the BitGrid occupancy word.
+ *
+ * The table for the standard 5x5 board is built when the class is loaded. Tables for other sizes are built on first
+ * use and shared from then on.
+ */
+public class PlacementTable {
+
+    /**
+     * The table for the standard 5x5 game board
+     */
+    public static final PlacementTable STANDARD = new PlacementTable(5, 5);
+
+    /**
+     * Every table built so far, keyed by (cols, rows)
+     */
+    private static final ConcurrentHashMap<Long, PlacementTable> tables = new ConcurrentHashMap<>();
+
+    static {
+        tables.put(key(5, 5), STANDARD);
+    }
+
+    /**
+     * The number of columns of the board this table is for
+     */
+    private final int cols;
+
+    /**
+     * The number of rows of the board this table is for
+     */
+    private final int rows;
+
+    /**
+     * The mask of every placement, indexed by (shape * cols * rows + y * cols + x), where shape is
+     * (piece * GamePiece.ROTATIONS + rotation)
+     */
+    private final long[] masks;
+
+    /**
+     * The Zobrist hash of every placement's mask, indexed like masks, so searches can update a board's hash with a
+     * single XOR per move
+     */
+    private final long[] hashes;
+
+    /**
+     * The anchors at which each shape would cover each block, indexed by (shape * cols * rows + block). Filling a
+     * block rules out exactly these placements.
+     */
+    private final long[] covers;
+
+    /**
+     * The anchors at which each shape fits on an empty board, indexed by shape number
+     */
+    private final long[] onBoard;
+
+    /**
+     * The mask of every row and every column of the board
+     */
+    private final long[] rowMasks;
+    private final long[] colMasks;
+
+    /**
+     * Get the table for a board of the given size, building it if needed
+     * @param cols number of columns
+     * @param rows number of rows
+     * @return the shared table for that size
+     */
+    public static PlacementTable forSize(int cols, int rows) {
+        return tables.computeIfAbsent(key(cols, rows), k -> new PlacementTable(cols, rows));
+    }
+
+    private static long key(int cols, int rows) {
+        return ((long) cols << 32) | rows;
+    }
+
+    /**
+     * Build the table for a board of the given size
+     * @param cols number of columns
+     * @param rows number of rows
+     */
+    private PlacementTable(int cols, int rows) {
+        if (cols <= 0 || rows <= 0 || cols * rows > BitGrid.MAX_BLOCKS) {
+            throw new IllegalArgumentException("Unsupported grid size: " + cols + "x" + rows);
+        }
+        this.cols = cols;
+        this.rows = rows;
+
+        rowMasks = new long[rows];
+        colMasks = new long[cols];
+        for (int y = 0; y < rows; y++) {
+            for (int x = 0; x < cols; x++) {
+                rowMasks[y] |= 1L << (y * cols + x);
+                colMasks[x] |= 1L << (y * cols + x);
+            }
+        }
+
+        int anchors = cols * rows;
+        masks = new long[GamePiece.PIECES * GamePiece.ROTATIONS * anchors];
+        hashes = new long[masks.length];
+        covers = new long[masks.length];
+        onBoard = new long[GamePiece.PIECES * GamePiece.ROTATIONS];
+
+        for (int shape = 0; shape < GamePiece.PIECES * GamePiece.ROTATIONS; shape++) {
+            int shapeMask = GamePiece.getMask(shape / GamePiece.ROTATIONS, shape % GamePiece.ROTATIONS);
+
+            for (int anchorY = 0; anchorY < rows; anchorY++) {
+                for (int anchorX = 0; anchorX < cols; anchorX++) {
+                    int index = shape * anchors + anchorY * cols + anchorX;
+                    masks[index] = placeShape(shapeMask, anchorX, anchorY);
+                    hashes[index] = Zobrist.hash(masks[index]);
+                    if (masks[index] != 0) {
+                        onBoard[shape] |= 1L << (anchorY * cols + anchorX);
+                    }
+                    for (long blocks = masks[index]; blocks != 0; blocks &= blocks - 1) {
+                        covers[shape * anchors + Long.numberOfTrailingZeros(blocks)] |= 1L << (anchorY * cols + anchorX);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Work out the board mask of a 3x3 shape mask centered at the given anchor
+     * @param shapeMask 9 bit shape mask, block (x,y) is bit (y * 3 + x)
+     * @param anchorX column of the center of the shape
+     * @param anchorY row of the center of the shape
+     * @return the board mask, or 0 if any block would be off the board
+     */
+    private long placeShape(int shapeMask, int anchorX, int anchorY) {
+        long mask = 0;
+        for (int bit = 0; bit < 9; bit++) {
+            if ((shapeMask & (1 << bit)) == 0) {
+                continue;
+            }
+
+            //Offset is -1 because the center of the piece is at (1,1)
+            int x = anchorX + bit % 3 - 1;
+            int y = anchorY + bit / 3 - 1;
+            if (x < 0 || x >= cols || y < 0 || y >= rows) {
+                return 0;
+            }
+            mask |= 1L << (y * cols + x);
+        }
+        return mask;
+    }
+
+    /**
+     * Get the mask of a placement
+     * @param piece piece number
+     * @param rotation rotation, from 0 to 3
+     * @param x column of the center of the piece
+     * @param y row of the center of the piece
+     * @return the mask of blocks covered, or 0 if the placement is off the board
+     */
+    public long mask(int piece, int rotation, int x, int y) {
+        if (x < 0 || x >= cols || y < 0 || y >= rows) {
+            return 0;
+        }
+        return masks[((piece * GamePiece.ROTATIONS + rotation) * rows + y) * cols + x];
+    }
+
+    /**
+     * Get the mask of a placement by shape and anchor index, without any bounds checks
+     * @param shape shape number (piece * GamePiece.ROTATIONS + rotation)
+     * @param anchor anchor index (y * cols + x)
+     * @return the mask of blocks covered, or 0 if the placement is off the board
+     */
+    public long mask(int shape, int anchor) {
+        return masks[shape * cols * rows + anchor];
+    }
+
+    /**
+     * Get the Zobrist hash of the blocks covered by a placement, by shape and anchor index, without any bounds checks
+     * @param shape shape number (piece * GamePiece.ROTATIONS + rotation)
+     * @param anchor anchor index (y * cols + x)
+     * @return the XOR of the keys of the blocks covered
+     */
+    public long hash(int shape, int anchor) {
+        return hashes[shape * cols * rows + anchor];
+    }
+
+    /**
+     * Get the anchors at which a shape would cover a block
+     * @param shape shape number (piece * GamePiece.ROTATIONS + rotation)
+     * @param block block index (y * cols + x)
+     * @return a mask with bit (y * cols + x) set for every anchor whose placement covers the block
+     */
+    public long covers(int shape, int block) {
+        return covers[shape * cols * rows + block];
+    }
+
+    /**
+     * Get every anchor at which a shape fits on an empty board
+     * @param shape shape number (piece * GamePiece.ROTATIONS + rotation)
+     * @return a mask with bit (y * cols + x) set for every anchor where the shape is on the board
+     */
+    public long onBoard(int shape) {
+        return onBoard[shape];
+    }
+
+    /**
+     * Get every anchor at which a shape fits on a board with the given occupancy
+     * @param occupied the BitGrid occupancy word
+     * @param shape shape number (piece * GamePiece.ROTATIONS + rotation)
+     * @param anchors the anchors to check, as a mask of anchor indices
+     * @return a mask with bit (y * cols + x) set for every anchor where the shape is on the board and every block it
+     *     covers is empty
+     */
+    public long legalAnchors(long occupied, int shape, long anchors) {
+        long legal = 0;
+        for (long remaining = anchors; remaining != 0; remaining &= remaining - 1) {
+            int anchor = Long.numberOfTrailingZeros(remaining);
+            long mask = mask(shape, anchor);
+            if (mask != 0 && (occupied & mask) == 0) {
+                legal |= 1L << anchor;
+            }
+        }
+        return legal;
+    }
+
+    /**
+     * Check whether a placement fits on a board with the given occupancy
+     * @param occupied the BitGrid occupancy word
+     * @param piece piece number
+     * @param rotation rotation, from 0 to 3
+     * @param x column of the center of the piece
+     * @param y row of the center of the piece
+     * @return true if the placement is on the board and every block it covers is empty
+     */
+    public boolean canPlace(long occupied, int piece, int rotation, int x, int y) {
+        long mask = mask(piece, rotation, x, y);
+        return mask != 0 && (occupied & mask) == 0;
+    }
+
+    /**
+     * Get the mask of every block in a row
+     * @param y row
+     * @return the row mask
+     */
+    public long rowMask(int y) {
+        return rowMasks[y];
+    }
+
+    /**
+     * Get the mask of every block in a column
+     * @param x column
+     * @return the column mask
+     */
+    public long colMask(int x) {
+        return colMasks[x];
+    }
+
+    /**
+     * Get the number of columns of the board this table is for
+     * @return number of columns
+     */
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Get the number of rows of the board this table is for
+     * @return number of rows
+     */
+    public int getRows() {
+        return rows;
+    }
+}
@@ -0,0 +1,31 @@
+package uk.ac.soton.comp1206.game;
+
+/**
+ * A LineScanner which works one long word at a time
+ */
+class ScalarLineScanner implements LineScanner {
+
+    static final ScalarLineScanner INSTANCE = new ScalarLineScanner();
+
+    @Override
+    public boolean containsAll(long[] words, int offset, long[] mask) {
+        for (int i = 0; i < mask.length; i++) {
+            if ((words[offset + i] & mask[i]) != mask[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void and(long[] accumulator, long[] words, int offset) {
+        for (int i = 0; i < accumulator.length; i++) {
+            accumulator[i] &= words[offset + i];
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "scalar";
+    }
+}
@@ -0,0 +1,52 @@
+package uk.ac.soton.comp1206.game;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * A LineScanner which works on as many long words at once as the CPU's preferred vector lanes allow, using the
+ * jdk.incubator.vector API. Only created by LineScanner.best once it has checked the module is present.
+ */
+class VectorLineScanner implements LineScanner {
+
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    @Override
+    public boolean containsAll(long[] words, int offset, long[] mask) {
+        int i = 0;
+        int bound = SPECIES.loopBound(mask.length);
+        for (; i < bound; i += SPECIES.length()) {
+            var m = LongVector.fromArray(SPECIES, mask, i);
+            var missing = LongVector.fromArray(SPECIES, words, offset + i).not().and(m);
+            if (missing.reduceLanes(VectorOperators.OR) != 0) {
+                return false;
+            }
+        }
+        for (; i < mask.length; i++) {
+            if ((words[offset + i] & mask[i]) != mask[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void and(long[] accumulator, long[] words, int offset) {
+        int i = 0;
+        int bound = SPECIES.loopBound(accumulator.length);
+        for (; i < bound; i += SPECIES.length()) {
+            LongVector.fromArray(SPECIES, accumulator, i)
+                .and(LongVector.fromArray(SPECIES, words, offset + i))
+                .intoArray(accumulator, i);
+        }
+        for (; i < accumulator.length; i++) {
+            accumulator[i] &= words[offset + i];
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "vector-" + SPECIES.vectorBitSize();
+    }
+}
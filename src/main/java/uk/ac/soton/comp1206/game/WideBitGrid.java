@@ -0,0 +1,485 @@
+package uk.ac.soton.comp1206.game;
+
+import java.util.Arrays;
+
+/**
+ * The WideBitGrid is a Board of any size, for stress variants far bigger than the standard 5x5 game.
+ *
+ * Each row is held as one or more long words, bit (x % 64) of word (x / 64) set when the block at column x is
+ * occupied, with the rows laid out one after another. The value of each block is held in a byte colour plane.
+ *
+ * Like the BitGrid, the number of occupied blocks in every row and column is kept up to date, so finding the lines
+ * completed by a move only looks at the rows and columns that move touched. The Zobrist hash of the occupancy is kept
+ * up to date the same way. Whole-board scans (scanFullRows and
+ * scanFullCols) work a vector of words at a time through the best available LineScanner.
+ *
+ * The anchors at which every shape fits are held as a bitset per shape, laid out like the occupancy, with a count of
+ * each. They are only built once a caller first asks whether a piece fits, and after that only the anchor rows next
+ * to rows which have changed are worked out again, a word at a time, so checking whether a piece can be played
+ * anywhere is a few counter reads.
+ */
+public class WideBitGrid implements Board {
+
+    /**
+     * The number of columns in this grid
+     */
+    private final int cols;
+
+    /**
+     * The number of rows in this grid
+     */
+    private final int rows;
+
+    /**
+     * The number of long words holding each row
+     */
+    private final int wordsPerRow;
+
+    /**
+     * The occupancy of every row, row y held in words [y * wordsPerRow, (y + 1) * wordsPerRow)
+     */
+    private final long[] words;
+
+    /**
+     * The words of a completely full row
+     */
+    private final long[] fullRow;
+
+    /**
+     * The value of every block, indexed by (y * cols + x). 0 means empty.
+     */
+    private final byte[] colours;
+
+    /**
+     * The number of occupied blocks in each row and column
+     */
+    private final int[] rowCounts;
+    private final int[] colCounts;
+
+    /**
+     * Bitsets of the rows and columns which have gained a block since the last call to findFullLines
+     */
+    private final long[] touchedRows;
+    private final long[] touchedCols;
+
+    /**
+     * Bitsets of the full rows and columns found by the last call to findFullLines
+     */
+    private final long[] fullRows;
+    private final long[] fullCols;
+
+    /**
+     * The Zobrist hash of the occupancy
+     */
+    private long hash;
+
+    /**
+     * Does the bulk word operations for whole-board scans
+     */
+    private final LineScanner scanner;
+
+    /**
+     * The anchors at which every shape fits, shape s's held like the occupancy from word s * rows * wordsPerRow,
+     * or null until they are first asked for
+     */
+    private long[] legal;
+
+    /**
+     * The number of anchors at which every shape fits
+     */
+    private final int[] legalCounts = new int[GamePiece.PIECES * GamePiece.ROTATIONS];
+
+    /**
+     * Bitset of the rows changed since the legal anchors were last brought up to date
+     */
+    private final long[] changedRows;
+
+    /**
+     * Scratch space for syncLegal: the anchor rows to work out again, and the words of one of them
+     */
+    private final long[] anchorRows;
+    private final long[] anchorRow;
+
+    /**
+     * Create a new empty WideBitGrid with the specified number of columns and rows, using the best LineScanner
+     * available
+     * @param cols number of columns
+     * @param rows number of rows
+     */
+    public WideBitGrid(int cols, int rows) {
+        this(cols, rows, LineScanner.best());
+    }
+
+    /**
+     * Create a new empty WideBitGrid with the specified number of columns and rows
+     * @param cols number of columns
+     * @param rows number of rows
+     * @param scanner the scanner to use for whole-board scans
+     */
+    public WideBitGrid(int cols, int rows, LineScanner scanner) {
+        if (cols <= 0 || rows <= 0) {
+            throw new IllegalArgumentException("Unsupported grid size: " + cols + "x" + rows);
+        }
+        this.cols = cols;
+        this.rows = rows;
+        this.scanner = scanner;
+        this.wordsPerRow = words(cols);
+        this.words = new long[rows * wordsPerRow];
+        this.colours = new byte[Math.multiplyExact(cols, rows)];
+        this.rowCounts = new int[rows];
+        this.colCounts = new int[cols];
+        this.touchedRows = new long[words(rows)];
+        this.touchedCols = new long[words(cols)];
+        this.fullRows = new long[words(rows)];
+        this.fullCols = new long[words(cols)];
+        this.changedRows = new long[words(rows)];
+        this.anchorRows = new long[words(rows)];
+        this.anchorRow = new long[wordsPerRow];
+
+        fullRow = new long[wordsPerRow];
+        Arrays.fill(fullRow, -1L);
+        if (cols % Long.SIZE != 0) {
+            fullRow[wordsPerRow - 1] = (1L << (cols % Long.SIZE)) - 1;
+        }
+    }
+
+    /**
+     * Get the number of long words needed to hold the given number of bits
+     */
+    private static int words(int bits) {
+        return (bits + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    private static void setBit(long[] bitset, int index) {
+        bitset[index >>> 6] |= 1L << index;
+    }
+
+    private boolean isOccupied(int x, int y) {
+        return (words[y * wordsPerRow + (x >>> 6)] & (1L << x)) != 0;
+    }
+
+    /**
+     * Fill an empty block, keeping the counters up to date
+     */
+    private void fill(int x, int y, int value) {
+        words[y * wordsPerRow + (x >>> 6)] |= 1L << x;
+        colours[y * cols + x] = (byte) value;
+        hash ^= Zobrist.key(y * cols + x);
+        rowCounts[y]++;
+        colCounts[x]++;
+        setBit(touchedRows, y);
+        setBit(touchedCols, x);
+        setBit(changedRows, y);
+    }
+
+    /**
+     * Empty a filled block, keeping the counters up to date
+     */
+    private void empty(int x, int y) {
+        words[y * wordsPerRow + (x >>> 6)] &= ~(1L << x);
+        colours[y * cols + x] = 0;
+        hash ^= Zobrist.key(y * cols + x);
+        rowCounts[y]--;
+        colCounts[x]--;
+        setBit(changedRows, y);
+    }
+
+    @Override
+    public int get(int x, int y) {
+        if (x < 0 || x >= cols || y < 0 || y >= rows) {
+            return -1;
+        }
+        return colours[y * cols + x];
+    }
+
+    @Override
+    public void set(int x, int y, int value) {
+        if (x < 0 || x >= cols || y < 0 || y >= rows) {
+            throw new IndexOutOfBoundsException("No block at (" + x + ", " + y + ") in a " + cols + "x" + rows + " grid");
+        }
+        if (value == 0) {
+            if (isOccupied(x, y)) {
+                empty(x, y);
+            }
+        } else if (isOccupied(x, y)) {
+            colours[y * cols + x] = (byte) value;
+        } else {
+            fill(x, y, value);
+        }
+    }
+
+    @Override
+    public boolean canPlay(int piece, int rotation, int x, int y) {
+        int mask = GamePiece.getMask(piece, rotation);
+        for (; mask != 0; mask &= mask - 1) {
+            int bit = Integer.numberOfTrailingZeros(mask);
+
+            //Offset is -1 because the center of the piece is at (1,1)
+            int actualX = x + bit % 3 - 1;
+            int actualY = y + bit / 3 - 1;
+            if (actualX < 0 || actualX >= cols || actualY < 0 || actualY >= rows || isOccupied(actualX, actualY)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean canPlayAnywhere(int piece) {
+        syncLegal();
+        int shape = piece * GamePiece.ROTATIONS;
+        return (legalCounts[shape] | legalCounts[shape + 1] | legalCounts[shape + 2] | legalCounts[shape + 3]) != 0;
+    }
+
+    /**
+     * Count the anchors at which a shape can be played
+     * @param shape shape number (piece * GamePiece.ROTATIONS + rotation)
+     * @return the number of legal placements of the shape
+     */
+    public int countLegalAnchors(int shape) {
+        syncLegal();
+        return legalCounts[shape];
+    }
+
+    /**
+     * Bring the legal anchors of every shape up to date with the rows changed since the last sync: a block in row y
+     * can only be covered by shapes anchored in rows y - 1 to y + 1. The first sync builds every row.
+     */
+    private void syncLegal() {
+        if (legal == null) {
+            legal = new long[Math.multiplyExact(legalCounts.length, rows * wordsPerRow)];
+            changeAllRows();
+        }
+        boolean any = false;
+        for (int w = 0; w < changedRows.length; w++) {
+            for (long remaining = changedRows[w]; remaining != 0; remaining &= remaining - 1) {
+                int y = w * Long.SIZE + Long.numberOfTrailingZeros(remaining);
+                for (int anchorY = Math.max(0, y - 1); anchorY <= Math.min(rows - 1, y + 1); anchorY++) {
+                    setBit(anchorRows, anchorY);
+                }
+                any = true;
+            }
+            changedRows[w] = 0;
+        }
+        if (!any) {
+            return;
+        }
+
+        long[] row = anchorRow;
+        for (int shape = 0; shape < legalCounts.length; shape++) {
+            int mask = GamePiece.getMask(shape / GamePiece.ROTATIONS, shape % GamePiece.ROTATIONS);
+            for (int w = 0; w < anchorRows.length; w++) {
+                for (long remaining = anchorRows[w]; remaining != 0; remaining &= remaining - 1) {
+                    int y = w * Long.SIZE + Long.numberOfTrailingZeros(remaining);
+                    legalRow(mask, y, row);
+                    int base = (shape * rows + y) * wordsPerRow;
+                    for (int i = 0; i < wordsPerRow; i++) {
+                        legalCounts[shape] += Long.bitCount(row[i]) - Long.bitCount(legal[base + i]);
+                        legal[base + i] = row[i];
+                    }
+                }
+            }
+        }
+        Arrays.fill(anchorRows, 0);
+    }
+
+    /**
+     * Mark every row as changed, so the next sync works out every anchor again
+     */
+    private void changeAllRows() {
+        Arrays.fill(changedRows, -1L);
+        if (rows % Long.SIZE != 0) {
+            changedRows[changedRows.length - 1] = (1L << (rows % Long.SIZE)) - 1;
+        }
+    }
+
+    /**
+     * Work out the anchors in one row at which a shape fits: bit x is set when every block the shape covers, with its
+     * center at (x, y), is on the grid and empty
+     * @param mask the 3x3 mask of the shape
+     * @param y the row of the anchors
+     * @param result the words of the row, written over
+     */
+    private void legalRow(int mask, int y, long[] result) {
+        System.arraycopy(fullRow, 0, result, 0, wordsPerRow);
+        for (; mask != 0; mask &= mask - 1) {
+            int bit = Integer.numberOfTrailingZeros(mask);
+            int blockY = y + bit / 3 - 1;
+            if (blockY < 0 || blockY >= rows) {
+                Arrays.fill(result, 0);
+                return;
+            }
+            andFree(result, blockY, bit % 3 - 1);
+        }
+    }
+
+    /**
+     * AND the empty blocks of a row into a row of anchors, moved along so that bit x holds block x + dx. Blocks off
+     * either end of the row count as full.
+     */
+    private void andFree(long[] result, int y, int dx) {
+        int base = y * wordsPerRow;
+        for (int w = 0; w < wordsPerRow; w++) {
+            long free = ~words[base + w] & fullRow[w];
+            if (dx > 0) {
+                long above = w + 1 < wordsPerRow ? ~words[base + w + 1] & fullRow[w + 1] : 0;
+                free = free >>> 1 | above << 63;
+            } else if (dx < 0) {
+                long below = w > 0 ? ~words[base + w - 1] & fullRow[w - 1] : 0;
+                free = free << 1 | below >>> 63;
+            }
+            result[w] &= free;
+        }
+    }
+
+    @Override
+    public void play(int piece, int rotation, int x, int y) {
+        int mask = GamePiece.getMask(piece, rotation);
+        for (; mask != 0; mask &= mask - 1) {
+            int bit = Integer.numberOfTrailingZeros(mask);
+            fill(x + bit % 3 - 1, y + bit / 3 - 1, piece + 1);
+        }
+    }
+
+    /**
+     * Find every full line among the rows and columns touched since the last check, using the counters.
+     * The full rows and columns are remembered for clearLines.
+     * Only the line and block counts of the result are filled in: its masks are left 0, as the lines of a wide grid
+     * do not fit in a single word.
+     * @param result the result to fill in
+     */
+    @Override
+    public void findFullLines(ClearResult result) {
+        Arrays.fill(fullRows, 0);
+        Arrays.fill(fullCols, 0);
+        int fullRowCount = 0;
+        int fullColCount = 0;
+
+        for (int w = 0; w < touchedRows.length; w++) {
+            for (long remaining = touchedRows[w]; remaining != 0; remaining &= remaining - 1) {
+                int y = w * Long.SIZE + Long.numberOfTrailingZeros(remaining);
+                if (rowCounts[y] == cols) {
+                    setBit(fullRows, y);
+                    fullRowCount++;
+                }
+            }
+            touchedRows[w] = 0;
+        }
+        for (int w = 0; w < touchedCols.length; w++) {
+            for (long remaining = touchedCols[w]; remaining != 0; remaining &= remaining - 1) {
+                int x = w * Long.SIZE + Long.numberOfTrailingZeros(remaining);
+                if (colCounts[x] == rows) {
+                    setBit(fullCols, x);
+                    fullColCount++;
+                }
+            }
+            touchedCols[w] = 0;
+        }
+
+        int blocks = fullRowCount * cols + fullColCount * rows - fullRowCount * fullColCount;
+        result.setCounts(fullRowCount + fullColCount, blocks);
+    }
+
+    @Override
+    public void clearLines(ClearResult result) {
+        for (int w = 0; w < fullRows.length; w++) {
+            for (long remaining = fullRows[w]; remaining != 0; remaining &= remaining - 1) {
+                int y = w * Long.SIZE + Long.numberOfTrailingZeros(remaining);
+                for (int x = 0; x < cols; x++) {
+                    colCounts[x]--;
+                    hash ^= Zobrist.key(y * cols + x);
+                }
+                rowCounts[y] = 0;
+                setBit(changedRows, y);
+                Arrays.fill(words, y * wordsPerRow, (y + 1) * wordsPerRow, 0);
+                Arrays.fill(colours, y * cols, (y + 1) * cols, (byte) 0);
+            }
+        }
+        for (int w = 0; w < fullCols.length; w++) {
+            for (long remaining = fullCols[w]; remaining != 0; remaining &= remaining - 1) {
+                int x = w * Long.SIZE + Long.numberOfTrailingZeros(remaining);
+                for (int y = 0; y < rows; y++) {
+                    //Blocks where a full row crosses have already been emptied
+                    if (isOccupied(x, y)) {
+                        empty(x, y);
+                    }
+                }
+            }
+        }
+        Arrays.fill(fullRows, 0);
+        Arrays.fill(fullCols, 0);
+    }
+
+    /**
+     * Scan every row of the grid for full rows, a vector of words at a time.
+     * Unlike findFullLines this does not rely on the counters or on which lines have been touched.
+     * @param result a bitset with bit y set for every full row y, at least (rows + 63) / 64 words long
+     * @return the number of full rows
+     */
+    public int scanFullRows(long[] result) {
+        Arrays.fill(result, 0);
+        int count = 0;
+        for (int y = 0; y < rows; y++) {
+            if (scanner.containsAll(words, y * wordsPerRow, fullRow)) {
+                setBit(result, y);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Scan every column of the grid for full columns, by ANDing every row together a vector of words at a time.
+     * Unlike findFullLines this does not rely on the counters or on which lines have been touched.
+     * @param result a bitset with bit x set for every full column x, exactly (cols + 63) / 64 words long
+     * @return the number of full columns
+     */
+    public int scanFullCols(long[] result) {
+        System.arraycopy(fullRow, 0, result, 0, wordsPerRow);
+        for (int y = 0; y < rows; y++) {
+            scanner.and(result, words, y * wordsPerRow);
+        }
+        int count = 0;
+        for (long word : result) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(words, 0);
+        Arrays.fill(colours, (byte) 0);
+        hash = 0;
+        Arrays.fill(rowCounts, 0);
+        Arrays.fill(colCounts, 0);
+        Arrays.fill(touchedRows, 0);
+        Arrays.fill(touchedCols, 0);
+        Arrays.fill(fullRows, 0);
+        Arrays.fill(fullCols, 0);
+        changeAllRows();
+    }
+
+    @Override
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Get the scanner used for whole-board scans
+     * @return the line scanner
+     */
+    public LineScanner getScanner() {
+        return scanner;
+    }
+
+    @Override
+    public int getCols() {
+        return cols;
+    }
+
+    @Override
+    public int getRows() {
+        return rows;
+    }
+}
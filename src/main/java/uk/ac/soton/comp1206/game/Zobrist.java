@@ -0,0 +1,122 @@
+package uk.ac.soton.comp1206.game;
+
+/**
+ * Zobrist hashing for boards and game states. Every block has a random 64 bit key, and the hash of a board is the XOR
+ * of the keys of its occupied blocks. Filling or emptying a block flips its key in or out, so boards keep their hash up
+ * to date as moves are played and lines cleared, for the cost of an XOR per block.
+ *
+ * The same occupancy always has the same hash, however it was reached, which is what lets a search spot a position it
+ * has already seen through a different order of moves. Block values (colours) are not part of the hash, as they make
+ * no difference to the game.
+ *
+ * The keys are generated from a fixed seed, so hashes are the same from run to run.
+ */
+public final class Zobrist {
+
+    /**
+     * The seed every key is generated from
+     */
+    private static final long SEED = 0x5EED_7E7EC5L;
+
+    /**
+     * The golden ratio increment used to space out the keys
+     */
+    private static final long GAMMA = 0x9e3779b97f4a7c15L;
+
+    /**
+     * The keys of the blocks of a BitGrid, precomputed. Keys of blocks past these are worked out as needed.
+     */
+    private static final long[] BLOCK_KEYS = new long[BitGrid.MAX_BLOCKS];
+
+    /**
+     * The key of every shape in every queue slot, indexed by (slot * shapes + shape)
+     */
+    private static final long[] QUEUE_KEYS = new long[3 * GamePiece.PIECES * GamePiece.ROTATIONS];
+
+    /**
+     * The key of every multiplier below MULTIPLIER_KEYS.length. Larger multipliers share the last key.
+     */
+    private static final long[] MULTIPLIER_KEYS = new long[64];
+
+    static {
+        for (int i = 0; i < BLOCK_KEYS.length; i++) {
+            BLOCK_KEYS[i] = generate(i);
+        }
+        for (int i = 0; i < QUEUE_KEYS.length; i++) {
+            QUEUE_KEYS[i] = generate(-1 - i);
+        }
+        for (int i = 0; i < MULTIPLIER_KEYS.length; i++) {
+            MULTIPLIER_KEYS[i] = generate(-1 - QUEUE_KEYS.length - i);
+        }
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * Generate the key with the given number, by SplitMix64
+     */
+    private static long generate(long number) {
+        long z = SEED + number * GAMMA;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Get the key of a block
+     * @param index block index (y * cols + x)
+     * @return the key
+     */
+    public static long key(int index) {
+        return index < BLOCK_KEYS.length ? BLOCK_KEYS[index] : generate(index);
+    }
+
+    /**
+     * Get a salt to XOR into the keys of one search, so that a table shared between searches never matches an entry
+     * left by another one
+     * @param number the number of the search
+     * @return the salt
+     */
+    public static long salt(long number) {
+        return generate(Long.MIN_VALUE + number);
+    }
+
+    /**
+     * Work out the hash of a BitGrid occupancy from scratch
+     * @param occupied the occupancy word
+     * @return the XOR of the keys of every occupied block
+     */
+    public static long hash(long occupied) {
+        long hash = 0;
+        for (long remaining = occupied; remaining != 0; remaining &= remaining - 1) {
+            hash ^= BLOCK_KEYS[Long.numberOfTrailingZeros(remaining)];
+        }
+        return hash;
+    }
+
+    /**
+     * Work out the hash of a whole game state: the board, the piece queue and the multiplier.
+     * Empty queue slots (any negative shape) add nothing.
+     * @param boardHash the hash of the board
+     * @param current shape number of the current piece
+     * @param next shape number of the next piece
+     * @param following shape number of the following piece
+     * @param multiplier the multiplier
+     * @return the hash of the state
+     */
+    public static long state(long boardHash, int current, int next, int following, int multiplier) {
+        int shapes = GamePiece.PIECES * GamePiece.ROTATIONS;
+        long hash = boardHash;
+        if (current >= 0) {
+            hash ^= QUEUE_KEYS[current];
+        }
+        if (next >= 0) {
+            hash ^= QUEUE_KEYS[shapes + next];
+        }
+        if (following >= 0) {
+            hash ^= QUEUE_KEYS[2 * shapes + following];
+        }
+        return hash ^ MULTIPLIER_KEYS[Math.min(multiplier, MULTIPLIER_KEYS.length - 1)];
+    }
+}
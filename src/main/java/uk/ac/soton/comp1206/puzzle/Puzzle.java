@@ -0,0 +1,140 @@
+package uk.ac.soton.comp1206.puzzle;
+
+import java.util.Arrays;
+import java.util.List;
+import uk.ac.soton.comp1206.game.BitGrid;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.PieceShape;
+import uk.ac.soton.comp1206.game.Grid;
+
+/**
+ * A Puzzle is a fixed starting board and a known sequence of pieces. The pieces are played in order, each in any
+ * rotation and at any position it fits, and the goal is the highest score under the game's scoring and multiplier
+ * rules.
+ *
+ * A piece which fits nowhere is skipped, as in the game where it would cost a life, and the multiplier is reset.
+ *
+ * The board is held as a BitGrid occupancy word, so a puzzle board has at most 64 blocks. Puzzles are immutable.
+ */
+public class Puzzle {
+
+    private final int cols;
+    private final int rows;
+
+    /**
+     * The occupancy word of the starting board
+     */
+    private final long occupied;
+
+    /**
+     * The piece numbers of the sequence, in the order they are played
+     */
+    private final int[] pieces;
+
+    /**
+     * Create a new puzzle
+     * @param cols number of columns
+     * @param rows number of rows
+     * @param occupied the BitGrid occupancy word of the starting board
+     * @param pieces the piece numbers of the sequence, in the order they are played
+     */
+    public Puzzle(int cols, int rows, long occupied, int... pieces) {
+        if (cols <= 0 || rows <= 0 || (long) cols * rows > BitGrid.MAX_BLOCKS) {
+            throw new IllegalArgumentException("Unsupported puzzle size: " + cols + "x" + rows);
+        }
+        int blocks = cols * rows;
+        if (blocks < Long.SIZE && occupied >>> blocks != 0) {
+            throw new IllegalArgumentException("Occupied blocks outside the board");
+        }
+        for (int piece : pieces) {
+            if (piece < 0 || piece >= GamePiece.PIECES) {
+                throw new IllegalArgumentException("Unknown piece: " + piece);
+            }
+        }
+        this.cols = cols;
+        this.rows = rows;
+        this.occupied = occupied;
+        this.pieces = pieces.clone();
+    }
+
+    /**
+     * Create a puzzle from the blocks of a grid and a list of pieces. Only which blocks are filled matters, not their
+     * colours, and the rotations of the pieces are ignored.
+     * @param grid the starting board
+     * @param pieces the pieces, in the order they are played
+     * @return the puzzle
+     */
+    public static Puzzle fromGrid(Grid grid, List<PieceShape> pieces) {
+        long occupied = 0;
+        for (int y = 0; y < grid.getRows(); y++) {
+            for (int x = 0; x < grid.getCols(); x++) {
+                if (grid.get(x, y) != 0) {
+                    occupied |= 1L << (y * grid.getCols() + x);
+                }
+            }
+        }
+        return new Puzzle(grid.getCols(), grid.getRows(), occupied,
+            pieces.stream().mapToInt(PieceShape::getPiece).toArray());
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Get the starting board
+     * @return the BitGrid occupancy word
+     */
+    public long getOccupied() {
+        return occupied;
+    }
+
+    /**
+     * Get the number of pieces in the sequence
+     * @return number of pieces
+     */
+    public int getPieceCount() {
+        return pieces.length;
+    }
+
+    /**
+     * Get a piece of the sequence
+     * @param index position in the sequence
+     * @return the piece number
+     */
+    public int getPiece(int index) {
+        return pieces[index];
+    }
+
+    /**
+     * Get the whole sequence
+     * @return a copy of the piece numbers, in order
+     */
+    public int[] getPieces() {
+        return pieces.clone();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof Puzzle)) {
+            return false;
+        }
+        Puzzle puzzle = (Puzzle) other;
+        return cols == puzzle.cols && rows == puzzle.rows && occupied == puzzle.occupied
+            && Arrays.equals(pieces, puzzle.pieces);
+    }
+
+    @Override
+    public int hashCode() {
+        return (31 * Long.hashCode(occupied) + cols * 67 + rows) * 31 + Arrays.hashCode(pieces);
+    }
+
+    @Override
+    public String toString() {
+        return "Puzzle " + cols + "x" + rows + " " + Long.toHexString(occupied) + " " + Arrays.toString(pieces);
+    }
+}
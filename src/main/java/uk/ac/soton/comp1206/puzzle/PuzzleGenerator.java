@@ -0,0 +1,263 @@
+package uk.ac.soton.comp1206.puzzle;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import uk.ac.soton.comp1206.game.GamePiece;
+
+/**
+ * The PuzzleGenerator makes puzzles with exactly one best solution, in parallel, and collects them into a PuzzlePack.
+ *
+ * The difficulty of a puzzle is the number of pieces in its sequence. Candidates are random boards, with a share of
+ * their blocks filled and no full lines, and random sequences. A candidate is kept only if it passes every check,
+ * cheapest first, so most are thrown away before the expensive ones:
+ * <ol>
+ *   <li>some sequence must score more than playing each piece for the most points straight away, so the puzzle needs
+ *   planning ahead, and scores more than zero. This is checked by a search which cuts off everything that cannot beat
+ *   greedy play, before any full solve.</li>
+ *   <li>exactly one sequence of moves must reach the best score</li>
+ * </ol>
+ *
+ * Candidates are numbered and each is made from the seed and its number alone, then checked in batches split across
+ * the pool, so the same seed always gives the same pack however many cores there are.
+ *
+ * Some sizes and difficulties have few or no puzzles which pass, so the number of candidates checked is capped. A pack
+ * which reaches the cap holds however many puzzles were found by then, which may be fewer than asked for.
+ */
+public class PuzzleGenerator {
+
+    /**
+     * The fewest and most pieces a generated puzzle can have
+     */
+    public static final int MIN_DIFFICULTY = 2;
+    public static final int MAX_DIFFICULTY = 16;
+
+    /**
+     * The share of blocks filled on a starting board, before full lines are broken up
+     */
+    private static final double FILL = 0.4;
+
+    /**
+     * The most candidates a pack checks when no other cap is given
+     */
+    public static final long DEFAULT_MAX_CANDIDATES = 1 << 20;
+
+    /**
+     * The number of candidates checked in each batch, per thread of the pool
+     */
+    private static final int BATCH_PER_THREAD = 16;
+
+    private final int cols;
+    private final int rows;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Solves candidates, on the same pool
+     */
+    private final PuzzleSolver solver;
+
+    /**
+     * The number of candidates checked, and how many failed each check
+     */
+    private final LongAdder candidates = new LongAdder();
+    private final LongAdder greedy = new LongAdder();
+    private final LongAdder pointless = new LongAdder();
+    private final LongAdder ambiguous = new LongAdder();
+
+    /**
+     * Create a new generator of puzzles of the given size
+     * @param cols number of columns
+     * @param rows number of rows
+     * @param pool the pool to check candidates on
+     */
+    public PuzzleGenerator(int cols, int rows, ForkJoinPool pool) {
+        this.cols = cols;
+        this.rows = rows;
+        this.pool = pool;
+        this.solver = new PuzzleSolver(cols, rows, pool);
+    }
+
+    /**
+     * Generate a pack of puzzles, checking at most DEFAULT_MAX_CANDIDATES candidates
+     * @param count number of puzzles
+     * @param difficulty number of pieces in each puzzle
+     * @param seed the seed every candidate is made from
+     * @return the pack, which holds fewer than count puzzles if the cap was reached first
+     */
+    public PuzzlePack generate(int count, int difficulty, long seed) {
+        return generate(count, difficulty, seed, DEFAULT_MAX_CANDIDATES);
+    }
+
+    /**
+     * Generate a pack of puzzles
+     * @param count number of puzzles
+     * @param difficulty number of pieces in each puzzle
+     * @param seed the seed every candidate is made from
+     * @param maxCandidates the most candidates to check
+     * @return the pack, which holds fewer than count puzzles if maxCandidates were checked first
+     */
+    public PuzzlePack generate(int count, int difficulty, long seed, long maxCandidates) {
+        if (difficulty < MIN_DIFFICULTY || difficulty > MAX_DIFFICULTY) {
+            throw new IllegalArgumentException("Unsupported difficulty: " + difficulty);
+        }
+        if (maxCandidates < 0) {
+            throw new IllegalArgumentException("Negative candidate cap: " + maxCandidates);
+        }
+        PuzzlePack pack = new PuzzlePack(cols, rows);
+        int batch = BATCH_PER_THREAD * pool.getParallelism();
+        Puzzle[] found = new Puzzle[batch];
+        int[] scores = new int[batch];
+
+        for (long first = 0; pack.size() < count && first < maxCandidates; first += batch) {
+            int size = (int) Math.min(batch, maxCandidates - first);
+            pool.invoke(new Check(found, scores, difficulty, seed, first, 0, size));
+            for (int i = 0; i < size && pack.size() < count; i++) {
+                if (found[i] != null) {
+                    pack.add(found[i], scores[i]);
+                }
+            }
+        }
+        return pack;
+    }
+
+    /**
+     * Make a candidate puzzle
+     * @param seed the seed of the pack
+     * @param number the number of the candidate
+     * @param difficulty number of pieces
+     * @return the candidate
+     */
+    public Puzzle candidate(long seed, long number, int difficulty) {
+        SplittableRandom random = new SplittableRandom(seed ^ number * 0x9E3779B97F4A7C15L);
+        long occupied = 0;
+        for (int block = 0; block < cols * rows; block++) {
+            if (random.nextDouble() < FILL) {
+                occupied |= 1L << block;
+            }
+        }
+
+        // Break up full rows, then full columns, by emptying a random block of each
+        for (int y = 0; y < rows; y++) {
+            long row = (-1L >>> (Long.SIZE - cols)) << (y * cols);
+            if ((occupied & row) == row) {
+                occupied &= ~(1L << (y * cols + random.nextInt(cols)));
+            }
+        }
+        for (int x = 0; x < cols; x++) {
+            boolean full = true;
+            for (int y = 0; y < rows && full; y++) {
+                full = (occupied & 1L << (y * cols + x)) != 0;
+            }
+            if (full) {
+                occupied &= ~(1L << (random.nextInt(rows) * cols + x));
+            }
+        }
+
+        int[] pieces = new int[difficulty];
+        for (int i = 0; i < difficulty; i++) {
+            pieces[i] = random.nextInt(GamePiece.PIECES);
+        }
+        return new Puzzle(cols, rows, occupied, pieces);
+    }
+
+    /**
+     * Check a candidate
+     * @param puzzle the candidate
+     * @return its best score, or -1 if it is rejected
+     */
+    private int check(Puzzle puzzle) {
+        candidates.increment();
+        int greedyScore = solver.greedyScore(puzzle);
+
+        // Searching only for something better than greedy play cuts off far more than solving outright
+        if (solver.countSolutions(puzzle, greedyScore + 1, 1) == 0) {
+            (greedyScore == 0 ? pointless : greedy).increment();
+            return -1;
+        }
+        PuzzleSolution solution = solver.solve(puzzle);
+        if (solver.countSolutions(puzzle, solution.getScore(), 2) != 1) {
+            ambiguous.increment();
+            return -1;
+        }
+        return solution.getScore();
+    }
+
+    /**
+     * Get the number of candidates checked so far
+     * @return number of candidates
+     */
+    public long getCandidates() {
+        return candidates.sum();
+    }
+
+    /**
+     * Get the number of candidates rejected because playing greedily reaches the best score
+     * @return number of candidates
+     */
+    public long getGreedyRejects() {
+        return greedy.sum();
+    }
+
+    /**
+     * Get the number of candidates rejected because no line can be cleared
+     * @return number of candidates
+     */
+    public long getPointlessRejects() {
+        return pointless.sum();
+    }
+
+    /**
+     * Get the number of candidates rejected because more than one sequence reaches the best score
+     * @return number of candidates
+     */
+    public long getAmbiguousRejects() {
+        return ambiguous.sum();
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Checks a range of candidates of a batch, splitting the range across the pool
+     */
+    private class Check extends RecursiveAction {
+        private final Puzzle[] found;
+        private final int[] scores;
+        private final int difficulty;
+        private final long seed;
+        private final long first;
+        private final int from;
+        private final int to;
+
+        Check(Puzzle[] found, int[] scores, int difficulty, long seed, long first, int from, int to) {
+            this.found = found;
+            this.scores = scores;
+            this.difficulty = difficulty;
+            this.seed = seed;
+            this.first = first;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Check(found, scores, difficulty, seed, first, from, middle),
+                    new Check(found, scores, difficulty, seed, first, middle, to));
+                return;
+            }
+            Puzzle puzzle = candidate(seed, first + from, difficulty);
+            int score = check(puzzle);
+            found[from] = score < 0 ? null : puzzle;
+            scores[from] = score;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package uk.ac.soton.comp1206.puzzle;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A PuzzlePack is a list of puzzles of one board size, each with its best score, which can be written to and read back
+ * from a compact binary file.
+ *
+ * The file starts with a header: the magic number, the number of columns, rows and puzzles. Each puzzle follows as
+ * its starting board (one bit per block, lowest block first, in as few bytes as hold the board), its best score, the
+ * number of pieces, then the pieces two to a byte. A 5x5 puzzle of 6 pieces takes 12 bytes.
+ */
+public class PuzzlePack {
+
+    /**
+     * The magic number at the start of every puzzle pack file
+     */
+    public static final int MAGIC = 0x505A4C31;
+
+    /**
+     * The size of the file header, in bytes
+     */
+    private static final int HEADER = 4 * Integer.BYTES;
+
+    private final int cols;
+    private final int rows;
+
+    private final List<Puzzle> puzzles = new ArrayList<>();
+    private final List<Integer> scores = new ArrayList<>();
+
+    /**
+     * Create a new, empty pack
+     * @param cols number of columns
+     * @param rows number of rows
+     */
+    public PuzzlePack(int cols, int rows) {
+        this.cols = cols;
+        this.rows = rows;
+    }
+
+    /**
+     * Add a puzzle to the pack
+     * @param puzzle the puzzle, which must be the size of the pack
+     * @param score its best score
+     */
+    public void add(Puzzle puzzle, int score) {
+        if (puzzle.getCols() != cols || puzzle.getRows() != rows) {
+            throw new IllegalArgumentException("Puzzle is " + puzzle.getCols() + "x" + puzzle.getRows()
+                + ", pack is " + cols + "x" + rows);
+        }
+        if (puzzle.getPieceCount() > 0xFF) {
+            throw new IllegalArgumentException("Too many pieces: " + puzzle.getPieceCount());
+        }
+        puzzles.add(puzzle);
+        scores.add(score);
+    }
+
+    /**
+     * Get the number of puzzles in the pack
+     * @return number of puzzles
+     */
+    public int size() {
+        return puzzles.size();
+    }
+
+    public Puzzle getPuzzle(int index) {
+        return puzzles.get(index);
+    }
+
+    /**
+     * Get the best score of a puzzle
+     * @param index position in the pack
+     * @return the score
+     */
+    public int getScore(int index) {
+        return scores.get(index);
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Write the pack to a file
+     * @param path the file
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path path) throws IOException {
+        int boardBytes = boardBytes(cols, rows);
+        int size = HEADER;
+        for (Puzzle puzzle : puzzles) {
+            size += boardBytes + Integer.BYTES + 1 + (puzzle.getPieceCount() + 1) / 2;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(MAGIC).putInt(cols).putInt(rows).putInt(puzzles.size());
+        for (int i = 0; i < puzzles.size(); i++) {
+            Puzzle puzzle = puzzles.get(i);
+            long occupied = puzzle.getOccupied();
+            for (int b = 0; b < boardBytes; b++) {
+                buffer.put((byte) (occupied >>> (8 * b)));
+            }
+            buffer.putInt(scores.get(i));
+            buffer.put((byte) puzzle.getPieceCount());
+            for (int p = 0; p < puzzle.getPieceCount(); p += 2) {
+                int high = p + 1 < puzzle.getPieceCount() ? puzzle.getPiece(p + 1) : 0;
+                buffer.put((byte) (puzzle.getPiece(p) | high << 4));
+            }
+        }
+        Files.write(path, buffer.array());
+    }
+
+    /**
+     * Read a pack from a file
+     * @param path the file
+     * @return the pack
+     * @throws IOException if the file cannot be read or is not a puzzle pack
+     */
+    public static PuzzlePack read(Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        if (buffer.remaining() < HEADER || buffer.getInt() != MAGIC) {
+            throw new IOException(path + " is not a puzzle pack");
+        }
+        int cols = buffer.getInt();
+        int rows = buffer.getInt();
+        int count = buffer.getInt();
+        PuzzlePack pack = new PuzzlePack(cols, rows);
+        int boardBytes = boardBytes(cols, rows);
+        try {
+            for (int i = 0; i < count; i++) {
+                long occupied = 0;
+                for (int b = 0; b < boardBytes; b++) {
+                    occupied |= (buffer.get() & 0xFFL) << (8 * b);
+                }
+                int score = buffer.getInt();
+                int[] pieces = new int[buffer.get() & 0xFF];
+                for (int p = 0; p < pieces.length; p += 2) {
+                    int both = buffer.get();
+                    pieces[p] = both & 0xF;
+                    if (p + 1 < pieces.length) {
+                        pieces[p + 1] = both >>> 4 & 0xF;
+                    }
+                }
+                pack.add(new Puzzle(cols, rows, occupied, pieces), score);
+            }
+        } catch (RuntimeException e) {
+            throw new IOException(path + " is corrupt or truncated", e);
+        }
+        return pack;
+    }
+
+    /**
+     * Get the number of bytes a board is stored in
+     */
+    private static int boardBytes(int cols, int rows) {
+        return (cols * rows + 7) / 8;
+    }
+}
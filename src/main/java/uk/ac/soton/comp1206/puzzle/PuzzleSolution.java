@@ -0,0 +1,83 @@
+package uk.ac.soton.comp1206.puzzle;
+
+/**
+ * The result of solving a Puzzle: the best score, a sequence of moves which reaches it, and how much searching it
+ * took. Solutions are immutable.
+ */
+public class PuzzleSolution {
+
+    /**
+     * The move recorded for a piece which fits nowhere and has to be skipped
+     */
+    public static final int SKIPPED = -1;
+
+    private final int score;
+
+    /**
+     * One move per piece of the puzzle, packed by MoveGenerator, or SKIPPED
+     */
+    private final int[] moves;
+
+    /**
+     * The number of positions searched
+     */
+    private final long nodes;
+
+    /**
+     * The time the search took, in nanoseconds
+     */
+    private final long nanos;
+
+    public PuzzleSolution(int score, int[] moves, long nodes, long nanos) {
+        this.score = score;
+        this.moves = moves.clone();
+        this.nodes = nodes;
+        this.nanos = nanos;
+    }
+
+    /**
+     * Get the best score the puzzle allows
+     * @return the score
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Get the moves which reach the best score
+     * @return a copy of the moves, one per piece, packed by MoveGenerator or SKIPPED
+     */
+    public int[] getMoves() {
+        return moves.clone();
+    }
+
+    /**
+     * Get the number of positions searched
+     * @return number of nodes
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Get the time the search took
+     * @return the time, in nanoseconds
+     */
+    public long getNanos() {
+        return nanos;
+    }
+
+    /**
+     * Get the search throughput
+     * @return positions searched per second
+     */
+    public double getNodesPerSecond() {
+        return nanos == 0 ? 0 : nodes * 1e9 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("score %d, %d nodes in %.3fs (%.0f nodes/s)", score, nodes, nanos / 1e9,
+            getNodesPerSecond());
+    }
+}
@@ -0,0 +1,582 @@
+package uk.ac.soton.comp1206.puzzle;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import uk.ac.soton.comp1206.bot.TranspositionTable;
+import uk.ac.soton.comp1206.engine.MoveGenerator;
+import uk.ac.soton.comp1206.engine.RuleTable;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.PlacementTable;
+import uk.ac.soton.comp1206.game.Zobrist;
+
+/**
+ * The PuzzleSolver finds the best possible score of a Puzzle, and a sequence of moves which reaches it, by an exact
+ * depth-first search over every placement of every piece.
+ *
+ * The search is a branch and bound. The best score found so far is shared by every search thread, and any position
+ * whose upper bound (points already scored plus the most the remaining pieces could score) cannot beat it is cut off.
+ * The bound assumes every block on the board, and every block still to be played, is cleared at the highest
+ * multiplier the remaining pieces could reach and for the most points per block that any move completing as many
+ * lines as a single piece can could score. Moves which clear lines are searched first, so that good scores are found
+ * early and cut off more.
+ *
+ * Moves are scored by a RuleTable, the standard rules unless another is given.
+ *
+ * Every position searched leaves an upper bound on its value in a TranspositionTable, keyed by the board, the
+ * position in the sequence and the multiplier, so positions reached again by a different order of placements are cut
+ * off straight away. Rotations which cover the same blocks are only tried once.
+ *
+ * The first plies are split across a ForkJoinPool, one task per placement. The number of positions searched is counted
+ * so that throughput can be reported. One solver can be shared by any number of threads.
+ */
+public class PuzzleSolver {
+
+    /**
+     * The number of transposition table entries used when none is given
+     */
+    public static final int DEFAULT_TABLE_SIZE = 1 << 22;
+
+    /**
+     * Positions this many plies from the start are split into a task per placement
+     */
+    private static final int SPLIT_DEPTH = 2;
+
+    /**
+     * Positions with fewer pieces than this left are searched by the task that reached them
+     */
+    private static final int SPLIT_PIECES = 4;
+
+    private final int cols;
+    private final int rows;
+
+    /**
+     * The rules moves are scored by
+     */
+    private final RuleTable rules;
+
+    /**
+     * The pool searches are split across
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Upper bounds on the value of positions already searched, salted by the search
+     */
+    private final TranspositionTable table;
+
+    /**
+     * The mask of every row, then every column
+     */
+    private final long[] lines;
+
+    /**
+     * For every piece, the mask, Zobrist hash and move of each distinct placement on the board
+     */
+    private final long[][] masks;
+    private final long[][] hashes;
+    private final int[][] moves;
+
+    /**
+     * The number of blocks in every piece
+     */
+    private final int[] blocks;
+
+    /**
+     * The most points per block cleared, before the multiplier, that any placement could score
+     */
+    private final int maxPointsPerBlock;
+
+    /**
+     * Counts searches, so that each has its own salt
+     */
+    private final AtomicLong searches = new AtomicLong();
+
+    /**
+     * Create a new solver for puzzles of the given size, with the default table size
+     * @param cols number of columns
+     * @param rows number of rows
+     * @param pool the pool to split searches across
+     */
+    public PuzzleSolver(int cols, int rows, ForkJoinPool pool) {
+        this(cols, rows, pool, DEFAULT_TABLE_SIZE);
+    }
+
+    /**
+     * Create a new solver for puzzles of the given size, under the standard rules
+     * @param cols number of columns
+     * @param rows number of rows
+     * @param pool the pool to split searches across
+     * @param tableSize number of transposition table entries
+     */
+    public PuzzleSolver(int cols, int rows, ForkJoinPool pool, int tableSize) {
+        this(RuleTable.standard(cols, rows), pool, tableSize);
+    }
+
+    /**
+     * Create a new solver for puzzles played by a set of rules, on the board size of the rules
+     * @param rules the compiled rules
+     * @param pool the pool to split searches across
+     * @param tableSize number of transposition table entries
+     */
+    public PuzzleSolver(RuleTable rules, ForkJoinPool pool, int tableSize) {
+        int cols = rules.getCols();
+        int rows = rules.getRows();
+        PlacementTable placements = PlacementTable.forSize(cols, rows);
+        this.cols = cols;
+        this.rows = rows;
+        this.rules = rules;
+        this.pool = pool;
+        this.table = new TranspositionTable(tableSize);
+
+        lines = new long[rows + cols];
+        for (int y = 0; y < rows; y++) {
+            lines[y] = placements.rowMask(y);
+        }
+        for (int x = 0; x < cols; x++) {
+            lines[rows + x] = placements.colMask(x);
+        }
+
+        masks = new long[GamePiece.PIECES][];
+        hashes = new long[GamePiece.PIECES][];
+        moves = new int[GamePiece.PIECES][];
+        blocks = new int[GamePiece.PIECES];
+        int most = 0;
+        for (int piece = 0; piece < GamePiece.PIECES; piece++) {
+            blocks[piece] = Integer.bitCount(GamePiece.getMask(piece, 0));
+
+            // Keep the first move found for each set of blocks covered
+            Map<Long, Integer> distinct = new LinkedHashMap<>();
+            for (int rotation = 0; rotation < GamePiece.ROTATIONS; rotation++) {
+                int shape = piece * GamePiece.ROTATIONS + rotation;
+                for (int anchor = 0; anchor < cols * rows; anchor++) {
+                    long mask = placements.mask(shape, anchor);
+                    if (mask != 0) {
+                        distinct.putIfAbsent(mask,
+                            MoveGenerator.pack(MoveGenerator.SLOT_CURRENT, shape, anchor % cols, anchor / cols));
+                    }
+                }
+            }
+
+            int count = distinct.size();
+            masks[piece] = new long[count];
+            hashes[piece] = new long[count];
+            moves[piece] = new int[count];
+            int i = 0;
+            for (Map.Entry<Long, Integer> entry : distinct.entrySet()) {
+                masks[piece][i] = entry.getKey();
+                hashes[piece][i] = Zobrist.hash(entry.getKey());
+                moves[piece][i] = entry.getValue();
+                i++;
+
+                int touched = 0;
+                for (long line : lines) {
+                    if ((line & entry.getKey()) != 0) {
+                        touched++;
+                    }
+                }
+                most = Math.max(most, touched);
+            }
+        }
+
+        // A move clears at least one block per line it completes, and no more than the whole board
+        int perBlock = 0;
+        for (int lineCount = 1; lineCount <= most; lineCount++) {
+            for (int blockCount = 1; blockCount <= cols * rows; blockCount++) {
+                int points = rules.points(lineCount, blockCount);
+                perBlock = Math.max(perBlock, (points + blockCount - 1) / blockCount);
+            }
+        }
+        maxPointsPerBlock = perBlock;
+    }
+
+    /**
+     * Find the best score of a puzzle and the moves which reach it, using the pool
+     * @param puzzle the puzzle, which must be the size of this solver
+     * @return the solution
+     */
+    public PuzzleSolution solve(Puzzle puzzle) {
+        long start = System.nanoTime();
+        Search search = run(puzzle, -1, 0);
+        return new PuzzleSolution(search.best, search.line, search.nodes.sum(), System.nanoTime() - start);
+    }
+
+    /**
+     * Count the sequences of moves which score at least a given score, stopping once a limit is reached. Moves which
+     * cover the same blocks count as one. Counting up to 2 at the best score checks that a puzzle has a unique
+     * solution, and is much quicker than solving it, as every position which cannot reach the score is cut off.
+     * @param puzzle the puzzle, which must be the size of this solver
+     * @param score the score to reach
+     * @param limit the count to stop at
+     * @return the number of sequences found, at most limit
+     */
+    public int countSolutions(Puzzle puzzle, int score, int limit) {
+        return Math.min(run(puzzle, Math.max(score, 0), limit).found, limit);
+    }
+
+    /**
+     * Work out the score of playing each piece wherever it scores the most points straight away, the first such
+     * placement when there is a tie, as a player who does not plan ahead would
+     * @param puzzle the puzzle, which must be the size of this solver
+     * @return the score
+     */
+    public int greedyScore(Puzzle puzzle) {
+        checkSize(puzzle);
+        long occupied = puzzle.getOccupied();
+        int multiplier = 1;
+        int score = 0;
+        for (int piece : puzzle.getPieces()) {
+            long best = -1;
+            int bestPoints = -1;
+            for (long mask : masks[piece]) {
+                if ((occupied & mask) != 0) {
+                    continue;
+                }
+                long filled = occupied | mask;
+                long cleared = fullLineBlocks(filled);
+                int points = cleared == 0 ? 0
+                    : rules.points(countFullLines(filled), Long.bitCount(cleared)) * multiplier;
+                if (points > bestPoints) {
+                    best = mask;
+                    bestPoints = points;
+                }
+            }
+            if (best < 0) {
+                multiplier = rules.nextMultiplier(multiplier, 0);
+                continue;
+            }
+            long filled = occupied | best;
+            multiplier = rules.nextMultiplier(multiplier, countFullLines(filled));
+            occupied = filled & ~fullLineBlocks(filled);
+            score += bestPoints;
+        }
+        return score;
+    }
+
+    /**
+     * Search a puzzle on the pool
+     * @param puzzle the puzzle
+     * @param target the score to count solutions reaching, or -1 to find the best score
+     * @param limit the count to stop at
+     * @return the finished search
+     */
+    private Search run(Puzzle puzzle, int target, int limit) {
+        checkSize(puzzle);
+        Search search = new Search(puzzle, searches.getAndIncrement(), target, limit);
+        long occupied = puzzle.getOccupied();
+        pool.invoke(new Node(search, occupied, Zobrist.hash(occupied), 0, 1, 0,
+            new int[puzzle.getPieceCount()]));
+        return search;
+    }
+
+    private void checkSize(Puzzle puzzle) {
+        if (puzzle.getCols() != cols || puzzle.getRows() != rows) {
+            throw new IllegalArgumentException("Puzzle is " + puzzle.getCols() + "x" + puzzle.getRows()
+                + ", solver is " + cols + "x" + rows);
+        }
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Get the rules moves are scored by
+     * @return the compiled rules
+     */
+    public RuleTable getRules() {
+        return rules;
+    }
+
+    /**
+     * Get the blocks of every full row and column of a board
+     * @param occupied the occupancy word
+     * @return the mask of blocks that would be cleared, 0 if there are no full lines
+     */
+    private long fullLineBlocks(long occupied) {
+        long cleared = 0;
+        for (long line : lines) {
+            if ((occupied & line) == line) {
+                cleared |= line;
+            }
+        }
+        return cleared;
+    }
+
+    /**
+     * Count the full rows and columns of a board
+     * @param occupied the occupancy word
+     * @return the number of full lines
+     */
+    private int countFullLines(long occupied) {
+        int count = 0;
+        for (long line : lines) {
+            if ((occupied & line) == line) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * The state shared by every task of one search
+     */
+    private class Search {
+        private final int[] pieces;
+
+        /**
+         * The number of blocks in every piece from each position in the sequence to the end
+         */
+        private final int[] blocksLeft;
+
+        private final long salt;
+
+        /**
+         * When counting solutions, the score to reach and the count to stop at. The target is -1 otherwise.
+         */
+        private final int target;
+        private final int limit;
+
+        /**
+         * The best score found so far, and the moves which reached it
+         */
+        private volatile int best = -1;
+        private int[] line;
+
+        /**
+         * When counting solutions, the number found so far, and whether the limit has been reached
+         */
+        private int found;
+        private volatile boolean stopped;
+
+        private final LongAdder nodes = new LongAdder();
+
+        Search(Puzzle puzzle, long number, int target, int limit) {
+            this.target = target;
+            this.limit = limit;
+            pieces = puzzle.getPieces();
+            blocksLeft = new int[pieces.length + 1];
+            for (int i = pieces.length - 1; i >= 0; i--) {
+                blocksLeft[i] = blocksLeft[i + 1] + blocks[pieces[i]];
+            }
+            salt = Zobrist.salt(number);
+            line = new int[pieces.length];
+        }
+
+        /**
+         * Record a complete sequence of moves, if it beats the best so far or reaches the target
+         */
+        synchronized void record(int score, int[] path) {
+            if (target >= 0) {
+                if (score >= target && ++found >= limit) {
+                    stopped = true;
+                }
+                return;
+            }
+            if (score > best) {
+                line = path.clone();
+                best = score;
+            }
+        }
+
+        /**
+         * Work out how much a position must be able to score for its moves to be searched: more than it needs to
+         * beat the best score so far, or at least what it needs to reach the target
+         */
+        int alpha(int score) {
+            return (target < 0 ? best : target - 1) - score;
+        }
+
+        /**
+         * Work out the most the rest of the sequence could score from a position
+         */
+        int upperBound(long occupied, int index, int multiplier) {
+            int left = pieces.length - index;
+            if (left == 0) {
+                return 0;
+            }
+            // The multiplier grows by at most a step a move, up to its cap
+            long most = Math.min(multiplier + (long) (left - 1) * rules.getMultiplierStep(), rules.getMaxMultiplier());
+            long bound = maxPointsPerBlock * most * (Long.bitCount(occupied) + blocksLeft[index]);
+            return (int) Math.min(bound, Integer.MAX_VALUE);
+        }
+
+        /**
+         * Get the transposition table key of a position
+         */
+        long key(long hash, int index, int multiplier) {
+            return hash ^ salt ^ Zobrist.salt((long) index << 32 | multiplier);
+        }
+    }
+
+    /**
+     * Searches every placement from one position, splitting the first plies into a task per placement
+     */
+    private class Node extends RecursiveTask<Integer> {
+        private final Search search;
+        private final long occupied;
+        private final long hash;
+        private final int index;
+        private final int multiplier;
+        private final int score;
+
+        /**
+         * The moves played to reach this position, owned by this task
+         */
+        private final int[] path;
+
+        /**
+         * The number of positions this task has searched
+         */
+        private long nodes;
+
+        Node(Search search, long occupied, long hash, int index, int multiplier, int score, int[] path) {
+            this.search = search;
+            this.occupied = occupied;
+            this.hash = hash;
+            this.index = index;
+            this.multiplier = multiplier;
+            this.score = score;
+            this.path = path;
+        }
+
+        @Override
+        protected Integer compute() {
+            int value = index < SPLIT_DEPTH && search.pieces.length - index >= SPLIT_PIECES
+                ? split()
+                : search(occupied, hash, index, multiplier, score);
+            search.nodes.add(nodes);
+            return value;
+        }
+
+        /**
+         * Search each placement from this position in its own task
+         * @return an upper bound on the value of the position
+         */
+        private int split() {
+            nodes++;
+            int piece = search.pieces[index];
+            List<Node> children = new ArrayList<>();
+            int value = 0;
+            for (int i = 0; i < masks[piece].length; i++) {
+                long mask = masks[piece][i];
+                if ((occupied & mask) != 0) {
+                    continue;
+                }
+                long filled = occupied | mask;
+                long cleared = fullLineBlocks(filled);
+                int points = 0;
+                int lineCount = 0;
+                long childHash = hash ^ hashes[piece][i];
+                if (cleared != 0) {
+                    lineCount = countFullLines(filled);
+                    points = rules.points(lineCount, Long.bitCount(cleared)) * multiplier;
+                    childHash ^= Zobrist.hash(cleared);
+                }
+                int next = rules.nextMultiplier(multiplier, lineCount);
+                int[] childPath = path.clone();
+                childPath[index] = moves[piece][i];
+                children.add(new Node(search, filled & ~cleared, childHash, index + 1, next, score + points,
+                    childPath));
+            }
+            if (children.isEmpty()) {
+                // The piece fits nowhere, so it is skipped
+                return search(occupied, hash, index, multiplier, score);
+            }
+            invokeAll(children);
+            for (Node child : children) {
+                value = Math.max(value, child.join() + child.score - score);
+            }
+            return value;
+        }
+
+        /**
+         * Search a position depth first
+         * @return an upper bound on the value of the position: the most the rest of the sequence can score from it,
+         * or more if it was cut off
+         */
+        private int search(long occupied, long hash, int index, int multiplier, int score) {
+            nodes++;
+            int[] pieces = search.pieces;
+            if (search.stopped) {
+                return 0;
+            }
+            if (index == pieces.length) {
+                search.record(score, path);
+                return 0;
+            }
+
+            int alpha = search.alpha(score);
+            int bound = search.upperBound(occupied, index, multiplier);
+            if (bound <= alpha) {
+                return bound;
+            }
+            long key = search.key(hash, index, multiplier);
+            long data = table.probe(key);
+            if (data != TranspositionTable.MISS && (int) TranspositionTable.value(data) <= alpha) {
+                return (int) TranspositionTable.value(data);
+            }
+
+            int piece = pieces[index];
+            long[] pieceMasks = masks[piece];
+            int value = 0;
+            boolean played = false;
+
+            // Try placements which clear lines first, then the rest
+            for (int pass = 0; pass < 2; pass++) {
+                for (int i = 0; i < pieceMasks.length; i++) {
+                    long mask = pieceMasks[i];
+                    if ((occupied & mask) != 0) {
+                        continue;
+                    }
+                    long filled = occupied | mask;
+                    long cleared = fullLineBlocks(filled);
+                    if ((cleared != 0) != (pass == 0)) {
+                        continue;
+                    }
+                    played = true;
+
+                    int points = 0;
+                    int lineCount = 0;
+                    long childHash = hash ^ hashes[piece][i];
+                    if (cleared != 0) {
+                        lineCount = countFullLines(filled);
+                        points = rules.points(lineCount, Long.bitCount(cleared)) * multiplier;
+                        childHash ^= Zobrist.hash(cleared);
+                    }
+                    int next = rules.nextMultiplier(multiplier, lineCount);
+                    long child = filled & ~cleared;
+
+                    int childBound = points + search.upperBound(child, index + 1, next);
+                    if (childBound <= search.alpha(score)) {
+                        value = Math.max(value, childBound);
+                        continue;
+                    }
+                    path[index] = moves[piece][i];
+                    value = Math.max(value, points + search(child, childHash, index + 1, next, score + points));
+                }
+            }
+
+            if (!played) {
+                // The piece fits nowhere: skip it, as losing a life would, which decays the multiplier
+                path[index] = PuzzleSolution.SKIPPED;
+                value = search(occupied, hash, index + 1, rules.nextMultiplier(multiplier, 0), score);
+            }
+
+            // The table holds values as floats, which only keep every int up to 2^24 exactly
+            if (value < 1 << 24) {
+                table.store(key, TranspositionTable.pack(value, Math.min(pieces.length - index, 31), 0));
+            }
+            return value;
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package uk.ac.soton.comp1206.scene;
 
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import javafx.animation.KeyFrame;
 import javafx.animation.KeyValue;
 import javafx.animation.Timeline;
+import javafx.application.Platform;
 import javafx.beans.value.ChangeListener;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
@@ -14,13 +16,22 @@ import javafx.scene.paint.Color;
 import javafx.util.Duration;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.bot.BeamSearchBot;
+import uk.ac.soton.comp1206.bot.Bot;
+import uk.ac.soton.comp1206.engine.GameEngine;
+import uk.ac.soton.comp1206.engine.GameState;
+import uk.ac.soton.comp1206.engine.MoveGenerator;
 import uk.ac.soton.comp1206.multimedia.Multimedia;
+import uk.ac.soton.comp1206.component.BlockMaskView;
 import uk.ac.soton.comp1206.component.GameBlock;
 import uk.ac.soton.comp1206.component.GameBlockCoordinate;
 import uk.ac.soton.comp1206.component.GameBoard;
 import uk.ac.soton.comp1206.component.PieceBoard;
+import uk.ac.soton.comp1206.game.BitGrid;
 import uk.ac.soton.comp1206.game.Game;
 import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.PieceShape;
+import uk.ac.soton.comp1206.game.PlacementTable;
 import uk.ac.soton.comp1206.ui.GamePane;
 import uk.ac.soton.comp1206.ui.GameWindow;
 import javafx.scene.control.Label;
@@ -54,6 +65,26 @@ public class ChallengeScene extends BaseScene {
     private Label multiplierLabel;
     private Timeline timeline;
 
+    /**
+     * The time between autoplay moves, in milliseconds, slow enough to follow
+     */
+    private static final int AUTOPLAY_DELAY = 600;
+
+    /**
+     * The bot which plays when autoplay is on
+     */
+    private final BeamSearchBot bot = new BeamSearchBot();
+
+    /**
+     * Asks the bot for a move every AUTOPLAY_DELAY while autoplay is on, null while it is off
+     */
+    private Timeline autoplay;
+
+    /**
+     * Whether the bot is searching for a move
+     */
+    private boolean botThinking;
+
     /**
      * Create a new Single Player challenge scene
      * @param gameWindow the Game Window
@@ -173,16 +204,19 @@ public class ChallengeScene extends BaseScene {
         // --- Set up Listeners from Game to Scene ---
 
         // Listen for the next piece from the game model
-        game.setNextPieceListener((current, next) -> displayNextPiece(current, next));
+        game.addNextPieceListener((current, next) -> displayNextPiece(current, next));
 
         // Listen for when lines are cleared to trigger animations
-        game.setLineClearedListener(this::onLineCleared);
+        game.addLineClearedListener(this::onLineCleared);
 
         // Listen for the game loop starting/resetting to animate the timer bar
-        game.setGameLoopListener(delay -> animateTimerBar(delay));
+        game.addGameLoopListener(delay -> animateTimerBar(delay));
 
         // Listen for the game over event
-        game.setGameOverListener(this::endGame);
+        game.addGameOverListener(this::endGame);
+
+        // Listen for hints, and highlight where the hinted piece would go
+        game.setHintListener(this::showHint);
 
 
         // --- Set up Bindings from Game Properties to UI Labels ---
@@ -282,7 +316,8 @@ public class ChallengeScene extends BaseScene {
   public void shutdown() {
     logger.info("Shutting down challenge scene");
 
-    // Stop the game logic timer
+    // Stop the game logic timer and the bot
+    stopAutoplay();
     game.shutdown();
 
     // Stop any sounds that might be looping
@@ -312,6 +347,7 @@ public class ChallengeScene extends BaseScene {
             if (timeline != null) {
                 timeline.stop();
             }
+            stopAutoplay();
             game.shutdown();
             gameWindow.startMenu();
             return; // Stop processing further
@@ -347,16 +383,122 @@ public class ChallengeScene extends BaseScene {
           case R:
             game.swapCurrentPiece();
             break;
+          case B:
+            toggleAutoplay();
+            break;
+          case H:
+            game.requestHint();
+            break;
         }
 
         // After moving, update the visual hover effect
         board.hoverBlock(board.getBlock(aimX, aimY));
     }
+    /**
+     * Turn autoplay on or off. While it is on, the bot plays a move every AUTOPLAY_DELAY milliseconds.
+     */
+    private void toggleAutoplay() {
+        if (autoplay != null) {
+            logger.info("Autoplay off");
+            stopAutoplay();
+            return;
+        }
+        logger.info("Autoplay on");
+        autoplay = new Timeline(new KeyFrame(new Duration(AUTOPLAY_DELAY), e -> autoplayStep()));
+        autoplay.setCycleCount(Timeline.INDEFINITE);
+        autoplay.play();
+    }
+
+    /**
+     * Turn autoplay off, if it is on
+     */
+    private void stopAutoplay() {
+        if (autoplay != null) {
+            autoplay.stop();
+            autoplay = null;
+        }
+    }
+
+    /**
+     * Ask the bot for a move in the background, unless it is already thinking, the game is between moves or the board
+     * is too big for the bot to search
+     */
+    private void autoplayStep() {
+        GameEngine engine = game.getEngine();
+        if (botThinking || !engine.canSnapshot() || engine.isPlaced() || engine.isGameOver()
+            || engine.getCurrentShape() == GameEngine.EMPTY) {
+            return;
+        }
+
+        botThinking = true;
+        GameState state = engine.snapshot();
+        CompletableFuture.supplyAsync(() -> bot.chooseMove(state))
+            .whenComplete((move, error) -> Platform.runLater(() -> {
+                if (error != null) {
+                    // Let autoplay carry on from the next step rather than waiting forever on a failed search
+                    logger.error("Bot failed to choose a move", error);
+                    botThinking = false;
+                } else {
+                    playBotMove(state, move);
+                }
+            }));
+    }
+
+    /**
+     * Play the bot's move through the same controls as the player: swap, rotate, then click the block
+     * @param state the snapshot the bot searched
+     * @param move the move it chose, packed by MoveGenerator
+     */
+    private void playBotMove(GameState state, int move) {
+        botThinking = false;
+        GameEngine engine = game.getEngine();
+
+        // Skip the move if autoplay was turned off or the game moved on while the bot was thinking
+        if (autoplay == null || move == BeamSearchBot.NO_MOVE || engine.isPlaced()
+            || engine.getGrid().getOccupied() != state.getOccupied()
+            || engine.getCurrentShape() != state.getCurrentShape()
+            || engine.getFollowingShape() != state.getFollowingShape()) {
+            return;
+        }
+
+        if (MoveGenerator.slot(move) == MoveGenerator.SLOT_FOLLOWING) {
+            game.swapCurrentPiece();
+        }
+        int rotations = Math.floorMod(MoveGenerator.rotation(move) - engine.getCurrentRotation(), GamePiece.ROTATIONS);
+        for (int i = 0; i < rotations; i++) {
+            game.rotateCurrentPiece();
+        }
+        aimX = MoveGenerator.x(move);
+        aimY = MoveGenerator.y(move);
+        game.blockClicked(board.getBlock(aimX, aimY));
+        board.hoverBlock(board.getBlock(aimX, aimY));
+    }
+
+    /**
+     * Highlight the placement of a hinted move on the board
+     * @param move the move, packed by MoveGenerator, or Bot.NO_MOVE if no move was found
+     */
+    private void showHint(int move) {
+        if (move == Bot.NO_MOVE) {
+            board.clearHint();
+            return;
+        }
+        int cols = game.getGrid().getCols();
+        int rows = game.getGrid().getRows();
+        if ((long) cols * rows > BitGrid.MAX_BLOCKS) {
+            return;
+        }
+        long mask = PlacementTable.forSize(cols, rows)
+            .mask(MoveGenerator.piece(move), MoveGenerator.rotation(move), MoveGenerator.x(move), MoveGenerator.y(move));
+        board.showHint(new BlockMaskView(cols, mask));
+    }
+
     /**
      * Displays the next piece on the PieceBoard.
      * @param next the piece to display
      */
-    private void displayNextPiece(GamePiece current, GamePiece next) {
+    private void displayNextPiece(PieceShape current, PieceShape next) {
+      board.clearHint();
       if (current != null) {
         currentPieceDisplay.displayPiece(current);
       }
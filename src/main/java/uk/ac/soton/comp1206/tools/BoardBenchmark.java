@@ -0,0 +1,123 @@
+package uk.ac.soton.comp1206.tools;
+
+import java.util.concurrent.TimeUnit;
+import uk.ac.soton.comp1206.engine.GameEngine;
+import uk.ac.soton.comp1206.engine.RandomPieceSource;
+import uk.ac.soton.comp1206.game.Board;
+import uk.ac.soton.comp1206.game.LineScanner;
+import uk.ac.soton.comp1206.game.WideBitGrid;
+
+/**
+ * A command line benchmark showing how GameEngine throughput scales with board size, from the standard 5x5 BitGrid up
+ * to a 1024x1024 WideBitGrid, and how the vector and scalar LineScanners compare on whole-board line scans.
+ *
+ * Each game is played by sweeping a cursor across the board and playing the current piece at the first anchor it
+ * fits, which fills lines steadily so that line clears are part of the measurement.
+ *
+ * Run with the Vector API enabled to compare both scanners:
+ * <pre>
+ *   java --add-modules jdk.incubator.vector -cp target/classes uk.ac.soton.comp1206.tools.BoardBenchmark [seconds]
+ * </pre>
+ */
+public class BoardBenchmark {
+
+    /**
+     * The board sizes benchmarked, all square
+     */
+    private static final int[] SIZES = {5, 8, 64, 128, 256, 512, 1024};
+
+    public static void main(String[] args) {
+        double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 1.0;
+        long budget = (long) (seconds * TimeUnit.SECONDS.toNanos(1));
+
+        System.out.printf("Best line scanner: %s%n", LineScanner.best().getName());
+        System.out.printf("%-10s %-12s %14s %12s %16s %16s%n",
+            "size", "board", "moves/s", "lines", "scans/s best", "scans/s scalar");
+
+        for (int size : SIZES) {
+            //Warm up, then measure
+            playFor(size, budget / 4);
+            long[] result = playFor(size, budget);
+            double movesPerSecond = result[0] * 1e9 / result[2];
+
+            String boardType = Board.create(size, size).getClass().getSimpleName();
+            String best = "-";
+            String scalar = "-";
+            if (size * size > 64) {
+                best = String.format("%.0f", scansPerSecond(size, LineScanner.best(), budget));
+                scalar = String.format("%.0f", scansPerSecond(size, LineScanner.scalar(), budget));
+            }
+            System.out.printf("%-10s %-12s %14.0f %12d %16s %16s%n",
+                size + "x" + size, boardType, movesPerSecond, result[1], best, scalar);
+        }
+    }
+
+    /**
+     * Play games on a board of the given size until the time budget runs out
+     * @return the number of moves played, the number of lines cleared and the nanoseconds taken
+     */
+    private static long[] playFor(int size, long budget) {
+        long start = System.nanoTime();
+        long moves = 0;
+        long lines = 0;
+        long seed = 0;
+
+        while (System.nanoTime() - start < budget) {
+            GameEngine engine = new GameEngine(size, size, new RandomPieceSource(seed++));
+            engine.fillQueue();
+            int anchors = size * size;
+            int cursor = 0;
+
+            while (!engine.isGameOver() && System.nanoTime() - start < budget) {
+                //Sweep from the cursor for the first anchor the current piece fits
+                boolean played = false;
+                for (int tried = 0; tried < anchors && !played; tried++) {
+                    int anchor = (cursor + tried) % anchors;
+                    if (engine.play(anchor % size, anchor / size)) {
+                        //Back up a row so gaps left behind the cursor get filled
+                        cursor = Math.max(0, anchor - size);
+                        played = true;
+                    }
+                }
+                if (played) {
+                    moves++;
+                    lines += engine.getClearResult().getLineCount();
+                } else {
+                    engine.tick();
+                }
+            }
+        }
+        return new long[] {moves, lines, System.nanoTime() - start};
+    }
+
+    /**
+     * Measure how many full-board row and column scans a WideBitGrid of the given size manages per second
+     */
+    private static double scansPerSecond(int size, LineScanner scanner, long budget) {
+        WideBitGrid grid = new WideBitGrid(size, size, scanner);
+
+        //Fill every other row, and one column completely, so the scans have work to do
+        for (int y = 0; y < size; y += 2) {
+            for (int x = 0; x < size; x++) {
+                grid.set(x, y, 1);
+            }
+        }
+        for (int y = 0; y < size; y++) {
+            grid.set(0, y, 1);
+        }
+
+        long[] rows = new long[(size + 63) / 64];
+        long[] cols = new long[(size + 63) / 64];
+        long scans = 0;
+        long check = 0;
+        long start = System.nanoTime();
+        while (System.nanoTime() - start < budget) {
+            check += grid.scanFullRows(rows) + grid.scanFullCols(cols);
+            scans++;
+        }
+        if (check != scans * (size / 2 + 1)) {
+            throw new IllegalStateException(scanner.getName() + " found the wrong lines");
+        }
+        return scans * 1e9 / (System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,140 @@
+package uk.ac.soton.comp1206.tools;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import uk.ac.soton.comp1206.bot.Bot;
+import uk.ac.soton.comp1206.bot.BotRegistry;
+import uk.ac.soton.comp1206.engine.GameEngine;
+import uk.ac.soton.comp1206.engine.RandomPieceSource;
+import uk.ac.soton.comp1206.engine.RuleSets;
+import uk.ac.soton.comp1206.engine.RuleTable;
+import uk.ac.soton.comp1206.engine.StandardRules;
+import uk.ac.soton.comp1206.utility.QuantileSketch;
+
+/**
+ * A command line tool which plays every registered bot (see BotRegistry) through the same seeded games, and ranks them
+ * by mean score. The games are played by the standard rules on a 5x5 board, or by the rule set named on the command
+ * line: the name of a registered rule set or the path of a properties file (see RuleSets).
+ *
+ * Every bot plays every seed, so every bot is dealt exactly the same pieces. Games are played headlessly on a
+ * GameEngine, with the same scoring, multiplier and level rules as real play, until the lives run out or a cap on
+ * pieces is reached. All the games are split across the common pool.
+ *
+ * Scores are summarised in a QuantileSketch per bot, so memory stays flat however many games are played. The table
+ * shows the mean, median, p99 and best score of each bot, the mean level reached, and how many games it plays per
+ * second of thread time, along with the wall clock throughput of the whole tournament.
+ * <pre>
+ *   java -cp target/classes uk.ac.soton.comp1206.tools.BotTournament [games] [max pieces] [seed] [bot,bot,...] [rules]
+ * </pre>
+ */
+public class BotTournament {
+
+    /**
+     * The games a task plays before the rest are split off to other tasks
+     */
+    private static final int SPLIT_THRESHOLD = 8;
+
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int maxPieces = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 0;
+        List<String> names = args.length > 3 ? Arrays.asList(args[3].split(",")) : BotRegistry.getNames();
+        RuleTable rules = RuleTable.compile(RuleSets.get(args.length > 4 ? args[4] : StandardRules.NAME));
+
+        int bots = names.size();
+        QuantileSketch[] scores = new QuantileSketch[bots];
+        QuantileSketch[] levels = new QuantileSketch[bots];
+        LongAdder[] nanos = new LongAdder[bots];
+        for (int b = 0; b < bots; b++) {
+            scores[b] = new QuantileSketch();
+            levels[b] = new QuantileSketch();
+            nanos[b] = new LongAdder();
+        }
+
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        long start = System.nanoTime();
+        pool.invoke(new Play(names, rules, games, maxPieces, seed, scores, levels, nanos, 0, bots * games));
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Integer[] order = new Integer[bots];
+        Arrays.setAll(order, b -> b);
+        Arrays.sort(order, Comparator.comparingDouble(b -> -scores[b].getMean()));
+
+        System.out.printf("%-4s %-16s %8s %10s %10s %10s %10s %8s %12s%n",
+            "rank", "bot", "games", "mean", "median", "p99", "best", "level", "games/s");
+        for (int rank = 0; rank < bots; rank++) {
+            int b = order[rank];
+            QuantileSketch sketch = scores[b];
+            System.out.printf("%-4d %-16s %8d %10.1f %10d %10d %10d %8.2f %12.1f%n",
+                rank + 1, names.get(b), sketch.getCount(), sketch.getMean(), sketch.quantile(0.5),
+                sketch.quantile(0.99), sketch.getMax(), levels[b].getMean(),
+                sketch.getCount() * 1e9 / Math.max(nanos[b].sum(), 1));
+        }
+        System.out.printf("%d %s games of up to %d pieces in %.2fs on %d threads: %.1f games/s%n",
+            bots * games, rules.getName(), maxPieces, seconds, pool.getParallelism(), bots * games / seconds);
+    }
+
+    /**
+     * Plays a range of (bot, seed) pairs, splitting the range across the pool
+     */
+    private static class Play extends RecursiveAction {
+        private final List<String> names;
+        private final RuleTable rules;
+        private final int games;
+        private final int maxPieces;
+        private final long seed;
+        private final QuantileSketch[] scores;
+        private final QuantileSketch[] levels;
+        private final LongAdder[] nanos;
+        private final int from;
+        private final int to;
+
+        Play(List<String> names, RuleTable rules, int games, int maxPieces, long seed, QuantileSketch[] scores,
+             QuantileSketch[] levels, LongAdder[] nanos, int from, int to) {
+            this.names = names;
+            this.rules = rules;
+            this.games = games;
+            this.maxPieces = maxPieces;
+            this.seed = seed;
+            this.scores = scores;
+            this.levels = levels;
+            this.nanos = nanos;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SPLIT_THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Play(names, rules, games, maxPieces, seed, scores, levels, nanos, from, middle),
+                    new Play(names, rules, games, maxPieces, seed, scores, levels, nanos, middle, to));
+                return;
+            }
+
+            // Make one bot for each strategy in the range, reused for all of its games here
+            Bot bot = null;
+            int botIndex = -1;
+            for (int i = from; i < to; i++) {
+                if (i / games != botIndex) {
+                    botIndex = i / games;
+                    bot = BotRegistry.create(names.get(botIndex));
+                }
+
+                long start = System.nanoTime();
+                GameEngine engine = new GameEngine(rules, new RandomPieceSource(seed + i % games, rules.getPieces()));
+                engine.fillQueue();
+                for (int piece = 0; piece < maxPieces && !engine.isGameOver(); piece++) {
+                    bot.playTurn(engine);
+                }
+                nanos[botIndex].add(System.nanoTime() - start);
+                scores[botIndex].add(engine.getScore());
+                levels[botIndex].add(engine.getLevel());
+            }
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package uk.ac.soton.comp1206.tools;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import uk.ac.soton.comp1206.bot.GreedyBot;
+import uk.ac.soton.comp1206.bot.Heuristic;
+import uk.ac.soton.comp1206.engine.GameEngine;
+import uk.ac.soton.comp1206.engine.RandomPieceSource;
+
+/**
+ * A command line tool which tunes the Heuristic weights by self-play, and writes the best weights found to the
+ * properties file the bots load (Heuristic.FILE).
+ *
+ * Tuning uses the cross-entropy method, the diagonal relative of CMA-ES: each generation draws a population of weight
+ * vectors from a normal distribution, plays every one of them through the same batch of seeded 5x5 games with a
+ * GreedyBot, then moves the distribution to the mean and spread of the fittest quarter. Every game of a generation is
+ * played at once, split across the common pool, and a game step allocates nothing.
+ *
+ * A weight vector's fitness rewards both a high mean score and a good tail: it is the average of the mean score and
+ * the mean of the worst tenth of games. The score weight is held at 1, as scaling every weight alike plays the same
+ * moves.
+ *
+ * Games end when the lives run out or after a cap on pieces, as good weights can otherwise play on for ever. The final
+ * choice is between the last mean, the fittest vector seen and the default weights, judged on fresh seeds, so a run
+ * which finds nothing better writes the defaults back.
+ * <pre>
+ *   java -cp target/classes uk.ac.soton.comp1206.tools.HeuristicTuner [generations] [population] [games] [seed] [file]
+ * </pre>
+ */
+public class HeuristicTuner {
+
+    /**
+     * The most pieces a tuning game lasts
+     */
+    private static final int MAX_PIECES = 300;
+
+    /**
+     * The share of the population the distribution is moved to
+     */
+    private static final double ELITE = 0.25;
+
+    /**
+     * The share of games counted as the tail of the scores
+     */
+    private static final double TAIL = 0.1;
+
+    /**
+     * The smallest spread of each weight, so the search does not stop exploring early
+     */
+    private static final double MIN_SIGMA = 0.5;
+
+    public static void main(String[] args) throws IOException {
+        int generations = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int population = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+        int games = args.length > 2 ? Integer.parseInt(args[2]) : 32;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 0;
+        Path path = Paths.get(args.length > 4 ? args[4] : Heuristic.FILE);
+
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        SplittableRandom random = new SplittableRandom(seed);
+        double[] mean = Heuristic.DEFAULT.toArray();
+        double[] sigma = new double[mean.length];
+        for (int i = 0; i < mean.length; i++) {
+            sigma[i] = Math.max(Math.abs(mean[i]) / 2, MIN_SIGMA);
+        }
+        sigma[0] = 0;
+
+        double[] best = mean.clone();
+        double bestFitness = Double.NEGATIVE_INFINITY;
+        int elite = Math.max(2, (int) (population * ELITE));
+
+        for (int generation = 0; generation < generations; generation++) {
+            long start = System.nanoTime();
+            double[][] candidates = new double[population][];
+            for (int c = 0; c < population; c++) {
+                candidates[c] = new double[mean.length];
+                for (int i = 0; i < mean.length; i++) {
+                    candidates[c][i] = mean[i] + sigma[i] * gaussian(random);
+                }
+            }
+
+            // Every candidate plays the same games, so luck of the draw does not pick the winner
+            long gameSeed = seed + (long) generation * games;
+            double[] fitness = evaluate(pool, candidates, games, gameSeed);
+
+            Integer[] order = new Integer[population];
+            Arrays.setAll(order, c -> c);
+            Arrays.sort(order, Comparator.comparingDouble(c -> -fitness[c]));
+            if (fitness[order[0]] > bestFitness) {
+                bestFitness = fitness[order[0]];
+                best = candidates[order[0]].clone();
+            }
+
+            // Move the distribution to the elite
+            for (int i = 1; i < mean.length; i++) {
+                double sum = 0;
+                for (int e = 0; e < elite; e++) {
+                    sum += candidates[order[e]][i];
+                }
+                mean[i] = sum / elite;
+                double variance = 0;
+                for (int e = 0; e < elite; e++) {
+                    double d = candidates[order[e]][i] - mean[i];
+                    variance += d * d;
+                }
+                sigma[i] = Math.max(Math.sqrt(variance / elite), MIN_SIGMA);
+            }
+
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("generation %3d: best %.0f, elite mean %.0f, %d games in %.2fs (%.0f games/s)%n",
+                generation, fitness[order[0]], fitness[order[elite - 1]], population * games, seconds,
+                population * games / seconds);
+        }
+
+        // Judge the last mean, the fittest seen and the defaults on seeds no candidate was tuned on
+        double[][] finalists = {mean, best, Heuristic.DEFAULT.toArray()};
+        double[] fitness = evaluate(pool, finalists, games * 4, seed + (long) generations * games);
+        int winner = 0;
+        for (int f = 1; f < finalists.length; f++) {
+            if (fitness[f] > fitness[winner]) {
+                winner = f;
+            }
+        }
+        System.out.printf("fresh seeds: mean %.0f, fittest %.0f, default %.0f%n", fitness[0], fitness[1], fitness[2]);
+
+        Heuristic tuned = Heuristic.fromArray(finalists[winner]);
+        String comment = winner == 2
+            ? String.format("Default weights: nothing tuned over %d generations of %d beat them (fitness %.0f)",
+                generations, population, fitness[2])
+            : String.format("Tuned over %d generations of %d, fitness %.0f (default %.0f)",
+                generations, population, fitness[winner], fitness[2]);
+        tuned.save(path, comment);
+        System.out.printf("%s written to %s%n", tuned, path);
+    }
+
+    /**
+     * Play every candidate through the same seeded games, in parallel, and work out their fitness
+     * @return the fitness of every candidate
+     */
+    private static double[] evaluate(ForkJoinPool pool, double[][] candidates, int games, long seed) {
+        int[] scores = new int[candidates.length * games];
+        pool.invoke(new Play(candidates, games, seed, scores, 0, scores.length));
+
+        double[] fitness = new double[candidates.length];
+        int tail = Math.max(1, (int) (games * TAIL));
+        for (int c = 0; c < candidates.length; c++) {
+            int[] own = Arrays.copyOfRange(scores, c * games, (c + 1) * games);
+            Arrays.sort(own);
+            double mean = Arrays.stream(own).average().orElse(0);
+            double worst = Arrays.stream(own, 0, tail).average().orElse(0);
+            fitness[c] = (mean + worst) / 2;
+        }
+        return fitness;
+    }
+
+    /**
+     * Draw from the standard normal distribution
+     */
+    private static double gaussian(SplittableRandom random) {
+        // Box-Muller
+        double u = 1 - random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+
+    /**
+     * Plays a range of (candidate, game) pairs, splitting the range across the pool
+     */
+    private static class Play extends RecursiveAction {
+        private final double[][] candidates;
+        private final int games;
+        private final long seed;
+        private final int[] scores;
+        private final int from;
+        private final int to;
+
+        Play(double[][] candidates, int games, long seed, int[] scores, int from, int to) {
+            this.candidates = candidates;
+            this.games = games;
+            this.seed = seed;
+            this.scores = scores;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Play(candidates, games, seed, scores, from, middle),
+                    new Play(candidates, games, seed, scores, middle, to));
+                return;
+            }
+            GreedyBot bot = new GreedyBot(5, 5, Heuristic.fromArray(candidates[from / games]));
+            GameEngine engine = new GameEngine(5, 5, new RandomPieceSource(seed + from % games));
+            engine.fillQueue();
+            for (int piece = 0; piece < MAX_PIECES && !engine.isGameOver(); piece++) {
+                bot.playTurn(engine);
+            }
+            scores[from] = engine.getScore();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package uk.ac.soton.comp1206.tools;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+import uk.ac.soton.comp1206.puzzle.PuzzleGenerator;
+import uk.ac.soton.comp1206.puzzle.PuzzlePack;
+
+/**
+ * A command line tool which generates a pack of uniquely solvable puzzles for the standard 5x5 board, using every
+ * core, writes it to a file, and reports how many puzzles were found and how many candidates were checked and
+ * rejected. It gives up after checking the given number of candidates, writing however many puzzles it found.
+ * <pre>
+ *   java -cp target/classes uk.ac.soton.comp1206.tools.PuzzlePackGenerator [file] [count] [difficulty] [seed]
+ *       [max candidates]
+ * </pre>
+ */
+public class PuzzlePackGenerator {
+
+    /**
+     * The file written when none is given
+     */
+    public static final String DEFAULT_FILE = "puzzles-5x5.bin";
+
+    public static void main(String[] args) throws IOException {
+        Path path = Paths.get(args.length > 0 ? args[0] : DEFAULT_FILE);
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int difficulty = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 0;
+        long maxCandidates = args.length > 4 ? Long.parseLong(args[4]) : PuzzleGenerator.DEFAULT_MAX_CANDIDATES;
+
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        PuzzleGenerator generator = new PuzzleGenerator(5, 5, pool);
+        long start = System.nanoTime();
+        PuzzlePack pack = generator.generate(count, difficulty, seed, maxCandidates);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        pack.write(path);
+
+        System.out.printf("%d of %d puzzles of %d pieces found and written to %s in %.2fs on %d threads%n",
+            pack.size(), count, difficulty, path, seconds, pool.getParallelism());
+        if (pack.size() < count) {
+            System.out.printf("Gave up after %d candidates%n", maxCandidates);
+        }
+        System.out.printf("%d candidates checked (%.0f/s per thread): %d no better than greedy, %d scoreless, "
+                + "%d without a unique solution%n",
+            generator.getCandidates(), generator.getCandidates() / seconds / pool.getParallelism(),
+            generator.getGreedyRejects(), generator.getPointlessRejects(), generator.getAmbiguousRejects());
+    }
+}
@@ -0,0 +1,72 @@
+package uk.ac.soton.comp1206.tools;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import uk.ac.soton.comp1206.engine.RandomPieceSource;
+import uk.ac.soton.comp1206.puzzle.Puzzle;
+import uk.ac.soton.comp1206.puzzle.PuzzleSolution;
+import uk.ac.soton.comp1206.puzzle.PuzzleSolver;
+
+/**
+ * A command line benchmark which solves seeded random puzzles on the standard 5x5 board with the PuzzleSolver, using
+ * every core, and reports the best scores found and the search throughput.
+ *
+ * Each starting board has a random third of its blocks filled, with no full lines.
+ * <pre>
+ *   java -cp target/classes uk.ac.soton.comp1206.tools.PuzzleSolverBenchmark [puzzles] [pieces]
+ * </pre>
+ */
+public class PuzzleSolverBenchmark {
+
+    public static void main(String[] args) {
+        int puzzles = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int pieces = args.length > 1 ? Integer.parseInt(args[1]) : 6;
+
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        PuzzleSolver solver = new PuzzleSolver(5, 5, pool);
+        long nodes = 0;
+        long nanos = 0;
+
+        for (int seed = 0; seed < puzzles; seed++) {
+            PuzzleSolution solution = solver.solve(randomPuzzle(seed, pieces));
+            nodes += solution.getNodes();
+            nanos += solution.getNanos();
+            System.out.printf("puzzle %3d: %s%n", seed, solution);
+        }
+        System.out.printf("%d puzzles of %d pieces: %d nodes in %.2fs on %d threads, %.0f nodes/s%n",
+            puzzles, pieces, nodes, nanos / 1e9, pool.getParallelism(), nodes * 1e9 / Math.max(nanos, 1));
+    }
+
+    /**
+     * Make a random 5x5 puzzle
+     * @param seed the seed of the board and the pieces
+     * @param pieces number of pieces
+     * @return the puzzle
+     */
+    private static Puzzle randomPuzzle(long seed, int pieces) {
+        SplittableRandom random = new SplittableRandom(seed);
+        long occupied = 0;
+        for (int block = 0; block < 25; block++) {
+            if (random.nextInt(3) == 0) {
+                occupied |= 1L << block;
+            }
+        }
+        // Break up any full rows and columns
+        for (int i = 0; i < 5; i++) {
+            if ((occupied >>> (i * 5) & 0x1F) == 0x1F) {
+                occupied &= ~(1L << (i * 5 + random.nextInt(5)));
+            }
+            long col = 0x108421L << i;
+            if ((occupied & col) == col) {
+                occupied &= ~(1L << (random.nextInt(5) * 5 + i));
+            }
+        }
+
+        RandomPieceSource source = new RandomPieceSource(seed);
+        int[] sequence = new int[pieces];
+        for (int i = 0; i < pieces; i++) {
+            sequence[i] = source.nextPiece();
+        }
+        return new Puzzle(5, 5, occupied, sequence);
+    }
+}
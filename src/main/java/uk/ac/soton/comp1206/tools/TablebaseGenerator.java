@@ -0,0 +1,41 @@
+package uk.ac.soton.comp1206.tools;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+import uk.ac.soton.comp1206.engine.Tablebase;
+
+/**
+ * A command line tool which builds the dead-board Tablebase for the standard 5x5 board, using every core, and writes
+ * it to a file. The file is named by Tablebase.fileName unless another is given; put it in the working directory of
+ * the game for the engine and the bots to use it.
+ * <pre>
+ *   java -cp target/classes uk.ac.soton.comp1206.tools.TablebaseGenerator [file] [cols] [rows]
+ * </pre>
+ */
+public class TablebaseGenerator {
+
+    public static void main(String[] args) throws IOException {
+        int cols = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int rows = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        Path path = Paths.get(args.length > 0 ? args[0] : Tablebase.fileName(cols, rows));
+
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        long start = System.nanoTime();
+        char[] fits = Tablebase.generate(cols, rows, pool);
+        long generated = System.nanoTime();
+        Tablebase.write(path, cols, rows, fits);
+        long written = System.nanoTime();
+
+        int dead = 0;
+        for (char word : fits) {
+            if (word == 0) {
+                dead++;
+            }
+        }
+        System.out.printf("%dx%d: %d boards, %d dead, built in %.2fs on %d threads, written to %s in %.2fs%n",
+            cols, rows, fits.length, dead, (generated - start) / 1e9, pool.getParallelism(), path,
+            (written - generated) / 1e9);
+    }
+}
@@ -0,0 +1,143 @@
+package uk.ac.soton.comp1206.utility;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A QuantileSketch summarises a stream of non-negative values, such as game scores, in a fixed amount of memory
+ * however many values are added, and answers quantile queries (median, p99 and so on) to within 1/128 (0.8%).
+ *
+ * Values are counted in log-linear buckets: every value below 128 has a bucket of its own, and every power of two
+ * above that is split into 64 equal buckets, each under 1/64 of the values it holds wide. A quantile is answered with
+ * the middle of the bucket it falls in, so it is never more than half a bucket out. The count, sum, smallest and
+ * largest values are kept exactly.
+ *
+ * Any number of threads can add values at once, and sketches can be merged.
+ */
+public class QuantileSketch {
+
+  /**
+   * Values below this have a bucket each
+   */
+  private static final int EXACT = 128;
+
+  /**
+   * The number of buckets each power of two above EXACT is split into
+   */
+  private static final int SUB_BUCKETS = 64;
+
+  /**
+   * Enough buckets for any non-negative long
+   */
+  private static final int BUCKETS = EXACT + (Long.SIZE - 8) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+  private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+  /**
+   * Add a value to the sketch
+   * @param value the value, at least 0
+   */
+  public void add(long value) {
+    if (value < 0) {
+      throw new IllegalArgumentException("Negative value: " + value);
+    }
+    counts.incrementAndGet(bucket(value));
+    count.increment();
+    sum.add(value);
+    min.accumulateAndGet(value, Math::min);
+    max.accumulateAndGet(value, Math::max);
+  }
+
+  /**
+   * Add every value of another sketch to this one
+   * @param other the other sketch
+   */
+  public void merge(QuantileSketch other) {
+    for (int i = 0; i < BUCKETS; i++) {
+      long n = other.counts.get(i);
+      if (n != 0) {
+        counts.addAndGet(i, n);
+      }
+    }
+    count.add(other.count.sum());
+    sum.add(other.sum.sum());
+    min.accumulateAndGet(other.min.get(), Math::min);
+    max.accumulateAndGet(other.max.get(), Math::max);
+  }
+
+  /**
+   * Estimate a quantile of the values added
+   * @param quantile the quantile, from 0 to 1: 0.5 for the median, 0.99 for p99
+   * @return the estimate, or 0 if the sketch is empty
+   */
+  public long quantile(double quantile) {
+    long total = count.sum();
+    if (total == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(quantile * total));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += counts.get(i);
+      if (seen >= rank) {
+        // Never answer outside the values actually seen
+        return Math.max(min.get(), Math.min(max.get(), middle(i)));
+      }
+    }
+    return max.get();
+  }
+
+  /**
+   * Get the number of values added
+   * @return the count
+   */
+  public long getCount() {
+    return count.sum();
+  }
+
+  /**
+   * Get the mean of the values added
+   * @return the exact mean, or 0 if the sketch is empty
+   */
+  public double getMean() {
+    long total = count.sum();
+    return total == 0 ? 0 : (double) sum.sum() / total;
+  }
+
+  public long getMin() {
+    return count.sum() == 0 ? 0 : min.get();
+  }
+
+  public long getMax() {
+    return count.sum() == 0 ? 0 : max.get();
+  }
+
+  /**
+   * Work out the bucket a value is counted in
+   */
+  private static int bucket(long value) {
+    if (value < EXACT) {
+      return (int) value;
+    }
+    // The top 7 bits of the value pick the bucket within its power of two
+    int shift = 63 - Long.numberOfLeadingZeros(value) - 6;
+    return EXACT + (shift - 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+  }
+
+  /**
+   * Work out the middle of the values a bucket holds
+   */
+  private static long middle(int bucket) {
+    if (bucket < EXACT) {
+      return bucket;
+    }
+    int shift = (bucket - EXACT) / SUB_BUCKETS + 1;
+    long low = (long) (SUB_BUCKETS + (bucket - EXACT) % SUB_BUCKETS) << shift;
+    return low + (1L << shift) / 2;
+  }
+}
@@ -0,0 +1,119 @@
+package uk.ac.soton.comp1206.bot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import uk.ac.soton.comp1206.engine.EngineFixtures;
+import uk.ac.soton.comp1206.engine.GameEngine;
+import uk.ac.soton.comp1206.engine.MoveGenerator;
+
+class BeamSearchBotTest {
+
+    /**
+     * Check a move is one of the engine's legal moves
+     */
+    private static boolean isLegal(GameEngine engine, int move) {
+        int[] moves = new int[MoveGenerator.maxMoves(engine.getCols(), engine.getRows())];
+        int count = engine.generateMoves(moves);
+        for (int i = 0; i < count; i++) {
+            if (moves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    void playsOnlyLegalMoves() {
+        BeamSearchBot bot = new BeamSearchBot(Heuristic.DEFAULT, 8, 1000, ForkJoinPool.commonPool());
+        GameEngine engine = EngineFixtures.newGame(5, 5, 21);
+        boolean[] swapped = new boolean[1];
+        EngineFixtures.playout(engine, 60, e -> {
+            int move = bot.chooseMove(e.snapshot());
+            if (move == Bot.NO_MOVE) {
+                assertTrue(!e.hasLegalMove());
+                return move;
+            }
+            assertNotEquals(MoveGenerator.SLOT_NEXT, MoveGenerator.slot(move));
+            assertTrue(isLegal(e, move));
+            swapped[0] |= MoveGenerator.slot(move) == MoveGenerator.SLOT_FOLLOWING;
+            return move;
+        });
+        assertTrue(swapped[0], "a swapping bot never swapped");
+        assertTrue(engine.getScore() > 0);
+    }
+
+    @Test
+    void aBotWhichDoesNotSwapPlaysTheCurrentPiece() {
+        BeamSearchBot bot = new BeamSearchBot(Heuristic.DEFAULT, 8, 1000, ForkJoinPool.commonPool(), false);
+        GameEngine engine = EngineFixtures.newGame(5, 5, 22);
+        EngineFixtures.playout(engine, 60, e -> {
+            int move = bot.chooseMove(e.snapshot());
+            if (move != Bot.NO_MOVE) {
+                assertEquals(MoveGenerator.SLOT_CURRENT, MoveGenerator.slot(move));
+                assertTrue(isLegal(e, move));
+            }
+            return move;
+        });
+    }
+
+    @Test
+    void hintsPlayTheCurrentPiece() throws InterruptedException {
+        HintEngine hints = new HintEngine(
+            new BeamSearchBot(Heuristic.DEFAULT, 8, HintEngine.DEFAULT_BUDGET, ForkJoinPool.commonPool(), false));
+        try {
+            GameEngine engine = EngineFixtures.newGame(5, 5, 23);
+            BlockingQueue<Integer> delivered = new ArrayBlockingQueue<>(1);
+            hints.requestHint(engine.snapshot(), delivered::add);
+            Integer move = delivered.poll(5, TimeUnit.SECONDS);
+            assertTrue(move != null && move != Bot.NO_MOVE);
+            assertEquals(MoveGenerator.SLOT_CURRENT, MoveGenerator.slot(move));
+            assertTrue(isLegal(engine, move));
+            assertEquals((int) move, hints.getBestSoFar());
+        } finally {
+            hints.shutdown();
+        }
+        assertThrows(IllegalArgumentException.class,
+            () -> new HintEngine(new BeamSearchBot(Heuristic.DEFAULT, 8, 16, ForkJoinPool.commonPool())));
+    }
+
+    @Test
+    void aNewHintRequestDropsTheOldSearch() throws InterruptedException {
+        HintEngine hints = new HintEngine(
+            new BeamSearchBot(Heuristic.DEFAULT, 64, 40, ForkJoinPool.commonPool(), false));
+        try {
+            for (int trial = 0; trial < 20; trial++) {
+                // Two positions whose current pieces differ, so no move of one is a move of the other
+                GameEngine first = EngineFixtures.newGame(8, 8, trial);
+                GameEngine second = EngineFixtures.newGame(8, 8, 1000 + trial);
+                if (first.getCurrentPiece() == second.getCurrentPiece()) {
+                    continue;
+                }
+
+                BlockingQueue<Integer> delivered = new ArrayBlockingQueue<>(1);
+                hints.requestHint(first.snapshot(), move -> { });
+                Thread.sleep(2);
+                hints.requestHint(second.snapshot(), delivered::add);
+
+                Integer move = null;
+                while (move == null) {
+                    int best = hints.getBestSoFar();
+                    assertTrue(best == Bot.NO_MOVE || MoveGenerator.piece(best) == second.getCurrentPiece(),
+                        "a hint from the abandoned search was shown");
+                    move = delivered.poll(1, TimeUnit.MILLISECONDS);
+                }
+                assertTrue(isLegal(second, move));
+                assertEquals((int) move, hints.getBestSoFar());
+            }
+        } finally {
+            hints.shutdown();
+        }
+    }
+}
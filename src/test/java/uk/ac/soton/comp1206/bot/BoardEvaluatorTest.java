@@ -0,0 +1,43 @@
+package uk.ac.soton.comp1206.bot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.ac.soton.comp1206.engine.Tablebase;
+import uk.ac.soton.comp1206.game.GamePiece;
+
+class BoardEvaluatorTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void canPlayIsTheSameWithOrWithoutATablebase() throws IOException {
+        Path path = directory.resolve(Tablebase.fileName(4, 4));
+        Tablebase.write(path, 4, 4, Tablebase.generate(4, 4, ForkJoinPool.commonPool()));
+        BoardEvaluator withTable = new BoardEvaluator(4, 4, Heuristic.DEFAULT, Tablebase.open(path));
+        BoardEvaluator without = new BoardEvaluator(4, 4, Heuristic.DEFAULT, null);
+
+        SplittableRandom random = new SplittableRandom(16);
+        for (int trial = 0; trial < 2000; trial++) {
+            long occupied = random.nextLong() & random.nextLong() & 0xFFFF;
+            for (int piece = 0; piece < GamePiece.PIECES; piece++) {
+                assertEquals(without.canPlay(occupied, piece), withTable.canPlay(occupied, piece));
+            }
+        }
+    }
+
+    @Test
+    void rejectsATablebaseForAnotherSize() throws IOException {
+        Path path = directory.resolve(Tablebase.fileName(3, 3));
+        Tablebase.write(path, 3, 3, Tablebase.generate(3, 3, ForkJoinPool.commonPool()));
+        Tablebase tablebase = Tablebase.open(path);
+        assertThrows(IllegalArgumentException.class, () -> new BoardEvaluator(4, 4, Heuristic.DEFAULT, tablebase));
+    }
+}
@@ -0,0 +1,92 @@
+package uk.ac.soton.comp1206.bot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Properties;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+import uk.ac.soton.comp1206.engine.EngineFixtures;
+import uk.ac.soton.comp1206.engine.GameEngine;
+import uk.ac.soton.comp1206.engine.MoveGenerator;
+import uk.ac.soton.comp1206.engine.PropertiesRuleSet;
+import uk.ac.soton.comp1206.engine.RuleTable;
+import uk.ac.soton.comp1206.game.BitGrid;
+import uk.ac.soton.comp1206.game.PlacementTable;
+
+class GreedyBotTest {
+
+    /**
+     * Fill a board at random, leaving some room to play
+     */
+    private static void fill(GameEngine engine, SplittableRandom random) {
+        BitGrid grid = engine.getGrid();
+        for (int y = 0; y < grid.getRows(); y++) {
+            for (int x = 0; x < grid.getCols(); x++) {
+                if (random.nextInt(3) > 0) {
+                    grid.set(x, y, 1);
+                }
+            }
+        }
+        for (int y = 0; y < grid.getRows(); y++) {
+            if (grid.getRowCount(y) == grid.getCols()) {
+                grid.set(random.nextInt(grid.getCols()), y, 0);
+            }
+        }
+    }
+
+    /**
+     * Check whether a move clears any lines
+     */
+    private static boolean clears(GameEngine engine, int move) {
+        BitGrid grid = engine.getGrid();
+        PlacementTable table = PlacementTable.forSize(grid.getCols(), grid.getRows());
+        long placed = grid.getOccupied() | table.mask(MoveGenerator.shape(move),
+            MoveGenerator.y(move) * grid.getCols() + MoveGenerator.x(move));
+        return new BoardEvaluator(grid.getCols(), grid.getRows(), Heuristic.DEFAULT, null).fullLineBlocks(placed) != 0;
+    }
+
+    @Test
+    void scoresMovesByTheRulesOfTheGame() {
+        // Every clear costs points
+        Properties props = new Properties();
+        props.setProperty("points.lineBlock", "-1000");
+        RuleTable penalised = RuleTable.compile(new PropertiesRuleSet(props, "penalised"));
+
+        GreedyBot bot = new GreedyBot(5, 5, Heuristic.DEFAULT);
+        GreedyBot fresh = new GreedyBot(5, 5, Heuristic.DEFAULT);
+        SplittableRandom random = new SplittableRandom(24);
+        int[] moves = new int[MoveGenerator.maxMoves(5, 5)];
+        int standardClears = 0;
+        int compared = 0;
+        for (int trial = 0; trial < 300; trial++) {
+            long seed = random.nextLong();
+            GameEngine standard = EngineFixtures.newGame(5, 5, seed);
+            GameEngine variant = EngineFixtures.newGame(penalised, seed);
+            fill(standard, new SplittableRandom(seed));
+            fill(variant, new SplittableRandom(seed));
+
+            int count = variant.generateMoves(moves);
+            boolean canAvoid = false;
+            boolean canClear = false;
+            for (int i = 0; i < count; i++) {
+                if (MoveGenerator.slot(moves[i]) != MoveGenerator.SLOT_NEXT) {
+                    boolean clear = clears(variant, moves[i]);
+                    canAvoid |= !clear;
+                    canClear |= clear;
+                }
+            }
+            if (!canAvoid || !canClear) {
+                continue;
+            }
+            compared++;
+
+            int move = bot.chooseMove(variant.snapshot());
+            assertTrue(!clears(variant, move), "cleared a line under rules which penalise it");
+            int standardMove = bot.chooseMove(standard.snapshot());
+            assertEquals(fresh.chooseMove(standard.snapshot()), standardMove);
+            standardClears += clears(standard, standardMove) ? 1 : 0;
+        }
+        assertTrue(compared > 20 && standardClears > 5, "too few positions where the rules matter to be a test");
+    }
+}
@@ -0,0 +1,68 @@
+package uk.ac.soton.comp1206.bot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import uk.ac.soton.comp1206.engine.EngineFixtures;
+import uk.ac.soton.comp1206.engine.GameEngine;
+import uk.ac.soton.comp1206.engine.MoveGenerator;
+import uk.ac.soton.comp1206.game.BitGrid;
+
+class MctsBotTest {
+
+    private final ForkJoinPool pool = new ForkJoinPool(2);
+
+    @AfterEach
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void choosesALegalMoveWithinTheNodeBudget() {
+        int budget = 4096;
+        MctsBot bot = new MctsBot(Heuristic.DEFAULT, budget, 20, 2, true, pool);
+        int[] moves = new int[MoveGenerator.maxMoves(5, 5)];
+        GameEngine engine = EngineFixtures.newGame(5, 5, 7);
+        EngineFixtures.playout(engine, 30, e -> {
+            int count = e.generateMoves(moves);
+            int move = bot.chooseMove(e.snapshot());
+            assertTrue(bot.getLastNodes() <= budget);
+            if (move == Bot.NO_MOVE) {
+                for (int i = 0; i < count; i++) {
+                    assertTrue(MoveGenerator.slot(moves[i]) == MoveGenerator.SLOT_NEXT, "a playable move was missed");
+                }
+                return move;
+            }
+            assertTrue(MoveGenerator.slot(move) != MoveGenerator.SLOT_NEXT);
+            boolean listed = false;
+            for (int i = 0; i < count; i++) {
+                listed |= moves[i] == move;
+            }
+            assertTrue(listed, "illegal move " + Integer.toHexString(move));
+            return move;
+        });
+    }
+
+    @Test
+    void findsNoMoveOnAFullBoard() {
+        MctsBot bot = new MctsBot(Heuristic.DEFAULT, 4096, 20, 2, false, pool);
+        GameEngine engine = EngineFixtures.newGame(5, 5, 8);
+        BitGrid grid = engine.getGrid();
+        for (int y = 0; y < grid.getRows(); y++) {
+            for (int x = 0; x < grid.getCols(); x++) {
+                grid.set(x, y, 1);
+            }
+        }
+        assertEquals(Bot.NO_MOVE, bot.chooseMove(engine.snapshot()));
+        assertEquals(0, bot.getLastIterations());
+    }
+
+    @Test
+    void rejectsABudgetTooSmallForTheRoot() {
+        assertThrows(IllegalArgumentException.class, () -> new MctsBot(Heuristic.DEFAULT, 16, 20, 1, true, pool));
+    }
+}
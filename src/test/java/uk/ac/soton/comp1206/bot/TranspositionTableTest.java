@@ -0,0 +1,98 @@
+package uk.ac.soton.comp1206.bot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class TranspositionTableTest {
+
+    @Test
+    void packedDataRoundTrips() {
+        long data = TranspositionTable.pack(-12.5f, 31, 0x3FFFFFF);
+        assertNotEquals(TranspositionTable.MISS, data);
+        assertEquals(-12.5f, TranspositionTable.value(data));
+        assertEquals(31, TranspositionTable.depth(data));
+        assertEquals(0x3FFFFFF, TranspositionTable.move(data));
+        assertNotEquals(TranspositionTable.MISS, TranspositionTable.pack(0, 0, 0));
+    }
+
+    @Test
+    void storedKeysAreFoundAndOthersMiss() {
+        TranspositionTable table = new TranspositionTable(1000);
+        assertEquals(1024, table.size());
+        SplittableRandom random = new SplittableRandom(3);
+        long[] keys = new long[256];
+        for (int i = 0; i < keys.length; i++) {
+            // Random keys, but spaced so that no two compete for an entry
+            keys[i] = random.nextLong() & ~1023L | 4L * i;
+            table.store(keys[i], TranspositionTable.pack(i, 1, i));
+        }
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(i, TranspositionTable.move(table.probe(keys[i])));
+        }
+        assertEquals(TranspositionTable.MISS, table.probe(random.nextLong()));
+
+        // Storing a key again replaces its entry
+        table.store(keys[0], TranspositionTable.pack(1, 2, 99));
+        assertEquals(99, TranspositionTable.move(table.probe(keys[0])));
+
+        table.clear();
+        assertEquals(TranspositionTable.MISS, table.probe(keys[1]));
+    }
+
+    @Test
+    void aFullBucketGivesUpItsShallowestEntry() {
+        TranspositionTable table = new TranspositionTable(16);
+        // Five keys that all start at entry 0, so the fifth must replace one of the first four
+        for (int i = 0; i < 4; i++) {
+            table.store((long) i << 32, TranspositionTable.pack(0, i == 2 ? 1 : 10, i));
+        }
+        table.store(4L << 32, TranspositionTable.pack(0, 5, 4));
+        assertEquals(TranspositionTable.MISS, table.probe(2L << 32));
+        for (int i : new int[] {0, 1, 3, 4}) {
+            assertEquals(i, TranspositionTable.move(table.probe((long) i << 32)));
+        }
+    }
+
+    @Test
+    void racingWritersNeverProduceWrongData() throws InterruptedException {
+        TranspositionTable table = new TranspositionTable(64);
+        AtomicInteger wrong = new AtomicInteger();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            long seed = t;
+            threads[t] = new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(seed);
+                for (int i = 0; i < 200_000; i++) {
+                    // Every key is stored with data derived from it, so any hit can be checked
+                    int number = random.nextInt(1 << 12);
+                    long key = number * 0x9e3779b97f4a7c15L;
+                    if (random.nextBoolean()) {
+                        table.store(key, TranspositionTable.pack(number, number & 0x1F, number));
+                    } else {
+                        long data = table.probe(key);
+                        if (data != TranspositionTable.MISS && (TranspositionTable.move(data) != number
+                            || TranspositionTable.value(data) != number)) {
+                            wrong.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, wrong.get());
+    }
+
+    @Test
+    void rejectsUnsupportedSizes() {
+        assertThrows(IllegalArgumentException.class, () -> new TranspositionTable(0));
+        assertThrows(IllegalArgumentException.class, () -> new TranspositionTable((1 << 29) + 1));
+    }
+}
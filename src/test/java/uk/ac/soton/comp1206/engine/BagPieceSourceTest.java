@@ -0,0 +1,64 @@
+package uk.ac.soton.comp1206.engine;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static uk.ac.soton.comp1206.engine.RandomPieceSourceTest.deal;
+
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import uk.ac.soton.comp1206.game.GamePiece;
+
+class BagPieceSourceTest {
+
+    @Test
+    void everyBagDealsEveryPieceOnce() {
+        BagPieceSource source = new BagPieceSource(8);
+        int[] ordered = new int[GamePiece.PIECES];
+        Arrays.setAll(ordered, i -> i);
+        int[] first = null;
+        boolean reshuffled = false;
+        for (int bag = 0; bag < 100; bag++) {
+            int[] pieces = deal(source, GamePiece.PIECES);
+            if (first == null) {
+                first = pieces.clone();
+            } else if (!Arrays.equals(first, pieces)) {
+                reshuffled = true;
+            }
+            Arrays.sort(pieces);
+            assertArrayEquals(ordered, pieces);
+        }
+        assertTrue(reshuffled);
+    }
+
+    @Test
+    void theSameSeedDealsTheSamePieces() {
+        assertArrayEquals(deal(new BagPieceSource(42), 1000), deal(new BagPieceSource(42), 1000));
+        assertFalse(Arrays.equals(deal(new BagPieceSource(42), 1000), deal(new BagPieceSource(43), 1000)));
+    }
+
+    @Test
+    void aStateRestoredAnywhereInABagDealsTheSamePiecesAgain() {
+        BagPieceSource source = new BagPieceSource(3);
+        assertTrue(source.isRestorable());
+        int[] expected = deal(new BagPieceSource(3), 200);
+
+        // Every position of the first three bags, including the state before the first bag is shuffled
+        for (int dealt = 0; dealt <= 3 * GamePiece.PIECES; dealt++) {
+            long state = source.getState();
+            int[] rest = Arrays.copyOfRange(expected, dealt, dealt + 100);
+
+            BagPieceSource fresh = new BagPieceSource(3);
+            fresh.setState(state);
+            assertArrayEquals(rest, deal(fresh, 100), "restored fresh after " + dealt);
+
+            // Restoring into a source which has moved on, to another bag or none, reshuffles the right bag
+            BagPieceSource used = new BagPieceSource(3);
+            deal(used, 77);
+            used.setState(state);
+            assertArrayEquals(rest, deal(used, 100), "restored used after " + dealt);
+
+            source.nextPiece();
+        }
+    }
+}
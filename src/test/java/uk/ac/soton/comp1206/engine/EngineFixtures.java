@@ -0,0 +1,87 @@
+package uk.ac.soton.comp1206.engine;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+import java.util.function.IntConsumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * Seeded games and playouts shared by the engine, game and bot tests
+ */
+public final class EngineFixtures {
+
+    private EngineFixtures() {
+    }
+
+    /**
+     * Start a game by the standard rules, dealing seeded random pieces
+     * @param cols number of columns
+     * @param rows number of rows
+     * @param seed the seed of the pieces
+     * @return the engine, with its queue filled
+     */
+    public static GameEngine newGame(int cols, int rows, long seed) {
+        return newGame(RuleTable.standard(cols, rows), seed);
+    }
+
+    /**
+     * Start a game by a set of rules, dealing seeded random pieces
+     * @param rules the compiled rules
+     * @param seed the seed of the pieces
+     * @return the engine, with its queue filled
+     */
+    public static GameEngine newGame(RuleTable rules, long seed) {
+        GameEngine engine = new GameEngine(rules, new RandomPieceSource(seed));
+        engine.fillQueue();
+        return engine;
+    }
+
+    /**
+     * Play turns chosen by a player until the turns or the lives run out. A turn with no move lets the timer run out.
+     * @param engine the engine
+     * @param turns the most turns to play
+     * @param player chooses the move for each turn, seeing the engine before it is played, or a negative number
+     *     (Bot.NO_MOVE) for none
+     * @return the number of turns the timer ran out on
+     */
+    public static int playout(GameEngine engine, int turns, ToIntFunction<GameEngine> player) {
+        int timeouts = 0;
+        for (int turn = 0; turn < turns && !engine.isGameOver(); turn++) {
+            int move = player.applyAsInt(engine);
+            if (move < 0) {
+                timeouts++;
+                engine.tick();
+            } else {
+                assertTrue(engine.playMove(move), "illegal move " + Integer.toHexString(move));
+            }
+        }
+        return timeouts;
+    }
+
+    /**
+     * Play uniformly random legal moves of the current or following piece until the turns or the lives run out,
+     * letting the timer run out when neither fits
+     * @param engine the engine
+     * @param seed the seed of the moves
+     * @param turns the most turns to play
+     * @param perTurn called with the number of each turn, before its move is chosen
+     * @return the number of turns the timer ran out on
+     */
+    public static int randomPlayout(GameEngine engine, long seed, int turns, IntConsumer perTurn) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] moves = new int[MoveGenerator.maxMoves(engine.getCols(), engine.getRows())];
+        int[] turn = new int[1];
+        return playout(engine, turns, e -> {
+            perTurn.accept(turn[0]++);
+            int count = e.generateMoves(moves);
+            int playable = 0;
+            for (int i = 0; i < count; i++) {
+                if (MoveGenerator.slot(moves[i]) != MoveGenerator.SLOT_NEXT) {
+                    moves[playable++] = moves[i];
+                }
+            }
+            return playable == 0 ? -1 : moves[random.nextInt(playable)];
+        });
+    }
+}
@@ -0,0 +1,217 @@
+package uk.ac.soton.comp1206.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class GameEngineTest {
+
+    /**
+     * The piece number of the Dot, a single block centred on where it is played
+     */
+    private static final int DOT = 3;
+
+    @Test
+    void aFullRowIsOneLine() {
+        GameEngine engine = new GameEngine(5, 5, new ScriptedPieceSource(DOT));
+        engine.fillQueue();
+        for (int x = 0; x < 4; x++) {
+            assertTrue(engine.play(x, 0));
+        }
+        assertEquals(0, engine.getScore());
+
+        // One line of five blocks, not one line for every row and column the blocks are in
+        assertTrue(engine.play(4, 0));
+        assertEquals(1, engine.getClearResult().getLineCount());
+        assertEquals(5, engine.getClearResult().getBlockCount());
+        assertEquals(1 * 5 * 10, engine.getScore());
+    }
+
+    @Test
+    void aRowAndAColumnTogetherAreTwoLines() {
+        GameEngine engine = new GameEngine(5, 5, new ScriptedPieceSource(DOT));
+        engine.fillQueue();
+        for (int i = 0; i < 4; i++) {
+            assertTrue(engine.play(i, 0));
+            assertTrue(engine.play(4, i + 1));
+        }
+        assertEquals(0, engine.getScore());
+
+        // The block they share is only cleared, and counted, once
+        assertTrue(engine.play(4, 0));
+        assertEquals(2, engine.getClearResult().getLineCount());
+        assertEquals(9, engine.getClearResult().getBlockCount());
+        assertEquals(2 * 9 * 10, engine.getScore());
+    }
+
+    @Test
+    void theQueueIsDealtInOrder() {
+        GameEngine engine = new GameEngine(5, 5, new ScriptedPieceSource(0, 1, 2, 3, 4));
+        assertEquals(GameEngine.EMPTY, engine.getCurrentShape());
+        assertFalse(engine.canPlay(2, 2));
+
+        // The first piece dealt goes to the back of the queue
+        engine.fillQueue();
+        assertQueue(engine, 2, 1, 0);
+        engine.nextPiece();
+        assertQueue(engine, 1, 0, 3);
+        assertTrue(engine.play(2, 2));
+        assertQueue(engine, 0, 3, 4);
+        assertTrue(engine.tick());
+        assertQueue(engine, 3, 4, 0);
+    }
+
+    @Test
+    void rotateWrapsAroundAndSwapKeepsRotations() {
+        GameEngine engine = new GameEngine(5, 5, new ScriptedPieceSource(5, 6, 7));
+        engine.rotate();
+        engine.swap();
+        assertEquals(GameEngine.EMPTY, engine.getCurrentShape());
+
+        engine.fillQueue();
+        engine.rotate();
+        assertEquals(7 * 4 + 1, engine.getCurrentShape());
+        engine.rotate(3);
+        assertEquals(7 * 4, engine.getCurrentShape());
+        engine.rotate(-1);
+        assertEquals(7 * 4 + 3, engine.getCurrentShape());
+        engine.rotate(10);
+        assertEquals(7, engine.getCurrentPiece());
+        assertEquals(1, engine.getCurrentRotation());
+
+        engine.swap();
+        assertEquals(5 * 4, engine.getCurrentShape());
+        assertEquals(7 * 4 + 1, engine.getFollowingShape());
+        engine.rotate(2);
+        engine.swap();
+        assertEquals(7 * 4 + 1, engine.getCurrentShape());
+        assertEquals(6 * 4, engine.getNextShape());
+        assertEquals(5 * 4 + 2, engine.getFollowingShape());
+    }
+
+    @Test
+    void placeAndResolveEndWhereAPlayDoes() {
+        GameEngine played = fourDotsInRowZero();
+        GameEngine placed = fourDotsInRowZero();
+        assertTrue(played.play(4, 0));
+
+        assertTrue(placed.place(4, 0));
+        assertTrue(placed.isPlaced());
+        assertFalse(placed.place(0, 4));
+        assertEquals(1, placed.getClearResult().getLineCount());
+        // The line stays on the board, and is not scored, until it is resolved
+        assertEquals(0b11111L, placed.getGrid().getOccupied());
+        assertEquals(0, placed.getScore());
+
+        placed.resolve();
+        assertFalse(placed.isPlaced());
+        assertEquals(0, placed.getGrid().getOccupied());
+        assertEquals(50, placed.getScore());
+        placed.nextPiece();
+
+        assertEquals(played.getHash(), placed.getHash());
+        assertEquals(played.getScore(), placed.getScore());
+        assertEquals(played.getMultiplier(), placed.getMultiplier());
+
+        // Resolving again does nothing
+        placed.resolve();
+        assertEquals(50, placed.getScore());
+    }
+
+    @Test
+    void theMultiplierGrowsWithEachClearAndResetsOnAMissOrALostLife() {
+        GameEngine engine = new GameEngine(5, 5, new ScriptedPieceSource(DOT));
+        engine.fillQueue();
+        for (int y = 0; y < 3; y++) {
+            for (int x = 0; x < 4; x++) {
+                assertTrue(engine.play(x, y));
+                assertEquals(1, engine.getMultiplier());
+            }
+        }
+
+        assertTrue(engine.play(4, 0));
+        assertEquals(50, engine.getScore());
+        assertEquals(2, engine.getMultiplier());
+        assertTrue(engine.play(4, 1));
+        assertEquals(50 + 50 * 2, engine.getScore());
+        assertEquals(3, engine.getMultiplier());
+
+        assertTrue(engine.loseLife());
+        assertEquals(1, engine.getMultiplier());
+        assertTrue(engine.play(4, 2));
+        assertEquals(50 + 50 * 2 + 50, engine.getScore());
+        assertEquals(2, engine.getMultiplier());
+
+        assertTrue(engine.play(0, 0));
+        assertEquals(1, engine.getMultiplier());
+        assertEquals(200, engine.getScore());
+    }
+
+    @Test
+    void theLevelFollowsTheScore() {
+        GameEngine engine = new GameEngine(5, 5, new ScriptedPieceSource(DOT));
+        engine.fillQueue();
+        assertEquals(0, engine.getLevel());
+        assertEquals(12000, engine.getTimerDelay());
+
+        // Every clear of row 0 follows four misses, so scores 50 at a multiplier of 1
+        for (int move = 0; move < 125; move++) {
+            assertTrue(engine.play(move % 5, 0));
+            assertEquals(engine.getScore() / 1000, engine.getLevel());
+            assertEquals(Math.max(2500, 12000 - 500 * engine.getLevel()), engine.getTimerDelay());
+        }
+        assertEquals(25 * 50, engine.getScore());
+        assertEquals(1, engine.getLevel());
+        assertEquals(11500, engine.getTimerDelay());
+    }
+
+    @Test
+    void tickingOutEveryLifeEndsTheGame() {
+        GameEngine engine = new GameEngine(5, 5, new ScriptedPieceSource(0, 1, 2, 3, 4));
+        engine.fillQueue();
+        assertEquals(GameEngine.STARTING_LIVES, engine.getLives());
+
+        // Losing a life on its own keeps the current piece
+        assertTrue(engine.loseLife());
+        assertEquals(2, engine.getLives());
+        assertQueue(engine, 2, 1, 0);
+
+        assertTrue(engine.tick());
+        assertEquals(1, engine.getLives());
+        assertQueue(engine, 1, 0, 3);
+        assertFalse(engine.isGameOver());
+
+        assertFalse(engine.tick());
+        assertEquals(0, engine.getLives());
+        assertTrue(engine.isGameOver());
+        assertQueue(engine, 1, 0, 3);
+    }
+
+    /**
+     * Make an engine dealing Dots, with the first four blocks of row 0 filled
+     * @return the engine, with no score
+     */
+    private static GameEngine fourDotsInRowZero() {
+        GameEngine engine = new GameEngine(5, 5, new ScriptedPieceSource(DOT));
+        engine.fillQueue();
+        for (int x = 0; x < 4; x++) {
+            assertTrue(engine.play(x, 0));
+        }
+        return engine;
+    }
+
+    /**
+     * Check the unrotated pieces in the queue
+     * @param engine the engine
+     * @param current the piece number of the current piece
+     * @param next the piece number of the next piece
+     * @param following the piece number of the following piece
+     */
+    private static void assertQueue(GameEngine engine, int current, int next, int following) {
+        assertEquals(current * 4, engine.getCurrentShape());
+        assertEquals(next * 4, engine.getNextShape());
+        assertEquals(following * 4, engine.getFollowingShape());
+    }
+}
@@ -0,0 +1,111 @@
+package uk.ac.soton.comp1206.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+import uk.ac.soton.comp1206.game.BitGrid;
+
+class GameHistoryTest {
+
+    /**
+     * Describe everything a snapshot should bring back
+     */
+    private static String describe(GameEngine engine) {
+        BitGrid grid = engine.getGrid();
+        StringBuilder builder = new StringBuilder();
+        for (int y = 0; y < grid.getRows(); y++) {
+            for (int x = 0; x < grid.getCols(); x++) {
+                builder.append(Integer.toHexString(grid.get(x, y)));
+            }
+        }
+        for (int y = 0; y < grid.getRows(); y++) {
+            builder.append(' ').append(grid.getRowCount(y));
+        }
+        return builder.append(' ').append(engine.getCurrentShape()).append(' ').append(engine.getNextShape())
+            .append(' ').append(engine.getFollowingShape()).append(' ').append(engine.getScore())
+            .append(' ').append(engine.getLevel()).append(' ').append(engine.getLives())
+            .append(' ').append(engine.getMultiplier()).append(' ').append(engine.getHash()).toString();
+    }
+
+    @Test
+    void undoBringsBackEveryEarlierState() {
+        SplittableRandom random = new SplittableRandom(10);
+        GameEngine engine = EngineFixtures.newGame(5, 5, 10);
+        GameHistory history = new GameHistory(engine, 64);
+        List<String> states = new ArrayList<>();
+
+        for (int round = 0; round < 10; round++) {
+            EngineFixtures.randomPlayout(engine, random.nextLong(), 20, turn -> {
+                history.record();
+                states.add(describe(engine));
+            });
+            int steps = random.nextInt(1, Math.min(history.size(), 8) + 1);
+            history.rewind(steps);
+            for (int i = 0; i < steps - 1; i++) {
+                states.remove(states.size() - 1);
+            }
+            assertEquals(states.remove(states.size() - 1), describe(engine));
+            assertEquals(states.size(), history.size());
+        }
+        while (history.size() > 0) {
+            history.undo();
+            assertEquals(states.remove(states.size() - 1), describe(engine));
+        }
+        assertNull(history.undo());
+    }
+
+    @Test
+    void aFullHistoryForgetsTheOldest() {
+        GameEngine engine = EngineFixtures.newGame(5, 5, 11);
+        GameHistory history = new GameHistory(engine, 4);
+        List<String> states = new ArrayList<>();
+        EngineFixtures.randomPlayout(engine, 11, 10, turn -> {
+            history.record();
+            states.add(describe(engine));
+        });
+        assertEquals(10, states.size());
+        assertEquals(4, history.size());
+        assertNull(history.rewind(5));
+        history.rewind(4);
+        assertEquals(states.get(6), describe(engine));
+    }
+
+    @Test
+    void restoringRewindsThePieceSource() {
+        GameEngine engine = EngineFixtures.newGame(5, 5, 12);
+        GameState start = engine.snapshot();
+        StringBuilder first = new StringBuilder();
+        for (int move = 0; move < 30; move++) {
+            first.append(engine.getFollowingShape()).append(',');
+            engine.nextPiece();
+        }
+        engine.restore(start);
+        StringBuilder second = new StringBuilder();
+        for (int move = 0; move < 30; move++) {
+            second.append(engine.getFollowingShape()).append(',');
+            engine.nextPiece();
+        }
+        assertEquals(first.toString(), second.toString());
+    }
+
+    @Test
+    void onlyBoardsOfUpTo64BlocksCanBeSnapshotted() {
+        GameEngine small = EngineFixtures.newGame(8, 8, 12);
+        assertTrue(small.canSnapshot());
+        GameState state = small.snapshot();
+
+        GameEngine wide = EngineFixtures.newGame(64, 64, 12);
+        assertFalse(wide.canSnapshot());
+        assertThrows(IllegalStateException.class, wide::snapshot);
+        assertThrows(IllegalArgumentException.class, () -> wide.restore(state));
+        assertThrows(IllegalArgumentException.class, () -> new GameHistory(wide, 8));
+        assertTrue(wide.play(32, 32), "a wide game still plays");
+    }
+}
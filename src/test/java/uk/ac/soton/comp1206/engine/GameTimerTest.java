@@ -0,0 +1,80 @@
+package uk.ac.soton.comp1206.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class GameTimerTest {
+
+    @Test
+    void losesALifeEachTimeTheDelayRunsOut() {
+        VirtualClock clock = new VirtualClock();
+        GameEngine engine = new GameEngine(5, 5, new RandomPieceSource(22));
+        engine.fillQueue();
+        AtomicInteger calls = new AtomicInteger();
+        GameTimer timer = new GameTimer(engine, clock, calls::incrementAndGet);
+        int lives = engine.getLives();
+        int delay = engine.getTimerDelay();
+        int next = engine.getNextShape();
+
+        timer.start();
+        clock.advance(delay - 1);
+        assertEquals(0, timer.getTimeouts());
+        assertEquals(lives, engine.getLives());
+        clock.advance(1);
+        assertEquals(1, timer.getTimeouts());
+        assertEquals(1, calls.get());
+        assertEquals(lives - 1, engine.getLives());
+        assertEquals(next, engine.getCurrentShape());
+
+        // The next piece gets a whole new delay
+        clock.advance(delay - 1);
+        assertEquals(1, timer.getTimeouts());
+        clock.advance(1);
+        assertEquals(2, timer.getTimeouts());
+    }
+
+    @Test
+    void resetRestartsTheDelay() {
+        VirtualClock clock = new VirtualClock();
+        GameEngine engine = new GameEngine(5, 5, new RandomPieceSource(23));
+        engine.fillQueue();
+        GameTimer timer = new GameTimer(engine, clock, null);
+        int delay = engine.getTimerDelay();
+
+        timer.start();
+        for (int i = 0; i < 10; i++) {
+            clock.advance(delay - 1);
+            timer.reset();
+        }
+        assertEquals(0, timer.getTimeouts());
+        clock.advance(delay);
+        assertEquals(1, timer.getTimeouts());
+    }
+
+    @Test
+    void stopsWhenStoppedOrWhenTheGameEnds() {
+        VirtualClock clock = new VirtualClock();
+        GameEngine engine = new GameEngine(5, 5, new RandomPieceSource(24));
+        engine.fillQueue();
+        GameTimer timer = new GameTimer(engine, clock, null);
+
+        timer.start();
+        timer.stop();
+        timer.reset();
+        assertFalse(clock.advanceToNext());
+        assertEquals(0, timer.getTimeouts());
+
+        int lives = engine.getLives();
+        timer.start();
+        while (clock.advanceToNext()) {
+            assertTrue(timer.getTimeouts() <= lives);
+        }
+        assertEquals(lives, timer.getTimeouts());
+        assertTrue(engine.isGameOver());
+        assertEquals(0, clock.getPending());
+    }
+}
@@ -0,0 +1,97 @@
+package uk.ac.soton.comp1206.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import uk.ac.soton.comp1206.game.BitGrid;
+import uk.ac.soton.comp1206.game.GamePiece;
+
+class MoveGeneratorTest {
+
+    /**
+     * List the distinct placements of a piece by trying every rotation at every block
+     */
+    private static Set<Long> bruteForce(BitGrid grid, int piece) {
+        Set<Long> placements = new HashSet<>();
+        for (int rotation = 0; rotation < GamePiece.ROTATIONS; rotation++) {
+            for (int y = 0; y < grid.getRows(); y++) {
+                for (int x = 0; x < grid.getCols(); x++) {
+                    if (grid.canPlay(piece, rotation, x, y)) {
+                        placements.add(grid.getPlacements().mask(piece, rotation, x, y));
+                    }
+                }
+            }
+        }
+        return placements;
+    }
+
+    /**
+     * Collect the placement masks of the moves of one slot, checking no placement is listed twice
+     */
+    private static Set<Long> placements(BitGrid grid, int[] moves, int count, int slot) {
+        Set<Long> placements = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            if (MoveGenerator.slot(move) == slot) {
+                long mask = grid.getPlacements().mask(MoveGenerator.piece(move), MoveGenerator.rotation(move),
+                    MoveGenerator.x(move), MoveGenerator.y(move));
+                assertTrue(placements.add(mask), "placement listed twice");
+            }
+        }
+        return placements;
+    }
+
+    @Test
+    void generatesExactlyTheLegalPlacements() {
+        int[] moves = new int[MoveGenerator.maxMoves(5, 5)];
+        int[] tableMoves = new int[MoveGenerator.maxMoves(5, 5)];
+        for (int game = 0; game < 20; game++) {
+            GameEngine engine = EngineFixtures.newGame(5, 5, game);
+            EngineFixtures.randomPlayout(engine, game, 40, turn -> {
+                BitGrid grid = engine.getGrid();
+                int count = engine.generateMoves(moves);
+
+                int current = engine.getCurrentPiece();
+                int following = engine.getFollowingShape() / GamePiece.ROTATIONS;
+                int next = engine.getNextShape() / GamePiece.ROTATIONS;
+                assertEquals(bruteForce(grid, current), placements(grid, moves, count, MoveGenerator.SLOT_CURRENT));
+                assertEquals(bruteForce(grid, next), placements(grid, moves, count, MoveGenerator.SLOT_NEXT));
+                assertEquals(following == current ? Set.of() : bruteForce(grid, following),
+                    placements(grid, moves, count, MoveGenerator.SLOT_FOLLOWING));
+
+                // Generating from the occupancy word alone gives the same moves for a piece
+                int fromGrid = MoveGenerator.generate(grid, current, MoveGenerator.SLOT_CURRENT, tableMoves, 0);
+                int fromTable = MoveGenerator.generate(grid.getPlacements(), grid.getOccupied(), current,
+                    MoveGenerator.SLOT_CURRENT, moves, 0);
+                assertEquals(placements(grid, tableMoves, fromGrid, 0), placements(grid, moves, fromTable, 0));
+            });
+        }
+    }
+
+    @Test
+    void everyCurrentAndFollowingMoveCanBePlayed() {
+        GameEngine engine = EngineFixtures.newGame(5, 5, 9);
+        engine.play(2, 2);
+        int[] moves = new int[MoveGenerator.maxMoves(5, 5)];
+        int count = engine.generateMoves(moves);
+        GameState start = engine.snapshot();
+        for (int i = 0; i < count; i++) {
+            engine.restore(start);
+            boolean playable = MoveGenerator.slot(moves[i]) != MoveGenerator.SLOT_NEXT;
+            assertEquals(playable, engine.playMove(moves[i]));
+        }
+    }
+
+    @Test
+    void packsAndUnpacks() {
+        int move = MoveGenerator.pack(MoveGenerator.SLOT_FOLLOWING, 13 * 4 + 3, 7, 11);
+        assertEquals(MoveGenerator.SLOT_FOLLOWING, MoveGenerator.slot(move));
+        assertEquals(13, MoveGenerator.piece(move));
+        assertEquals(3, MoveGenerator.rotation(move));
+        assertEquals(7, MoveGenerator.x(move));
+        assertEquals(11, MoveGenerator.y(move));
+    }
+}
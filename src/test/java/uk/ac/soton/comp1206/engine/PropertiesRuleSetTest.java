@@ -0,0 +1,88 @@
+package uk.ac.soton.comp1206.engine;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PropertiesRuleSetTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void loadReadsEveryKey() throws IOException {
+        Path file = dir.resolve("variant.properties");
+        Files.writeString(file, String.join("\n",
+            "name=blitz",
+            "cols=6",
+            "rows=4",
+            "pieces=0, 3,14",
+            "lives=5",
+            "points.lineBlock=2",
+            "points.line=7",
+            "points.block=1",
+            "multiplier.step=3",
+            "multiplier.max=9",
+            "multiplier.decay=128",
+            "level.score=400",
+            "delay.start=6000",
+            "delay.step=1000",
+            "delay.min=1500"));
+
+        RuleSet rules = PropertiesRuleSet.load(file);
+        assertEquals("blitz", rules.getName());
+        assertEquals(6, rules.getCols());
+        assertEquals(4, rules.getRows());
+        assertArrayEquals(new int[] {0, 3, 14}, rules.getPieces());
+        assertEquals(5, rules.getStartingLives());
+        assertEquals(2 * 3 * 10 + 7 * 3 + 10, rules.getPoints(3, 10));
+        assertEquals(3, rules.getMultiplierStep());
+        assertEquals(9, rules.getMaxMultiplier());
+        assertEquals(128, rules.getMultiplierDecay());
+        assertEquals(400, rules.getLevelScore());
+        assertEquals(6000, rules.getTimerDelay(0));
+        assertEquals(2000, rules.getTimerDelay(4));
+        assertEquals(1500, rules.getTimerDelay(20));
+    }
+
+    @Test
+    void missingKeysKeepTheStandardRules() throws IOException {
+        Path file = dir.resolve("empty.properties");
+        Files.writeString(file, "# nothing changed\n");
+
+        RuleSet rules = PropertiesRuleSet.load(file);
+        RuleSet standard = new StandardRules();
+        // Named after the file, without its extension
+        assertEquals("empty", rules.getName());
+        assertEquals(standard.getCols(), rules.getCols());
+        assertEquals(standard.getRows(), rules.getRows());
+        assertArrayEquals(standard.getPieces(), rules.getPieces());
+        assertEquals(standard.getStartingLives(), rules.getStartingLives());
+        for (int lines = 1; lines <= 10; lines++) {
+            for (int blocks = lines; blocks <= 25; blocks++) {
+                assertEquals(standard.getPoints(lines, blocks), rules.getPoints(lines, blocks));
+            }
+        }
+        assertEquals(standard.getMultiplierStep(), rules.getMultiplierStep());
+        assertEquals(standard.getMaxMultiplier(), rules.getMaxMultiplier());
+        assertEquals(standard.getMultiplierDecay(), rules.getMultiplierDecay());
+        assertEquals(standard.getLevelScore(), rules.getLevelScore());
+        for (int level = 0; level < RuleTable.LEVELS; level++) {
+            assertEquals(standard.getTimerDelay(level), rules.getTimerDelay(level));
+        }
+    }
+
+    @Test
+    void badFilesAreRejected() throws IOException {
+        Path file = dir.resolve("bad.properties");
+        Files.writeString(file, "cols=five\n");
+        assertThrows(IllegalArgumentException.class, () -> PropertiesRuleSet.load(file));
+        assertThrows(IOException.class, () -> PropertiesRuleSet.load(dir.resolve("missing.properties")));
+    }
+}
@@ -0,0 +1,37 @@
+package uk.ac.soton.comp1206.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayDeque;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+class QueuedPieceSourceTest {
+
+    @Test
+    void dealsInOrderAcrossWrapsAndGrowth() {
+        SplittableRandom random = new SplittableRandom(3);
+        QueuedPieceSource source = new QueuedPieceSource();
+        ArrayDeque<Integer> expected = new ArrayDeque<>();
+        for (int i = 0; i < 5000; i++) {
+            // Add a little more than is taken, so the ring wraps many times and grows while wrapped
+            if (random.nextInt(5) < 3) {
+                int piece = random.nextInt(15);
+                source.add(piece);
+                expected.add(piece);
+            } else if (!expected.isEmpty()) {
+                assertEquals(expected.poll(), source.nextPiece());
+            }
+            assertEquals(expected.size(), source.size());
+        }
+    }
+
+    @Test
+    void dealsTheFallbackWhenEmpty() {
+        QueuedPieceSource source = new QueuedPieceSource();
+        int[] asked = new int[1];
+        source.setOnEmpty(() -> asked[0]++);
+        assertEquals(QueuedPieceSource.FALLBACK_PIECE, source.nextPiece());
+        assertEquals(1, asked[0]);
+    }
+}
@@ -0,0 +1,82 @@
+package uk.ac.soton.comp1206.engine;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import uk.ac.soton.comp1206.game.GamePiece;
+
+class RandomPieceSourceTest {
+
+    @Test
+    void theSameSeedDealsTheSamePieces() {
+        assertArrayEquals(deal(new RandomPieceSource(42), 1000), deal(new RandomPieceSource(42), 1000));
+        assertFalse(Arrays.equals(deal(new RandomPieceSource(42), 1000), deal(new RandomPieceSource(43), 1000)));
+    }
+
+    @Test
+    void everyPieceIsDealtEvenly() {
+        RandomPieceSource source = new RandomPieceSource(7);
+        int[] counts = new int[GamePiece.PIECES];
+        for (int i = 0; i < 150_000; i++) {
+            counts[source.nextPiece()]++;
+        }
+        for (int count : counts) {
+            assertTrue(Math.abs(count - 10_000) < 500, "count " + count);
+        }
+    }
+
+    @Test
+    void aRestoredStateDealsTheSamePiecesAgain() {
+        RandomPieceSource source = new RandomPieceSource(5);
+        assertTrue(source.isRestorable());
+        deal(source, 37);
+        long state = source.getState();
+        int[] expected = deal(source, 200);
+
+        source.setState(state);
+        assertArrayEquals(expected, deal(source, 200));
+
+        // The state is the whole of the position, whatever the seed of the source it is restored into
+        RandomPieceSource other = new RandomPieceSource(99);
+        other.setState(state);
+        assertArrayEquals(expected, deal(other, 200));
+    }
+
+    @Test
+    void aSubsetDealsOnlyItsPieces() {
+        RandomPieceSource source = new RandomPieceSource(11, new int[] {2, 7, 7});
+        int[] counts = new int[GamePiece.PIECES];
+        for (int i = 0; i < 30_000; i++) {
+            counts[source.nextPiece()]++;
+        }
+        // A piece listed twice is dealt twice as often
+        assertEquals(30_000, counts[2] + counts[7]);
+        assertTrue(Math.abs(counts[2] - 10_000) < 500, "count " + counts[2]);
+
+        // With the full set, a subset source deals what the plain one does
+        int[] all = new int[GamePiece.PIECES];
+        Arrays.setAll(all, i -> i);
+        assertArrayEquals(deal(new RandomPieceSource(3), 500), deal(new RandomPieceSource(3, all), 500));
+
+        assertThrows(IllegalArgumentException.class, () -> new RandomPieceSource(1, new int[0]));
+    }
+
+    /**
+     * Take pieces from a source
+     * @param source the source
+     * @param count the number of pieces
+     * @return the pieces, in the order dealt
+     */
+    static int[] deal(PieceSource source, int count) {
+        int[] pieces = new int[count];
+        for (int i = 0; i < count; i++) {
+            pieces[i] = source.nextPiece();
+        }
+        return pieces;
+    }
+}
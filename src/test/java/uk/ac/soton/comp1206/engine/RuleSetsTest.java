@@ -0,0 +1,49 @@
+package uk.ac.soton.comp1206.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class RuleSetsTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void theStandardNameGivesTheStandardRules() {
+        RuleSet rules = RuleSets.get(StandardRules.NAME);
+        assertInstanceOf(StandardRules.class, rules);
+        assertEquals(5, rules.getCols());
+        assertEquals(5, rules.getRows());
+        assertEquals(StandardRules.NAME, RuleSets.getNames().get(0));
+    }
+
+    @Test
+    void aPathGivesTheRulesInThatFile() throws IOException {
+        Path file = dir.resolve("wide.properties");
+        Files.writeString(file, "cols=7\nlives=1\n");
+
+        RuleSet rules = RuleSets.get(file.toString());
+        assertInstanceOf(PropertiesRuleSet.class, rules);
+        assertEquals("wide", rules.getName());
+        assertEquals(7, rules.getCols());
+        assertEquals(5, rules.getRows());
+        assertEquals(1, rules.getStartingLives());
+    }
+
+    @Test
+    void anUnknownNameIsRejected() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+            () -> RuleSets.get("no-such-rules"));
+        assertTrue(e.getMessage().contains(StandardRules.NAME));
+        // A directory is not a properties file
+        assertThrows(IllegalArgumentException.class, () -> RuleSets.get(dir.toString()));
+    }
+}
@@ -0,0 +1,184 @@
+package uk.ac.soton.comp1206.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class RuleTableTest {
+
+    /**
+     * A variant with scoring and multiplier rules unlike the standard ones
+     */
+    private static RuleSet variant(int cols, int rows, int step, int max, int decay) {
+        return new RuleSet() {
+            @Override
+            public String getName() {
+                return "variant";
+            }
+
+            @Override
+            public int getCols() {
+                return cols;
+            }
+
+            @Override
+            public int getRows() {
+                return rows;
+            }
+
+            @Override
+            public int getPoints(int lines, int blocks) {
+                return lines * lines * 7 + blocks * 3;
+            }
+
+            @Override
+            public int getMultiplierStep() {
+                return step;
+            }
+
+            @Override
+            public int getMaxMultiplier() {
+                return max;
+            }
+
+            @Override
+            public int getMultiplierDecay() {
+                return decay;
+            }
+
+            @Override
+            public int getLevelScore() {
+                return 250;
+            }
+
+            @Override
+            public int getTimerDelay(int level) {
+                return 5000 - 10 * level;
+            }
+        };
+    }
+
+    /**
+     * Check every points entry against the rule set, and the multiplier against the formula
+     */
+    private static void checkAgainst(RuleSet rules) {
+        RuleTable table = RuleTable.compile(rules);
+        int cols = rules.getCols();
+        int rows = rules.getRows();
+        for (int lines = 0; lines <= cols + rows; lines++) {
+            for (int blocks = 0; blocks <= cols * rows; blocks++) {
+                int expected = lines == 0 ? 0 : rules.getPoints(lines, blocks);
+                assertEquals(expected, table.points(lines, blocks), lines + " lines, " + blocks + " blocks");
+            }
+        }
+        // Every multiplier up to 100, and the cap, which is as big as an int for the standard rules
+        int max = rules.getMaxMultiplier();
+        int[] multipliers = IntStream.concat(IntStream.rangeClosed(1, Math.min(max, 100)), IntStream.of(max - 1, max))
+            .filter(m -> m >= 1).distinct().toArray();
+        for (int multiplier : multipliers) {
+            for (int lines = 0; lines <= 3; lines++) {
+                long expected = lines > 0 ? (long) multiplier + rules.getMultiplierStep()
+                    : 1 + (multiplier - 1L) * rules.getMultiplierDecay() / 256;
+                assertEquals(Math.min(expected, max), table.nextMultiplier(multiplier, lines));
+            }
+        }
+    }
+
+    @Test
+    void standardRulesMatchTheRuleSet() {
+        checkAgainst(new StandardRules(5, 5));
+        checkAgainst(new StandardRules(3, 7));
+        RuleTable table = RuleTable.standard(5, 5);
+        assertEquals(1 * 5 * 10, table.points(1, 5));
+        assertEquals(2 * 9 * 10, table.points(2, 9));
+        assertEquals(1, table.nextMultiplier(7, 0));
+        assertEquals(8, table.nextMultiplier(7, 2));
+    }
+
+    @Test
+    void variantRulesMatchTheRuleSet() {
+        SplittableRandom random = new SplittableRandom(24);
+        for (int round = 0; round < 20; round++) {
+            checkAgainst(variant(1 + random.nextInt(8), 1 + random.nextInt(8), random.nextInt(4),
+                1 + random.nextInt(20), random.nextInt(257)));
+        }
+    }
+
+    @Test
+    void levelsAndDelays() {
+        RuleTable table = RuleTable.compile(variant(5, 5, 1, 10, 0));
+        assertEquals(0, table.level(249));
+        assertEquals(1, table.level(250));
+        assertEquals(40, table.level(10_000));
+        assertEquals(5000, table.timerDelay(0));
+        assertEquals(4990, table.timerDelay(1));
+        assertEquals(5000 - 10 * (RuleTable.LEVELS - 1), table.timerDelay(RuleTable.LEVELS - 1));
+        assertEquals(table.timerDelay(RuleTable.LEVELS - 1), table.timerDelay(1000));
+
+        RuleTable standard = RuleTable.standard(5, 5);
+        assertEquals(12000, standard.timerDelay(0));
+        assertEquals(2500, standard.timerDelay(100));
+    }
+
+    @Test
+    void asksTheRuleSetOnBoardsTooBigToTabulate() {
+        checkAgainst(variant(32, 32, 2, 9, 128));
+        RuleTable table = RuleTable.standard(1024, 1024);
+        assertEquals(0, table.points(0, 5000));
+        assertEquals(2048 * 1024 * 10, table.points(2048, 1024));
+    }
+
+    @Test
+    void scoresALineOnAHugeBoard() {
+        // Find where the first piece lies by placing it on a board of its own size
+        GameEngine small = new GameEngine(3, 3, new RandomPieceSource(24));
+        small.fillQueue();
+        assertTrue(small.place(1, 1));
+        int row = 0;
+        while (small.getBoard().get(0, row) == 0 && small.getBoard().get(1, row) == 0
+            && small.getBoard().get(2, row) == 0) {
+            row++;
+        }
+
+        // Fill the rest of that row on a huge board, then complete it with the same piece
+        GameEngine engine = new GameEngine(1024, 1024, new RandomPieceSource(24));
+        engine.fillQueue();
+        int blocks = 0;
+        for (int x = 0; x < 1024; x++) {
+            if (x < 511 || x > 513 || small.getBoard().get(x - 511, row) == 0) {
+                engine.getBoard().set(x, 511 + row, 1);
+            } else {
+                blocks++;
+            }
+        }
+        int multiplier = engine.getMultiplier();
+        assertTrue(engine.play(512, 512));
+        assertEquals(1 * 1024 * 10 * multiplier, engine.getScore());
+        assertEquals(multiplier + 1, engine.getMultiplier());
+        assertTrue(blocks > 0);
+    }
+
+    @Test
+    void sharesTheStandardTablesWithSnapshots() {
+        assertSame(RuleTable.standard(5, 5), RuleTable.standard(5, 5));
+        GameEngine engine = new GameEngine(5, 5, new RandomPieceSource(24));
+        assertSame(RuleTable.standard(5, 5), engine.getRules());
+        assertSame(engine.getRules(), engine.snapshot().getRules());
+
+        RuleTable variant = RuleTable.compile(variant(4, 4, 2, 9, 0));
+        assertSame(variant, new GameEngine(variant, new RandomPieceSource(24)).snapshot().getRules());
+    }
+
+    @Test
+    void rejectsUnplayableRules() {
+        assertThrows(IllegalArgumentException.class, () -> RuleTable.compile(variant(0, 5, 1, 5, 0)));
+        assertThrows(IllegalArgumentException.class, () -> RuleTable.compile(variant(5, 5, -1, 5, 0)));
+        assertThrows(IllegalArgumentException.class, () -> RuleTable.compile(variant(5, 5, 1, 0, 0)));
+        assertThrows(IllegalArgumentException.class, () -> RuleTable.compile(variant(5, 5, 1, 5, 257)));
+    }
+}
@@ -0,0 +1,39 @@
+package uk.ac.soton.comp1206.engine;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static uk.ac.soton.comp1206.engine.RandomPieceSourceTest.deal;
+
+import org.junit.jupiter.api.Test;
+
+class ScriptedPieceSourceTest {
+
+    @Test
+    void dealsTheScriptInOrderAndStartsAgainWhenItRunsOut() {
+        int[] script = {4, 0, 14, 4};
+        ScriptedPieceSource source = new ScriptedPieceSource(script);
+        // The script is copied, so changing it afterwards changes nothing
+        script[0] = 1;
+        assertArrayEquals(new int[] {4, 0, 14, 4, 4, 0, 14, 4, 4, 0}, deal(source, 10));
+    }
+
+    @Test
+    void aRestoredStateDealsTheSamePiecesAgain() {
+        ScriptedPieceSource source = new ScriptedPieceSource(1, 2, 3);
+        assertTrue(source.isRestorable());
+        source.nextPiece();
+        long state = source.getState();
+        int[] expected = deal(source, 7);
+        source.setState(state);
+        assertArrayEquals(expected, deal(source, 7));
+        assertArrayEquals(new int[] {2, 3, 1, 2, 3, 1, 2}, expected);
+    }
+
+    @Test
+    void badScriptsAreRejected() {
+        assertThrows(IllegalArgumentException.class, ScriptedPieceSource::new);
+        assertThrows(IndexOutOfBoundsException.class, () -> new ScriptedPieceSource(0, 15));
+        assertThrows(IndexOutOfBoundsException.class, () -> new ScriptedPieceSource(-1));
+    }
+}
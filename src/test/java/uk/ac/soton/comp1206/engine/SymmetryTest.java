@@ -0,0 +1,136 @@
+package uk.ac.soton.comp1206.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+import uk.ac.soton.comp1206.game.BitGrid;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.PlacementTable;
+
+class SymmetryTest {
+
+    /**
+     * Move an occupancy word through a symmetry one block at a time
+     */
+    private static long naiveTransform(Symmetry symmetry, int s, long occupied) {
+        int size = symmetry.getSize();
+        long mapped = 0;
+        for (int block = 0; block < size * size; block++) {
+            if ((occupied & 1L << block) != 0) {
+                mapped |= 1L << symmetry.point(s, block % size, block / size);
+            }
+        }
+        return mapped;
+    }
+
+    @Test
+    void transformMatchesTheBlockByBlockMapping() {
+        SplittableRandom random = new SplittableRandom(13);
+        for (int size = 1; size <= 8; size++) {
+            Symmetry symmetry = Symmetry.forSize(size);
+            long all = size == 8 ? -1L : (1L << size * size) - 1;
+            for (int trial = 0; trial < 200; trial++) {
+                long occupied = random.nextLong() & all;
+                for (int s = 0; s < Symmetry.COUNT; s++) {
+                    long mapped = symmetry.transform(s, occupied);
+                    assertEquals(naiveTransform(symmetry, s, occupied), mapped);
+                    assertEquals(Long.bitCount(occupied), Long.bitCount(mapped));
+                    assertEquals(occupied, symmetry.transform(Symmetry.inverse(s), mapped));
+                }
+                assertEquals(occupied, symmetry.transform(Symmetry.IDENTITY, occupied));
+            }
+        }
+    }
+
+    @Test
+    void rotatingFourTimesIsTheIdentity() {
+        Symmetry symmetry = Symmetry.forSize(5);
+        long occupied = 0b11001_00010_10000L;
+        long mapped = occupied;
+        for (int turn = 0; turn < 4; turn++) {
+            mapped = symmetry.transform(1, mapped);
+        }
+        assertEquals(occupied, mapped);
+        // A single turn of the top left corner lands in the top right
+        assertEquals(4, symmetry.point(1, 0, 0));
+        // A mirror on its own moves it along the top row
+        assertEquals(4, symmetry.point(4, 0, 0));
+    }
+
+    @Test
+    void everySymmetricBoardHasTheSameCanonicalForm() {
+        SplittableRandom random = new SplittableRandom(14);
+        Symmetry symmetry = Symmetry.forSize(5);
+        for (int trial = 0; trial < 500; trial++) {
+            long occupied = random.nextLong() & (1L << 25) - 1;
+            int current = random.nextInt(GamePiece.PIECES * GamePiece.ROTATIONS);
+            int next = random.nextInt(GamePiece.PIECES * GamePiece.ROTATIONS);
+            long canonical = symmetry.canonical(occupied);
+            long hash = symmetry.canonicalHash(occupied, current, next, GameEngine.EMPTY, 3);
+            assertEquals(canonical, symmetry.transform(symmetry.canonicalSymmetry(occupied), occupied));
+            for (int s = 0; s < Symmetry.COUNT; s++) {
+                long mapped = symmetry.transform(s, occupied);
+                assertTrue(Long.compareUnsigned(canonical, mapped) <= 0);
+                assertEquals(canonical, symmetry.canonical(mapped));
+                assertEquals(hash, symmetry.canonicalHash(mapped, Symmetry.shape(s, current),
+                    Symmetry.shape(s, next), GameEngine.EMPTY, 3));
+            }
+        }
+    }
+
+    @Test
+    void shapesTurnAndMirrorWithTheBoard() {
+        // On a 3x3 board, the occupancy of a shape is its mask
+        Symmetry symmetry = Symmetry.forSize(3);
+        for (int s = 0; s < Symmetry.COUNT; s++) {
+            for (int shape = 0; shape < GamePiece.PIECES * GamePiece.ROTATIONS; shape++) {
+                int mapped = Symmetry.shape(s, shape);
+                assertEquals(symmetry.transform(s, GamePiece.getMask(shape / 4, shape % 4)),
+                    GamePiece.getMask(mapped / 4, mapped % 4));
+            }
+        }
+        assertEquals(GameEngine.EMPTY, Symmetry.shape(3, GameEngine.EMPTY));
+    }
+
+    @Test
+    void movesMapToTheSamePlacementOnTheTransformedBoard() {
+        SplittableRandom random = new SplittableRandom(15);
+        Symmetry symmetry = Symmetry.forSize(6);
+        BitGrid grid = new BitGrid(6, 6);
+        PlacementTable placements = grid.getPlacements();
+        int[] moves = new int[MoveGenerator.maxMoves(6, 6)];
+        for (int trial = 0; trial < 50; trial++) {
+            grid.clear();
+            for (int block = 0; block < 36; block++) {
+                if (random.nextInt(4) == 0) {
+                    grid.set(block % 6, block / 6, 1);
+                }
+            }
+            int piece = random.nextInt(GamePiece.PIECES);
+            int count = MoveGenerator.generate(grid, piece, MoveGenerator.SLOT_FOLLOWING, moves, 0);
+            for (int s = 0; s < Symmetry.COUNT; s++) {
+                long board = symmetry.transform(s, grid.getOccupied());
+                for (int i = 0; i < count; i++) {
+                    int move = moves[i];
+                    int mapped = symmetry.mapMove(s, move);
+                    long placement = placements.mask(MoveGenerator.piece(move), MoveGenerator.rotation(move),
+                        MoveGenerator.x(move), MoveGenerator.y(move));
+                    long mappedPlacement = placements.mask(MoveGenerator.piece(mapped),
+                        MoveGenerator.rotation(mapped), MoveGenerator.x(mapped), MoveGenerator.y(mapped));
+                    assertEquals(MoveGenerator.SLOT_FOLLOWING, MoveGenerator.slot(mapped));
+                    assertEquals(symmetry.transform(s, placement), mappedPlacement);
+                    assertEquals(0, board & mappedPlacement);
+                    assertEquals(move, symmetry.unmapMove(s, mapped));
+                }
+            }
+        }
+    }
+
+    @Test
+    void rejectsBoardsTooLargeForAWord() {
+        assertThrows(IllegalArgumentException.class, () -> Symmetry.forSize(9));
+    }
+}
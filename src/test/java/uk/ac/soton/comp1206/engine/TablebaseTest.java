@@ -0,0 +1,104 @@
+package uk.ac.soton.comp1206.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.PlacementTable;
+
+class TablebaseTest {
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Work out the pieces which fit on a board by trying every placement
+     */
+    private static int bruteForce(PlacementTable placements, long occupied) {
+        int fits = 0;
+        for (int shape = 0; shape < GamePiece.PIECES * GamePiece.ROTATIONS; shape++) {
+            for (int anchor = 0; anchor < placements.getCols() * placements.getRows(); anchor++) {
+                long mask = placements.mask(shape, anchor);
+                if (mask != 0 && (occupied & mask) == 0) {
+                    fits |= 1 << (shape / GamePiece.ROTATIONS);
+                }
+            }
+        }
+        return fits;
+    }
+
+    @Test
+    void everyBoardMatchesTheBruteForceAnswer() {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int[][] sizes = {{3, 3}, {4, 3}, {3, 5}, {4, 4}};
+        for (int[] size : sizes) {
+            PlacementTable placements = PlacementTable.forSize(size[0], size[1]);
+            char[] fits = Tablebase.generate(size[0], size[1], pool);
+            assertEquals(1 << size[0] * size[1], fits.length);
+            for (int occupied = 0; occupied < fits.length; occupied++) {
+                assertEquals(bruteForce(placements, occupied), fits[occupied], "board " + occupied);
+            }
+            // A full board is dead and an empty one takes every piece
+            assertEquals(0, fits[fits.length - 1]);
+            assertEquals((1 << GamePiece.PIECES) - 1, fits[0]);
+        }
+    }
+
+    @Test
+    void writtenTablesReadBack() throws IOException {
+        char[] fits = Tablebase.generate(4, 4, ForkJoinPool.commonPool());
+        Path path = directory.resolve(Tablebase.fileName(4, 4));
+        Tablebase.write(path, 4, 4, fits);
+        Tablebase tablebase = Tablebase.open(path);
+        assertEquals(4, tablebase.getCols());
+        assertEquals(4, tablebase.getRows());
+        for (int occupied = 0; occupied < fits.length; occupied++) {
+            assertEquals(fits[occupied], tablebase.fittingPieces(occupied));
+            assertEquals(fits[occupied] == 0, tablebase.isDead(occupied));
+            for (int piece = 0; piece < GamePiece.PIECES; piece++) {
+                assertEquals((fits[occupied] & 1 << piece) != 0, tablebase.canPlay(occupied, piece));
+            }
+        }
+    }
+
+    @Test
+    void badFilesAreRejected() throws IOException {
+        Path notATablebase = directory.resolve("other.bin");
+        Files.write(notATablebase, new byte[64]);
+        assertThrows(IOException.class, () -> Tablebase.open(notATablebase));
+
+        char[] fits = Tablebase.generate(3, 3, ForkJoinPool.commonPool());
+        Path truncated = directory.resolve("truncated.bin");
+        Tablebase.write(truncated, 3, 3, fits);
+        byte[] bytes = Files.readAllBytes(truncated);
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 2));
+        assertThrows(IOException.class, () -> Tablebase.open(truncated));
+
+        assertThrows(IllegalArgumentException.class, () -> Tablebase.generate(6, 5, ForkJoinPool.commonPool()));
+    }
+
+    @Test
+    void theEngineFindsTheSameLegalMovesWithATablebase() throws IOException {
+        Path path = directory.resolve(Tablebase.fileName(4, 4));
+        Tablebase.write(path, 4, 4, Tablebase.generate(4, 4, ForkJoinPool.commonPool()));
+        Tablebase tablebase = Tablebase.open(path);
+
+        GameEngine engine = EngineFixtures.newGame(4, 4, 14);
+        int dead = EngineFixtures.randomPlayout(engine, 14, 500, turn -> {
+            engine.setTablebase(null);
+            boolean expected = engine.hasLegalMove();
+            engine.setTablebase(tablebase);
+            assertEquals(expected, engine.hasLegalMove());
+        });
+        assertTrue(dead > 0);
+        assertThrows(IllegalArgumentException.class, () -> new GameEngine(5, 5).setTablebase(tablebase));
+    }
+}
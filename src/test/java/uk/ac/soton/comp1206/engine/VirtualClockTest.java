@@ -0,0 +1,128 @@
+package uk.ac.soton.comp1206.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+class VirtualClockTest {
+
+    @Test
+    void runsTimersInDeadlineOrderAtTheirDeadlines() {
+        VirtualClock clock = new VirtualClock();
+        List<String> runs = new ArrayList<>();
+        clock.schedule(() -> runs.add("c@" + clock.millis()), 30, 0);
+        clock.schedule(() -> runs.add("a@" + clock.millis()), 10, 0);
+        clock.schedule(() -> runs.add("b@" + clock.millis()), 20, 0);
+        clock.schedule(() -> runs.add("b2@" + clock.millis()), 20, 0);
+        assertEquals(4, clock.getPending());
+
+        clock.advance(20);
+        assertEquals(List.of("a@10", "b@20", "b2@20"), runs);
+        assertEquals(20, clock.millis());
+        clock.advance(100);
+        assertEquals(List.of("a@10", "b@20", "b2@20", "c@30"), runs);
+        assertEquals(120, clock.millis());
+        assertEquals(0, clock.getPending());
+    }
+
+    @Test
+    void repeatsOnSchedule() {
+        VirtualClock clock = new VirtualClock();
+        List<Long> runs = new ArrayList<>();
+        GameClock.Timer timer = clock.schedule(() -> runs.add(clock.millis()), 5, 10);
+        clock.advance(40);
+        assertEquals(List.of(5L, 15L, 25L, 35L), runs);
+        assertTrue(timer.isPending());
+        timer.cancel();
+        assertFalse(timer.isPending());
+        clock.advance(100);
+        assertEquals(4, runs.size());
+    }
+
+    @Test
+    void advanceToNextJumpsToTheNextDeadline() {
+        VirtualClock clock = new VirtualClock();
+        assertFalse(clock.advanceToNext());
+        List<Long> runs = new ArrayList<>();
+        clock.schedule(() -> runs.add(clock.millis()), 1000, 0);
+        clock.schedule(() -> runs.add(clock.millis()), 250, 0);
+        assertTrue(clock.advanceToNext());
+        assertEquals(List.of(250L), runs);
+        assertTrue(clock.advanceToNext());
+        assertEquals(List.of(250L, 1000L), runs);
+        assertFalse(clock.advanceToNext());
+        assertEquals(1000, clock.millis());
+    }
+
+    @Test
+    void rescheduleAndCancelFromATask() {
+        VirtualClock clock = new VirtualClock();
+        List<Long> runs = new ArrayList<>();
+        GameClock.Timer[] timer = new GameClock.Timer[1];
+        timer[0] = clock.schedule(() -> {
+            runs.add(clock.millis());
+            if (runs.size() < 3) {
+                timer[0].reschedule(7, 0);
+            }
+        }, 7, 0);
+        GameClock.Timer victim = clock.schedule(() -> runs.add(-1L), 15, 0);
+        clock.schedule(victim::cancel, 14, 0);
+        clock.advance(100);
+        assertEquals(List.of(7L, 14L, 21L), runs);
+        assertFalse(timer[0].isPending());
+    }
+
+    @Test
+    void timeNeverGoesBackwards() {
+        VirtualClock clock = new VirtualClock();
+        clock.advance(50);
+        clock.advanceTo(20);
+        assertEquals(50, clock.millis());
+        GameClock.Timer timer = clock.schedule(() -> { }, -5, -1);
+        clock.advance(0);
+        assertFalse(timer.isPending());
+    }
+
+    @Test
+    void matchesANaiveSimulation() {
+        SplittableRandom random = new SplittableRandom(22);
+        for (int round = 0; round < 50; round++) {
+            VirtualClock clock = new VirtualClock();
+            List<String> runs = new ArrayList<>();
+            int count = 1 + random.nextInt(8);
+            long[] delays = new long[count];
+            long[] periods = new long[count];
+            for (int i = 0; i < count; i++) {
+                int id = i;
+                delays[i] = random.nextInt(50);
+                periods[i] = random.nextBoolean() ? 0 : 1 + random.nextInt(20);
+                clock.schedule(() -> runs.add(id + "@" + clock.millis()), delays[i], periods[i]);
+            }
+            long end = random.nextInt(200);
+            clock.advance(end);
+
+            // Each timer runs at its delay and then every period up to the end, and the runs are in time order
+            for (int i = 0; i < count; i++) {
+                List<String> expected = new ArrayList<>();
+                for (long t = delays[i]; t <= end; t += periods[i]) {
+                    expected.add(i + "@" + t);
+                    if (periods[i] == 0) {
+                        break;
+                    }
+                }
+                String prefix = i + "@";
+                assertEquals(expected, runs.stream().filter(run -> run.startsWith(prefix)).toList());
+            }
+            for (int i = 1; i < runs.size(); i++) {
+                long before = Long.parseLong(runs.get(i - 1).substring(runs.get(i - 1).indexOf('@') + 1));
+                long after = Long.parseLong(runs.get(i).substring(runs.get(i).indexOf('@') + 1));
+                assertTrue(before <= after, "ran out of order: " + runs);
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package uk.ac.soton.comp1206.event;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class GameEventBusTest {
+
+    /**
+     * Describe an event, since the bus reuses its GameEvents
+     */
+    private static String describe(GameEvent event) {
+        switch (event.getType()) {
+            case GameEvent.NEXT_PIECE:
+                return "next " + event.getCurrentShape() + " " + event.getNextShape();
+            case GameEvent.LINE_CLEARED:
+                return "cleared " + Long.toHexString(event.getClearedBlocks());
+            case GameEvent.GAME_LOOP:
+                return "loop " + event.getDelay();
+            default:
+                return "over";
+        }
+    }
+
+    @Test
+    void handsEveryEventToEverySubscriberInOrder() {
+        GameEventBus bus = new GameEventBus();
+        List<String> first = new ArrayList<>();
+        List<String> second = new ArrayList<>();
+        bus.subscribe(event -> first.add(describe(event)));
+        bus.subscribe(event -> second.add(describe(event)));
+
+        bus.publishNextPiece(4, 9);
+        bus.publishLineCleared(5, 0x1FL);
+        bus.publishGameLoop(12000);
+        bus.publishGameOver();
+        List<String> expected = List.of("next 4 9", "cleared 1f", "loop 12000", "over");
+        assertEquals(expected, first);
+        assertEquals(expected, second);
+    }
+
+    @Test
+    void deliversEventsPublishedDuringDispatchAfterTheCurrentOne() {
+        GameEventBus bus = new GameEventBus(4);
+        List<String> first = new ArrayList<>();
+        List<String> second = new ArrayList<>();
+        bus.subscribe(event -> {
+            first.add(describe(event));
+            if (event.getType() == GameEvent.LINE_CLEARED) {
+                bus.publishGameLoop(1);
+                bus.publishGameLoop(2);
+            } else if (event.getType() == GameEvent.GAME_LOOP && event.getDelay() == 2) {
+                bus.publishGameOver();
+            }
+        });
+        bus.subscribe(event -> second.add(describe(event)));
+
+        for (int round = 0; round < 3; round++) {
+            first.clear();
+            second.clear();
+            bus.publishLineCleared(5, 1L);
+            List<String> expected = List.of("cleared 1", "loop 1", "loop 2", "over");
+            assertEquals(expected, first);
+            assertEquals(expected, second);
+        }
+    }
+
+    @Test
+    void refusesToOverfillTheRing() {
+        GameEventBus bus = new GameEventBus(2);
+        List<RuntimeException> failures = new ArrayList<>();
+        bus.subscribe(GameEvent.GAME_LOOP, event -> {
+            if (event.getDelay() == 0) {
+                try {
+                    bus.publishGameLoop(1);
+                    bus.publishGameLoop(2);
+                    bus.publishGameLoop(3);
+                } catch (IllegalStateException e) {
+                    failures.add(e);
+                }
+            }
+        });
+        bus.publishGameLoop(0);
+        assertEquals(1, failures.size());
+
+        // The events that fitted are still handed out, and the bus carries on
+        List<String> seen = new ArrayList<>();
+        bus.subscribe(event -> seen.add(describe(event)));
+        bus.publishGameOver();
+        assertEquals(List.of("over"), seen);
+    }
+
+    @Test
+    void skipsAFailingSubscriber() {
+        GameEventBus bus = new GameEventBus();
+        List<String> seen = new ArrayList<>();
+        bus.subscribe(event -> {
+            throw new IllegalStateException("expected");
+        });
+        bus.subscribe(event -> seen.add(describe(event)));
+        bus.publishGameLoop(5);
+        bus.publishGameOver();
+        assertEquals(List.of("loop 5", "over"), seen);
+    }
+
+    @Test
+    void subscribesToOneTypeAndUnsubscribes() {
+        GameEventBus bus = new GameEventBus();
+        List<String> loops = new ArrayList<>();
+        GameEventListener listener = event -> loops.add(describe(event));
+        assertFalse(bus.hasSubscribers(GameEvent.GAME_LOOP));
+        bus.subscribe(GameEvent.GAME_LOOP, listener);
+        assertTrue(bus.hasSubscribers(GameEvent.GAME_LOOP));
+        assertFalse(bus.hasSubscribers(GameEvent.GAME_OVER));
+
+        bus.publishNextPiece(0, 1);
+        bus.publishGameLoop(7);
+        bus.publishGameOver();
+        assertEquals(List.of("loop 7"), loops);
+
+        bus.unsubscribe(listener);
+        assertFalse(bus.hasSubscribers(GameEvent.GAME_LOOP));
+        bus.publishGameLoop(8);
+        assertEquals(List.of("loop 7"), loops);
+    }
+
+    @Test
+    void unsubscribingDuringDispatchTakesEffectForTheNextEvent() {
+        GameEventBus bus = new GameEventBus();
+        List<String> seen = new ArrayList<>();
+        GameEventListener[] self = new GameEventListener[1];
+        self[0] = event -> {
+            seen.add(describe(event));
+            bus.unsubscribe(self[0]);
+            bus.publishGameOver();
+        };
+        bus.subscribe(self[0]);
+        bus.publishGameLoop(3);
+        bus.publishGameLoop(4);
+        assertEquals(List.of("loop 3"), seen);
+    }
+
+    @Test
+    void rejectsABadCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new GameEventBus(0));
+        assertThrows(IllegalArgumentException.class, () -> new GameEventBus((1 << 20) + 1));
+    }
+}
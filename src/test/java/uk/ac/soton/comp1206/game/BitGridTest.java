@@ -0,0 +1,115 @@
+package uk.ac.soton.comp1206.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+class BitGridTest {
+
+    @Test
+    void setAndGetMatchAPlainArray() {
+        SplittableRandom random = new SplittableRandom(1);
+        BitGrid grid = new BitGrid(5, 5);
+        int[][] model = new int[5][5];
+        for (int i = 0; i < 2000; i++) {
+            int x = random.nextInt(5);
+            int y = random.nextInt(5);
+            int value = random.nextInt(3) == 0 ? 0 : random.nextInt(1, 16);
+            grid.set(x, y, value);
+            model[x][y] = value;
+
+            long occupied = 0;
+            for (int yy = 0; yy < 5; yy++) {
+                int rowCount = 0;
+                for (int xx = 0; xx < 5; xx++) {
+                    assertEquals(model[xx][yy], grid.get(xx, yy));
+                    if (model[xx][yy] != 0) {
+                        occupied |= 1L << (yy * 5 + xx);
+                        rowCount++;
+                    }
+                }
+                assertEquals(rowCount, grid.getRowCount(yy));
+            }
+            assertEquals(occupied, grid.getOccupied());
+            assertEquals(Zobrist.hash(occupied), grid.getHash());
+        }
+    }
+
+    @Test
+    void setOutsideTheGridThrows() {
+        BitGrid grid = new BitGrid(5, 5);
+        assertThrows(IndexOutOfBoundsException.class, () -> grid.set(5, 0, 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> grid.set(-1, 2, 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> grid.set(0, 5, 1));
+        assertEquals(0, grid.getOccupied());
+        assertEquals(-1, grid.get(5, 0));
+    }
+
+    @Test
+    void findsAndClearsARowAndAColumnTogether() {
+        BitGrid grid = new BitGrid(5, 5);
+        for (int i = 0; i < 5; i++) {
+            grid.set(i, 2, 1);
+            grid.set(3, i, 2);
+        }
+        grid.set(0, 0, 3);
+
+        ClearResult result = new ClearResult();
+        grid.findFullLines(result);
+        assertEquals(1L << 2, result.getRows());
+        assertEquals(1L << 3, result.getCols());
+        assertEquals(2, result.getLineCount());
+        assertEquals(9, result.getBlockCount());
+
+        grid.clearLines(result);
+        assertEquals(1L, grid.getOccupied());
+        assertEquals(3, grid.get(0, 0));
+        assertEquals(Zobrist.hash(1L), grid.getHash());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i == 0 ? 1 : 0, grid.getRowCount(i));
+            assertEquals(i == 0 ? 1 : 0, grid.getColCount(i));
+        }
+    }
+
+    @Test
+    void onlyNewlyFilledLinesAreFound() {
+        BitGrid grid = new BitGrid(4, 3);
+        for (int x = 0; x < 4; x++) {
+            grid.set(x, 1, 1);
+        }
+        ClearResult result = new ClearResult();
+        grid.findFullLines(result);
+        assertEquals(1, result.getLineCount());
+
+        // The row is still full, but nothing has touched it since
+        grid.findFullLines(result);
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    void legalAnchorsFollowEveryChange() {
+        SplittableRandom random = new SplittableRandom(2);
+        BitGrid grid = new BitGrid(5, 5);
+        PlacementTable table = grid.getPlacements();
+        for (int i = 0; i < 500; i++) {
+            grid.set(random.nextInt(5), random.nextInt(5), random.nextBoolean() ? 0 : 1);
+            if (i % 7 == 0) {
+                grid.restore(grid.getOccupied(), grid.getColourWord(0), grid.getColourWord(1),
+                    grid.getColourWord(2), grid.getColourWord(3));
+            }
+            for (int shape = 0; shape < GamePiece.PIECES * GamePiece.ROTATIONS; shape += 3) {
+                long expected = 0;
+                for (int anchor = 0; anchor < 25; anchor++) {
+                    long mask = table.mask(shape, anchor);
+                    if (mask != 0 && (mask & grid.getOccupied()) == 0) {
+                        expected |= 1L << anchor;
+                    }
+                }
+                assertEquals(expected, grid.getLegalAnchors(shape), "shape " + shape);
+            }
+        }
+    }
+}
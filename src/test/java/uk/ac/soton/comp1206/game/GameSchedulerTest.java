@@ -0,0 +1,134 @@
+package uk.ac.soton.comp1206.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class GameSchedulerTest {
+
+    private final GameScheduler scheduler = new GameScheduler(1, 64, TimeUnit.MILLISECONDS);
+
+    @AfterEach
+    void shutdown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void runsAOneShotTimeoutOnce() throws InterruptedException {
+        CountDownLatch ran = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        long start = System.nanoTime();
+        GameScheduler.Timeout timeout = scheduler.schedule(() -> {
+            runs.incrementAndGet();
+            ran.countDown();
+        }, 20, 0);
+        assertTrue(timeout.isPending());
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20), "ran early");
+        Thread.sleep(50);
+        assertEquals(1, runs.get());
+        assertFalse(timeout.isPending());
+        assertEquals(0, scheduler.getPending());
+    }
+
+    @Test
+    void repeatsWithoutDrift() throws InterruptedException {
+        CountDownLatch ran = new CountDownLatch(20);
+        long start = System.nanoTime();
+        GameScheduler.Timeout timeout = scheduler.schedule(ran::countDown, 5, 5);
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        long elapsed = System.nanoTime() - start;
+        timeout.cancel();
+        // The 20th run is due 100ms in; runs may be late but never early
+        assertTrue(elapsed >= TimeUnit.MILLISECONDS.toNanos(100), "ran early");
+        assertFalse(timeout.isPending());
+    }
+
+    @Test
+    void cancelStopsATimeout() throws InterruptedException {
+        AtomicInteger runs = new AtomicInteger();
+        GameScheduler.Timeout once = scheduler.schedule(runs::incrementAndGet, 20, 0);
+        GameScheduler.Timeout repeating = scheduler.schedule(runs::incrementAndGet, 20, 5);
+        assertEquals(2, scheduler.getPending());
+        once.cancel();
+        repeating.cancel();
+        once.cancel();
+        assertFalse(once.isPending());
+        assertFalse(repeating.isPending());
+        assertEquals(0, scheduler.getPending());
+        Thread.sleep(80);
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    void rescheduleMovesATimeoutEitherWay() throws InterruptedException {
+        CountDownLatch ran = new CountDownLatch(1);
+        GameScheduler.Timeout timeout = scheduler.schedule(ran::countDown, 60_000, 0);
+        timeout.reschedule(10, 0);
+        assertEquals(1, scheduler.getPending());
+        assertTrue(ran.await(5, TimeUnit.SECONDS), "brought forward but not run");
+
+        AtomicInteger runs = new AtomicInteger();
+        GameScheduler.Timeout later = scheduler.schedule(runs::incrementAndGet, 10, 0);
+        later.reschedule(60_000, 0);
+        Thread.sleep(60);
+        assertEquals(0, runs.get());
+        assertTrue(later.isPending());
+    }
+
+    @Test
+    void reusesATimeoutAfterItRuns() throws InterruptedException {
+        CountDownLatch first = new CountDownLatch(1);
+        CountDownLatch second = new CountDownLatch(2);
+        GameScheduler.Timeout timeout = scheduler.schedule(() -> {
+            first.countDown();
+            second.countDown();
+        }, 5, 0);
+        assertTrue(first.await(5, TimeUnit.SECONDS));
+        timeout.reschedule(5, 0);
+        assertTrue(timeout.isPending());
+        assertTrue(second.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void keepsRunningAfterATaskThrows() throws InterruptedException {
+        CountDownLatch ran = new CountDownLatch(1);
+        scheduler.schedule(() -> {
+            throw new IllegalStateException("expected");
+        }, 5, 0);
+        scheduler.schedule(ran::countDown, 20, 0);
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void spreadsDeadlinesBeyondOneTurnOfTheWheel() throws InterruptedException {
+        int count = 200;
+        CountDownLatch ran = new CountDownLatch(count);
+        long start = System.nanoTime();
+        long[] ranAt = new long[count];
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            scheduler.schedule(() -> {
+                ranAt[index] = System.nanoTime();
+                ran.countDown();
+            }, i, 0);
+        }
+        assertTrue(ran.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < count; i++) {
+            assertTrue(ranAt[i] - start >= TimeUnit.MILLISECONDS.toNanos(i), "timeout " + i + " ran early");
+        }
+    }
+
+    @Test
+    void rejectsABadWheel() {
+        assertThrows(IllegalArgumentException.class, () -> new GameScheduler(0, 64, TimeUnit.MILLISECONDS));
+        assertThrows(IllegalArgumentException.class, () -> new GameScheduler(1, 0, TimeUnit.MILLISECONDS));
+    }
+}
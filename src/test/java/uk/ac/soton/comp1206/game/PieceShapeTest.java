@@ -0,0 +1,80 @@
+package uk.ac.soton.comp1206.game;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+class PieceShapeTest {
+
+    @Test
+    void everyShapeIsInterned() {
+        for (int piece = 0; piece < GamePiece.PIECES; piece++) {
+            for (int rotation = 0; rotation < GamePiece.ROTATIONS; rotation++) {
+                PieceShape shape = PieceShape.of(piece, rotation);
+                assertSame(shape, PieceShape.of(piece, rotation));
+                assertSame(shape, PieceShape.of(piece * GamePiece.ROTATIONS + rotation));
+                assertSame(shape, PieceShape.of(piece, rotation + GamePiece.ROTATIONS));
+                assertSame(shape, PieceShape.of(piece, rotation - GamePiece.ROTATIONS));
+                assertSame(shape, GamePiece.createPiece(piece, rotation));
+                assertEquals(piece, shape.getPiece());
+                assertEquals(rotation, shape.getRotation());
+                assertEquals(piece * GamePiece.ROTATIONS + rotation, shape.getShape());
+                assertEquals(piece + 1, shape.getValue());
+            }
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> PieceShape.of(GamePiece.PIECES, 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> PieceShape.of(-1, 0));
+    }
+
+    @Test
+    void rotateWrapsAround() {
+        for (int shape = 0; shape < GamePiece.PIECES * GamePiece.ROTATIONS; shape++) {
+            PieceShape piece = PieceShape.of(shape);
+            assertSame(piece, piece.rotate(GamePiece.ROTATIONS));
+            assertSame(piece, piece.rotate().rotate().rotate().rotate());
+            assertSame(piece.rotate(3), piece.rotate(-1));
+            assertSame(piece.rotate(1), piece.rotate(-7));
+            assertSame(PieceShape.of(piece.getPiece(), piece.getRotation() + 1), piece.rotate());
+        }
+    }
+
+    @Test
+    void everyMaskMatchesItsBlocks() {
+        for (int shape = 0; shape < GamePiece.PIECES * GamePiece.ROTATIONS; shape++) {
+            PieceShape piece = PieceShape.of(shape);
+            int[][] blocks = piece.getBlocks();
+            int mask = 0;
+            for (int x = 0; x < 3; x++) {
+                for (int y = 0; y < 3; y++) {
+                    if (blocks[x][y] != 0) {
+                        assertEquals(piece.getValue(), blocks[x][y]);
+                        mask |= 1 << (y * 3 + x);
+                    }
+                }
+            }
+            assertNotEquals(0, mask);
+            assertEquals(mask, piece.getMask());
+            assertEquals(mask, GamePiece.getMask(piece.getPiece(), piece.getRotation()));
+        }
+    }
+
+    @Test
+    void changingTheBlocksLeavesTheShapeIntact() {
+        PieceShape piece = PieceShape.of(2, 1);
+        int[][] original = piece.getBlocks();
+        int mask = piece.getMask();
+
+        int[][] blocks = piece.getBlocks();
+        blocks[0][0] = 99;
+        blocks[1] = new int[] {7, 7, 7};
+        blocks[2][2] = 0;
+
+        assertArrayEquals(original, piece.getBlocks());
+        assertArrayEquals(original, PieceShape.of(2, 1).getBlocks());
+        assertEquals(mask, piece.getMask());
+    }
+}
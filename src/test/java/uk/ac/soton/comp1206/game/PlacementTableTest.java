@@ -0,0 +1,97 @@
+package uk.ac.soton.comp1206.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+class PlacementTableTest {
+
+    private static final int SHAPES = GamePiece.PIECES * GamePiece.ROTATIONS;
+
+    /**
+     * Work out a placement mask block by block from the 3x3 shape mask
+     */
+    private static long expectedMask(int cols, int rows, int shape, int x, int y) {
+        int shapeMask = PieceShape.of(shape).getMask();
+        long mask = 0;
+        for (int by = 0; by < 3; by++) {
+            for (int bx = 0; bx < 3; bx++) {
+                if ((shapeMask & 1 << (by * 3 + bx)) == 0) {
+                    continue;
+                }
+                int gx = x + bx - 1;
+                int gy = y + by - 1;
+                if (gx < 0 || gx >= cols || gy < 0 || gy >= rows) {
+                    return 0;
+                }
+                mask |= 1L << (gy * cols + gx);
+            }
+        }
+        return mask;
+    }
+
+    @Test
+    void masksMatchTheShapes() {
+        for (int[] size : new int[][] {{5, 5}, {8, 8}, {3, 7}, {6, 4}}) {
+            int cols = size[0];
+            int rows = size[1];
+            PlacementTable table = PlacementTable.forSize(cols, rows);
+            for (int shape = 0; shape < SHAPES; shape++) {
+                long onBoard = 0;
+                for (int y = 0; y < rows; y++) {
+                    for (int x = 0; x < cols; x++) {
+                        long expected = expectedMask(cols, rows, shape, x, y);
+                        int anchor = y * cols + x;
+                        assertEquals(expected, table.mask(shape, anchor));
+                        assertEquals(expected, table.mask(shape / 4, shape % 4, x, y));
+                        assertEquals(Zobrist.hash(expected), table.hash(shape, anchor));
+                        if (expected != 0) {
+                            onBoard |= 1L << anchor;
+                        }
+                    }
+                }
+                assertEquals(onBoard, table.onBoard(shape));
+                assertEquals(0, table.mask(shape / 4, shape % 4, cols, 0));
+                assertEquals(0, table.mask(shape / 4, shape % 4, 0, -1));
+            }
+        }
+    }
+
+    @Test
+    void coversIsTheInverseOfMask() {
+        PlacementTable table = PlacementTable.STANDARD;
+        for (int shape = 0; shape < SHAPES; shape++) {
+            for (int block = 0; block < 25; block++) {
+                long expected = 0;
+                for (int anchor = 0; anchor < 25; anchor++) {
+                    if ((table.mask(shape, anchor) & 1L << block) != 0) {
+                        expected |= 1L << anchor;
+                    }
+                }
+                assertEquals(expected, table.covers(shape, block));
+            }
+        }
+    }
+
+    @Test
+    void legalAnchorsAvoidOccupiedBlocks() {
+        PlacementTable table = PlacementTable.STANDARD;
+        long occupied = 0b10000_00100_00000_01000_00001L;
+        for (int shape = 0; shape < SHAPES; shape++) {
+            long legal = table.legalAnchors(occupied, shape, (1L << 25) - 1);
+            for (int anchor = 0; anchor < 25; anchor++) {
+                long mask = table.mask(shape, anchor);
+                boolean fits = mask != 0 && (mask & occupied) == 0;
+                assertEquals(fits, (legal & 1L << anchor) != 0);
+                assertEquals(fits, table.canPlace(occupied, shape / 4, shape % 4, anchor % 5, anchor / 5));
+            }
+        }
+    }
+
+    @Test
+    void tablesAreSharedBySize() {
+        assertSame(PlacementTable.STANDARD, PlacementTable.forSize(5, 5));
+        assertSame(PlacementTable.forSize(6, 6), PlacementTable.forSize(6, 6));
+    }
+}
@@ -0,0 +1,184 @@
+package uk.ac.soton.comp1206.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+class WideBitGridTest {
+
+    /**
+     * Play random pieces on a wide grid and on a plain array model side by side, clearing lines after every move
+     */
+    private static void playAgainstModel(int cols, int rows, LineScanner scanner, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        WideBitGrid grid = new WideBitGrid(cols, rows, scanner);
+        int[][] model = new int[cols][rows];
+        ClearResult result = new ClearResult();
+        long[] scanRows = new long[(rows + 63) / 64];
+        long[] scanCols = new long[(cols + 63) / 64];
+
+        for (int move = 0; move < 3000; move++) {
+            int piece = random.nextInt(GamePiece.PIECES);
+            int rotation = random.nextInt(GamePiece.ROTATIONS);
+            int x = random.nextInt(cols);
+            int y = random.nextInt(rows);
+            int mask = GamePiece.getMask(piece, rotation);
+
+            boolean fits = true;
+            for (int bit = 0; bit < 9; bit++) {
+                if ((mask & 1 << bit) != 0) {
+                    int bx = x + bit % 3 - 1;
+                    int by = y + bit / 3 - 1;
+                    fits &= bx >= 0 && bx < cols && by >= 0 && by < rows && model[bx][by] == 0;
+                }
+            }
+            assertEquals(fits, grid.canPlay(piece, rotation, x, y));
+            if (!fits) {
+                continue;
+            }
+            grid.play(piece, rotation, x, y);
+            for (int bit = 0; bit < 9; bit++) {
+                if ((mask & 1 << bit) != 0) {
+                    model[x + bit % 3 - 1][y + bit / 3 - 1] = piece + 1;
+                }
+            }
+
+            // Work out the full lines of the model, which can only be new as lines are cleared after every move
+            boolean[] fullRow = new boolean[rows];
+            boolean[] fullCol = new boolean[cols];
+            int lines = 0;
+            for (int yy = 0; yy < rows; yy++) {
+                fullRow[yy] = true;
+                for (int xx = 0; xx < cols; xx++) {
+                    fullRow[yy] &= model[xx][yy] != 0;
+                }
+                lines += fullRow[yy] ? 1 : 0;
+            }
+            for (int xx = 0; xx < cols; xx++) {
+                fullCol[xx] = true;
+                for (int yy = 0; yy < rows; yy++) {
+                    fullCol[xx] &= model[xx][yy] != 0;
+                }
+                lines += fullCol[xx] ? 1 : 0;
+            }
+            assertEquals(countBits(fullRow), grid.scanFullRows(scanRows));
+            assertEquals(countBits(fullCol), grid.scanFullCols(scanCols));
+
+            grid.findFullLines(result);
+            int blocks = 0;
+            for (int xx = 0; xx < cols; xx++) {
+                for (int yy = 0; yy < rows; yy++) {
+                    if (fullRow[yy] || fullCol[xx]) {
+                        model[xx][yy] = 0;
+                        blocks++;
+                    }
+                }
+            }
+            assertEquals(lines, result.getLineCount());
+            assertEquals(blocks, result.getBlockCount());
+            grid.clearLines(result);
+
+            long hash = 0;
+            for (int xx = 0; xx < cols; xx++) {
+                for (int yy = 0; yy < rows; yy++) {
+                    assertEquals(model[xx][yy], grid.get(xx, yy));
+                    if (model[xx][yy] != 0) {
+                        hash ^= Zobrist.key(yy * cols + xx);
+                    }
+                }
+            }
+            assertEquals(hash, grid.getHash());
+
+            if (move % 25 == 0) {
+                checkLegalAnchors(grid, model);
+            }
+        }
+    }
+
+    /**
+     * Check the legal anchor counts of every shape against the model, by trying every anchor
+     */
+    private static void checkLegalAnchors(WideBitGrid grid, int[][] model) {
+        int cols = grid.getCols();
+        int rows = grid.getRows();
+        for (int piece = 0; piece < GamePiece.PIECES; piece++) {
+            int anywhere = 0;
+            for (int rotation = 0; rotation < GamePiece.ROTATIONS; rotation++) {
+                int mask = GamePiece.getMask(piece, rotation);
+                int count = 0;
+                for (int y = 0; y < rows; y++) {
+                    for (int x = 0; x < cols; x++) {
+                        boolean fits = true;
+                        for (int bit = 0; bit < 9 && fits; bit++) {
+                            if ((mask & 1 << bit) != 0) {
+                                int bx = x + bit % 3 - 1;
+                                int by = y + bit / 3 - 1;
+                                fits = bx >= 0 && bx < cols && by >= 0 && by < rows && model[bx][by] == 0;
+                            }
+                        }
+                        count += fits ? 1 : 0;
+                    }
+                }
+                assertEquals(count, grid.countLegalAnchors(piece * GamePiece.ROTATIONS + rotation));
+                anywhere += count;
+            }
+            assertEquals(anywhere > 0, grid.canPlayAnywhere(piece));
+        }
+    }
+
+    private static int countBits(boolean[] bits) {
+        int count = 0;
+        for (boolean bit : bits) {
+            count += bit ? 1 : 0;
+        }
+        return count;
+    }
+
+    @Test
+    void rowsSpanningSeveralWords() {
+        playAgainstModel(70, 4, LineScanner.scalar(), 5);
+        playAgainstModel(70, 4, LineScanner.best(), 6);
+    }
+
+    @Test
+    void columnsSpanningSeveralWords() {
+        playAgainstModel(4, 70, LineScanner.scalar(), 7);
+        playAgainstModel(4, 70, LineScanner.best(), 8);
+    }
+
+    @Test
+    void smallGridsMatchTheBitGrid() {
+        playAgainstModel(5, 5, LineScanner.best(), 9);
+    }
+
+    @Test
+    void legalAnchorsFollowSetAndClear() {
+        WideBitGrid grid = new WideBitGrid(130, 3);
+        int[][] model = new int[130][3];
+        checkLegalAnchors(grid, model);
+
+        // Fill the middle row but for one block either side of a word boundary
+        for (int x = 0; x < 130; x++) {
+            if (x != 63 && x != 64) {
+                grid.set(x, 1, 1);
+                model[x][1] = 1;
+            }
+        }
+        checkLegalAnchors(grid, model);
+        grid.set(64, 1, 1);
+        model[64][1] = 1;
+        checkLegalAnchors(grid, model);
+
+        grid.clear();
+        checkLegalAnchors(grid, new int[130][3]);
+    }
+
+    @Test
+    void setOutsideTheGridThrows() {
+        WideBitGrid grid = new WideBitGrid(100, 100);
+        assertThrows(IndexOutOfBoundsException.class, () -> grid.set(100, 0, 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> grid.set(0, -1, 1));
+    }
+}
@@ -0,0 +1,63 @@
+package uk.ac.soton.comp1206.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import uk.ac.soton.comp1206.engine.EngineFixtures;
+import uk.ac.soton.comp1206.engine.GameEngine;
+
+class ZobristTest {
+
+    @Test
+    void keysAreDistinct() {
+        Set<Long> keys = new HashSet<>();
+        for (int index = 0; index < 4096; index++) {
+            assertTrue(keys.add(Zobrist.key(index)));
+        }
+        assertEquals(Zobrist.key(BitGrid.MAX_BLOCKS + 7), Zobrist.key(BitGrid.MAX_BLOCKS + 7));
+    }
+
+    @Test
+    void engineHashFollowsPlay() {
+        GameEngine engine = EngineFixtures.newGame(6, 6, 12);
+        EngineFixtures.randomPlayout(engine, 12, 300, turn -> {
+            long expected = Zobrist.state(Zobrist.hash(engine.getGrid().getOccupied()), engine.getCurrentShape(),
+                engine.getNextShape(), engine.getFollowingShape(), engine.getMultiplier());
+            assertEquals(expected, engine.getHash());
+        });
+    }
+
+    @Test
+    void samePositionByAnotherOrderHasTheSameHash() {
+        // Two pieces that do not touch, played in either order
+        BitGrid first = new BitGrid(8, 8);
+        first.play(0, 0, 1, 1);
+        first.play(3, 0, 5, 5);
+        BitGrid second = new BitGrid(8, 8);
+        second.play(3, 0, 5, 5);
+        second.play(0, 0, 1, 1);
+        assertEquals(first.getOccupied(), second.getOccupied());
+        assertEquals(first.getHash(), second.getHash());
+
+        // Filling a block and emptying it again leaves the hash where it started
+        long before = first.getHash();
+        first.set(7, 0, 3);
+        assertNotEquals(before, first.getHash());
+        first.set(7, 0, 0);
+        assertEquals(before, first.getHash());
+    }
+
+    @Test
+    void stateHashDependsOnQueueSlotAndMultiplier() {
+        long board = Zobrist.hash(0b1011L);
+        long state = Zobrist.state(board, 4, 8, 12, 1);
+        assertNotEquals(state, Zobrist.state(board, 8, 4, 12, 1));
+        assertNotEquals(state, Zobrist.state(board, 4, 8, 12, 2));
+        assertNotEquals(state, Zobrist.state(board, 4, 8, GameEngine.EMPTY, 1));
+        assertEquals(Zobrist.state(board, 4, 8, 12, 100), Zobrist.state(board, 4, 8, 12, 200));
+    }
+}
@@ -0,0 +1,118 @@
+package uk.ac.soton.comp1206.puzzle;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import uk.ac.soton.comp1206.engine.RuleSet;
+import uk.ac.soton.comp1206.engine.StandardRules;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.PlacementTable;
+
+/**
+ * A plain exhaustive search of a puzzle, with no pruning, scoring by asking a rule set about every move, the standard
+ * rules unless given. Placements which cover the same blocks count as one, as they do for the PuzzleSolver.
+ */
+class ExhaustiveSearch {
+
+    /**
+     * The mask of every row, then every column
+     */
+    final long[] lines;
+
+    /**
+     * The distinct placement masks of every piece
+     */
+    final long[][] masks = new long[GamePiece.PIECES][];
+
+    private final int[] pieces;
+    private final RuleSet rules;
+
+    /**
+     * The best score found by the last search
+     */
+    int best;
+
+    /**
+     * The score sequences are counted against, and how many reached it in the last search
+     */
+    int target;
+    int reached;
+
+    ExhaustiveSearch(Puzzle puzzle) {
+        this(puzzle, new StandardRules(puzzle.getCols(), puzzle.getRows()));
+    }
+
+    ExhaustiveSearch(Puzzle puzzle, RuleSet rules) {
+        this.rules = rules;
+        int cols = puzzle.getCols();
+        int rows = puzzle.getRows();
+        PlacementTable placements = PlacementTable.forSize(cols, rows);
+        lines = new long[cols + rows];
+        for (int y = 0; y < rows; y++) {
+            lines[y] = placements.rowMask(y);
+        }
+        for (int x = 0; x < cols; x++) {
+            lines[rows + x] = placements.colMask(x);
+        }
+        for (int piece = 0; piece < GamePiece.PIECES; piece++) {
+            Set<Long> distinct = new LinkedHashSet<>();
+            for (int shape = piece * GamePiece.ROTATIONS; shape < (piece + 1) * GamePiece.ROTATIONS; shape++) {
+                for (int anchor = 0; anchor < cols * rows; anchor++) {
+                    if (placements.mask(shape, anchor) != 0) {
+                        distinct.add(placements.mask(shape, anchor));
+                    }
+                }
+            }
+            masks[piece] = distinct.stream().mapToLong(Long::longValue).toArray();
+        }
+        pieces = puzzle.getPieces();
+    }
+
+    /**
+     * Work out the points of a move
+     */
+    int points(int lines, int blocks, int multiplier) {
+        return lines == 0 ? 0 : rules.getPoints(lines, blocks) * multiplier;
+    }
+
+    /**
+     * Work out the multiplier after a move, or after a piece is skipped, which clears nothing
+     */
+    int nextMultiplier(int multiplier, int lines) {
+        if (lines > 0) {
+            return (int) Math.min((long) multiplier + rules.getMultiplierStep(), rules.getMaxMultiplier());
+        }
+        return 1 + (int) ((multiplier - 1L) * rules.getMultiplierDecay() / 256);
+    }
+
+    /**
+     * Play every sequence, recording the best score and how many sequences reach the target
+     */
+    void search(long occupied, int index, int multiplier, int score) {
+        if (index == pieces.length) {
+            best = Math.max(best, score);
+            reached += score >= target ? 1 : 0;
+            return;
+        }
+        boolean played = false;
+        for (long mask : masks[pieces[index]]) {
+            if ((occupied & mask) != 0) {
+                continue;
+            }
+            played = true;
+            long filled = occupied | mask;
+            long cleared = 0;
+            int count = 0;
+            for (long line : lines) {
+                if ((filled & line) == line) {
+                    cleared |= line;
+                    count++;
+                }
+            }
+            int points = points(count, Long.bitCount(cleared), multiplier);
+            search(filled & ~cleared, index + 1, nextMultiplier(multiplier, count), score + points);
+        }
+        if (!played) {
+            search(occupied, index + 1, nextMultiplier(multiplier, 0), score);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package uk.ac.soton.comp1206.puzzle;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+class PuzzleGeneratorTest {
+
+    @Test
+    void everyPuzzleHasOneBestSolutionWhichNeedsPlanning() {
+        PuzzleGenerator generator = new PuzzleGenerator(5, 5, ForkJoinPool.commonPool());
+        PuzzlePack pack = generator.generate(6, 3, 42);
+        assertEquals(6, pack.size());
+        PuzzleSolver solver = new PuzzleSolver(5, 5, ForkJoinPool.commonPool(), 1 << 16);
+        for (int i = 0; i < pack.size(); i++) {
+            Puzzle puzzle = pack.getPuzzle(i);
+            ExhaustiveSearch search = new ExhaustiveSearch(puzzle);
+            search.search(puzzle.getOccupied(), 0, 1, 0);
+            assertEquals(search.best, pack.getScore(i), puzzle.toString());
+            assertTrue(solver.greedyScore(puzzle) < search.best, puzzle.toString());
+
+            search.target = search.best;
+            search.reached = 0;
+            search.search(puzzle.getOccupied(), 0, 1, 0);
+            assertEquals(1, search.reached, puzzle.toString());
+        }
+    }
+
+    @Test
+    void theSameSeedGivesTheSamePackOnAnyPool() {
+        ForkJoinPool one = new ForkJoinPool(1);
+        ForkJoinPool three = new ForkJoinPool(3);
+        try {
+            PuzzlePack first = new PuzzleGenerator(5, 5, one).generate(4, 3, 7);
+            PuzzlePack second = new PuzzleGenerator(5, 5, three).generate(4, 3, 7);
+            assertEquals(first.size(), second.size());
+            for (int i = 0; i < first.size(); i++) {
+                assertEquals(first.getPuzzle(i), second.getPuzzle(i));
+                assertEquals(first.getScore(i), second.getScore(i));
+            }
+        } finally {
+            one.shutdown();
+            three.shutdown();
+        }
+    }
+
+    @Test
+    void stopsAtTheCandidateCap() {
+        PuzzleGenerator generator = new PuzzleGenerator(5, 5, ForkJoinPool.commonPool());
+        PuzzlePack pack = generator.generate(1000, 3, 42, 50);
+        assertEquals(50, generator.getCandidates());
+        assertTrue(pack.size() < 1000);
+        assertEquals(50, generator.getGreedyRejects() + generator.getPointlessRejects()
+            + generator.getAmbiguousRejects() + pack.size());
+
+        assertEquals(0, new PuzzleGenerator(5, 5, ForkJoinPool.commonPool()).generate(10, 3, 42, 0).size());
+        assertThrows(IllegalArgumentException.class, () -> generator.generate(1, 1, 42));
+    }
+}
@@ -0,0 +1,161 @@
+package uk.ac.soton.comp1206.puzzle;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+import uk.ac.soton.comp1206.engine.MoveGenerator;
+import uk.ac.soton.comp1206.engine.PropertiesRuleSet;
+import uk.ac.soton.comp1206.engine.RuleSet;
+import uk.ac.soton.comp1206.engine.RuleTable;
+import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.PlacementTable;
+
+class PuzzleSolverTest {
+
+    /**
+     * Replay the moves of a solution, checking each is legal, and work out the score they reach by the rules of a
+     * search
+     */
+    private static int replay(Puzzle puzzle, int[] moves, ExhaustiveSearch rules) {
+        PlacementTable placements = PlacementTable.forSize(puzzle.getCols(), puzzle.getRows());
+        long occupied = puzzle.getOccupied();
+        int multiplier = 1;
+        int score = 0;
+        assertEquals(puzzle.getPieceCount(), moves.length);
+        for (int i = 0; i < moves.length; i++) {
+            int move = moves[i];
+            if (move == PuzzleSolution.SKIPPED) {
+                for (long mask : rules.masks[puzzle.getPiece(i)]) {
+                    assertTrue((occupied & mask) != 0, "a piece which fits was skipped");
+                }
+                multiplier = rules.nextMultiplier(multiplier, 0);
+                continue;
+            }
+            assertEquals(puzzle.getPiece(i), MoveGenerator.piece(move));
+            long mask = placements.mask(MoveGenerator.piece(move), MoveGenerator.rotation(move),
+                MoveGenerator.x(move), MoveGenerator.y(move));
+            assertTrue(mask != 0 && (occupied & mask) == 0, "illegal move");
+            long filled = occupied | mask;
+            long cleared = 0;
+            int count = 0;
+            for (long line : rules.lines) {
+                if ((filled & line) == line) {
+                    cleared |= line;
+                    count++;
+                }
+            }
+            score += rules.points(count, Long.bitCount(cleared), multiplier);
+            multiplier = rules.nextMultiplier(multiplier, count);
+            occupied = filled & ~cleared;
+        }
+        return score;
+    }
+
+    /**
+     * Make a random puzzle with roughly the given share of blocks filled
+     */
+    private static Puzzle randomPuzzle(SplittableRandom random, int cols, int rows, int pieces, double filled) {
+        long occupied = 0;
+        for (int block = 0; block < cols * rows; block++) {
+            if (random.nextDouble() < filled) {
+                occupied |= 1L << block;
+            }
+        }
+        int[] sequence = new int[pieces];
+        for (int i = 0; i < pieces; i++) {
+            sequence[i] = random.nextInt(GamePiece.PIECES);
+        }
+        return new Puzzle(cols, rows, occupied, sequence);
+    }
+
+    @Test
+    void solutionsAreOptimalAndReachTheirScore() {
+        SplittableRandom random = new SplittableRandom(17);
+        PuzzleSolver solver4 = new PuzzleSolver(4, 4, ForkJoinPool.commonPool(), 1 << 16);
+        PuzzleSolver solver5 = new PuzzleSolver(5, 5, ForkJoinPool.commonPool(), 1 << 16);
+        int scored = 0;
+        for (int trial = 0; trial < 40; trial++) {
+            boolean small = trial % 2 == 0;
+            Puzzle puzzle = small ? randomPuzzle(random, 4, 4, 4, 0.5) : randomPuzzle(random, 5, 5, 3, 0.6);
+            PuzzleSolver solver = small ? solver4 : solver5;
+
+            ExhaustiveSearch brute = new ExhaustiveSearch(puzzle);
+            brute.search(puzzle.getOccupied(), 0, 1, 0);
+            PuzzleSolution solution = solver.solve(puzzle);
+            assertEquals(brute.best, solution.getScore(), puzzle.toString());
+            assertEquals(solution.getScore(), replay(puzzle, solution.getMoves(), brute), puzzle.toString());
+            assertTrue(solver.greedyScore(puzzle) <= solution.getScore());
+            scored += solution.getScore() > 0 ? 1 : 0;
+        }
+        assertTrue(scored > 5, "too few puzzles scored anything to be a test");
+    }
+
+    @Test
+    void countsEverySequenceReachingAScore() {
+        SplittableRandom random = new SplittableRandom(18);
+        PuzzleSolver solver = new PuzzleSolver(4, 4, ForkJoinPool.commonPool(), 1 << 16);
+        for (int trial = 0; trial < 30; trial++) {
+            Puzzle puzzle = randomPuzzle(random, 4, 4, 3, 0.5);
+            ExhaustiveSearch brute = new ExhaustiveSearch(puzzle);
+            brute.search(puzzle.getOccupied(), 0, 1, 0);
+            int best = brute.best;
+
+            brute.target = best;
+            brute.reached = 0;
+            brute.search(puzzle.getOccupied(), 0, 1, 0);
+            assertEquals(Math.min(brute.reached, 1000), solver.countSolutions(puzzle, best, 1000), puzzle.toString());
+            assertEquals(Math.min(brute.reached, 2), solver.countSolutions(puzzle, best, 2));
+            assertEquals(0, solver.countSolutions(puzzle, best + 1, 1000));
+        }
+    }
+
+    @Test
+    void scoresByTheRulesGiven() {
+        // Points which favour clearing several lines at once, a multiplier which steps by 2 up to 5, and half of it
+        // above 1 kept after a miss
+        Properties props = new Properties();
+        props.setProperty("cols", "4");
+        props.setProperty("rows", "4");
+        props.setProperty("points.lineBlock", "3");
+        props.setProperty("points.line", "25");
+        props.setProperty("points.block", "1");
+        props.setProperty("multiplier.step", "2");
+        props.setProperty("multiplier.max", "5");
+        props.setProperty("multiplier.decay", "128");
+        RuleSet variant = new PropertiesRuleSet(props, "variant");
+        PuzzleSolver solver = new PuzzleSolver(RuleTable.compile(variant), ForkJoinPool.commonPool(), 1 << 16);
+
+        SplittableRandom random = new SplittableRandom(24);
+        int differ = 0;
+        for (int trial = 0; trial < 30; trial++) {
+            Puzzle puzzle = randomPuzzle(random, 4, 4, 5, 0.5);
+            ExhaustiveSearch brute = new ExhaustiveSearch(puzzle, variant);
+            brute.search(puzzle.getOccupied(), 0, 1, 0);
+            PuzzleSolution solution = solver.solve(puzzle);
+            assertEquals(brute.best, solution.getScore(), puzzle.toString());
+            assertEquals(solution.getScore(), replay(puzzle, solution.getMoves(), brute), puzzle.toString());
+            assertTrue(solver.greedyScore(puzzle) <= solution.getScore());
+
+            brute.target = brute.best;
+            brute.reached = 0;
+            brute.search(puzzle.getOccupied(), 0, 1, 0);
+            assertEquals(Math.min(brute.reached, 1000), solver.countSolutions(puzzle, brute.best, 1000));
+
+            ExhaustiveSearch standard = new ExhaustiveSearch(puzzle);
+            standard.search(puzzle.getOccupied(), 0, 1, 0);
+            differ += standard.best != brute.best ? 1 : 0;
+        }
+        assertTrue(differ > 5, "too few puzzles scored differently to be a test");
+    }
+
+    @Test
+    void rejectsPuzzlesOfAnotherSize() {
+        PuzzleSolver solver = new PuzzleSolver(4, 4, ForkJoinPool.commonPool(), 1 << 10);
+        assertThrows(IllegalArgumentException.class, () -> solver.solve(new Puzzle(5, 5, 0, 1, 2)));
+    }
+}
@@ -0,0 +1,113 @@
+package uk.ac.soton.comp1206.utility;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class QuantileSketchTest {
+
+    private static final double[] QUANTILES = {0, 0.001, 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99, 0.999, 1};
+
+    /**
+     * Check every quantile of a sketch against the exact value of the same rank, which the sketch answers with the
+     * middle of its bucket: never more than half a bucket, 1/128 of the value, away
+     */
+    private static void checkQuantiles(QuantileSketch sketch, long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        for (double quantile : QUANTILES) {
+            long rank = Math.max(1, (long) Math.ceil(quantile * sorted.length));
+            long exact = sorted[(int) rank - 1];
+            long estimate = sketch.quantile(quantile);
+            assertTrue(Math.abs(estimate - exact) <= exact / 128.0,
+                "q" + quantile + ": estimated " + estimate + ", exact " + exact);
+        }
+        assertEquals(sorted[0], sketch.getMin());
+        assertEquals(sorted[sorted.length - 1], sketch.getMax());
+        assertEquals(values.length, sketch.getCount());
+        assertEquals(Arrays.stream(values).average().orElse(0), sketch.getMean(), 1e-6);
+    }
+
+    @Test
+    void smallValuesAreExact() {
+        QuantileSketch sketch = new QuantileSketch();
+        long[] values = new long[128];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i;
+            sketch.add(i);
+        }
+        for (int i = 1; i <= 128; i++) {
+            assertEquals(i - 1, sketch.quantile(i / 128.0));
+        }
+        checkQuantiles(sketch, values);
+    }
+
+    @Test
+    void estimatesStayWithinTheBucketBound() {
+        SplittableRandom random = new SplittableRandom(20);
+        for (int trial = 0; trial < 20; trial++) {
+            QuantileSketch sketch = new QuantileSketch();
+            long[] values = new long[1 + random.nextInt(20_000)];
+            for (int i = 0; i < values.length; i++) {
+                // Spread over many powers of two, like scores from very different bots
+                values[i] = (long) Math.exp(random.nextDouble() * (trial + 2) * 2);
+                sketch.add(values[i]);
+            }
+            checkQuantiles(sketch, values);
+        }
+    }
+
+    @Test
+    void mergingIsTheSameAsAddingEverything() {
+        SplittableRandom random = new SplittableRandom(21);
+        QuantileSketch all = new QuantileSketch();
+        QuantileSketch first = new QuantileSketch();
+        QuantileSketch second = new QuantileSketch();
+        long[] values = new long[5000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextLong(1_000_000);
+            all.add(values[i]);
+            (i % 3 == 0 ? first : second).add(values[i]);
+        }
+        first.merge(second);
+        for (double quantile : QUANTILES) {
+            assertEquals(all.quantile(quantile), first.quantile(quantile));
+        }
+        checkQuantiles(first, values);
+    }
+
+    @Test
+    void threadsCanAddAtOnce() {
+        QuantileSketch sketch = new QuantileSketch();
+        IntStream.range(0, 100_000).parallel().forEach(i -> sketch.add(i % 1000));
+        assertEquals(100_000, sketch.getCount());
+        assertEquals(0, sketch.getMin());
+        assertEquals(999, sketch.getMax());
+        assertEquals(499.5, sketch.getMean(), 1e-9);
+        long median = sketch.quantile(0.5);
+        assertTrue(Math.abs(median - 499) <= 499 / 128.0 + 1);
+    }
+
+    @Test
+    void edgeCases() {
+        QuantileSketch sketch = new QuantileSketch();
+        assertEquals(0, sketch.quantile(0.5));
+        assertEquals(0, sketch.getMin());
+        assertEquals(0, sketch.getMax());
+        assertEquals(0, sketch.getMean());
+        assertThrows(IllegalArgumentException.class, () -> sketch.add(-1));
+
+        sketch.add(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, sketch.quantile(0.5));
+        sketch.add(42);
+        assertEquals(42, sketch.quantile(0.5));
+        // The largest bucket does not overflow: its middle is within the bound of the largest long
+        assertTrue(Long.MAX_VALUE - sketch.quantile(1) <= Long.MAX_VALUE / 128.0);
+        assertEquals(Long.MAX_VALUE, sketch.getMax());
+    }
+}